@@ -0,0 +1,77 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.autoconfigure;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mobile.device.DeviceResolver;
+import org.springframework.mobile.device.metrics.DeviceMetrics;
+import org.springframework.mobile.device.metrics.MeteredDeviceResolver;
+import org.springframework.mobile.device.metrics.SiteMetricsFilter;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for Micrometer metrics of Spring
+ * Mobile's device resolution, site preference and site switching, applied when a
+ * {@link MeterRegistry} bean is present. The auto-configured {@link DeviceResolver} is
+ * decorated by a {@link MeteredDeviceResolver}, and site preferences and site switcher
+ * redirects are recorded by a {@link SiteMetricsFilter}. The meters are registered
+ * under the {@code spring.mobile} prefix, so they can be disabled with
+ * {@code management.metrics.enable.spring.mobile=false}.
+ *
+ * @since 2.0
+ */
+@Configuration
+@ConditionalOnClass({MeterRegistry.class, DeviceMetrics.class})
+@AutoConfigureAfter(name = {
+		"org.springframework.boot.actuate.autoconfigure.metrics.MetricsAutoConfiguration",
+		"org.springframework.boot.actuate.autoconfigure.metrics.CompositeMeterRegistryAutoConfiguration" })
+@ConditionalOnBean(MeterRegistry.class)
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class DeviceMetricsAutoConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	public DeviceMetrics deviceMetrics(MeterRegistry registry) {
+		return new DeviceMetrics(registry);
+	}
+
+	@Bean
+	public DeviceResolverDecorator meteredDeviceResolverDecorator(final DeviceMetrics deviceMetrics) {
+		return new DeviceResolverDecorator() {
+			@Override
+			public DeviceResolver decorate(DeviceResolver deviceResolver) {
+				return new MeteredDeviceResolver(deviceResolver, deviceMetrics);
+			}
+		};
+	}
+
+	@Bean
+	public FilterRegistrationBean<SiteMetricsFilter> siteMetricsFilter(DeviceMetrics deviceMetrics) {
+		return new FilterRegistrationBean<>(new SiteMetricsFilter(deviceMetrics));
+	}
+
+}
@@ -16,24 +16,58 @@
 
 package org.springframework.mobile.autoconfigure;
 
+import java.util.EnumSet;
+import java.util.List;
+
+import javax.servlet.DispatcherType;
+
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
 import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
 import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.mobile.device.CachingDeviceResolver;
+import org.springframework.mobile.device.DeviceCacheSnapshotter;
 import org.springframework.mobile.device.DeviceHandlerMethodArgumentResolver;
 import org.springframework.mobile.device.DeviceResolver;
 import org.springframework.mobile.device.DeviceResolverHandlerInterceptor;
+import org.springframework.mobile.device.DeviceResolverRequestFilter;
+import org.springframework.mobile.device.EnrichingDeviceResolver;
+import org.springframework.mobile.device.LazyDeviceResolver;
+import org.springframework.mobile.device.LiteDeviceResolver;
 import org.springframework.mobile.device.annotation.DeviceResolverConfigurer;
 import org.springframework.mobile.device.annotation.EnableDeviceResolver;
+import org.springframework.util.CollectionUtils;
+import org.springframework.util.StringUtils;
+import org.springframework.web.method.support.HandlerMethodArgumentResolver;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
 
 /**
  * {@link EnableAutoConfiguration Auto-configuration} for Spring Mobile's
- * {@link DeviceResolver}.
+ * {@link DeviceResolver}. Resolved devices are cached by a
+ * {@link CachingDeviceResolver} if {@code spring.mobile.deviceresolver.cache.enabled}
+ * is set, and the cache is kept warm across restarts by a {@link DeviceCacheSnapshotter}
+ * if {@code spring.mobile.deviceresolver.cache.snapshot.file} is set. Devices are
+ * resolved on first use by a {@link LazyDeviceResolver} if
+ * {@code spring.mobile.deviceresolver.lazy} is set. Unless there is a
+ * {@link DeviceResolver} bean, devices are resolved by a {@link LiteDeviceResolver}
+ * limited to the configured User-Agent length and header count. {@link DeviceResolverDecorator}
+ * beans, such as the one registered by {@link DeviceMetricsAutoConfiguration}, decorate
+ * the resolver inside any lazy resolution. Devices are resolved by a
+ * {@link DeviceResolverRequestFilter}, restricted to the configured paths and dispatcher
+ * types, instead of a {@link DeviceResolverHandlerInterceptor} if
+ * {@code spring.mobile.deviceresolver.filter.enabled} is set. The filter or interceptor
+ * shares its resolver with the {@link DeviceHandlerMethodArgumentResolver}, and a device
+ * already resolved for a request is never resolved again.
  *
  * @author Roy Clarkson
  * @since 2.0
@@ -43,29 +77,182 @@ import org.springframework.mobile.device.annotation.EnableDeviceResolver;
 		DeviceHandlerMethodArgumentResolver.class})
 @AutoConfigureAfter(WebMvcAutoConfiguration.class)
 @ConditionalOnWebApplication(type = Type.SERVLET)
+@EnableConfigurationProperties(DeviceResolverProperties.class)
 public class DeviceResolverAutoConfiguration {
 
+	private static LiteDeviceResolver liteDeviceResolver(DeviceResolverProperties properties) {
+		LiteDeviceResolver resolver = new LiteDeviceResolver();
+		if (properties.getMaxUserAgentLength() != null) {
+			resolver.setMaxUserAgentLength(properties.getMaxUserAgentLength());
+		}
+		if (properties.getMaxHeaderCount() != null) {
+			resolver.setMaxHeaderCount(properties.getMaxHeaderCount());
+		}
+		return resolver;
+	}
+
+	private static DeviceResolver cache(DeviceResolver deviceResolver, DeviceResolverProperties properties) {
+		// lazy devices are bound to their request and must not be cached
+		if (properties.getCache().isEnabled() && !(deviceResolver instanceof CachingDeviceResolver)
+				&& !(deviceResolver instanceof LazyDeviceResolver)) {
+			CachingDeviceResolver cache = new CachingDeviceResolver(deviceResolver,
+					properties.getCache().getMaximumSize());
+			cache.setNormalizeUserAgents(properties.getCache().isNormalizeUserAgents());
+			deviceResolver = cache;
+		}
+		return deviceResolver;
+	}
+
+	private static DeviceResolver decorate(DeviceResolver deviceResolver, DeviceResolverProperties properties,
+			ObjectProvider<List<DeviceResolverDecorator>> decorators) {
+		List<DeviceResolverDecorator> decoratorList = decorators.getIfAvailable();
+		boolean lazy = properties.isLazy();
+		if (deviceResolver instanceof LazyDeviceResolver && !CollectionUtils.isEmpty(decoratorList)) {
+			// decorators must not resolve lazy devices, so they decorate the delegate instead
+			deviceResolver = ((LazyDeviceResolver) deviceResolver).getDelegate();
+			lazy = true;
+		}
+		if (decoratorList != null) {
+			for (DeviceResolverDecorator decorator : decoratorList) {
+				deviceResolver = decorator.decorate(deviceResolver);
+			}
+		}
+		if (lazy && !(deviceResolver instanceof LazyDeviceResolver)) {
+			deviceResolver = new LazyDeviceResolver(deviceResolver);
+		}
+		return deviceResolver;
+	}
+
+	private static DeviceCacheSnapshotter snapshotter(DeviceResolver deviceResolver,
+			DeviceResolverProperties properties) {
+		if (deviceResolver instanceof LazyDeviceResolver) {
+			deviceResolver = ((LazyDeviceResolver) deviceResolver).getDelegate();
+		}
+		if (!(deviceResolver instanceof CachingDeviceResolver)) {
+			return null;
+		}
+		CachingDeviceResolver cache = (CachingDeviceResolver) deviceResolver;
+		if (cache.getDelegate() instanceof EnrichingDeviceResolver) {
+			// snapshots only hold plain devices, not enriched ones
+			return null;
+		}
+		DeviceResolverProperties.Snapshot snapshot = properties.getCache().getSnapshot();
+		if (snapshot.getVersion() == null && !(cache.getDelegate() instanceof LiteDeviceResolver)) {
+			throw new IllegalStateException("Set spring.mobile.deviceresolver.cache.snapshot.version to snapshot "
+					+ "the devices of a " + cache.getDelegate().getClass().getName());
+		}
+		DeviceCacheSnapshotter snapshotter = (snapshot.getVersion() != null
+				? new DeviceCacheSnapshotter(cache, snapshot.getFile(), snapshot.getVersion())
+				: new DeviceCacheSnapshotter(cache, snapshot.getFile()));
+		snapshotter.setInterval(snapshot.getInterval());
+		return snapshotter;
+	}
+
 	@Configuration
 	@ConditionalOnBean(DeviceResolver.class)
+	@ConditionalOnProperty(prefix = "spring.mobile.deviceresolver.filter", name = "enabled", havingValue = "false",
+			matchIfMissing = true)
 	@EnableDeviceResolver
 	protected static class DeviceResolverConfigurationAdapter implements DeviceResolverConfigurer {
 
-		private DeviceResolver deviceResolver;
+		private final DeviceResolver undecoratedDeviceResolver;
 
-		public DeviceResolverConfigurationAdapter(DeviceResolver deviceResolver) {
-			this.deviceResolver = deviceResolver;
+		private final DeviceResolver deviceResolver;
+
+		public DeviceResolverConfigurationAdapter(DeviceResolver deviceResolver,
+				DeviceResolverProperties properties, ObjectProvider<List<DeviceResolverDecorator>> decorators) {
+			this.undecoratedDeviceResolver = cache(deviceResolver, properties);
+			this.deviceResolver = decorate(this.undecoratedDeviceResolver, properties, decorators);
 		}
 
 		@Override
 		public DeviceResolver getDeviceResolver() {
 			return this.deviceResolver;
 		}
+
+		@Bean
+		@ConditionalOnProperty(prefix = "spring.mobile.deviceresolver.cache", name = {"enabled", "snapshot.file"})
+		public DeviceCacheSnapshotter deviceCacheSnapshotter(DeviceResolverProperties properties) {
+			return snapshotter(this.undecoratedDeviceResolver, properties);
+		}
 	}
 
 	@Configuration
 	@ConditionalOnMissingBean(DeviceResolver.class)
+	@ConditionalOnProperty(prefix = "spring.mobile.deviceresolver.filter", name = "enabled", havingValue = "false",
+			matchIfMissing = true)
 	@EnableDeviceResolver
-	protected static class DefaultDeviceResolverConfigurationAdapter {
+	protected static class DefaultDeviceResolverConfigurationAdapter implements DeviceResolverConfigurer {
+
+		private final DeviceResolver undecoratedDeviceResolver;
+
+		private final DeviceResolver deviceResolver;
+
+		public DefaultDeviceResolverConfigurationAdapter(DeviceResolverProperties properties,
+				ObjectProvider<List<DeviceResolverDecorator>> decorators) {
+			this.undecoratedDeviceResolver = cache(liteDeviceResolver(properties), properties);
+			this.deviceResolver = decorate(this.undecoratedDeviceResolver, properties, decorators);
+		}
+
+		@Override
+		public DeviceResolver getDeviceResolver() {
+			return this.deviceResolver;
+		}
+
+		@Bean
+		@ConditionalOnProperty(prefix = "spring.mobile.deviceresolver.cache", name = {"enabled", "snapshot.file"})
+		public DeviceCacheSnapshotter deviceCacheSnapshotter(DeviceResolverProperties properties) {
+			return snapshotter(this.undecoratedDeviceResolver, properties);
+		}
+	}
+
+	@Configuration
+	@ConditionalOnProperty(prefix = "spring.mobile.deviceresolver.filter", name = "enabled", havingValue = "true")
+	protected static class DeviceResolverFilterConfiguration implements WebMvcConfigurer {
+
+		private final DeviceResolver undecoratedDeviceResolver;
+
+		private final DeviceResolver deviceResolver;
+
+		private final DeviceHandlerMethodArgumentResolver deviceHandlerMethodArgumentResolver;
+
+		public DeviceResolverFilterConfiguration(ObjectProvider<DeviceResolver> deviceResolver,
+				DeviceResolverProperties properties, ObjectProvider<List<DeviceResolverDecorator>> decorators) {
+			DeviceResolver resolver = deviceResolver.getIfAvailable();
+			this.undecoratedDeviceResolver = cache(resolver != null ? resolver : liteDeviceResolver(properties),
+					properties);
+			this.deviceResolver = decorate(this.undecoratedDeviceResolver, properties, decorators);
+			this.deviceHandlerMethodArgumentResolver = new DeviceHandlerMethodArgumentResolver(this.deviceResolver);
+		}
+
+		@Bean
+		public FilterRegistrationBean<DeviceResolverRequestFilter> deviceResolverRequestFilter(
+				DeviceResolverProperties properties) {
+			DeviceResolverRequestFilter filter = new DeviceResolverRequestFilter(this.deviceResolver);
+			DeviceResolverProperties.Filter filterProperties = properties.getFilter();
+			filter.setIncludePathPatterns(StringUtils.toStringArray(filterProperties.getIncludePatterns()));
+			filter.setExcludePathPatterns(StringUtils.toStringArray(filterProperties.getExcludePatterns()));
+			filter.setDispatcherTypes(filterProperties.getDispatcherTypes().toArray(new DispatcherType[0]));
+			FilterRegistrationBean<DeviceResolverRequestFilter> registration = new FilterRegistrationBean<>(filter);
+			registration.setDispatcherTypes(EnumSet.copyOf(filterProperties.getDispatcherTypes()));
+			return registration;
+		}
+
+		@Bean
+		public DeviceHandlerMethodArgumentResolver deviceHandlerMethodArgumentResolver() {
+			return this.deviceHandlerMethodArgumentResolver;
+		}
+
+		@Bean
+		@ConditionalOnProperty(prefix = "spring.mobile.deviceresolver.cache", name = {"enabled", "snapshot.file"})
+		public DeviceCacheSnapshotter deviceCacheSnapshotter(DeviceResolverProperties properties) {
+			return snapshotter(this.undecoratedDeviceResolver, properties);
+		}
+
+		@Override
+		public void addArgumentResolvers(List<HandlerMethodArgumentResolver> argumentResolvers) {
+			argumentResolvers.add(this.deviceHandlerMethodArgumentResolver);
+		}
 
 	}
 
@@ -0,0 +1,43 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.autoconfigure;
+
+import org.springframework.mobile.device.CachingDeviceResolver;
+import org.springframework.mobile.device.DeviceResolver;
+import org.springframework.mobile.device.LazyDeviceResolver;
+
+/**
+ * Callback interface for beans that decorate the {@link DeviceResolver} configured by
+ * {@link DeviceResolverAutoConfiguration}, for instance to instrument it. Decorators
+ * are applied after the resolver is wrapped in a {@link CachingDeviceResolver}, if
+ * caching is enabled, and before it is wrapped in a {@link LazyDeviceResolver}, so a
+ * decorator sees every resolution as experienced by requests and only the devices
+ * that are actually used.
+ *
+ * @since 2.0
+ */
+@FunctionalInterface
+public interface DeviceResolverDecorator {
+
+	/**
+	 * Decorate the given device resolver.
+	 * @param deviceResolver the device resolver to decorate
+	 * @return the decorated device resolver
+	 */
+	DeviceResolver decorate(DeviceResolver deviceResolver);
+
+}
@@ -0,0 +1,248 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.autoconfigure;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+import javax.servlet.DispatcherType;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.mobile.device.CachingDeviceResolver;
+
+/**
+ * Properties for device resolution.
+ *
+ * @since 2.0
+ */
+@ConfigurationProperties(prefix = "spring.mobile.deviceresolver")
+public class DeviceResolverProperties {
+
+	/**
+	 * Resolve the device on first use rather than for every request.
+	 */
+	private boolean lazy;
+
+	/**
+	 * Maximum number of User-Agent characters examined by the default device
+	 * resolver. Unlimited if not set.
+	 */
+	private Integer maxUserAgentLength;
+
+	/**
+	 * Maximum number of request header names inspected by the default device resolver.
+	 * Unlimited if not set.
+	 */
+	private Integer maxHeaderCount;
+
+	private final Cache cache = new Cache();
+
+	private final Filter filter = new Filter();
+
+	public boolean isLazy() {
+		return this.lazy;
+	}
+
+	public void setLazy(boolean lazy) {
+		this.lazy = lazy;
+	}
+
+	public Integer getMaxUserAgentLength() {
+		return this.maxUserAgentLength;
+	}
+
+	public void setMaxUserAgentLength(Integer maxUserAgentLength) {
+		this.maxUserAgentLength = maxUserAgentLength;
+	}
+
+	public Integer getMaxHeaderCount() {
+		return this.maxHeaderCount;
+	}
+
+	public void setMaxHeaderCount(Integer maxHeaderCount) {
+		this.maxHeaderCount = maxHeaderCount;
+	}
+
+	public Cache getCache() {
+		return this.cache;
+	}
+
+	public Filter getFilter() {
+		return this.filter;
+	}
+
+	public static class Cache {
+
+		/**
+		 * Enable caching of resolved devices by User-Agent.
+		 */
+		private boolean enabled;
+
+		/**
+		 * Maximum number of User-Agents kept in the cache.
+		 */
+		private int maximumSize = CachingDeviceResolver.DEFAULT_MAXIMUM_SIZE;
+
+		/**
+		 * Cache devices by normalized User-Agent, so that User-Agents only differing in
+		 * version numbers share an entry. Raises the hit ratio, but a normalized hit is
+		 * about as expensive as resolving the device.
+		 */
+		private boolean normalizeUserAgents;
+
+		private final Snapshot snapshot = new Snapshot();
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public int getMaximumSize() {
+			return this.maximumSize;
+		}
+
+		public void setMaximumSize(int maximumSize) {
+			this.maximumSize = maximumSize;
+		}
+
+		public boolean isNormalizeUserAgents() {
+			return this.normalizeUserAgents;
+		}
+
+		public void setNormalizeUserAgents(boolean normalizeUserAgents) {
+			this.normalizeUserAgents = normalizeUserAgents;
+		}
+
+		public Snapshot getSnapshot() {
+			return this.snapshot;
+		}
+
+	}
+
+	public static class Snapshot {
+
+		/**
+		 * File the cache is loaded from on startup and written to on shutdown, to start
+		 * with a warm cache after a restart.
+		 */
+		private Path file;
+
+		/**
+		 * Interval between periodic snapshots. By default, the snapshot is only written
+		 * on shutdown.
+		 */
+		private Duration interval;
+
+		/**
+		 * Version of the device resolution rules, to discard snapshots of other rules.
+		 * Defaults to the version of the LiteDeviceResolver rules.
+		 */
+		private String version;
+
+		public Path getFile() {
+			return this.file;
+		}
+
+		public void setFile(Path file) {
+			this.file = file;
+		}
+
+		public Duration getInterval() {
+			return this.interval;
+		}
+
+		public void setInterval(Duration interval) {
+			this.interval = interval;
+		}
+
+		public String getVersion() {
+			return this.version;
+		}
+
+		public void setVersion(String version) {
+			this.version = version;
+		}
+
+	}
+
+	public static class Filter {
+
+		/**
+		 * Resolve devices in a servlet filter instead of a Spring MVC interceptor.
+		 */
+		private boolean enabled;
+
+		/**
+		 * Path patterns of the requests to resolve the device for, in servlet filter
+		 * mode and in reactive applications. By default, the device is resolved for all
+		 * requests.
+		 */
+		private List<String> includePatterns = new ArrayList<>();
+
+		/**
+		 * Path patterns of the requests not to resolve the device for.
+		 */
+		private List<String> excludePatterns = new ArrayList<>();
+
+		/**
+		 * Dispatcher types to resolve the device for, in servlet filter mode.
+		 */
+		private Set<DispatcherType> dispatcherTypes = EnumSet.of(DispatcherType.REQUEST, DispatcherType.FORWARD,
+				DispatcherType.INCLUDE);
+
+		public boolean isEnabled() {
+			return this.enabled;
+		}
+
+		public void setEnabled(boolean enabled) {
+			this.enabled = enabled;
+		}
+
+		public List<String> getIncludePatterns() {
+			return this.includePatterns;
+		}
+
+		public void setIncludePatterns(List<String> includePatterns) {
+			this.includePatterns = includePatterns;
+		}
+
+		public List<String> getExcludePatterns() {
+			return this.excludePatterns;
+		}
+
+		public void setExcludePatterns(List<String> excludePatterns) {
+			this.excludePatterns = excludePatterns;
+		}
+
+		public Set<DispatcherType> getDispatcherTypes() {
+			return this.dispatcherTypes;
+		}
+
+		public void setDispatcherTypes(Set<DispatcherType> dispatcherTypes) {
+			this.dispatcherTypes = dispatcherTypes;
+		}
+
+	}
+
+}
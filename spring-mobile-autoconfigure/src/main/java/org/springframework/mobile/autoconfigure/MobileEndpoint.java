@@ -0,0 +1,492 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.autoconfigure;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.lang.Nullable;
+import org.springframework.mobile.device.CachingDeviceResolver;
+import org.springframework.mobile.device.ClientHintsDeviceResolver;
+import org.springframework.mobile.device.DeviceResolver;
+import org.springframework.mobile.device.DeviceType;
+import org.springframework.mobile.device.EnrichingDeviceResolver;
+import org.springframework.mobile.device.LazyDeviceResolver;
+import org.springframework.mobile.device.LiteDeviceResolver;
+import org.springframework.mobile.device.ShadowDeviceResolver;
+import org.springframework.mobile.device.TieredDeviceResolver;
+import org.springframework.mobile.device.metrics.DeviceStatistics;
+import org.springframework.mobile.device.metrics.MeteredDeviceResolver;
+import org.springframework.mobile.device.site.SitePreference;
+
+/**
+ * {@link Endpoint} exposing the state of Spring Mobile's device resolution and site
+ * switching: the chain of device resolvers in effect, the version of the compiled
+ * {@link LiteDeviceResolver} rules, the size and hit ratio of the
+ * {@link CachingDeviceResolver}, the evaluation of the candidate of a
+ * {@link ShadowDeviceResolver}, and, if statistics are recorded, how often each rule
+ * decided and the device types, site preferences and site switcher redirects in
+ * {@link DeviceStatistics}. All counts are read from lock-free counters, so reading the
+ * endpoint never blocks request threads.
+ *
+ * @since 2.0
+ */
+@Endpoint(id = "mobile")
+public class MobileEndpoint {
+
+	private final DeviceResolver deviceResolver;
+
+	private final DeviceStatistics statistics;
+
+	/**
+	 * Create a new endpoint.
+	 * @param deviceResolver the device resolver in effect, if any
+	 * @param statistics the statistics to report, if they are recorded
+	 */
+	public MobileEndpoint(@Nullable DeviceResolver deviceResolver, @Nullable DeviceStatistics statistics) {
+		this.deviceResolver = deviceResolver;
+		this.statistics = statistics;
+	}
+
+	@ReadOperation
+	public MobileDescriptor mobile() {
+		ResolverDescriptor resolver = null;
+		RulesDescriptor rules = null;
+		CacheDescriptor cache = null;
+		ShadowDescriptor shadow = null;
+		if (this.deviceResolver != null) {
+			resolver = describe(this.deviceResolver);
+			LiteDeviceResolver liteDeviceResolver = find(this.deviceResolver, LiteDeviceResolver.class);
+			if (liteDeviceResolver != null) {
+				rules = new RulesDescriptor(liteDeviceResolver);
+			}
+			CachingDeviceResolver cachingDeviceResolver = find(this.deviceResolver, CachingDeviceResolver.class);
+			if (cachingDeviceResolver != null) {
+				cache = new CacheDescriptor(cachingDeviceResolver);
+			}
+			ShadowDeviceResolver shadowDeviceResolver = find(this.deviceResolver, ShadowDeviceResolver.class);
+			if (shadowDeviceResolver != null) {
+				shadow = new ShadowDescriptor(shadowDeviceResolver);
+			}
+		}
+		DevicesDescriptor devices = null;
+		SiteDescriptor site = null;
+		if (this.statistics != null) {
+			devices = new DevicesDescriptor(this.statistics);
+			site = new SiteDescriptor(this.statistics);
+		}
+		return new MobileDescriptor(resolver, rules, cache, shadow, devices, site);
+	}
+
+	private static ResolverDescriptor describe(DeviceResolver deviceResolver) {
+		List<ResolverDescriptor> delegates = new ArrayList<>();
+		for (DeviceResolver delegate : getDelegates(deviceResolver)) {
+			delegates.add(describe(delegate));
+		}
+		return new ResolverDescriptor(deviceResolver.getClass().getName(), delegates);
+	}
+
+	@Nullable
+	static <T extends DeviceResolver> T find(DeviceResolver deviceResolver, Class<T> type) {
+		if (type.isInstance(deviceResolver)) {
+			return type.cast(deviceResolver);
+		}
+		for (DeviceResolver delegate : getDelegates(deviceResolver)) {
+			T found = find(delegate, type);
+			if (found != null) {
+				return found;
+			}
+		}
+		return null;
+	}
+
+	private static List<DeviceResolver> getDelegates(DeviceResolver deviceResolver) {
+		if (deviceResolver instanceof LazyDeviceResolver) {
+			return Collections.singletonList(((LazyDeviceResolver) deviceResolver).getDelegate());
+		}
+		if (deviceResolver instanceof MeteredDeviceResolver) {
+			return Collections.singletonList(((MeteredDeviceResolver) deviceResolver).getDelegate());
+		}
+		if (deviceResolver instanceof CachingDeviceResolver) {
+			return Collections.singletonList(((CachingDeviceResolver) deviceResolver).getDelegate());
+		}
+		if (deviceResolver instanceof EnrichingDeviceResolver) {
+			return Collections.singletonList(((EnrichingDeviceResolver) deviceResolver).getDelegate());
+		}
+		if (deviceResolver instanceof ClientHintsDeviceResolver
+				&& ((ClientHintsDeviceResolver) deviceResolver).getFallback() != null) {
+			return Collections.singletonList(((ClientHintsDeviceResolver) deviceResolver).getFallback());
+		}
+		if (deviceResolver instanceof ShadowDeviceResolver) {
+			ShadowDeviceResolver shadow = (ShadowDeviceResolver) deviceResolver;
+			return Arrays.asList(shadow.getPrimary(), shadow.getCandidate());
+		}
+		if (deviceResolver instanceof TieredDeviceResolver) {
+			List<DeviceResolver> tiers = new ArrayList<>();
+			for (TieredDeviceResolver.Tier tier : ((TieredDeviceResolver) deviceResolver).getTiers()) {
+				tiers.add(tier.getResolver());
+			}
+			return tiers;
+		}
+		return Collections.emptyList();
+	}
+
+
+	/**
+	 * Description of device resolution and site switching.
+	 */
+	public static final class MobileDescriptor {
+
+		private final ResolverDescriptor resolver;
+
+		private final RulesDescriptor rules;
+
+		private final CacheDescriptor cache;
+
+		private final ShadowDescriptor shadow;
+
+		private final DevicesDescriptor devices;
+
+		private final SiteDescriptor site;
+
+		private MobileDescriptor(ResolverDescriptor resolver, RulesDescriptor rules, CacheDescriptor cache,
+				ShadowDescriptor shadow, DevicesDescriptor devices, SiteDescriptor site) {
+			this.resolver = resolver;
+			this.rules = rules;
+			this.cache = cache;
+			this.shadow = shadow;
+			this.devices = devices;
+			this.site = site;
+		}
+
+		/**
+		 * Return the device resolver in effect, or {@code null} if there is none.
+		 */
+		public ResolverDescriptor getResolver() {
+			return this.resolver;
+		}
+
+		/**
+		 * Return the rules of the first {@link LiteDeviceResolver} of the chain, or
+		 * {@code null} if there is none.
+		 */
+		public RulesDescriptor getRules() {
+			return this.rules;
+		}
+
+		/**
+		 * Return the first {@link CachingDeviceResolver} of the chain, or {@code null}
+		 * if there is none.
+		 */
+		public CacheDescriptor getCache() {
+			return this.cache;
+		}
+
+		/**
+		 * Return the first {@link ShadowDeviceResolver} of the chain, or {@code null}
+		 * if there is none.
+		 */
+		public ShadowDescriptor getShadow() {
+			return this.shadow;
+		}
+
+		/**
+		 * Return the resolved devices, or {@code null} if statistics are not recorded.
+		 */
+		public DevicesDescriptor getDevices() {
+			return this.devices;
+		}
+
+		/**
+		 * Return the site preferences and site switcher redirects, or {@code null} if
+		 * statistics are not recorded.
+		 */
+		public SiteDescriptor getSite() {
+			return this.site;
+		}
+
+	}
+
+
+	/**
+	 * Description of a device resolver and the resolvers it delegates to.
+	 */
+	public static final class ResolverDescriptor {
+
+		private final String type;
+
+		private final List<ResolverDescriptor> delegates;
+
+		private ResolverDescriptor(String type, List<ResolverDescriptor> delegates) {
+			this.type = type;
+			this.delegates = delegates;
+		}
+
+		public String getType() {
+			return this.type;
+		}
+
+		public List<ResolverDescriptor> getDelegates() {
+			return this.delegates;
+		}
+
+	}
+
+
+	/**
+	 * Description of the rules of a {@link LiteDeviceResolver}.
+	 */
+	public static final class RulesDescriptor {
+
+		private final String version;
+
+		private final Map<String, Long> hits;
+
+		private RulesDescriptor(LiteDeviceResolver deviceResolver) {
+			this.version = deviceResolver.getRules().getVersion();
+			this.hits = (deviceResolver.isRecordRuleHits() ? deviceResolver.getRuleHits() : null);
+		}
+
+		public String getVersion() {
+			return this.version;
+		}
+
+		public Map<String, Long> getHits() {
+			return this.hits;
+		}
+
+	}
+
+
+	/**
+	 * Description of a {@link CachingDeviceResolver}.
+	 */
+	public static final class CacheDescriptor {
+
+		private final int size;
+
+		private final int maximumSize;
+
+		private final long hitCount;
+
+		private final long missCount;
+
+		private final long evictionCount;
+
+		private CacheDescriptor(CachingDeviceResolver deviceResolver) {
+			this.size = deviceResolver.getSize();
+			this.maximumSize = deviceResolver.getMaximumSize();
+			this.hitCount = deviceResolver.getHitCount();
+			this.missCount = deviceResolver.getMissCount();
+			this.evictionCount = deviceResolver.getEvictionCount();
+		}
+
+		public int getSize() {
+			return this.size;
+		}
+
+		public int getMaximumSize() {
+			return this.maximumSize;
+		}
+
+		public long getHitCount() {
+			return this.hitCount;
+		}
+
+		public long getMissCount() {
+			return this.missCount;
+		}
+
+		public long getEvictionCount() {
+			return this.evictionCount;
+		}
+
+		/**
+		 * Return the ratio of resolutions answered from the cache, or {@code 0} if
+		 * there were none.
+		 */
+		public double getHitRatio() {
+			long requestCount = this.hitCount + this.missCount;
+			return (requestCount > 0 ? (double) this.hitCount / requestCount : 0);
+		}
+
+	}
+
+
+	/**
+	 * Description of the evaluation of a {@link ShadowDeviceResolver}'s candidate.
+	 */
+	public static final class ShadowDescriptor {
+
+		private final String candidate;
+
+		private final long comparisonCount;
+
+		private final double agreementRatio;
+
+		private final long droppedCount;
+
+		private final long failureCount;
+
+		private final long primaryTimeNanos;
+
+		private final long candidateTimeNanos;
+
+		private final List<String> mismatches = new ArrayList<>();
+
+		private ShadowDescriptor(ShadowDeviceResolver deviceResolver) {
+			this.candidate = deviceResolver.getCandidate().getClass().getName();
+			this.comparisonCount = deviceResolver.getComparisonCount();
+			this.agreementRatio = deviceResolver.getAgreementRatio();
+			this.droppedCount = deviceResolver.getDroppedCount();
+			this.failureCount = deviceResolver.getFailureCount();
+			this.primaryTimeNanos = deviceResolver.getPrimaryTime().toNanos();
+			this.candidateTimeNanos = deviceResolver.getCandidateTime().toNanos();
+			for (ShadowDeviceResolver.Mismatch mismatch : deviceResolver.getMismatches()) {
+				this.mismatches.add(mismatch.toString());
+			}
+		}
+
+		public String getCandidate() {
+			return this.candidate;
+		}
+
+		public long getComparisonCount() {
+			return this.comparisonCount;
+		}
+
+		public double getAgreementRatio() {
+			return this.agreementRatio;
+		}
+
+		public long getDroppedCount() {
+			return this.droppedCount;
+		}
+
+		public long getFailureCount() {
+			return this.failureCount;
+		}
+
+		/**
+		 * Return the mean time taken by the primary resolver for a compared request,
+		 * in nanoseconds.
+		 */
+		public long getMeanPrimaryTimeNanos() {
+			return (this.comparisonCount > 0 ? this.primaryTimeNanos / this.comparisonCount : 0);
+		}
+
+		/**
+		 * Return the mean time taken by the candidate resolver for a compared request,
+		 * in nanoseconds.
+		 */
+		public long getMeanCandidateTimeNanos() {
+			return (this.comparisonCount > 0 ? this.candidateTimeNanos / this.comparisonCount : 0);
+		}
+
+		/**
+		 * Return the last mismatches, oldest first.
+		 */
+		public List<String> getMismatches() {
+			return this.mismatches;
+		}
+
+	}
+
+
+	/**
+	 * Description of the resolved devices.
+	 */
+	public static final class DevicesDescriptor {
+
+		private final long resolutionCount;
+
+		private final long resolutionTimeNanos;
+
+		private final Map<DeviceType, Long> types;
+
+		private final Map<DeviceType, Long> recentTypes;
+
+		private final String recentWindow;
+
+		private DevicesDescriptor(DeviceStatistics statistics) {
+			this.resolutionCount = statistics.getResolutionCount();
+			this.resolutionTimeNanos = statistics.getResolutionTime().toNanos();
+			this.types = statistics.getDeviceTypes();
+			this.recentTypes = statistics.getRecentDeviceTypes();
+			this.recentWindow = statistics.getWindow().toString();
+		}
+
+		public long getResolutionCount() {
+			return this.resolutionCount;
+		}
+
+		/**
+		 * Return the mean time taken to resolve a device, in nanoseconds, or {@code 0}
+		 * if there were no resolutions.
+		 */
+		public long getMeanResolutionTimeNanos() {
+			return (this.resolutionCount > 0 ? this.resolutionTimeNanos / this.resolutionCount : 0);
+		}
+
+		public Map<DeviceType, Long> getTypes() {
+			return this.types;
+		}
+
+		public Map<DeviceType, Long> getRecentTypes() {
+			return this.recentTypes;
+		}
+
+		/**
+		 * Return the length of the window of the recent types, as an ISO-8601 duration.
+		 */
+		public String getRecentWindow() {
+			return this.recentWindow;
+		}
+
+	}
+
+
+	/**
+	 * Description of site preferences and site switcher redirects.
+	 */
+	public static final class SiteDescriptor {
+
+		private final Map<SitePreference, Long> preferences;
+
+		private final Map<SitePreference, Long> switches;
+
+		private SiteDescriptor(DeviceStatistics statistics) {
+			this.preferences = statistics.getSitePreferences();
+			this.switches = statistics.getSiteSwitches();
+		}
+
+		public Map<SitePreference, Long> getPreferences() {
+			return this.preferences;
+		}
+
+		public Map<SitePreference, Long> getSwitches() {
+			return this.switches;
+		}
+
+	}
+
+}
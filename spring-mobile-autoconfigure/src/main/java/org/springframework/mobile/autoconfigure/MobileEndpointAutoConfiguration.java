@@ -0,0 +1,99 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.autoconfigure;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.actuate.autoconfigure.endpoint.condition.ConditionalOnEnabledEndpoint;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mobile.device.DeviceHandlerMethodArgumentResolver;
+import org.springframework.mobile.device.DeviceResolver;
+import org.springframework.mobile.device.LiteDeviceResolver;
+import org.springframework.mobile.device.metrics.DeviceStatistics;
+import org.springframework.mobile.device.metrics.MeteredDeviceResolver;
+import org.springframework.mobile.device.metrics.SiteMetricsFilter;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for the {@link MobileEndpoint}.
+ * The device resolver chain is read from the {@link DeviceHandlerMethodArgumentResolver},
+ * which shares the resolver of the device resolver interceptor or filter. Recording
+ * {@link DeviceStatistics} for the endpoint costs every request, so it is opt-in with
+ * {@code spring.mobile.statistics.enabled=true}: while the endpoint is enabled, the
+ * auto-configured {@link DeviceResolver} is then decorated by a
+ * {@link MeteredDeviceResolver}, its {@link LiteDeviceResolver} records rule hits, and
+ * site preferences and site switcher redirects are recorded by a
+ * {@link SiteMetricsFilter}.
+ *
+ * @since 2.0
+ */
+@Configuration
+@ConditionalOnClass({Endpoint.class, DeviceStatistics.class})
+@ConditionalOnWebApplication(type = Type.SERVLET)
+public class MobileEndpointAutoConfiguration {
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnEnabledEndpoint
+	public MobileEndpoint mobileEndpoint(ObjectProvider<DeviceStatistics> deviceStatistics,
+			ObjectProvider<DeviceHandlerMethodArgumentResolver> deviceHandlerMethodArgumentResolver) {
+		DeviceHandlerMethodArgumentResolver argumentResolver = deviceHandlerMethodArgumentResolver.getIfAvailable();
+		return new MobileEndpoint(argumentResolver != null ? argumentResolver.getDeviceResolver() : null,
+				deviceStatistics.getIfAvailable());
+	}
+
+	@Bean
+	@ConditionalOnMissingBean
+	@ConditionalOnBean(MobileEndpoint.class)
+	@ConditionalOnProperty(prefix = "spring.mobile.statistics", name = "enabled", havingValue = "true")
+	public DeviceStatistics deviceStatistics() {
+		return new DeviceStatistics();
+	}
+
+	@Bean
+	@ConditionalOnBean(MobileEndpoint.class)
+	@ConditionalOnProperty(prefix = "spring.mobile.statistics", name = "enabled", havingValue = "true")
+	public DeviceResolverDecorator deviceStatisticsDeviceResolverDecorator(final DeviceStatistics deviceStatistics) {
+		return new DeviceResolverDecorator() {
+			@Override
+			public DeviceResolver decorate(DeviceResolver deviceResolver) {
+				// the endpoint reports the rule hits of the first LiteDeviceResolver in the chain
+				LiteDeviceResolver liteDeviceResolver = MobileEndpoint.find(deviceResolver, LiteDeviceResolver.class);
+				if (liteDeviceResolver != null) {
+					liteDeviceResolver.setRecordRuleHits(true);
+				}
+				return new MeteredDeviceResolver(deviceResolver, deviceStatistics);
+			}
+		};
+	}
+
+	@Bean
+	@ConditionalOnBean(MobileEndpoint.class)
+	@ConditionalOnProperty(prefix = "spring.mobile.statistics", name = "enabled", havingValue = "true")
+	public FilterRegistrationBean<SiteMetricsFilter> siteStatisticsFilter(DeviceStatistics deviceStatistics) {
+		return new FilterRegistrationBean<>(new SiteMetricsFilter(deviceStatistics));
+	}
+
+}
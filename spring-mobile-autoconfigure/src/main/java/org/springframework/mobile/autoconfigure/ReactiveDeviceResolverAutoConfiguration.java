@@ -0,0 +1,93 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.autoconfigure;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.AutoConfigureAfter;
+import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnClass;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication.Type;
+import org.springframework.boot.autoconfigure.web.reactive.WebFluxAutoConfiguration;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.mobile.device.HttpHeadersDeviceResolver;
+import org.springframework.mobile.device.LiteDeviceResolver;
+import org.springframework.mobile.device.reactive.DeviceMethodArgumentResolver;
+import org.springframework.mobile.device.reactive.DeviceResolverWebFilter;
+import org.springframework.util.StringUtils;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+import org.springframework.web.reactive.result.method.annotation.ArgumentResolverConfigurer;
+
+/**
+ * {@link EnableAutoConfiguration Auto-configuration} for Spring Mobile's device
+ * resolution in reactive web applications. Devices are resolved from the request
+ * headers by a {@link DeviceResolverWebFilter}, restricted to the
+ * {@code spring.mobile.deviceresolver.filter} include and exclude patterns, and
+ * {@code Device} handler method arguments are resolved by a
+ * {@link DeviceMethodArgumentResolver}. An {@link HttpHeadersDeviceResolver} bean is used
+ * if there is one, otherwise a {@link LiteDeviceResolver} limited to the configured
+ * User-Agent length and header count.
+ *
+ * @since 2.0
+ */
+@Configuration
+@ConditionalOnClass({WebFluxConfigurer.class, DeviceResolverWebFilter.class})
+@AutoConfigureAfter(WebFluxAutoConfiguration.class)
+@ConditionalOnWebApplication(type = Type.REACTIVE)
+@EnableConfigurationProperties(DeviceResolverProperties.class)
+public class ReactiveDeviceResolverAutoConfiguration implements WebFluxConfigurer {
+
+	private final DeviceMethodArgumentResolver deviceMethodArgumentResolver = new DeviceMethodArgumentResolver();
+
+	@Bean
+	@ConditionalOnMissingBean
+	public DeviceResolverWebFilter deviceResolverWebFilter(ObjectProvider<HttpHeadersDeviceResolver> deviceResolver,
+			DeviceResolverProperties properties) {
+		HttpHeadersDeviceResolver resolver = deviceResolver.getIfAvailable();
+		DeviceResolverWebFilter filter = new DeviceResolverWebFilter(
+				resolver != null ? resolver : liteDeviceResolver(properties));
+		DeviceResolverProperties.Filter filterProperties = properties.getFilter();
+		filter.setIncludePathPatterns(StringUtils.toStringArray(filterProperties.getIncludePatterns()));
+		filter.setExcludePathPatterns(StringUtils.toStringArray(filterProperties.getExcludePatterns()));
+		return filter;
+	}
+
+	private static LiteDeviceResolver liteDeviceResolver(DeviceResolverProperties properties) {
+		LiteDeviceResolver resolver = new LiteDeviceResolver();
+		if (properties.getMaxUserAgentLength() != null) {
+			resolver.setMaxUserAgentLength(properties.getMaxUserAgentLength());
+		}
+		if (properties.getMaxHeaderCount() != null) {
+			resolver.setMaxHeaderCount(properties.getMaxHeaderCount());
+		}
+		return resolver;
+	}
+
+	@Bean
+	public DeviceMethodArgumentResolver deviceMethodArgumentResolver() {
+		return this.deviceMethodArgumentResolver;
+	}
+
+	@Override
+	public void configureArgumentResolvers(ArgumentResolverConfigurer configurer) {
+		configurer.addCustomResolver(this.deviceMethodArgumentResolver);
+	}
+
+}
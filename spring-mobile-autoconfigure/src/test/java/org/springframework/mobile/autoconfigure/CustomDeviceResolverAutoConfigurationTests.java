@@ -26,8 +26,10 @@ import org.springframework.boot.autoconfigure.data.rest.RepositoryRestMvcAutoCon
 import org.springframework.boot.autoconfigure.data.web.SpringDataWebAutoConfiguration;
 import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
 import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.util.TestPropertyValues;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.mobile.device.CachingDeviceResolver;
 import org.springframework.mobile.device.Device;
 import org.springframework.mobile.device.DevicePlatform;
 import org.springframework.mobile.device.DeviceResolver;
@@ -36,6 +38,7 @@ import org.springframework.mobile.device.DeviceUtils;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -64,6 +67,20 @@ public class CustomDeviceResolverAutoConfigurationTests extends AbstractDeviceRe
 		assertThat(device.getDevicePlatform()).isEqualByComparingTo(DevicePlatform.IOS);
 	}
 
+	@Test
+	public void customDeviceResolverCached() throws Exception {
+		this.context = new AnnotationConfigWebApplicationContext();
+		this.context.setServletContext(new MockServletContext());
+		TestPropertyValues.of("spring.mobile.deviceresolver.cache.enabled:true").applyTo(this.context);
+		this.context.register(Config.class);
+		this.context.refresh();
+		DeviceResolverHandlerInterceptor interceptor = this.context.getBean(DeviceResolverHandlerInterceptor.class);
+		Object deviceResolver = ReflectionTestUtils.getField(interceptor, "deviceResolver");
+		assertThat(deviceResolver).isInstanceOf(CachingDeviceResolver.class);
+		assertThat(((CachingDeviceResolver) deviceResolver).getDelegate())
+				.isSameAs(this.context.getBean(DeviceResolver.class));
+	}
+
 	@Configuration
 	@ImportAutoConfiguration({ WebMvcAutoConfiguration.class,
 			HttpMessageConvertersAutoConfiguration.class,
@@ -0,0 +1,154 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.autoconfigure;
+
+import java.nio.file.Path;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.After;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.mobile.device.CachingDeviceResolver;
+import org.springframework.mobile.device.DeviceCacheSnapshotter;
+import org.springframework.mobile.device.DeviceResolverHandlerInterceptor;
+import org.springframework.mobile.device.DeviceUtils;
+import org.springframework.mobile.device.LazyDeviceResolver;
+import org.springframework.mobile.device.LiteDeviceResolver;
+import org.springframework.mobile.device.metrics.DeviceMetrics;
+import org.springframework.mobile.device.metrics.MeteredDeviceResolver;
+import org.springframework.mobile.device.metrics.SiteMetricsFilter;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link DeviceMetricsAutoConfiguration}.
+ */
+public class DeviceMetricsAutoConfigurationTests {
+
+	private static final String IPHONE = "Mozilla/5.0 (iPhone; CPU iPhone OS 5_0 like Mac OS X) "
+			+ "AppleWebKit/534.46 (KHTML, like Gecko) Version/5.1 Mobile/9A334 Safari/7534.48.3";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	private AnnotationConfigWebApplicationContext context;
+
+	@After
+	public void close() {
+		if (this.context != null) {
+			this.context.close();
+		}
+	}
+
+	@Test
+	public void deviceResolutionMetered() throws Exception {
+		load(MeterRegistryConfig.class);
+		assertThat(((FilterRegistrationBean<?>) this.context.getBean("siteMetricsFilter")).getFilter())
+				.isInstanceOf(SiteMetricsFilter.class);
+		Object deviceResolver = getDeviceResolver();
+		assertThat(deviceResolver).isInstanceOf(MeteredDeviceResolver.class);
+		assertThat(((MeteredDeviceResolver) deviceResolver).getDelegate()).isInstanceOf(LiteDeviceResolver.class);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", IPHONE);
+		this.context.getBean(DeviceResolverHandlerInterceptor.class).preHandle(request,
+				new MockHttpServletResponse(), null);
+		MeterRegistry registry = this.context.getBean(MeterRegistry.class);
+		assertThat(registry.get(DeviceMetrics.RESOLUTION_METRIC).timer().count()).isEqualTo(1);
+		assertThat(registry.get(DeviceMetrics.DEVICES_METRIC).tag("type", "MOBILE").tag("platform", "IOS")
+				.counter().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void meteredInsideLazyResolution() throws Exception {
+		Path file = this.folder.getRoot().toPath().resolve("device-cache.snapshot");
+		load(MeterRegistryConfig.class, "spring.mobile.deviceresolver.lazy:true",
+				"spring.mobile.deviceresolver.cache.enabled:true",
+				"spring.mobile.deviceresolver.cache.snapshot.file:" + file);
+		Object deviceResolver = getDeviceResolver();
+		assertThat(deviceResolver).isInstanceOf(LazyDeviceResolver.class);
+		Object metered = ((LazyDeviceResolver) deviceResolver).getDelegate();
+		assertThat(metered).isInstanceOf(MeteredDeviceResolver.class);
+		assertThat(((MeteredDeviceResolver) metered).getDelegate()).isInstanceOf(CachingDeviceResolver.class);
+		assertThat(this.context.getBean(DeviceCacheSnapshotter.class)).isNotNull();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		this.context.getBean(DeviceResolverHandlerInterceptor.class).preHandle(request,
+				new MockHttpServletResponse(), null);
+		MeterRegistry registry = this.context.getBean(MeterRegistry.class);
+		assertThat(registry.get(DeviceMetrics.RESOLUTION_METRIC).timer().count()).isEqualTo(0);
+		assertThat(DeviceUtils.getCurrentDevice(request).isNormal()).isTrue();
+		assertThat(registry.get(DeviceMetrics.RESOLUTION_METRIC).timer().count()).isEqualTo(1);
+	}
+
+	@Test
+	public void noMeterRegistry() throws Exception {
+		load(Config.class);
+		assertThat(this.context.getBeansOfType(DeviceMetrics.class)).isEmpty();
+		assertThat(getDeviceResolver()).isInstanceOf(LiteDeviceResolver.class);
+	}
+
+	private void load(Class<?> config, String... environment) {
+		this.context = new AnnotationConfigWebApplicationContext();
+		this.context.setServletContext(new MockServletContext());
+		TestPropertyValues.of(environment).applyTo(this.context);
+		this.context.register(config);
+		this.context.refresh();
+	}
+
+	private Object getDeviceResolver() {
+		DeviceResolverHandlerInterceptor interceptor = this.context.getBean(DeviceResolverHandlerInterceptor.class);
+		return ReflectionTestUtils.getField(interceptor, "deviceResolver");
+	}
+
+	@Configuration
+	@ImportAutoConfiguration({ WebMvcAutoConfiguration.class,
+			HttpMessageConvertersAutoConfiguration.class,
+			DeviceResolverAutoConfiguration.class,
+			DeviceMetricsAutoConfiguration.class,
+			PropertyPlaceholderAutoConfiguration.class })
+	protected static class Config {
+
+	}
+
+	@Configuration
+	@Import(Config.class)
+	protected static class MeterRegistryConfig {
+
+		@Bean
+		public MeterRegistry meterRegistry() {
+			return new SimpleMeterRegistry();
+		}
+
+	}
+
+}
@@ -16,7 +16,11 @@
 
 package org.springframework.mobile.autoconfigure;
 
+import java.nio.file.Path;
+
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 
 import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
 import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
@@ -24,20 +28,33 @@ import org.springframework.boot.autoconfigure.data.rest.RepositoryRestMvcAutoCon
 import org.springframework.boot.autoconfigure.data.web.SpringDataWebAutoConfiguration;
 import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
 import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.mobile.device.CachingDeviceResolver;
 import org.springframework.mobile.device.Device;
+import org.springframework.mobile.device.DeviceCacheSnapshotter;
 import org.springframework.mobile.device.DeviceHandlerMethodArgumentResolver;
 import org.springframework.mobile.device.DevicePlatform;
 import org.springframework.mobile.device.DeviceResolverHandlerInterceptor;
+import org.springframework.mobile.device.DeviceResolverRequestFilter;
 import org.springframework.mobile.device.DeviceUtils;
+import org.springframework.mobile.device.EnrichingDeviceResolver;
+import org.springframework.mobile.device.LazyDeviceResolver;
+import org.springframework.mobile.device.LiteDeviceDetailsParser;
+import org.springframework.mobile.device.LiteDeviceResolver;
+import org.springframework.mock.web.MockFilterChain;
 import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.mock.web.MockServletContext;
 import org.springframework.stereotype.Controller;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.util.ReflectionTestUtils;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
@@ -56,6 +73,9 @@ import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.
  */
 public class DeviceResolverAutoConfigurationTests extends AbstractDeviceResolverAutoConfigurationTests {
 
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
 	@Test
 	public void deviceResolverHandlerInterceptorCreated() throws Exception {
 		this.context = new AnnotationConfigWebApplicationContext();
@@ -107,6 +127,170 @@ public class DeviceResolverAutoConfigurationTests extends AbstractDeviceResolver
 		assertThat(device.getDevicePlatform()).isEqualByComparingTo(DevicePlatform.UNKNOWN);
 	}
 
+	@Test
+	public void deviceResolverCacheDisabledByDefault() throws Exception {
+		this.context = new AnnotationConfigWebApplicationContext();
+		this.context.setServletContext(new MockServletContext());
+		this.context.register(Config.class);
+		this.context.refresh();
+		DeviceResolverHandlerInterceptor interceptor = this.context.getBean(DeviceResolverHandlerInterceptor.class);
+		assertThat(ReflectionTestUtils.getField(interceptor, "deviceResolver"))
+				.isExactlyInstanceOf(LiteDeviceResolver.class);
+	}
+
+	@Test
+	public void deviceResolverCacheEnabled() throws Exception {
+		this.context = new AnnotationConfigWebApplicationContext();
+		this.context.setServletContext(new MockServletContext());
+		TestPropertyValues.of("spring.mobile.deviceresolver.cache.enabled:true",
+				"spring.mobile.deviceresolver.cache.maximum-size:500").applyTo(this.context);
+		this.context.register(Config.class);
+		this.context.refresh();
+		DeviceResolverHandlerInterceptor interceptor = this.context.getBean(DeviceResolverHandlerInterceptor.class);
+		Object deviceResolver = ReflectionTestUtils.getField(interceptor, "deviceResolver");
+		assertThat(deviceResolver).isInstanceOf(CachingDeviceResolver.class);
+		CachingDeviceResolver cachingDeviceResolver = (CachingDeviceResolver) deviceResolver;
+		assertThat(cachingDeviceResolver.getMaximumSize()).isEqualTo(500);
+		assertThat(cachingDeviceResolver.isNormalizeUserAgents()).isFalse();
+		assertThat(cachingDeviceResolver.getDelegate()).isInstanceOf(LiteDeviceResolver.class);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		interceptor.preHandle(new MockHttpServletRequest(), response, null);
+		interceptor.preHandle(new MockHttpServletRequest(), response, null);
+		assertThat(cachingDeviceResolver.getHitCount()).isEqualTo(1);
+		assertThat(cachingDeviceResolver.getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void deviceResolverLimits() throws Exception {
+		this.context = new AnnotationConfigWebApplicationContext();
+		this.context.setServletContext(new MockServletContext());
+		TestPropertyValues.of("spring.mobile.deviceresolver.max-user-agent-length:512",
+				"spring.mobile.deviceresolver.max-header-count:50").applyTo(this.context);
+		this.context.register(Config.class);
+		this.context.refresh();
+		DeviceResolverHandlerInterceptor interceptor = this.context.getBean(DeviceResolverHandlerInterceptor.class);
+		Object deviceResolver = ReflectionTestUtils.getField(interceptor, "deviceResolver");
+		assertThat(deviceResolver).isInstanceOf(LiteDeviceResolver.class);
+		assertThat(((LiteDeviceResolver) deviceResolver).getMaxUserAgentLength()).isEqualTo(512);
+		assertThat(((LiteDeviceResolver) deviceResolver).getMaxHeaderCount()).isEqualTo(50);
+	}
+
+	@Test
+	public void deviceResolverLazy() throws Exception {
+		this.context = new AnnotationConfigWebApplicationContext();
+		this.context.setServletContext(new MockServletContext());
+		TestPropertyValues.of("spring.mobile.deviceresolver.lazy:true",
+				"spring.mobile.deviceresolver.cache.enabled:true").applyTo(this.context);
+		this.context.register(Config.class);
+		this.context.refresh();
+		DeviceResolverHandlerInterceptor interceptor = this.context.getBean(DeviceResolverHandlerInterceptor.class);
+		Object deviceResolver = ReflectionTestUtils.getField(interceptor, "deviceResolver");
+		assertThat(deviceResolver).isInstanceOf(LazyDeviceResolver.class);
+		assertThat(((LazyDeviceResolver) deviceResolver).getDelegate()).isInstanceOf(CachingDeviceResolver.class);
+		CachingDeviceResolver cachingDeviceResolver = (CachingDeviceResolver) ((LazyDeviceResolver) deviceResolver)
+				.getDelegate();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		interceptor.preHandle(request, new MockHttpServletResponse(), null);
+		assertThat(cachingDeviceResolver.getMissCount()).isEqualTo(0);
+		assertThat(DeviceUtils.getCurrentDevice(request).isNormal()).isTrue();
+		assertThat(cachingDeviceResolver.getMissCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void deviceResolverCacheNormalizeUserAgents() throws Exception {
+		this.context = new AnnotationConfigWebApplicationContext();
+		this.context.setServletContext(new MockServletContext());
+		TestPropertyValues.of("spring.mobile.deviceresolver.cache.enabled:true",
+				"spring.mobile.deviceresolver.cache.normalize-user-agents:true").applyTo(this.context);
+		this.context.register(Config.class);
+		this.context.refresh();
+		DeviceResolverHandlerInterceptor interceptor = this.context.getBean(DeviceResolverHandlerInterceptor.class);
+		Object deviceResolver = ReflectionTestUtils.getField(interceptor, "deviceResolver");
+		assertThat(((CachingDeviceResolver) deviceResolver).isNormalizeUserAgents()).isTrue();
+	}
+
+	@Test
+	public void deviceResolverCacheSnapshot() throws Exception {
+		Path file = this.folder.getRoot().toPath().resolve("device-cache.snapshot");
+		String[] environment = { "spring.mobile.deviceresolver.cache.enabled:true",
+				"spring.mobile.deviceresolver.cache.snapshot.file:" + file,
+				"spring.mobile.deviceresolver.cache.snapshot.interval:1h" };
+		this.context = new AnnotationConfigWebApplicationContext();
+		this.context.setServletContext(new MockServletContext());
+		TestPropertyValues.of(environment).applyTo(this.context);
+		this.context.register(Config.class);
+		this.context.refresh();
+		assertThat(this.context.getBean(DeviceCacheSnapshotter.class).isRunning()).isTrue();
+		DeviceResolverHandlerInterceptor interceptor = this.context.getBean(DeviceResolverHandlerInterceptor.class);
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", "Mozilla/5.0 (iPhone; CPU iPhone OS 11_0 like Mac OS X) Mobile/15A372");
+		interceptor.preHandle(request, new MockHttpServletResponse(), null);
+		this.context.close();
+		assertThat(file).exists();
+		this.context = new AnnotationConfigWebApplicationContext();
+		this.context.setServletContext(new MockServletContext());
+		TestPropertyValues.of(environment).applyTo(this.context);
+		this.context.register(Config.class);
+		this.context.refresh();
+		interceptor = this.context.getBean(DeviceResolverHandlerInterceptor.class);
+		CachingDeviceResolver cache = (CachingDeviceResolver) ReflectionTestUtils.getField(interceptor,
+				"deviceResolver");
+		assertThat(cache.getSize()).isEqualTo(1);
+	}
+
+	@Test
+	public void deviceResolverCacheSnapshotRequiresCache() throws Exception {
+		this.context = new AnnotationConfigWebApplicationContext();
+		this.context.setServletContext(new MockServletContext());
+		TestPropertyValues.of("spring.mobile.deviceresolver.cache.snapshot.file:device-cache.snapshot")
+				.applyTo(this.context);
+		this.context.register(Config.class);
+		this.context.refresh();
+		assertThat(this.context.getBeansOfType(DeviceCacheSnapshotter.class)).isEmpty();
+	}
+
+	@Test
+	public void deviceResolverCacheSnapshotSkipsEnrichingResolver() throws Exception {
+		this.context = new AnnotationConfigWebApplicationContext();
+		this.context.setServletContext(new MockServletContext());
+		TestPropertyValues.of("spring.mobile.deviceresolver.cache.enabled:true",
+				"spring.mobile.deviceresolver.cache.snapshot.file:device-cache.snapshot",
+				"spring.mobile.deviceresolver.cache.snapshot.version:1").applyTo(this.context);
+		this.context.register(EnrichingConfig.class);
+		this.context.refresh();
+		assertThat(this.context.getBeansOfType(DeviceCacheSnapshotter.class).values())
+				.containsExactly((DeviceCacheSnapshotter) null);
+		DeviceResolverHandlerInterceptor interceptor = this.context.getBean(DeviceResolverHandlerInterceptor.class);
+		assertThat(ReflectionTestUtils.getField(interceptor, "deviceResolver"))
+				.isInstanceOf(CachingDeviceResolver.class);
+	}
+
+	@Test
+	@SuppressWarnings("unchecked")
+	public void deviceResolverRequestFilter() throws Exception {
+		this.context = new AnnotationConfigWebApplicationContext();
+		this.context.setServletContext(new MockServletContext());
+		TestPropertyValues.of("spring.mobile.deviceresolver.filter.enabled:true",
+				"spring.mobile.deviceresolver.filter.exclude-patterns:/static/**,/actuator/**",
+				"spring.mobile.deviceresolver.filter.dispatcher-types:request,error").applyTo(this.context);
+		this.context.register(Config.class);
+		this.context.refresh();
+		assertThat(this.context.getBeansOfType(DeviceResolverHandlerInterceptor.class)).isEmpty();
+		FilterRegistrationBean<DeviceResolverRequestFilter> registration = this.context
+				.getBean(FilterRegistrationBean.class);
+		DeviceResolverRequestFilter filter = registration.getFilter();
+		assertThat(ReflectionTestUtils.getField(this.context.getBean(DeviceHandlerMethodArgumentResolver.class),
+				"deviceResolver")).isSameAs(ReflectionTestUtils.getField(filter, "deviceResolver"));
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", "/static/app.js");
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		assertThat(DeviceUtils.getCurrentDevice(request)).isNull();
+		request = new MockHttpServletRequest("GET", "/index.html");
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		assertThat(DeviceUtils.getCurrentDevice(request).isNormal()).isTrue();
+		MockMvc mockMvc = MockMvcBuilders.webAppContextSetup(this.context).addFilters(filter).build();
+		mockMvc.perform(get("/")).andExpect(status().isOk());
+	}
+
 	@Test
 	public void deviceHandlerMethodArgumentWorksWithSpringData() throws Exception {
 		this.context = new AnnotationConfigWebApplicationContext();
@@ -133,6 +317,18 @@ public class DeviceResolverAutoConfigurationTests extends AbstractDeviceResolver
 
 	}
 
+	@Configuration
+	@Import(Config.class)
+	protected static class EnrichingConfig {
+
+		@Bean
+		public EnrichingDeviceResolver deviceResolver() {
+			return new EnrichingDeviceResolver(new LiteDeviceResolver(), new LiteDeviceDetailsParser(),
+					new SyncTaskExecutor());
+		}
+
+	}
+
 	@Controller
 	protected static class MyController {
 
@@ -0,0 +1,185 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.autoconfigure;
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.boot.autoconfigure.ImportAutoConfiguration;
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.http.HttpMessageConvertersAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.servlet.WebMvcAutoConfiguration;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Import;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.mobile.autoconfigure.MobileEndpoint.MobileDescriptor;
+import org.springframework.mobile.autoconfigure.MobileEndpoint.ResolverDescriptor;
+import org.springframework.mobile.device.CachingDeviceResolver;
+import org.springframework.mobile.device.DeviceResolver;
+import org.springframework.mobile.device.DeviceResolverHandlerInterceptor;
+import org.springframework.mobile.device.DeviceType;
+import org.springframework.mobile.device.DeviceUtils;
+import org.springframework.mobile.device.LazyDeviceResolver;
+import org.springframework.mobile.device.LiteDeviceResolver;
+import org.springframework.mobile.device.ShadowDeviceResolver;
+import org.springframework.mobile.device.metrics.DeviceStatistics;
+import org.springframework.mobile.device.metrics.MeteredDeviceResolver;
+import org.springframework.mobile.device.metrics.SiteMetricsFilter;
+import org.springframework.mobile.device.site.SitePreference;
+import org.springframework.mobile.device.switcher.StandardSiteSwitcherHandler;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.MockServletContext;
+import org.springframework.web.context.support.AnnotationConfigWebApplicationContext;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link MobileEndpointAutoConfiguration}.
+ */
+public class MobileEndpointAutoConfigurationTests {
+
+	private static final String IPHONE = "Mozilla/5.0 (iPhone; CPU iPhone OS 5_0 like Mac OS X) "
+			+ "AppleWebKit/534.46 (KHTML, like Gecko) Version/5.1 Mobile/9A334 Safari/7534.48.3";
+
+	private AnnotationConfigWebApplicationContext context;
+
+	@After
+	public void close() {
+		if (this.context != null) {
+			this.context.close();
+		}
+	}
+
+	@Test
+	public void endpointReportsResolution() throws Exception {
+		load("spring.mobile.deviceresolver.lazy:true", "spring.mobile.deviceresolver.cache.enabled:true",
+				"spring.mobile.statistics.enabled:true");
+		MobileEndpoint endpoint = this.context.getBean(MobileEndpoint.class);
+		ResolverDescriptor lazy = endpoint.mobile().getResolver();
+		assertThat(lazy.getType()).isEqualTo(LazyDeviceResolver.class.getName());
+		ResolverDescriptor metered = lazy.getDelegates().get(0);
+		assertThat(metered.getType()).isEqualTo(MeteredDeviceResolver.class.getName());
+		ResolverDescriptor caching = metered.getDelegates().get(0);
+		assertThat(caching.getType()).isEqualTo(CachingDeviceResolver.class.getName());
+		assertThat(caching.getDelegates().get(0).getType()).isEqualTo(LiteDeviceResolver.class.getName());
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", IPHONE);
+		this.context.getBean(DeviceResolverHandlerInterceptor.class).preHandle(request,
+				new MockHttpServletResponse(), null);
+		assertThat(endpoint.mobile().getDevices().getResolutionCount()).isEqualTo(0);
+		request.setAttribute(StandardSiteSwitcherHandler.REDIRECT_SITE_ATTRIBUTE, SitePreference.MOBILE);
+		SiteMetricsFilter filter = (SiteMetricsFilter) ((FilterRegistrationBean<?>) this.context
+				.getBean("siteStatisticsFilter")).getFilter();
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		MobileDescriptor descriptor = endpoint.mobile();
+		assertThat(descriptor.getDevices().getResolutionCount()).isEqualTo(0);
+		assertThat(descriptor.getSite().getSwitches().get(SitePreference.MOBILE)).isEqualTo(1);
+		assertThat(descriptor.getCache().getSize()).isEqualTo(0);
+		assertThat(DeviceUtils.getCurrentDevice(request).isMobile()).isTrue();
+		descriptor = endpoint.mobile();
+		assertThat(descriptor.getDevices().getResolutionCount()).isEqualTo(1);
+		assertThat(descriptor.getDevices().getTypes().get(DeviceType.MOBILE)).isEqualTo(1);
+		assertThat(descriptor.getDevices().getRecentTypes().get(DeviceType.MOBILE)).isEqualTo(1);
+		assertThat(descriptor.getCache().getSize()).isEqualTo(1);
+		assertThat(descriptor.getCache().getMissCount()).isEqualTo(1);
+		assertThat(descriptor.getRules().getVersion())
+				.isEqualTo(new LiteDeviceResolver().getRules().getVersion());
+		assertThat(descriptor.getRules().getHits().get("ios")).isEqualTo(1);
+	}
+
+	@Test
+	public void endpointReportsShadowEvaluation() throws Exception {
+		this.context = new AnnotationConfigWebApplicationContext();
+		this.context.setServletContext(new MockServletContext());
+		TestPropertyValues.of("spring.mobile.statistics.enabled:true").applyTo(this.context);
+		this.context.register(ShadowConfig.class);
+		this.context.refresh();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", IPHONE);
+		this.context.getBean(DeviceResolverHandlerInterceptor.class).preHandle(request,
+				new MockHttpServletResponse(), null);
+		MobileDescriptor descriptor = this.context.getBean(MobileEndpoint.class).mobile();
+		ResolverDescriptor shadow = descriptor.getResolver().getDelegates().get(0);
+		assertThat(shadow.getType()).isEqualTo(ShadowDeviceResolver.class.getName());
+		assertThat(shadow.getDelegates()).hasSize(2);
+		assertThat(descriptor.getShadow().getCandidate()).isEqualTo(LiteDeviceResolver.class.getName());
+		assertThat(descriptor.getShadow().getComparisonCount()).isEqualTo(1);
+		assertThat(descriptor.getShadow().getAgreementRatio()).isEqualTo(1);
+		assertThat(descriptor.getShadow().getMismatches()).isEmpty();
+		assertThat(descriptor.getDevices().getResolutionCount()).isEqualTo(1);
+	}
+
+	@Test
+	public void statisticsNotRecordedByDefault() throws Exception {
+		load();
+		MobileEndpoint endpoint = this.context.getBean(MobileEndpoint.class);
+		assertThat(this.context.getBeansOfType(DeviceStatistics.class)).isEmpty();
+		assertThat(this.context.containsBean("siteStatisticsFilter")).isFalse();
+		MobileDescriptor descriptor = endpoint.mobile();
+		assertThat(descriptor.getResolver().getType()).isEqualTo(LiteDeviceResolver.class.getName());
+		assertThat(descriptor.getRules()).isNotNull();
+		assertThat(descriptor.getRules().getHits()).isNull();
+		assertThat(descriptor.getDevices()).isNull();
+		assertThat(descriptor.getSite()).isNull();
+	}
+
+	@Test
+	public void endpointDisabled() throws Exception {
+		load("management.endpoint.mobile.enabled:false", "spring.mobile.statistics.enabled:true");
+		assertThat(this.context.getBeansOfType(MobileEndpoint.class)).isEmpty();
+		assertThat(this.context.getBeansOfType(DeviceStatistics.class)).isEmpty();
+		assertThat(this.context.containsBean("siteStatisticsFilter")).isFalse();
+		assertThat(this.context.containsBean("deviceStatisticsDeviceResolverDecorator")).isFalse();
+	}
+
+	private void load(String... environment) {
+		this.context = new AnnotationConfigWebApplicationContext();
+		this.context.setServletContext(new MockServletContext());
+		TestPropertyValues.of(environment).applyTo(this.context);
+		this.context.register(Config.class);
+		this.context.refresh();
+	}
+
+	@Configuration
+	@ImportAutoConfiguration({ WebMvcAutoConfiguration.class,
+			HttpMessageConvertersAutoConfiguration.class,
+			DeviceResolverAutoConfiguration.class,
+			MobileEndpointAutoConfiguration.class,
+			PropertyPlaceholderAutoConfiguration.class })
+	protected static class Config {
+
+	}
+
+	@Configuration
+	@Import(Config.class)
+	protected static class ShadowConfig {
+
+		@Bean
+		public DeviceResolver deviceResolver() {
+			ShadowDeviceResolver deviceResolver = new ShadowDeviceResolver(new LiteDeviceResolver(),
+					new LiteDeviceResolver(), new SyncTaskExecutor());
+			deviceResolver.setSampleRate(1);
+			return deviceResolver;
+		}
+
+	}
+
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.autoconfigure;
+
+import org.junit.After;
+import org.junit.Test;
+
+import org.springframework.boot.autoconfigure.context.PropertyPlaceholderAutoConfiguration;
+import org.springframework.boot.autoconfigure.web.reactive.WebFluxAutoConfiguration;
+import org.springframework.boot.test.util.TestPropertyValues;
+import org.springframework.boot.web.reactive.context.AnnotationConfigReactiveWebApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mobile.device.Device;
+import org.springframework.mobile.device.HttpHeadersDeviceResolver;
+import org.springframework.mobile.device.LiteDevice;
+import org.springframework.mobile.device.reactive.DeviceMethodArgumentResolver;
+import org.springframework.mobile.device.reactive.DeviceResolverWebFilter;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Tests for {@link ReactiveDeviceResolverAutoConfiguration}.
+ */
+public class ReactiveDeviceResolverAutoConfigurationTests {
+
+	private static final String IPHONE = "Mozilla/5.0 (iPhone; U; CPU iPhone OS 4_0 like Mac OS X; en-us) AppleWebKit/532.9 (KHTML, like Gecko) Version/4.0.5 Mobile/8A293 Safari/6531.22.7";
+
+	private AnnotationConfigReactiveWebApplicationContext context;
+
+	@After
+	public void close() {
+		if (this.context != null) {
+			this.context.close();
+		}
+	}
+
+	@Test
+	public void deviceResolverWebFilterCreated() throws Exception {
+		load(Config.class);
+		assertThat(this.context.getBean(DeviceResolverWebFilter.class)).isNotNull();
+		assertThat(this.context.getBean(DeviceMethodArgumentResolver.class)).isNotNull();
+	}
+
+	@Test
+	public void resolveDevice() throws Exception {
+		load(Config.class);
+		WebTestClient client = WebTestClient.bindToApplicationContext(this.context).build();
+		client.get().uri("/").header(HttpHeaders.USER_AGENT, IPHONE).exchange().expectStatus().isOk()
+				.expectBody(String.class).isEqualTo("MOBILE IOS");
+		client.get().uri("/").exchange().expectStatus().isOk().expectBody(String.class)
+				.isEqualTo("NORMAL UNKNOWN");
+	}
+
+	@Test
+	public void excludePatterns() throws Exception {
+		load(Config.class, "spring.mobile.deviceresolver.filter.exclude-patterns:/static/**");
+		WebTestClient client = WebTestClient.bindToApplicationContext(this.context).build();
+		client.get().uri("/static/device").header(HttpHeaders.USER_AGENT, IPHONE).exchange().expectStatus()
+				.isOk().expectBody(String.class).isEqualTo("none");
+	}
+
+	@Test
+	public void customDeviceResolver() throws Exception {
+		load(CustomDeviceResolverConfig.class);
+		WebTestClient client = WebTestClient.bindToApplicationContext(this.context).build();
+		client.get().uri("/").header(HttpHeaders.USER_AGENT, IPHONE).exchange().expectStatus().isOk()
+				.expectBody(String.class).isEqualTo("TABLET UNKNOWN");
+	}
+
+	private void load(Class<?> config, String... environment) {
+		this.context = new AnnotationConfigReactiveWebApplicationContext();
+		TestPropertyValues.of(environment).applyTo(this.context);
+		this.context.register(config, WebFluxAutoConfiguration.class, PropertyPlaceholderAutoConfiguration.class,
+				ReactiveDeviceResolverAutoConfiguration.class);
+		this.context.refresh();
+	}
+
+	@Configuration
+	protected static class Config {
+
+		@Bean
+		public MyController controller() {
+			return new MyController();
+		}
+
+	}
+
+	@Configuration
+	protected static class CustomDeviceResolverConfig extends Config {
+
+		@Bean
+		public HttpHeadersDeviceResolver deviceResolver() {
+			return new HttpHeadersDeviceResolver() {
+				@Override
+				public Device resolveDevice(HttpHeaders headers) {
+					return LiteDevice.TABLET_INSTANCE;
+				}
+			};
+		}
+
+	}
+
+	@RestController
+	protected static class MyController {
+
+		@GetMapping("/")
+		public String device(Device device) {
+			String type = (device.isMobile() ? "MOBILE" : device.isTablet() ? "TABLET" : "NORMAL");
+			return type + " " + device.getDevicePlatform();
+		}
+
+		@GetMapping("/static/device")
+		public String staticDevice(Device device) {
+			return (device != null ? "resolved" : "none");
+		}
+
+	}
+
+}
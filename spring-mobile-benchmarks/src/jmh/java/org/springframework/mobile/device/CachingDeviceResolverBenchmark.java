@@ -0,0 +1,97 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Compares a {@link CachingDeviceResolver} hit with resolving from scratch by the
+ * {@link LiteDeviceResolver} it caches, over the weighted mix of a generated
+ * {@link UserAgentCorpus}. The cache is filled during setup, so {@code cachedHit}
+ * measures hits only, keyed by the User-Agent itself or, with
+ * {@code normalizeUserAgents}, by its normalized form. The {@code browserHeaders}
+ * parameter adds the header names a browser typically sends, which both resolvers
+ * enumerate looking for an Opera Mini header. Each request returns a fresh copy of its
+ * User-Agent, so hits pay for hashing and comparing it as they would in a servlet
+ * container. Run with {@code ./gradlew :spring-mobile-benchmarks:jmh}.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CachingDeviceResolverBenchmark {
+
+	@Param({ "false", "true" })
+	public boolean normalizeUserAgents;
+
+	@Param({ "false", "true" })
+	public boolean browserHeaders;
+
+	@Param("4096")
+	public int corpusSize;
+
+	private LiteDeviceResolver resolver;
+
+	private CachingDeviceResolver cache;
+
+	private FixedHeadersRequest[] requests;
+
+	private int index;
+
+	@Setup
+	public void setup() {
+		this.resolver = new LiteDeviceResolver();
+		this.cache = new CachingDeviceResolver(this.resolver);
+		this.cache.setNormalizeUserAgents(this.normalizeUserAgents);
+		this.requests = FixedHeadersRequest.of(new UserAgentCorpus(this.corpusSize, 42).getWeighted(),
+				this.browserHeaders, true);
+		for (FixedHeadersRequest request : this.requests) {
+			this.cache.resolveDevice(request);
+		}
+	}
+
+	@Benchmark
+	public Device uncached() {
+		return this.resolver.resolveDevice(this.requests[next()]);
+	}
+
+	@Benchmark
+	public Device cachedHit() {
+		return this.cache.resolveDevice(this.requests[next()]);
+	}
+
+	private int next() {
+		int next = this.index + 1;
+		this.index = (next == this.corpusSize ? 0 : next);
+		return this.index;
+	}
+
+}
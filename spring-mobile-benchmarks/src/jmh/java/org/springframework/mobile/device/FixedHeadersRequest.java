@@ -0,0 +1,73 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.List;
+
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Request whose header lookups do not allocate, unlike the case-insensitive lookups of
+ * {@link MockHttpServletRequest}, so that the measured allocation rate is that of the
+ * resolver. Besides the User-Agent, it can list the header names a browser typically
+ * sends, which resolvers looking for Opera Mini headers enumerate, and return a fresh
+ * copy of the User-Agent on every lookup, as a servlet container decoding the headers
+ * of each request does, so that its hash code is not cached across requests.
+ */
+class FixedHeadersRequest extends MockHttpServletRequest {
+
+	private static final List<String> BROWSER_HEADER_NAMES = Arrays.asList("Host", "Connection",
+			"Upgrade-Insecure-Requests", "User-Agent", "Accept", "Accept-Encoding", "Accept-Language", "Cookie");
+
+	private final String userAgent;
+
+	private final List<String> headerNames;
+
+	private final boolean copyUserAgent;
+
+	FixedHeadersRequest(String userAgent, boolean browserHeaders, boolean copyUserAgent) {
+		this.userAgent = userAgent;
+		this.headerNames = (browserHeaders ? BROWSER_HEADER_NAMES : Collections.<String>emptyList());
+		this.copyUserAgent = copyUserAgent;
+	}
+
+	@Override
+	public String getHeader(String name) {
+		if (!"User-Agent".equals(name)) {
+			return null;
+		}
+		return (this.copyUserAgent ? new String(this.userAgent) : this.userAgent);
+	}
+
+	@Override
+	public Enumeration<String> getHeaderNames() {
+		return (this.headerNames.isEmpty() ? Collections.<String>emptyEnumeration()
+				: Collections.enumeration(this.headerNames));
+	}
+
+	static FixedHeadersRequest[] of(List<String> userAgents, boolean browserHeaders, boolean copyUserAgent) {
+		FixedHeadersRequest[] requests = new FixedHeadersRequest[userAgents.size()];
+		for (int i = 0; i < requests.length; i++) {
+			requests[i] = new FixedHeadersRequest(userAgents.get(i), browserHeaders, copyUserAgent);
+		}
+		return requests;
+	}
+
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Benchmarks {@link LiteDeviceResolver#resolveDevice(javax.servlet.http.HttpServletRequest)}
+ * over a generated {@link UserAgentCorpus}, separately for desktop, mobile and tablet
+ * User-Agents, for a weighted mix of them and for long desktop User-Agents, which match
+ * no keyword and are therefore scanned in full. The {@code extraKeywords} parameter adds
+ * generated mobile keywords that never match, to measure how resolution scales as the
+ * keyword lists grow. Run with {@code ./gradlew :spring-mobile-benchmarks:jmh}; the
+ * {@code gc} profiler reports the allocation rate.
+ */
+@BenchmarkMode({ Mode.Throughput, Mode.AverageTime })
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LiteDeviceResolverBenchmark {
+
+	@Param({ "0", "1000" })
+	public int extraKeywords;
+
+	@Param("4096")
+	public int corpusSize;
+
+	private LiteDeviceResolver resolver;
+
+	private FixedHeadersRequest[] desktop;
+
+	private FixedHeadersRequest[] mobile;
+
+	private FixedHeadersRequest[] tablet;
+
+	private FixedHeadersRequest[] weighted;
+
+	private FixedHeadersRequest[] longDesktop;
+
+	private int index;
+
+	@Setup
+	public void setup() {
+		this.resolver = new LiteDeviceResolver();
+		Random random = new Random(42);
+		for (int i = 0; i < this.extraKeywords; i++) {
+			StringBuilder keyword = new StringBuilder("zz");
+			for (int j = 0; j < 8; j++) {
+				keyword.append((char) ('a' + random.nextInt(26)));
+			}
+			this.resolver.getMobileUserAgentKeywords().add(keyword.toString());
+		}
+		UserAgentCorpus corpus = new UserAgentCorpus(this.corpusSize, 42);
+		this.desktop = FixedHeadersRequest.of(corpus.get(DeviceType.NORMAL), false, false);
+		this.mobile = FixedHeadersRequest.of(corpus.get(DeviceType.MOBILE), false, false);
+		this.tablet = FixedHeadersRequest.of(corpus.get(DeviceType.TABLET), false, false);
+		this.weighted = FixedHeadersRequest.of(corpus.getWeighted(), false, false);
+		this.longDesktop = FixedHeadersRequest.of(corpus.getLongDesktop(), false, false);
+	}
+
+	@Benchmark
+	public Device desktop() {
+		return this.resolver.resolveDevice(this.desktop[next()]);
+	}
+
+	@Benchmark
+	public Device mobile() {
+		return this.resolver.resolveDevice(this.mobile[next()]);
+	}
+
+	@Benchmark
+	public Device tablet() {
+		return this.resolver.resolveDevice(this.tablet[next()]);
+	}
+
+	@Benchmark
+	public Device weighted() {
+		return this.resolver.resolveDevice(this.weighted[next()]);
+	}
+
+	@Benchmark
+	public Device longDesktop() {
+		return this.resolver.resolveDevice(this.longDesktop[next()]);
+	}
+
+	private int next() {
+		int next = this.index + 1;
+		this.index = (next == this.corpusSize ? 0 : next);
+		return this.index;
+	}
+
+}
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Generated User-Agent corpus for benchmarks. The corpus starts from the User-Agents of
+ * the device module tests and grows by varying their version and build numbers, so
+ * that it resembles the long tail of distinct User-Agents seen in production. Each
+ * User-Agent is filed under the device type the {@link LiteDeviceResolver} resolves it
+ * to.
+ */
+class UserAgentCorpus {
+
+	/**
+	 * Share of desktop, mobile and tablet requests in the weighted mix, in percent,
+	 * roughly that of general web traffic.
+	 */
+	private static final int[] WEIGHTS = new int[] { 45, 47, 8 };
+
+	/**
+	 * Tokens that desktop browsers, plugins and toolbars append to the User-Agent,
+	 * making some desktop User-Agents several times longer than usual.
+	 */
+	private static final String[] DESKTOP_EXTENSIONS = new String[] { "SLCC2", ".NET CLR 2.0.50727",
+			".NET CLR 3.5.30729", ".NET CLR 3.0.30729", "Media Center PC 6.0", ".NET4.0C", ".NET4.0E",
+			"InfoPath.3", "Zune 4.7", "Tablet PC 2.0", "GTB7.5", "MAAU", "BRI/2", "Microsoft Outlook 16.0.4266" };
+
+	private final Map<DeviceType, List<String>> userAgents = new EnumMap<DeviceType, List<String>>(
+			DeviceType.class);
+
+	private final List<String> weighted = new ArrayList<String>();
+
+	private final List<String> longDesktop = new ArrayList<String>();
+
+	/**
+	 * Generate a corpus.
+	 * @param size the number of User-Agents per device type, and in the weighted mix
+	 * @param seed the random seed, so that runs are comparable
+	 */
+	UserAgentCorpus(int size, long seed) {
+		Random random = new Random(seed);
+		LiteDeviceResolver resolver = new LiteDeviceResolver();
+		for (DeviceType deviceType : DeviceType.values()) {
+			this.userAgents.put(deviceType, new ArrayList<String>());
+		}
+		List<String> seeds = seeds();
+		int missing = DeviceType.values().length * size;
+		while (missing > 0) {
+			String userAgent = vary(seeds.get(random.nextInt(seeds.size())), random);
+			List<String> userAgents = this.userAgents.get(deviceType(resolver.resolveDevice(userAgent)));
+			if (userAgents.size() < size) {
+				userAgents.add(userAgent);
+				missing--;
+			}
+		}
+		for (int i = 0; i < size; i++) {
+			int bucket = random.nextInt(100);
+			DeviceType deviceType = (bucket < WEIGHTS[0] ? DeviceType.NORMAL
+					: bucket < WEIGHTS[0] + WEIGHTS[1] ? DeviceType.MOBILE : DeviceType.TABLET);
+			List<String> userAgents = this.userAgents.get(deviceType);
+			this.weighted.add(userAgents.get(random.nextInt(userAgents.size())));
+		}
+		List<String> desktop = this.userAgents.get(DeviceType.NORMAL);
+		while (this.longDesktop.size() < size) {
+			String userAgent = extend(desktop.get(random.nextInt(desktop.size())), random);
+			if (resolver.resolveDevice(userAgent).isNormal()) {
+				this.longDesktop.add(userAgent);
+			}
+		}
+	}
+
+	/**
+	 * Return the User-Agents resolving to the given device type.
+	 */
+	List<String> get(DeviceType deviceType) {
+		return this.userAgents.get(deviceType);
+	}
+
+	/**
+	 * Return a weighted mix of desktop, mobile and tablet User-Agents.
+	 */
+	List<String> getWeighted() {
+		return this.weighted;
+	}
+
+	/**
+	 * Return desktop User-Agents extended with the tokens of plugins and toolbars, about
+	 * 200 characters long on average.
+	 */
+	List<String> getLongDesktop() {
+		return this.longDesktop;
+	}
+
+	private static List<String> seeds() {
+		List<String> seeds = new ArrayList<String>();
+		try {
+			for (Field field : UserAgent.class.getDeclaredFields()) {
+				if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+					field.setAccessible(true);
+					seeds.add((String) field.get(null));
+				}
+			}
+		}
+		catch (IllegalAccessException ex) {
+			throw new IllegalStateException(ex);
+		}
+		return seeds;
+	}
+
+	/**
+	 * Replace about half of the digits of the given User-Agent with random digits.
+	 */
+	private static String vary(String userAgent, Random random) {
+		char[] chars = userAgent.toCharArray();
+		for (int i = 0; i < chars.length; i++) {
+			if (Character.isDigit(chars[i]) && random.nextBoolean()) {
+				chars[i] = (char) ('0' + random.nextInt(10));
+			}
+		}
+		return new String(chars);
+	}
+
+	/**
+	 * Append a parenthesized list of desktop extension tokens to the given User-Agent.
+	 */
+	private static String extend(String userAgent, Random random) {
+		StringBuilder builder = new StringBuilder(userAgent).append(" (");
+		int count = 6 + random.nextInt(DESKTOP_EXTENSIONS.length - 6);
+		for (int i = 0; i < count; i++) {
+			builder.append(i > 0 ? "; " : "").append(DESKTOP_EXTENSIONS[random.nextInt(DESKTOP_EXTENSIONS.length)]);
+		}
+		return builder.append(")").toString();
+	}
+
+	private static DeviceType deviceType(Device device) {
+		return (device.isMobile() ? DeviceType.MOBILE : device.isTablet() ? DeviceType.TABLET : DeviceType.NORMAL);
+	}
+
+}
@@ -0,0 +1,641 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link DeviceResolver} decorator that caches the devices resolved by a delegate
+ * resolver. Devices are cached by User-Agent, and for each User-Agent by the presence
+ * of the other request headers the {@link LiteDeviceResolver} consults: the
+ * {@code x-wap-profile} and {@code Profile} headers, an {@code Accept} header
+ * containing "wap", and an Opera Mini header. The delegate should therefore not base
+ * its result on any other request state.
+ *
+ * <p>If the delegate is a {@link LiteDeviceResolver}, cached devices are tied to the
+ * rules they were resolved with: once the rules change, through
+ * {@link LiteDeviceResolver#setRules(UserAgentRules)} as with a
+ * {@link UserAgentRulesWatcher} or by modifying the rule lists, devices resolved with
+ * the previous rules are treated as cache misses and resolved again. With
+ * {@link #setNormalizeUserAgents(boolean)}, such devices are cached by the
+ * {@linkplain LiteDeviceResolver#normalizeUserAgent(String) normalized User-Agent}
+ * instead, so that User-Agents which only differ in version numbers, build identifiers
+ * and similar tokens that cannot affect the resolved device share a cache entry, and
+ * keys are normalized with the same rules the cached devices are checked against.
+ *
+ * <p>The cache is bounded and uses a W-TinyLFU style policy. New User-Agents enter a
+ * small admission window; once the window is full, its oldest entry only replaces an
+ * entry of the main area if it has been requested more often recently, as estimated by
+ * a frequency sketch. The main area victim is the least frequently used of a small
+ * random sample. Lookups do not lock, only cache misses synchronize to update the
+ * eviction policy.
+ *
+ * <p>A cache hit is not free: it hashes and compares the User-Agent, enumerates the
+ * request's header names looking for an Opera Mini header, and records the User-Agent
+ * in the frequency sketch. Since the {@link LiteDeviceResolver} resolves a device in a
+ * single pass over the User-Agent, a hit only takes about half as long as resolving
+ * the device from scratch, and a miss takes longer. The cache is therefore worth
+ * enabling in front of a {@link LiteDeviceResolver} when most requests come from a
+ * limited set of User-Agents and device resolution shows up in request profiles, and in
+ * front of more expensive delegates in general. With normalized User-Agents, a hit
+ * costs more than resolving the device, see {@link #setNormalizeUserAgents(boolean)}.
+ *
+ * <p>The cache can be written to a snapshot file and loaded from it, for instance by a
+ * {@link DeviceCacheSnapshotter}, so that a new instance starts with the User-Agents
+ * that were hottest before a restart instead of an empty cache. Snapshots are not loaded
+ * in front of an {@link EnrichingDeviceResolver}, since they only hold plain devices.
+ *
+ * @since 2.0
+ */
+public class CachingDeviceResolver implements DeviceResolver {
+
+	/**
+	 * The default maximum number of cached User-Agents.
+	 */
+	public static final int DEFAULT_MAXIMUM_SIZE = 10000;
+
+	private static final int VARIANTS = 16;
+
+	private static final int SAMPLE_SIZE = 8;
+
+	private static final int SNAPSHOT_MAGIC = 0x534d4353;
+
+	private static final int SNAPSHOT_FORMAT = 2;
+
+	private static final int MAX_SNAPSHOT_USER_AGENT_LENGTH = 0xffff / 3;
+
+	private static final DeviceType[] DEVICE_TYPES = DeviceType.values();
+
+	private static final DevicePlatform[] DEVICE_PLATFORMS = DevicePlatform.values();
+
+	private final DeviceResolver delegate;
+
+	private final LiteDeviceResolver normalizer;
+
+	private final int maximumSize;
+
+	private boolean normalizeUserAgents;
+
+	private final ConcurrentHashMap<String, CacheEntry> entries;
+
+	private final CacheEntry noUserAgentEntry = new CacheEntry(null, null);
+
+	private final FrequencySketch sketch;
+
+	private final Object evictionLock = new Object();
+
+	private final CacheEntry[] window;
+
+	private int windowIndex;
+
+	private final CacheEntry[] main;
+
+	private int mainCount;
+
+	private final LongAdder hitCount = new LongAdder();
+
+	private final LongAdder missCount = new LongAdder();
+
+	private final LongAdder evictionCount = new LongAdder();
+
+	/**
+	 * Create a caching {@link DeviceResolver} holding up to
+	 * {@link #DEFAULT_MAXIMUM_SIZE} User-Agents.
+	 * @param delegate the device resolver to delegate to on cache misses
+	 */
+	public CachingDeviceResolver(DeviceResolver delegate) {
+		this(delegate, DEFAULT_MAXIMUM_SIZE);
+	}
+
+	/**
+	 * Create a caching {@link DeviceResolver}.
+	 * @param delegate the device resolver to delegate to on cache misses
+	 * @param maximumSize the maximum number of cached User-Agents
+	 */
+	public CachingDeviceResolver(DeviceResolver delegate, int maximumSize) {
+		Assert.notNull(delegate, "DeviceResolver must not be null");
+		Assert.isTrue(maximumSize > 0, "Maximum size must be greater than zero");
+		this.delegate = delegate;
+		this.normalizer = (delegate instanceof LiteDeviceResolver ? (LiteDeviceResolver) delegate : null);
+		this.maximumSize = maximumSize;
+		this.entries = new ConcurrentHashMap<String, CacheEntry>(Math.min(maximumSize, 1024));
+		this.sketch = new FrequencySketch(maximumSize);
+		int windowSize = Math.max(1, maximumSize / 100);
+		this.window = new CacheEntry[windowSize];
+		this.main = new CacheEntry[maximumSize - windowSize];
+	}
+
+	public Device resolveDevice(HttpServletRequest request) {
+		String userAgent = request.getHeader("User-Agent");
+		String key = null;
+		int variant = getVariant(request);
+		// devices resolved with other rules than the current ones are stale
+		LiteDeviceResolver.CompiledRules rules = getRules();
+		CacheEntry entry;
+		if (userAgent != null) {
+			key = (isNormalizing() ? this.normalizer.normalizeUserAgent(userAgent, rules) : userAgent);
+			this.sketch.increment(key);
+			entry = this.entries.get(key);
+		}
+		else {
+			entry = this.noUserAgentEntry;
+		}
+		if (entry != null) {
+			Device device = entry.get(rules, variant);
+			if (device != null) {
+				this.hitCount.increment();
+				return device;
+			}
+		}
+		this.missCount.increment();
+		Device device = this.delegate.resolveDevice(request);
+		if (device != null) {
+			if (entry == null) {
+				entry = admit(key, rules);
+			}
+			entry.set(rules, variant, device);
+		}
+		return device;
+	}
+
+	/**
+	 * Set whether to cache devices by the
+	 * {@linkplain LiteDeviceResolver#normalizeUserAgent(String) normalized User-Agent}
+	 * rather than the User-Agent itself, if the delegate is a {@link LiteDeviceResolver}.
+	 * Normalizing merges User-Agents that only differ in version numbers and the like,
+	 * so fewer entries hold the same devices and fewer requests miss, but it has to scan
+	 * the User-Agent on every lookup, much like resolving the device does. A normalized
+	 * hit is therefore no cheaper than resolving the device, and only pays off where the
+	 * number of distinct User-Agents would otherwise keep the cache from holding the hot
+	 * ones. Default is {@code false}. Must be set before the cache is used, and before a
+	 * snapshot is loaded, since keys of either kind are not interchangeable.
+	 * @param normalizeUserAgents whether to cache devices by normalized User-Agent
+	 */
+	public void setNormalizeUserAgents(boolean normalizeUserAgents) {
+		this.normalizeUserAgents = normalizeUserAgents;
+	}
+
+	/**
+	 * Return whether devices are cached by normalized User-Agent.
+	 */
+	public boolean isNormalizeUserAgents() {
+		return this.normalizeUserAgents;
+	}
+
+	/**
+	 * Return the device resolver this cache delegates to.
+	 */
+	public DeviceResolver getDelegate() {
+		return this.delegate;
+	}
+
+	/**
+	 * Return the maximum number of cached User-Agents.
+	 */
+	public int getMaximumSize() {
+		return this.maximumSize;
+	}
+
+	/**
+	 * Return the number of currently cached User-Agents.
+	 */
+	public int getSize() {
+		return this.entries.size();
+	}
+
+	/**
+	 * Return the number of resolutions answered from the cache.
+	 */
+	public long getHitCount() {
+		return this.hitCount.sum();
+	}
+
+	/**
+	 * Return the number of resolutions delegated to the underlying resolver.
+	 */
+	public long getMissCount() {
+		return this.missCount.sum();
+	}
+
+	/**
+	 * Return the number of User-Agents evicted from, or denied admission to, the
+	 * cache.
+	 */
+	public long getEvictionCount() {
+		return this.evictionCount.sum();
+	}
+
+	/**
+	 * Write the cached devices to a snapshot file tagged with the version of the rules
+	 * the {@link LiteDeviceResolver} delegate currently resolves with, see
+	 * {@link #writeSnapshot(Path, String)}.
+	 * @param file the snapshot file
+	 * @return the number of User-Agents written
+	 * @throws IOException if the snapshot cannot be written
+	 * @throws IllegalStateException if the delegate is not a {@link LiteDeviceResolver}
+	 */
+	public int writeSnapshot(Path file) throws IOException {
+		Assert.notNull(file, "File must not be null");
+		Assert.state(this.normalizer != null, "Delegate must be a LiteDeviceResolver");
+		LiteDeviceResolver.CompiledRules rules = getRules();
+		return writeSnapshot(file, rules.getRules().getVersion(), rules);
+	}
+
+	/**
+	 * Write the cached devices to a snapshot file, hottest User-Agents first. Only
+	 * {@link LiteDevice} instances are written, since other devices may carry state that
+	 * cannot be restored, and only those resolved with the rules the delegate currently
+	 * resolves with, since the others are stale. The snapshot is written to a temporary
+	 * file that is then moved into place, so an interrupted write never leaves a partial
+	 * snapshot behind. The cache remains usable while the snapshot is written.
+	 * @param file the snapshot file
+	 * @param version the version of the rules the delegate resolves with, typically
+	 * {@link UserAgentRules#getVersion()}
+	 * @return the number of User-Agents written
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	public int writeSnapshot(Path file, String version) throws IOException {
+		Assert.notNull(file, "File must not be null");
+		Assert.notNull(version, "Version must not be null");
+		return writeSnapshot(file, version, getRules());
+	}
+
+	private int writeSnapshot(Path file, String version, LiteDeviceResolver.CompiledRules rules) throws IOException {
+		List<SnapshotEntry> snapshot = new ArrayList<SnapshotEntry>(this.entries.size());
+		for (CacheEntry entry : this.entries.values()) {
+			// devices resolved with replaced rules would be persisted under the current version
+			Devices devices = entry.devices;
+			if (devices.rules == rules && entry.key.length() <= MAX_SNAPSHOT_USER_AGENT_LENGTH) {
+				snapshot.add(new SnapshotEntry(entry, devices, this.sketch.frequency(entry.key)));
+			}
+		}
+		Collections.sort(snapshot, new Comparator<SnapshotEntry>() {
+			public int compare(SnapshotEntry entry1, SnapshotEntry entry2) {
+				return Integer.compare(entry2.frequency, entry1.frequency);
+			}
+		});
+		Path target = file.toAbsolutePath();
+		Path temporary = Files.createTempFile(target.getParent(), target.getFileName().toString(), ".tmp");
+		int written = 0;
+		try {
+			try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(
+					new GZIPOutputStream(Files.newOutputStream(temporary))))) {
+				out.writeInt(SNAPSHOT_MAGIC);
+				out.writeInt(SNAPSHOT_FORMAT);
+				out.writeUTF(version);
+				out.writeBoolean(isNormalizing());
+				for (SnapshotEntry snapshotEntry : snapshot) {
+					if (writeSnapshotEntry(out, snapshotEntry)) {
+						written++;
+					}
+				}
+				out.writeBoolean(false);
+			}
+			try {
+				Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch (AtomicMoveNotSupportedException ex) {
+				Files.move(temporary, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		finally {
+			Files.deleteIfExists(temporary);
+		}
+		return written;
+	}
+
+	/**
+	 * Load the devices of a snapshot file if it was written for the version of the rules
+	 * the {@link LiteDeviceResolver} delegate currently resolves with, see
+	 * {@link #loadSnapshot(Path, String)}.
+	 * @param file the snapshot file
+	 * @return the number of User-Agents loaded
+	 * @throws IOException if the snapshot cannot be read or is not a snapshot
+	 * @throws IllegalStateException if the delegate is not a {@link LiteDeviceResolver}
+	 */
+	public int loadSnapshot(Path file) throws IOException {
+		Assert.notNull(file, "File must not be null");
+		Assert.state(this.normalizer != null, "Delegate must be a LiteDeviceResolver");
+		LiteDeviceResolver.CompiledRules rules = getRules();
+		return loadSnapshot(file, rules.getRules().getVersion(), rules);
+	}
+
+	/**
+	 * Load the devices of a snapshot file written by {@link #writeSnapshot(Path, String)}
+	 * into this cache, hottest User-Agents first, until the main area of the cache is
+	 * full. The snapshot is ignored if it does not exist or was written for another
+	 * version of the rules, since its devices may no longer be accurate, if its
+	 * User-Agents are {@linkplain #setNormalizeUserAgents(boolean) normalized} while this
+	 * cache's keys are not or vice versa, or if the delegate is an
+	 * {@link EnrichingDeviceResolver}, since snapshots only hold plain {@link LiteDevice}
+	 * instances rather than {@link EnrichedDevice} ones. User-Agents already cached are
+	 * kept.
+	 * @param file the snapshot file
+	 * @param version the version of the rules this cache's delegate resolves with
+	 * @return the number of User-Agents loaded
+	 * @throws IOException if the snapshot cannot be read or is not a snapshot
+	 */
+	public int loadSnapshot(Path file, String version) throws IOException {
+		Assert.notNull(file, "File must not be null");
+		Assert.notNull(version, "Version must not be null");
+		// the version is that of the current rules, so the devices count as resolved with them
+		return loadSnapshot(file, version, getRules());
+	}
+
+	private int loadSnapshot(Path file, String version, LiteDeviceResolver.CompiledRules rules) throws IOException {
+		if (this.delegate instanceof EnrichingDeviceResolver || !Files.isRegularFile(file)) {
+			return 0;
+		}
+		List<SnapshotEntry> snapshot = new ArrayList<SnapshotEntry>();
+		try (DataInputStream in = new DataInputStream(new BufferedInputStream(
+				new GZIPInputStream(Files.newInputStream(file))))) {
+			if (in.readInt() != SNAPSHOT_MAGIC || in.readInt() != SNAPSHOT_FORMAT) {
+				throw new IOException("Not a device cache snapshot: " + file);
+			}
+			// keys normalized or not cannot be looked up the other way
+			if (!version.equals(in.readUTF()) || in.readBoolean() != isNormalizing()) {
+				return 0;
+			}
+			while (snapshot.size() < this.main.length && in.readBoolean()) {
+				snapshot.add(readSnapshotEntry(in, rules));
+			}
+		}
+		int loaded = 0;
+		synchronized (this.evictionLock) {
+			for (SnapshotEntry snapshotEntry : snapshot) {
+				if (this.mainCount == this.main.length) {
+					break;
+				}
+				CacheEntry entry = snapshotEntry.entry;
+				if (this.entries.putIfAbsent(entry.key, entry) == null) {
+					this.main[this.mainCount++] = entry;
+					for (int i = 0; i < snapshotEntry.frequency; i++) {
+						this.sketch.increment(entry.key);
+					}
+					loaded++;
+				}
+			}
+		}
+		return loaded;
+	}
+
+	// internal helpers
+
+	private static boolean writeSnapshotEntry(DataOutputStream out, SnapshotEntry snapshotEntry) throws IOException {
+		CacheEntry entry = snapshotEntry.entry;
+		AtomicReferenceArray<Device> cached = snapshotEntry.devices.variants;
+		int variants = 0;
+		byte[] devices = new byte[VARIANTS];
+		for (int variant = 0; variant < VARIANTS; variant++) {
+			Device device = cached.get(variant);
+			if (device != null && device.getClass() == LiteDevice.class) {
+				LiteDevice liteDevice = (LiteDevice) device;
+				if (liteDevice.getDeviceType() != null && liteDevice.getDevicePlatform() != null) {
+					variants |= (1 << variant);
+					devices[variant] = (byte) ((liteDevice.getDeviceType().ordinal() << 4)
+							| liteDevice.getDevicePlatform().ordinal());
+				}
+			}
+		}
+		if (variants == 0) {
+			return false;
+		}
+		out.writeBoolean(true);
+		out.writeUTF(entry.key);
+		out.writeByte(snapshotEntry.frequency);
+		out.writeShort(variants);
+		for (int variant = 0; variant < VARIANTS; variant++) {
+			if ((variants & (1 << variant)) != 0) {
+				out.writeByte(devices[variant]);
+			}
+		}
+		return true;
+	}
+
+	private static SnapshotEntry readSnapshotEntry(DataInputStream in, LiteDeviceResolver.CompiledRules rules)
+			throws IOException {
+		CacheEntry entry = new CacheEntry(in.readUTF(), rules);
+		int frequency = in.readUnsignedByte();
+		int variants = in.readUnsignedShort();
+		for (int variant = 0; variant < VARIANTS; variant++) {
+			if ((variants & (1 << variant)) != 0) {
+				int device = in.readUnsignedByte();
+				int type = device >>> 4;
+				int platform = device & 0xf;
+				if (type >= DEVICE_TYPES.length || platform >= DEVICE_PLATFORMS.length) {
+					throw new IOException("Invalid device in cache snapshot: " + device);
+				}
+				entry.devices.variants.set(variant, LiteDevice.from(DEVICE_TYPES[type], DEVICE_PLATFORMS[platform]));
+			}
+		}
+		return new SnapshotEntry(entry, entry.devices, frequency);
+	}
+
+	private int getVariant(HttpServletRequest request) {
+		int variant = 0;
+		if (request.getHeader("x-wap-profile") != null) {
+			variant |= 1;
+		}
+		if (request.getHeader("Profile") != null) {
+			variant |= 2;
+		}
+		String accept = request.getHeader("Accept");
+		if (accept != null && accept.contains("wap")) {
+			variant |= 4;
+		}
+		// inspect no more headers than the delegate, see LiteDeviceResolver#setMaxHeaderCount
+		int maxHeaderCount = (this.normalizer != null ? this.normalizer.getMaxHeaderCount() : Integer.MAX_VALUE);
+		Enumeration<String> headers = request.getHeaderNames();
+		for (int i = 0; i < maxHeaderCount && headers.hasMoreElements(); i++) {
+			if (headers.nextElement().contains("OperaMini")) {
+				variant |= 8;
+				break;
+			}
+		}
+		return variant;
+	}
+
+	private boolean isNormalizing() {
+		return (this.normalizeUserAgents && this.normalizer != null);
+	}
+
+	/**
+	 * Return the compiled rules of the delegate, or {@code null} if it is not a
+	 * {@link LiteDeviceResolver}.
+	 */
+	private LiteDeviceResolver.CompiledRules getRules() {
+		return (this.normalizer != null ? this.normalizer.getCompiledRules() : null);
+	}
+
+	private CacheEntry admit(String key, LiteDeviceResolver.CompiledRules rules) {
+		synchronized (this.evictionLock) {
+			CacheEntry entry = this.entries.get(key);
+			if (entry == null) {
+				entry = new CacheEntry(key, rules);
+				CacheEntry candidate = this.window[this.windowIndex];
+				this.window[this.windowIndex] = entry;
+				this.windowIndex = (this.windowIndex + 1) % this.window.length;
+				this.entries.put(key, entry);
+				if (candidate != null) {
+					promote(candidate);
+				}
+			}
+			return entry;
+		}
+	}
+
+	/**
+	 * Move an entry leaving the admission window into the main area, if the TinyLFU
+	 * admission policy considers it more valuable than the main area's victim.
+	 */
+	private void promote(CacheEntry candidate) {
+		if (this.mainCount < this.main.length) {
+			this.main[this.mainCount++] = candidate;
+			return;
+		}
+		if (this.main.length == 0) {
+			evict(candidate);
+			return;
+		}
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int victimIndex = random.nextInt(this.main.length);
+		int victimFrequency = this.sketch.frequency(this.main[victimIndex].key);
+		for (int i = 1; i < SAMPLE_SIZE; i++) {
+			int index = random.nextInt(this.main.length);
+			int frequency = this.sketch.frequency(this.main[index].key);
+			if (frequency < victimFrequency) {
+				victimIndex = index;
+				victimFrequency = frequency;
+			}
+		}
+		if (this.sketch.frequency(candidate.key) > victimFrequency) {
+			evict(this.main[victimIndex]);
+			this.main[victimIndex] = candidate;
+		}
+		else {
+			evict(candidate);
+		}
+	}
+
+	private void evict(CacheEntry entry) {
+		this.entries.remove(entry.key, entry);
+		this.evictionCount.increment();
+	}
+
+
+	/**
+	 * The devices cached for a single User-Agent, or for all User-Agents with the same
+	 * normalized form, one per header variant.
+	 */
+	private static class CacheEntry {
+
+		private final String key;
+
+		private volatile Devices devices;
+
+		CacheEntry(String key, LiteDeviceResolver.CompiledRules rules) {
+			this.key = key;
+			this.devices = new Devices(rules, new AtomicReferenceArray<Device>(VARIANTS));
+		}
+
+		/**
+		 * Return the device cached for the given variant, unless it was resolved with
+		 * other rules.
+		 */
+		Device get(LiteDeviceResolver.CompiledRules rules, int variant) {
+			Devices devices = this.devices;
+			return (devices.rules == rules ? devices.variants.get(variant) : null);
+		}
+
+		/**
+		 * Cache the device of the given variant, discarding the devices of the other
+		 * variants if they were resolved with other rules.
+		 */
+		void set(LiteDeviceResolver.CompiledRules rules, int variant, Device device) {
+			Devices devices = this.devices;
+			if (devices.rules != rules) {
+				devices = new Devices(rules, new AtomicReferenceArray<Device>(VARIANTS));
+				this.devices = devices;
+			}
+			devices.variants.set(variant, device);
+		}
+
+	}
+
+
+	/**
+	 * The devices of a cache entry, along with the rules they were resolved with, or
+	 * {@code null} if the delegate is not a {@link LiteDeviceResolver}.
+	 */
+	private static class Devices {
+
+		private final LiteDeviceResolver.CompiledRules rules;
+
+		private final AtomicReferenceArray<Device> variants;
+
+		Devices(LiteDeviceResolver.CompiledRules rules, AtomicReferenceArray<Device> variants) {
+			this.rules = rules;
+			this.variants = variants;
+		}
+
+	}
+
+
+	/**
+	 * A cache entry written to or read from a snapshot, with its devices and estimated
+	 * frequency.
+	 */
+	private static class SnapshotEntry {
+
+		private final CacheEntry entry;
+
+		private final Devices devices;
+
+		private final int frequency;
+
+		SnapshotEntry(CacheEntry entry, Devices devices, int frequency) {
+			this.entry = entry;
+			this.devices = devices;
+			this.frequency = frequency;
+		}
+
+	}
+
+}
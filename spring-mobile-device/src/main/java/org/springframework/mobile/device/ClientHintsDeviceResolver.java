@@ -0,0 +1,152 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+/**
+ * {@link DeviceResolver} based on the User-Agent Client Hints sent by Chromium based
+ * browsers. The {@code Sec-CH-UA-Mobile} and {@code Sec-CH-UA-Platform} headers are
+ * small structured fields that directly state whether the browser runs on a mobile
+ * device and on which platform, so the User-Agent does not need to be scanned at all.
+ * Requests without a valid {@code Sec-CH-UA-Mobile} header are resolved by a fallback
+ * resolver, a {@link LiteDeviceResolver} by default. Without a fallback resolver they
+ * resolve to {@code null}, as expected of a tier of a {@link TieredDeviceResolver}.
+ *
+ * <p>An Android browser that does not report itself as mobile is resolved as a tablet,
+ * following the same convention as the {@link LiteDeviceResolver}.
+ *
+ * <p>When used with a {@link CachingDeviceResolver}, wrap the fallback resolver rather
+ * than this resolver, since the cache does not consider the client hint headers.
+ *
+ * @since 2.0
+ */
+public class ClientHintsDeviceResolver implements DeviceResolver {
+
+	/**
+	 * The client hint header stating whether the browser runs on a mobile device.
+	 */
+	public static final String MOBILE_HEADER = "Sec-CH-UA-Mobile";
+
+	/**
+	 * The client hint header naming the platform the browser runs on.
+	 */
+	public static final String PLATFORM_HEADER = "Sec-CH-UA-Platform";
+
+	private static final String ACCEPT_CH_HEADER = "Accept-CH";
+
+	private static final String ACCEPT_CH_VALUE = MOBILE_HEADER + ", " + PLATFORM_HEADER;
+
+	private final DeviceResolver fallback;
+
+	private boolean acceptClientHints = true;
+
+	/**
+	 * Create a client hints {@link DeviceResolver} that falls back to a
+	 * {@link LiteDeviceResolver}.
+	 */
+	public ClientHintsDeviceResolver() {
+		this(new LiteDeviceResolver());
+	}
+
+	/**
+	 * Create a client hints {@link DeviceResolver}.
+	 * @param fallback the device resolver used for requests without client hints, or
+	 * {@code null} to resolve such requests to {@code null}
+	 */
+	public ClientHintsDeviceResolver(DeviceResolver fallback) {
+		this.fallback = fallback;
+	}
+
+	/**
+	 * Set whether {@link #addAcceptClientHints(HttpServletResponse)} advertises the
+	 * client hints in an {@code Accept-CH} response header, so that returning
+	 * browsers send them. Default is true.
+	 */
+	public void setAcceptClientHints(boolean acceptClientHints) {
+		this.acceptClientHints = acceptClientHints;
+	}
+
+	/**
+	 * Return the device resolver used for requests without client hints, if any.
+	 */
+	public DeviceResolver getFallback() {
+		return this.fallback;
+	}
+
+	public Device resolveDevice(HttpServletRequest request) {
+		Boolean mobile = StructuredFields.parseBoolean(request.getHeader(MOBILE_HEADER));
+		if (mobile == null) {
+			return (this.fallback != null ? this.fallback.resolveDevice(request) : null);
+		}
+		DevicePlatform platform = getDevicePlatform(request.getHeader(PLATFORM_HEADER));
+		if (mobile) {
+			return LiteDevice.from(DeviceType.MOBILE, platform);
+		}
+		if (platform == DevicePlatform.ANDROID) {
+			return LiteDevice.from(DeviceType.TABLET, platform);
+		}
+		return LiteDevice.from(DeviceType.NORMAL, platform);
+	}
+
+	/**
+	 * Ask the browser to send the client hints this resolver uses on subsequent
+	 * requests, unless disabled through {@link #setAcceptClientHints(boolean)}. Called
+	 * by the {@link DeviceResolverHandlerInterceptor} and the
+	 * {@link DeviceResolverRequestFilter}.
+	 * @param response the current response
+	 */
+	public void addAcceptClientHints(HttpServletResponse response) {
+		if (this.acceptClientHints && !response.containsHeader(ACCEPT_CH_HEADER)) {
+			response.setHeader(ACCEPT_CH_HEADER, ACCEPT_CH_VALUE);
+		}
+	}
+
+	/**
+	 * Add the {@code Accept-CH} header for every {@link ClientHintsDeviceResolver} the
+	 * given resolver consists of, including the tiers of a {@link TieredDeviceResolver}
+	 * and the delegates of caching and lazy resolvers.
+	 */
+	static void addAcceptClientHints(DeviceResolver resolver, HttpServletResponse response) {
+		if (resolver instanceof ClientHintsDeviceResolver) {
+			((ClientHintsDeviceResolver) resolver).addAcceptClientHints(response);
+		}
+		else if (resolver instanceof TieredDeviceResolver) {
+			for (TieredDeviceResolver.Tier tier : ((TieredDeviceResolver) resolver).getTiers()) {
+				addAcceptClientHints(tier.getResolver(), response);
+			}
+		}
+		else if (resolver instanceof CachingDeviceResolver) {
+			addAcceptClientHints(((CachingDeviceResolver) resolver).getDelegate(), response);
+		}
+		else if (resolver instanceof LazyDeviceResolver) {
+			addAcceptClientHints(((LazyDeviceResolver) resolver).getDelegate(), response);
+		}
+	}
+
+	private DevicePlatform getDevicePlatform(String platform) {
+		if (StructuredFields.isString(platform, "Android")) {
+			return DevicePlatform.ANDROID;
+		}
+		if (StructuredFields.isString(platform, "iOS")) {
+			return DevicePlatform.IOS;
+		}
+		return DevicePlatform.UNKNOWN;
+	}
+
+}
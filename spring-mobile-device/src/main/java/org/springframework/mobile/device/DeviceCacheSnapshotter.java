@@ -0,0 +1,220 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.util.Assert;
+
+/**
+ * Keeps a {@link CachingDeviceResolver} warm across restarts: loads a snapshot of the
+ * cache from a local file on start, and writes the cache to the file on stop and,
+ * optionally, periodically. The snapshot is tagged with the version of the rules its
+ * devices were resolved with, and only loaded if the rules still have that version.
+ * Nothing is loaded into a cache in front of an {@link EnrichingDeviceResolver}.
+ * Failures to load or write the snapshot are logged and otherwise ignored, since the
+ * cache works without it, only colder.
+ *
+ * @since 2.0
+ * @see CachingDeviceResolver#writeSnapshot(Path, String)
+ * @see CachingDeviceResolver#loadSnapshot(Path, String)
+ */
+public class DeviceCacheSnapshotter implements SmartLifecycle {
+
+	private static final Log logger = LogFactory.getLog(DeviceCacheSnapshotter.class);
+
+	private final CachingDeviceResolver deviceResolver;
+
+	private final Path file;
+
+	private final String version;
+
+	private Duration interval;
+
+	private final Object monitor = new Object();
+
+	private ScheduledExecutorService executor;
+
+	private boolean running;
+
+	/**
+	 * Create a snapshotter for a cache whose delegate is a {@link LiteDeviceResolver},
+	 * using the version of the resolver's current {@link UserAgentRules}, so that the
+	 * rules may be reloaded meanwhile.
+	 * @param deviceResolver the cache to load and write
+	 * @param file the snapshot file
+	 * @throws IllegalArgumentException if the cache does not delegate to a
+	 * {@link LiteDeviceResolver}
+	 */
+	public DeviceCacheSnapshotter(CachingDeviceResolver deviceResolver, Path file) {
+		this(deviceResolver, file, null);
+		Assert.isInstanceOf(LiteDeviceResolver.class, deviceResolver.getDelegate(),
+				"Cache must delegate to a LiteDeviceResolver unless a version is given");
+	}
+
+	/**
+	 * Create a snapshotter.
+	 * @param deviceResolver the cache to load and write
+	 * @param file the snapshot file
+	 * @param version the version of the rules the cache's delegate resolves with
+	 */
+	public DeviceCacheSnapshotter(CachingDeviceResolver deviceResolver, Path file, String version) {
+		Assert.notNull(deviceResolver, "CachingDeviceResolver must not be null");
+		Assert.notNull(file, "File must not be null");
+		this.deviceResolver = deviceResolver;
+		this.file = file.toAbsolutePath();
+		this.version = version;
+	}
+
+	/**
+	 * Set the interval between periodic snapshots, in addition to the one written on
+	 * stop. By default, the snapshot is only written on stop.
+	 * @param interval the interval, or {@code null} for no periodic snapshots
+	 */
+	public void setInterval(Duration interval) {
+		Assert.isTrue(interval == null || (!interval.isNegative() && !interval.isZero()),
+				"Interval must be positive");
+		this.interval = interval;
+	}
+
+	/**
+	 * Load the snapshot into the cache now.
+	 * @return the number of User-Agents loaded, 0 if there is no snapshot of the current
+	 * rules
+	 * @throws IOException if the snapshot cannot be read
+	 */
+	public int load() throws IOException {
+		if (this.version == null) {
+			return this.deviceResolver.loadSnapshot(this.file);
+		}
+		return this.deviceResolver.loadSnapshot(this.file, this.version);
+	}
+
+	/**
+	 * Write the cache to the snapshot now.
+	 * @return the number of User-Agents written
+	 * @throws IOException if the snapshot cannot be written
+	 */
+	public int write() throws IOException {
+		if (this.version == null) {
+			return this.deviceResolver.writeSnapshot(this.file);
+		}
+		return this.deviceResolver.writeSnapshot(this.file, this.version);
+	}
+
+	/**
+	 * Load the snapshot and start writing periodic snapshots, if an interval is set.
+	 */
+	public void start() {
+		synchronized (this.monitor) {
+			if (this.running) {
+				return;
+			}
+			try {
+				int loaded = load();
+				if (logger.isInfoEnabled()) {
+					logger.info("Loaded " + loaded + " User-Agents into the device cache from " + this.file);
+				}
+			}
+			catch (IOException | RuntimeException ex) {
+				logger.warn("Failed to load device cache snapshot " + this.file + ", starting with a cold cache", ex);
+			}
+			if (this.interval != null) {
+				this.executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "device-cache-snapshotter");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+				long millis = this.interval.toMillis();
+				this.executor.scheduleWithFixedDelay(new Runnable() {
+					public void run() {
+						writeQuietly();
+					}
+				}, millis, millis, TimeUnit.MILLISECONDS);
+			}
+			this.running = true;
+		}
+	}
+
+	/**
+	 * Stop writing periodic snapshots, and write a final snapshot.
+	 */
+	public void stop() {
+		synchronized (this.monitor) {
+			if (!this.running) {
+				return;
+			}
+			if (this.executor != null) {
+				this.executor.shutdown();
+				try {
+					this.executor.awaitTermination(10, TimeUnit.SECONDS);
+				}
+				catch (InterruptedException ex) {
+					Thread.currentThread().interrupt();
+				}
+				this.executor = null;
+			}
+			writeQuietly();
+			this.running = false;
+		}
+	}
+
+	public void stop(Runnable callback) {
+		stop();
+		callback.run();
+	}
+
+	public boolean isRunning() {
+		synchronized (this.monitor) {
+			return this.running;
+		}
+	}
+
+	public boolean isAutoStartup() {
+		return true;
+	}
+
+	public int getPhase() {
+		return 0;
+	}
+
+	// internal helpers
+
+	private void writeQuietly() {
+		try {
+			int written = write();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Wrote " + written + " User-Agents of the device cache to " + this.file);
+			}
+		}
+		catch (IOException | RuntimeException ex) {
+			logger.warn("Failed to write device cache snapshot " + this.file, ex);
+		}
+	}
+
+}
@@ -0,0 +1,180 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import org.springframework.util.Assert;
+
+/**
+ * Classifies batches of User-Agents outside of a web request, for instance the
+ * User-Agents stored in access logs. Each batch is deduplicated first, so that every
+ * distinct User-Agent is resolved once, and the distinct User-Agents of large batches
+ * are resolved in parallel by fork-join tasks. The devices are returned in the order of
+ * the User-Agents, and repeated User-Agents share the same device.
+ * 
+ * <p>The underlying {@link HttpHeadersDeviceResolver} must be thread-safe, which the
+ * {@link LiteDeviceResolver} is as long as its rule lists are not modified.
+ * 
+ * @since 2.0
+ */
+public class DeviceClassifier {
+
+	/**
+	 * The default number of distinct User-Agents resolved by a single task.
+	 */
+	public static final int DEFAULT_THRESHOLD = 1024;
+
+	private final HttpHeadersDeviceResolver resolver;
+
+	private final ForkJoinPool pool;
+
+	private int threshold = DEFAULT_THRESHOLD;
+
+	/**
+	 * Create a classifier resolving large batches in the common fork-join pool.
+	 * @param resolver the resolver to classify User-Agents with
+	 */
+	public DeviceClassifier(HttpHeadersDeviceResolver resolver) {
+		this(resolver, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Create a classifier resolving large batches in the given fork-join pool.
+	 * @param resolver the resolver to classify User-Agents with
+	 * @param pool the pool to resolve large batches in
+	 */
+	public DeviceClassifier(HttpHeadersDeviceResolver resolver, ForkJoinPool pool) {
+		Assert.notNull(resolver, "HttpHeadersDeviceResolver must not be null");
+		Assert.notNull(pool, "ForkJoinPool must not be null");
+		this.resolver = resolver;
+		this.pool = pool;
+	}
+
+	/**
+	 * Set the number of distinct User-Agents resolved by a single task. Batches with
+	 * no more distinct User-Agents are resolved in the calling thread, larger batches
+	 * are split until each task has at most this many. Defaults to
+	 * {@link #DEFAULT_THRESHOLD}.
+	 * @param threshold the threshold
+	 */
+	public void setThreshold(int threshold) {
+		Assert.isTrue(threshold > 0, "Threshold must be greater than zero");
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Classify a single User-Agent.
+	 * @param userAgent the User-Agent, may be {@code null}
+	 * @return the device
+	 */
+	public Device classify(String userAgent) {
+		return this.resolver.resolveDevice(userAgent);
+	}
+
+	/**
+	 * Classify a batch of User-Agents.
+	 * @param userAgents the User-Agents, which may contain {@code null}
+	 * @return the devices, in the order of the User-Agents
+	 */
+	public List<Device> classifyAll(Collection<String> userAgents) {
+		Assert.notNull(userAgents, "User-Agents must not be null");
+		return Arrays.asList(classifyAll(userAgents.toArray(new String[userAgents.size()])));
+	}
+
+	/**
+	 * Classify a batch of User-Agents.
+	 * @param userAgents the User-Agents, which may contain {@code null}
+	 * @return the devices, in the order of the User-Agents
+	 */
+	public Device[] classifyAll(String... userAgents) {
+		Assert.notNull(userAgents, "User-Agents must not be null");
+		Map<String, Integer> indexes = new HashMap<String, Integer>();
+		int[] distinctIndexes = new int[userAgents.length];
+		String[] distinct = new String[userAgents.length];
+		int distinctCount = 0;
+		for (int i = 0; i < userAgents.length; i++) {
+			Integer index = indexes.get(userAgents[i]);
+			if (index == null) {
+				index = distinctCount;
+				indexes.put(userAgents[i], index);
+				distinct[distinctCount++] = userAgents[i];
+			}
+			distinctIndexes[i] = index;
+		}
+		Device[] distinctDevices = new Device[distinctCount];
+		ClassifyTask task = new ClassifyTask(distinct, distinctDevices, 0, distinctCount);
+		if (distinctCount <= this.threshold) {
+			task.compute();
+		}
+		else {
+			this.pool.invoke(task);
+		}
+		Device[] devices = new Device[userAgents.length];
+		for (int i = 0; i < devices.length; i++) {
+			devices[i] = distinctDevices[distinctIndexes[i]];
+		}
+		return devices;
+	}
+
+
+	/**
+	 * Resolves a range of distinct User-Agents, splitting it in halves until it is no
+	 * larger than the threshold.
+	 */
+	private class ClassifyTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final String[] userAgents;
+
+		private final Device[] devices;
+
+		private final int start;
+
+		private final int end;
+
+		ClassifyTask(String[] userAgents, Device[] devices, int start, int end) {
+			this.userAgents = userAgents;
+			this.devices = devices;
+			this.start = start;
+			this.end = end;
+		}
+
+		@Override
+		protected void compute() {
+			if (this.end - this.start <= threshold) {
+				for (int i = this.start; i < this.end; i++) {
+					this.devices[i] = resolver.resolveDevice(this.userAgents[i]);
+				}
+			}
+			else {
+				int middle = (this.start + this.end) >>> 1;
+				invokeAll(new ClassifyTask(this.userAgents, this.devices, this.start, middle),
+						new ClassifyTask(this.userAgents, this.devices, middle, this.end));
+			}
+		}
+
+	}
+
+}
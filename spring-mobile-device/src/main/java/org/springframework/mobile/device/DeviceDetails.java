@@ -0,0 +1,123 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import org.springframework.lang.Nullable;
+import org.springframework.util.ObjectUtils;
+
+/**
+ * Detailed attributes of the browser and operating system that submitted a request,
+ * such as the browser family and the operating system version. Attributes that could
+ * not be determined are {@code null}.
+ *
+ * @since 2.0
+ * @see DeviceDetailsParser
+ * @see EnrichedDevice#getDetails()
+ */
+public final class DeviceDetails {
+
+	/**
+	 * Details of a request whose browser and operating system are unknown.
+	 */
+	public static final DeviceDetails UNKNOWN = new DeviceDetails(null, null, null, null);
+
+	private final String browserFamily;
+
+	private final String browserVersion;
+
+	private final String osFamily;
+
+	private final String osVersion;
+
+	/**
+	 * Creates DeviceDetails
+	 * @param browserFamily the browser family, i.e. Chrome or Safari
+	 * @param browserVersion the browser version, i.e. 64.0.3282
+	 * @param osFamily the operating system family, i.e. Android or iOS
+	 * @param osVersion the operating system version, i.e. 11.2
+	 */
+	public DeviceDetails(@Nullable String browserFamily, @Nullable String browserVersion,
+			@Nullable String osFamily, @Nullable String osVersion) {
+		this.browserFamily = browserFamily;
+		this.browserVersion = browserVersion;
+		this.osFamily = osFamily;
+		this.osVersion = osVersion;
+	}
+
+	/**
+	 * Return the browser family, i.e. Chrome or Safari.
+	 */
+	@Nullable
+	public String getBrowserFamily() {
+		return this.browserFamily;
+	}
+
+	/**
+	 * Return the browser version, i.e. 64.0.3282.
+	 */
+	@Nullable
+	public String getBrowserVersion() {
+		return this.browserVersion;
+	}
+
+	/**
+	 * Return the operating system family, i.e. Android or iOS.
+	 */
+	@Nullable
+	public String getOsFamily() {
+		return this.osFamily;
+	}
+
+	/**
+	 * Return the operating system version, i.e. 11.2.
+	 */
+	@Nullable
+	public String getOsVersion() {
+		return this.osVersion;
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof DeviceDetails)) {
+			return false;
+		}
+		DeviceDetails that = (DeviceDetails) other;
+		return ObjectUtils.nullSafeEquals(this.browserFamily, that.browserFamily)
+				&& ObjectUtils.nullSafeEquals(this.browserVersion, that.browserVersion)
+				&& ObjectUtils.nullSafeEquals(this.osFamily, that.osFamily)
+				&& ObjectUtils.nullSafeEquals(this.osVersion, that.osVersion);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = ObjectUtils.nullSafeHashCode(this.browserFamily);
+		result = 31 * result + ObjectUtils.nullSafeHashCode(this.browserVersion);
+		result = 31 * result + ObjectUtils.nullSafeHashCode(this.osFamily);
+		result = 31 * result + ObjectUtils.nullSafeHashCode(this.osVersion);
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "[DeviceDetails browser=" + this.browserFamily + " " + this.browserVersion + ", os="
+				+ this.osFamily + " " + this.osVersion + "]";
+	}
+
+}
@@ -0,0 +1,36 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+/**
+ * Strategy for parsing the {@link DeviceDetails} of a User-Agent. Parsing detailed
+ * attributes is typically much more expensive than resolving the device type, which is
+ * why an {@link EnrichingDeviceResolver} runs the parser off the request thread.
+ *
+ * @since 2.0
+ * @see LiteDeviceDetailsParser
+ */
+public interface DeviceDetailsParser {
+
+	/**
+	 * Parse the details of the given User-Agent.
+	 * @param userAgent the User-Agent request header
+	 * @return the details, or {@link DeviceDetails#UNKNOWN} if nothing is recognized
+	 */
+	DeviceDetails parse(String userAgent);
+
+}
@@ -16,7 +16,11 @@
 
 package org.springframework.mobile.device;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.core.MethodParameter;
+import org.springframework.lang.Nullable;
 import org.springframework.web.bind.support.WebDataBinderFactory;
 import org.springframework.web.context.request.NativeWebRequest;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
@@ -25,17 +29,54 @@ import org.springframework.web.method.support.ModelAndViewContainer;
 /**
  * Spring MVC {@link HandlerMethodArgumentResolver} that resolves @Controller MethodParameters of type {@link Device}
  * to the value of the web request's {@link DeviceUtils#CURRENT_DEVICE_ATTRIBUTE current device} attribute.
+ * If created with a {@link DeviceResolver}, the device of a request that has not been resolved yet is resolved on demand.
  * @author Roy Clarkson
  */
 public class DeviceHandlerMethodArgumentResolver implements HandlerMethodArgumentResolver {
 
+	private final DeviceResolver deviceResolver;
+
+	/**
+	 * Create a {@link HandlerMethodArgumentResolver} that resolves the current device attribute only.
+	 */
+	public DeviceHandlerMethodArgumentResolver() {
+		this.deviceResolver = null;
+	}
+
+	/**
+	 * Create a {@link HandlerMethodArgumentResolver} that resolves the device with the given resolver
+	 * if it has not been resolved for the request yet, for instance by the {@link DeviceResolverHandlerInterceptor}.
+	 * @param deviceResolver the device resolver, typically shared with the interceptor or filter
+	 * @since 2.0
+	 */
+	public DeviceHandlerMethodArgumentResolver(DeviceResolver deviceResolver) {
+		this.deviceResolver = deviceResolver;
+	}
+
+	/**
+	 * Return the device resolver used to resolve devices on demand, if any.
+	 * @since 2.0
+	 */
+	@Nullable
+	public DeviceResolver getDeviceResolver() {
+		return this.deviceResolver;
+	}
+
 	public boolean supportsParameter(MethodParameter parameter) {
 		return Device.class.isAssignableFrom(parameter.getParameterType());
 	}
 
 	public Object resolveArgument(MethodParameter parameter, ModelAndViewContainer modelAndViewContainer,
 			NativeWebRequest request, WebDataBinderFactory binderFactory) throws Exception {
-		return DeviceUtils.getCurrentDevice(request);
+		Device device = DeviceUtils.getCurrentDevice(request);
+		if (device == null && this.deviceResolver != null) {
+			HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+			if (servletRequest != null) {
+				device = DeviceUtils.resolveCurrentDevice(this.deviceResolver, servletRequest,
+						request.getNativeResponse(HttpServletResponse.class));
+			}
+		}
+		return device;
 	}
 
 }
@@ -26,6 +26,7 @@ import org.springframework.web.servlet.handler.HandlerInterceptorAdapter;
  * A Spring MVC interceptor that resolves the Device that originated the web request <i>before</i> any request handler is invoked.
  * The resolved Device is exported as a request attribute under the well-known name of {@link DeviceUtils#CURRENT_DEVICE_ATTRIBUTE}.
  * Request handlers such as @Controllers and views may then access the currentDevice to vary their control and rendering logic, respectively.
+ * A device already resolved for the request, for instance by a {@link DeviceResolverRequestFilter} or on a previous dispatch, is reused.
  * @author Keith Donald
  */
 public class DeviceResolverHandlerInterceptor extends HandlerInterceptorAdapter {
@@ -48,8 +49,7 @@ public class DeviceResolverHandlerInterceptor extends HandlerInterceptorAdapter
 	}
 
 	public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) throws Exception {
-		Device device = deviceResolver.resolveDevice(request);
-		request.setAttribute(DeviceUtils.CURRENT_DEVICE_ATTRIBUTE, device);
+		DeviceUtils.resolveCurrentDevice(deviceResolver, request, response);
 		return true;
 	}
 
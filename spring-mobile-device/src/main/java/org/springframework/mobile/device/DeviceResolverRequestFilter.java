@@ -17,26 +17,45 @@
 package org.springframework.mobile.device;
 
 import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.Set;
 
+import javax.servlet.DispatcherType;
 import javax.servlet.Filter;
 import javax.servlet.FilterChain;
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.util.Assert;
 import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.UrlPathHelper;
 
 /**
  * A Servlet 2.3 Filter that resolves the Device that originated the web request. The resolved Device is exported as a
  * request attribute under the well-known name of {@link DeviceUtils#CURRENT_DEVICE_ATTRIBUTE}. Request handlers such as @Controllers
  * and views may then access the currentDevice to vary their control and rendering logic, respectively.
  * 
+ * <p>The filter can be restricted to requests whose path matches include patterns and does not match exclude
+ * patterns, for instance to skip static resources, and to certain dispatcher types. Requests it skips do not
+ * have a currentDevice. A device already resolved for the request, for instance on a previous dispatch, is reused.
+ * 
  * @author Roy Clarkson
  */
 public class DeviceResolverRequestFilter extends OncePerRequestFilter {
 
+	private static final UrlPathHelper urlPathHelper = new UrlPathHelper();
+
 	private final DeviceResolver deviceResolver;
 
+	private RequestPathMatcher includePathPatterns;
+
+	private RequestPathMatcher excludePathPatterns;
+
+	private Set<DispatcherType> dispatcherTypes = EnumSet.of(DispatcherType.REQUEST, DispatcherType.FORWARD,
+			DispatcherType.INCLUDE);
+
 	/**
 	 * Create a device resolving {@link Filter} that defaults to a {@link LiteDeviceResolver} implementation.
 	 */
@@ -52,12 +71,73 @@ public class DeviceResolverRequestFilter extends OncePerRequestFilter {
 		this.deviceResolver = deviceResolver;
 	}
 
+	/**
+	 * Set the path patterns of the requests to resolve the device for. By default, the
+	 * device is resolved for all requests. Patterns are matched against the request URI
+	 * without the context path and path parameters, see {@link RequestPathMatcher}.
+	 * @param patterns the path patterns
+	 */
+	public void setIncludePathPatterns(String... patterns) {
+		this.includePathPatterns = (patterns.length > 0 ? new RequestPathMatcher(patterns) : null);
+	}
+
+	/**
+	 * Set the path patterns of the requests not to resolve the device for, such as
+	 * {@code /static/**} or {@code /actuator/**}.
+	 * @param patterns the path patterns
+	 * @see #setIncludePathPatterns(String...)
+	 */
+	public void setExcludePathPatterns(String... patterns) {
+		this.excludePathPatterns = (patterns.length > 0 ? new RequestPathMatcher(patterns) : null);
+	}
+
+	/**
+	 * Set the dispatcher types to resolve the device for. Defaults to
+	 * {@link DispatcherType#REQUEST}, {@link DispatcherType#FORWARD} and
+	 * {@link DispatcherType#INCLUDE}; add {@link DispatcherType#ERROR} for error pages
+	 * to vary by device.
+	 * @param dispatcherTypes the dispatcher types
+	 */
+	public void setDispatcherTypes(DispatcherType... dispatcherTypes) {
+		Assert.notEmpty(dispatcherTypes, "Dispatcher types must not be empty");
+		this.dispatcherTypes = EnumSet.copyOf(Arrays.asList(dispatcherTypes));
+	}
+
+	@Override
+	protected boolean shouldNotFilterAsyncDispatch() {
+		return !this.dispatcherTypes.contains(DispatcherType.ASYNC);
+	}
+
+	@Override
+	protected boolean shouldNotFilterErrorDispatch() {
+		return !this.dispatcherTypes.contains(DispatcherType.ERROR);
+	}
+
+	@Override
+	protected boolean shouldNotFilter(HttpServletRequest request) throws ServletException {
+		if (!this.dispatcherTypes.contains(request.getDispatcherType())) {
+			return true;
+		}
+		if (this.includePathPatterns == null && this.excludePathPatterns == null) {
+			return false;
+		}
+		String path = getPathWithinApplication(request);
+		return ((this.includePathPatterns != null && !this.includePathPatterns.matches(path))
+				|| (this.excludePathPatterns != null && this.excludePathPatterns.matches(path)));
+	}
+
 	@Override
 	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain filterChain)
 			throws ServletException, IOException {
-		Device device = deviceResolver.resolveDevice(request);
-		request.setAttribute(DeviceUtils.CURRENT_DEVICE_ATTRIBUTE, device);
+		DeviceUtils.resolveCurrentDevice(deviceResolver, request, response);
 		filterChain.doFilter(request, response);
 	}
 
+	private static String getPathWithinApplication(HttpServletRequest request) {
+		// path parameters may follow any segment, not just the last one
+		String uri = urlPathHelper.removeSemicolonContent(request.getRequestURI());
+		String contextPath = request.getContextPath();
+		return (contextPath != null && uri.startsWith(contextPath) ? uri.substring(contextPath.length()) : uri);
+	}
+
 }
@@ -17,7 +17,9 @@
 package org.springframework.mobile.device;
 
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 
+import org.springframework.lang.Nullable;
 import org.springframework.web.context.request.RequestAttributes;
 
 /**
@@ -67,5 +69,27 @@ public class DeviceUtils {
 		return (Device) attributes.getAttribute(CURRENT_DEVICE_ATTRIBUTE, RequestAttributes.SCOPE_REQUEST);
 	}
 
+	/**
+	 * Return the device already resolved for the request, or resolve it with the given
+	 * resolver and index it under {@link #CURRENT_DEVICE_ATTRIBUTE}. This makes device
+	 * resolution idempotent, so that a request passing through several device resolving
+	 * components, or dispatched several times, is only resolved once.
+	 * @param deviceResolver the device resolver
+	 * @param request the servlet request
+	 * @param response the servlet response to add client hints to, may be {@code null}
+	 * @return the current device
+	 */
+	static Device resolveCurrentDevice(DeviceResolver deviceResolver, HttpServletRequest request,
+			@Nullable HttpServletResponse response) {
+		Device device = getCurrentDevice(request);
+		if (device == null) {
+			device = deviceResolver.resolveDevice(request);
+			request.setAttribute(CURRENT_DEVICE_ATTRIBUTE, device);
+			if (response != null) {
+				ClientHintsDeviceResolver.addAcceptClientHints(deviceResolver, response);
+			}
+		}
+		return device;
+	}
 
 }
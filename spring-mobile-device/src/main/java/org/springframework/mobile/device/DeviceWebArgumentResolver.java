@@ -16,6 +16,9 @@
 
 package org.springframework.mobile.device;
 
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
 import org.springframework.core.MethodParameter;
 import org.springframework.web.bind.support.WebArgumentResolver;
 import org.springframework.web.context.request.NativeWebRequest;
@@ -23,13 +26,41 @@ import org.springframework.web.context.request.NativeWebRequest;
 /**
  * Spring MVC {@link WebArgumentResolver} that resolves @Controller MethodParameters of type {@link Device}
  * to the value of the web request's {@link DeviceUtils#CURRENT_DEVICE_ATTRIBUTE current device} attribute.
+ * If created with a {@link DeviceResolver}, the device of a request that has not been resolved yet is resolved on demand.
  * @author Keith Donald
  */
 public class DeviceWebArgumentResolver implements WebArgumentResolver {
-	
+
+	private final DeviceResolver deviceResolver;
+
+	/**
+	 * Create a {@link WebArgumentResolver} that resolves the current device attribute only.
+	 */
+	public DeviceWebArgumentResolver() {
+		this.deviceResolver = null;
+	}
+
+	/**
+	 * Create a {@link WebArgumentResolver} that resolves the device with the given resolver
+	 * if it has not been resolved for the request yet.
+	 * @param deviceResolver the device resolver, typically shared with the interceptor or filter
+	 * @since 2.0
+	 */
+	public DeviceWebArgumentResolver(DeviceResolver deviceResolver) {
+		this.deviceResolver = deviceResolver;
+	}
+
 	public Object resolveArgument(MethodParameter param, NativeWebRequest request) throws Exception {
 		if (Device.class.isAssignableFrom(param.getParameterType())) {
-			return DeviceUtils.getCurrentDevice(request);
+			Device device = DeviceUtils.getCurrentDevice(request);
+			if (device == null && this.deviceResolver != null) {
+				HttpServletRequest servletRequest = request.getNativeRequest(HttpServletRequest.class);
+				if (servletRequest != null) {
+					device = DeviceUtils.resolveCurrentDevice(this.deviceResolver, servletRequest,
+							request.getNativeResponse(HttpServletResponse.class));
+				}
+			}
+			return device;
 		} else {
 			return WebArgumentResolver.UNRESOLVED;
 		}
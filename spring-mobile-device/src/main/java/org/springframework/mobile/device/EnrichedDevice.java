@@ -0,0 +1,89 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+
+import org.springframework.lang.Nullable;
+
+/**
+ * A {@link LiteDevice} resolved by an {@link EnrichingDeviceResolver}, whose type and
+ * platform are available immediately and whose {@link DeviceDetails} are parsed in the
+ * background.
+ *
+ * @since 2.0
+ */
+public class EnrichedDevice extends LiteDevice {
+
+	private final CompletableFuture<DeviceDetails> details;
+
+	private final Runnable deferredEnrichment;
+
+	/**
+	 * Creates an EnrichedDevice
+	 * @param deviceType the type of device i.e. NORMAL, MOBILE, TABLET
+	 * @param devicePlatform the platform of device, i.e. IOS or ANDROID
+	 * @param details the future completed with the details of the device
+	 * @param deferredEnrichment the task completing the details on the calling thread
+	 * if the background executor will not, run by {@link #getDetails()}
+	 */
+	EnrichedDevice(DeviceType deviceType, DevicePlatform devicePlatform, CompletableFuture<DeviceDetails> details,
+			@Nullable Runnable deferredEnrichment) {
+		super(deviceType, devicePlatform);
+		this.details = details;
+		this.deferredEnrichment = deferredEnrichment;
+	}
+
+	/**
+	 * Return a future completed with the details of this device once they are parsed.
+	 * The future is already complete if the details of the User-Agent were parsed
+	 * before. If they could not be parsed in the background, they are parsed by the
+	 * calling thread.
+	 */
+	public CompletableFuture<DeviceDetails> getDetails() {
+		if (this.deferredEnrichment != null && !this.details.isDone()) {
+			this.deferredEnrichment.run();
+		}
+		// callers must not be able to complete the shared future
+		return this.details.thenApply(Function.<DeviceDetails>identity());
+	}
+
+	/**
+	 * Return the details of this device if they are already parsed, without waiting.
+	 * @return the details, or {@code null} if they are not available yet or could not
+	 * be parsed
+	 */
+	@Nullable
+	public DeviceDetails getDetailsIfAvailable() {
+		if (!this.details.isDone() || this.details.isCompletedExceptionally()) {
+			return null;
+		}
+		return this.details.join();
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("[EnrichedDevice ");
+		builder.append("type").append("=").append(getDeviceType()).append(", ");
+		builder.append("details").append("=").append(getDetailsIfAvailable());
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,260 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.time.Duration;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.util.Assert;
+
+/**
+ * {@link DeviceResolver} decorator that enriches the devices of a delegate resolver,
+ * typically a {@link LiteDeviceResolver}, with detailed attributes such as the browser
+ * family and the operating system version. The resolved {@link EnrichedDevice} answers
+ * {@link Device#isMobile()}, {@link Device#isTablet()} and
+ * {@link Device#getDevicePlatform()} immediately, while its {@link DeviceDetails} are
+ * parsed by a {@link DeviceDetailsParser} on a background executor and exposed as a
+ * {@link CompletableFuture}, so requests that do not need them do not pay for them.
+ *
+ * <p>This resolver does not memoize the details itself: it should be decorated by a
+ * {@link CachingDeviceResolver}, which then caches the enriched devices, with their
+ * futures, by exact User-Agent, so that later requests with the same User-Agent get
+ * completed details synchronously. Cache snapshots only hold device types and
+ * platforms, so devices loaded from a snapshot are not enriched.
+ *
+ * <p>By default, the details are parsed on a single daemon thread with a bounded
+ * queue. If the executor rejects a User-Agent, its details are parsed by the first
+ * caller of {@link EnrichedDevice#getDetails()} instead, see
+ * {@link #getDeferredCount()}. The default executor is shut down by
+ * {@link #destroy()}.
+ *
+ * @since 2.0
+ */
+public class EnrichingDeviceResolver implements DeviceResolver, DisposableBean {
+
+	/**
+	 * The default number of User-Agents waiting to be parsed.
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+	private static final Log logger = LogFactory.getLog(EnrichingDeviceResolver.class);
+
+	private final DeviceResolver delegate;
+
+	private final DeviceDetailsParser parser;
+
+	private final Executor executor;
+
+	private final ExecutorService ownExecutor;
+
+	private final LongAdder enrichmentCount = new LongAdder();
+
+	private final LongAdder deferredCount = new LongAdder();
+
+	private final LongAdder failureCount = new LongAdder();
+
+	private final LongAdder enrichmentNanos = new LongAdder();
+
+	/**
+	 * Create an enriching {@link DeviceResolver} parsing details with a
+	 * {@link LiteDeviceDetailsParser} on its own background thread.
+	 * @param delegate the device resolver resolving the device type and platform
+	 */
+	public EnrichingDeviceResolver(DeviceResolver delegate) {
+		this(delegate, new LiteDeviceDetailsParser());
+	}
+
+	/**
+	 * Create an enriching {@link DeviceResolver} parsing details on its own background
+	 * thread.
+	 * @param delegate the device resolver resolving the device type and platform
+	 * @param parser the parser of the device details
+	 */
+	public EnrichingDeviceResolver(DeviceResolver delegate, DeviceDetailsParser parser) {
+		Assert.notNull(delegate, "DeviceResolver must not be null");
+		Assert.notNull(parser, "DeviceDetailsParser must not be null");
+		this.delegate = delegate;
+		this.parser = parser;
+		this.ownExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(DEFAULT_QUEUE_CAPACITY), new ThreadFactory() {
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "enriching-device-resolver");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		this.executor = this.ownExecutor;
+	}
+
+	/**
+	 * Create an enriching {@link DeviceResolver} parsing details on the given
+	 * executor, which should be bounded and reject tasks rather than run them on the
+	 * calling thread.
+	 * @param delegate the device resolver resolving the device type and platform
+	 * @param parser the parser of the device details
+	 * @param executor the executor to parse details on
+	 */
+	public EnrichingDeviceResolver(DeviceResolver delegate, DeviceDetailsParser parser, Executor executor) {
+		Assert.notNull(delegate, "DeviceResolver must not be null");
+		Assert.notNull(parser, "DeviceDetailsParser must not be null");
+		Assert.notNull(executor, "Executor must not be null");
+		this.delegate = delegate;
+		this.parser = parser;
+		this.ownExecutor = null;
+		this.executor = executor;
+	}
+
+	public Device resolveDevice(HttpServletRequest request) {
+		Device device = this.delegate.resolveDevice(request);
+		if (device == null) {
+			return null;
+		}
+		DeviceType type = (device.isMobile() ? DeviceType.MOBILE
+				: device.isTablet() ? DeviceType.TABLET : DeviceType.NORMAL);
+		DevicePlatform platform = (device.getDevicePlatform() != null ? device.getDevicePlatform()
+				: DevicePlatform.UNKNOWN);
+		String userAgent = request.getHeader("User-Agent");
+		if (userAgent == null) {
+			return new EnrichedDevice(type, platform, CompletableFuture.completedFuture(DeviceDetails.UNKNOWN), null);
+		}
+		Enrichment enrichment = new Enrichment(userAgent);
+		try {
+			this.executor.execute(enrichment);
+		}
+		catch (RejectedExecutionException ex) {
+			this.deferredCount.increment();
+			enrichment.deferred = true;
+		}
+		return new EnrichedDevice(type, platform, enrichment.details, enrichment.onDemand);
+	}
+
+	/**
+	 * Return the device resolver resolving the device type and platform.
+	 */
+	public DeviceResolver getDelegate() {
+		return this.delegate;
+	}
+
+	/**
+	 * Return the parser of the device details.
+	 */
+	public DeviceDetailsParser getParser() {
+		return this.parser;
+	}
+
+	/**
+	 * Return the number of User-Agents whose details were parsed.
+	 */
+	public long getEnrichmentCount() {
+		return this.enrichmentCount.sum();
+	}
+
+	/**
+	 * Return the number of User-Agents the executor rejected or discarded on shutdown,
+	 * whose details are parsed on demand instead.
+	 */
+	public long getDeferredCount() {
+		return this.deferredCount.sum();
+	}
+
+	/**
+	 * Return the number of User-Agents the parser failed on.
+	 */
+	public long getFailureCount() {
+		return this.failureCount.sum();
+	}
+
+	/**
+	 * Return the total time spent parsing details.
+	 */
+	public Duration getEnrichmentTime() {
+		return Duration.ofNanos(this.enrichmentNanos.sum());
+	}
+
+	/**
+	 * Shut down the default executor. Details that have not been parsed yet are parsed
+	 * on demand instead, see {@link #getDeferredCount()}. An executor passed to the constructor is left alone.
+	 */
+	public void destroy() {
+		if (this.ownExecutor != null) {
+			for (Runnable pending : this.ownExecutor.shutdownNow()) {
+				((Enrichment) pending).deferred = true;
+				this.deferredCount.increment();
+			}
+		}
+	}
+
+
+	/**
+	 * User-Agent whose details are parsed in the background.
+	 */
+	private final class Enrichment implements Runnable {
+
+		private final String userAgent;
+
+		private final CompletableFuture<DeviceDetails> details = new CompletableFuture<DeviceDetails>();
+
+		private volatile boolean deferred;
+
+		private final Runnable onDemand = new Runnable() {
+			public void run() {
+				if (Enrichment.this.deferred) {
+					Enrichment.this.run();
+				}
+			}
+		};
+
+		Enrichment(String userAgent) {
+			this.userAgent = userAgent;
+		}
+
+		public void run() {
+			if (this.details.isDone()) {
+				return;
+			}
+			long start = System.nanoTime();
+			try {
+				this.details.complete(parser.parse(this.userAgent));
+			}
+			catch (RuntimeException ex) {
+				failureCount.increment();
+				if (logger.isDebugEnabled()) {
+					logger.debug("Failed to parse the details of User-Agent '" + this.userAgent + "'", ex);
+				}
+				this.details.completeExceptionally(ex);
+				return;
+			}
+			enrichmentNanos.add(System.nanoTime() - start);
+			enrichmentCount.increment();
+		}
+
+	}
+
+}
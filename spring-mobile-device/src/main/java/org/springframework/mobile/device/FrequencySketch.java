@@ -0,0 +1,115 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+/**
+ * Count-Min sketch estimating how often a key was accessed recently, as used by the
+ * TinyLFU admission policy of {@link CachingDeviceResolver}. Each key maps to four
+ * 4-bit counters, sixteen of which are packed into a {@code long}. Once the number of
+ * recorded accesses reaches ten times the table size all counters are halved, so the
+ * estimates age and favour recent popularity.
+ *
+ * <p>Increments are not atomic; concurrent updates may occasionally be lost, which only
+ * makes the estimate slightly more approximate. Saturated counters are not written, so
+ * repeated reads of hot keys do not contend on the table.
+ */
+class FrequencySketch {
+
+	private static final long[] SEEDS = new long[] {
+			0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L, 0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+
+	private static final long RESET_MASK = 0x7777777777777777L;
+
+	private final long[] table;
+
+	private final int tableMask;
+
+	private final int sampleSize;
+
+	private int size;
+
+	FrequencySketch(int maximumSize) {
+		int length = Integer.highestOneBit(Math.max(maximumSize, 16) - 1) << 1;
+		this.table = new long[length];
+		this.tableMask = length - 1;
+		this.sampleSize = 10 * length;
+	}
+
+	/**
+	 * Return the estimated number of recent accesses of the given key, at most 15.
+	 */
+	int frequency(Object key) {
+		int hash = spread(key.hashCode());
+		int start = (hash & 3) << 2;
+		int frequency = Integer.MAX_VALUE;
+		for (int i = 0; i < 4; i++) {
+			int index = indexOf(hash, i);
+			int count = (int) ((this.table[index] >>> ((start + i) << 2)) & 0xfL);
+			frequency = Math.min(frequency, count);
+		}
+		return frequency;
+	}
+
+	/**
+	 * Record an access of the given key.
+	 */
+	void increment(Object key) {
+		int hash = spread(key.hashCode());
+		int start = (hash & 3) << 2;
+		boolean added = false;
+		for (int i = 0; i < 4; i++) {
+			added |= incrementAt(indexOf(hash, i), start + i);
+		}
+		if (added && ++this.size >= this.sampleSize) {
+			reset();
+		}
+	}
+
+	private boolean incrementAt(int index, int counter) {
+		int offset = counter << 2;
+		long mask = 0xfL << offset;
+		long value = this.table[index];
+		if ((value & mask) != mask) {
+			this.table[index] = value + (1L << offset);
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Halve every counter so that old accesses gradually stop counting.
+	 */
+	private void reset() {
+		for (int i = 0; i < this.table.length; i++) {
+			this.table[i] = (this.table[i] >>> 1) & RESET_MASK;
+		}
+		this.size = this.size >>> 1;
+	}
+
+	private int indexOf(int hash, int depth) {
+		long h = (hash + SEEDS[depth]) * SEEDS[depth];
+		h += (h >>> 32);
+		return ((int) h) & this.tableMask;
+	}
+
+	private static int spread(int hash) {
+		hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+		hash = ((hash >>> 16) ^ hash) * 0x45d9f3b;
+		return (hash >>> 16) ^ hash;
+	}
+
+}
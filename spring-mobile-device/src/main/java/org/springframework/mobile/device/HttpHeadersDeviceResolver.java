@@ -0,0 +1,52 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import org.springframework.http.HttpHeaders;
+
+/**
+ * Service interface for resolving Devices from request headers, independently of a
+ * servlet request. Useful to classify User-Agents outside of a web request, for
+ * instance User-Agents stored in access logs.
+ * 
+ * @since 2.0
+ * @see DeviceClassifier
+ */
+public interface HttpHeadersDeviceResolver {
+
+	/**
+	 * Resolve the device that sent the given request headers.
+	 * @param headers the request headers
+	 * @return the device, or {@code null} if none could be resolved
+	 */
+	Device resolveDevice(HttpHeaders headers);
+
+	/**
+	 * Resolve the device that sent the given User-Agent, without any other request
+	 * headers. The default implementation resolves headers holding only the User-Agent.
+	 * @param userAgent the User-Agent, may be {@code null}
+	 * @return the device, or {@code null} if none could be resolved
+	 */
+	default Device resolveDevice(String userAgent) {
+		HttpHeaders headers = new HttpHeaders();
+		if (userAgent != null) {
+			headers.set(HttpHeaders.USER_AGENT, userAgent);
+		}
+		return resolveDevice(headers);
+	}
+
+}
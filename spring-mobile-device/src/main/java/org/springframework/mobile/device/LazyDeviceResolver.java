@@ -0,0 +1,121 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link DeviceResolver} decorator that defers device resolution until the device is
+ * used. It returns a {@link Device} proxy that invokes the delegate resolver on the
+ * first call of one of its methods and remembers the result, so requests that never
+ * inspect the current device, such as API calls, health checks or static resources,
+ * do not pay for device resolution.
+ *
+ * <p>The proxy must be used while the request is being processed, since the delegate
+ * resolver reads the request headers. If the delegate does not resolve a device, the
+ * proxy behaves like a normal device of an unknown platform. Since lazy devices are
+ * bound to their request, they must not be cached; to combine both, decorate a
+ * {@link CachingDeviceResolver} instead.
+ *
+ * @since 2.0
+ */
+public class LazyDeviceResolver implements DeviceResolver {
+
+	private final DeviceResolver delegate;
+
+	/**
+	 * Create a lazy {@link DeviceResolver}.
+	 * @param delegate the device resolver to invoke once the device is used
+	 */
+	public LazyDeviceResolver(DeviceResolver delegate) {
+		Assert.notNull(delegate, "DeviceResolver must not be null");
+		this.delegate = delegate;
+	}
+
+	public Device resolveDevice(HttpServletRequest request) {
+		return new LazyDevice(this.delegate, request);
+	}
+
+	/**
+	 * Return the device resolver this resolver delegates to.
+	 */
+	public DeviceResolver getDelegate() {
+		return this.delegate;
+	}
+
+
+	/**
+	 * Device resolving itself on first use.
+	 */
+	private static final class LazyDevice implements Device {
+
+		private final DeviceResolver resolver;
+
+		private HttpServletRequest request;
+
+		private volatile Device device;
+
+		LazyDevice(DeviceResolver resolver, HttpServletRequest request) {
+			this.resolver = resolver;
+			this.request = request;
+		}
+
+		public boolean isNormal() {
+			return getDevice().isNormal();
+		}
+
+		public boolean isMobile() {
+			return getDevice().isMobile();
+		}
+
+		public boolean isTablet() {
+			return getDevice().isTablet();
+		}
+
+		public DevicePlatform getDevicePlatform() {
+			return getDevice().getDevicePlatform();
+		}
+
+		@Override
+		public String toString() {
+			return getDevice().toString();
+		}
+
+		private Device getDevice() {
+			Device device = this.device;
+			if (device == null) {
+				synchronized (this) {
+					device = this.device;
+					if (device == null) {
+						device = this.resolver.resolveDevice(this.request);
+						if (device == null) {
+							device = LiteDevice.NORMAL_INSTANCE;
+						}
+						this.device = device;
+						// do not hold on to the request once resolved
+						this.request = null;
+					}
+				}
+			}
+			return device;
+		}
+
+	}
+
+}
@@ -32,6 +32,10 @@ public class LiteDevice implements Device {
 
 	public static final LiteDevice TABLET_INSTANCE = new LiteDevice(DeviceType.TABLET);
 
+	private static final int PLATFORM_COUNT = DevicePlatform.values().length;
+
+	private static final LiteDevice[] INSTANCES = createInstances();
+
 	private final DeviceType deviceType;
 
 	private final DevicePlatform devicePlatform;
@@ -81,8 +85,17 @@ public class LiteDevice implements Device {
 		return this.deviceType == DeviceType.TABLET;
 	}
 
+	/**
+	 * Return the shared LiteDevice for the given device type and platform. Instances
+	 * are immutable, so every combination is only created once.
+	 * @param deviceType the type of device i.e. NORMAL, MOBILE, TABLET
+	 * @param devicePlatform the platform of device, i.e. IOS or ANDROID
+	 */
 	public static Device from(DeviceType deviceType, DevicePlatform devicePlatform) {
-		return new LiteDevice(deviceType, devicePlatform);
+		if (deviceType == null || devicePlatform == null) {
+			return new LiteDevice(deviceType, devicePlatform);
+		}
+		return INSTANCES[indexOf(deviceType, devicePlatform)];
 	}
 
 	@Override
@@ -94,4 +107,21 @@ public class LiteDevice implements Device {
 		return builder.toString();
 	}
 
+	private static LiteDevice[] createInstances() {
+		LiteDevice[] instances = new LiteDevice[DeviceType.values().length * PLATFORM_COUNT];
+		for (DeviceType deviceType : DeviceType.values()) {
+			for (DevicePlatform devicePlatform : DevicePlatform.values()) {
+				instances[indexOf(deviceType, devicePlatform)] = new LiteDevice(deviceType, devicePlatform);
+			}
+		}
+		instances[indexOf(DeviceType.NORMAL, DevicePlatform.UNKNOWN)] = NORMAL_INSTANCE;
+		instances[indexOf(DeviceType.MOBILE, DevicePlatform.UNKNOWN)] = MOBILE_INSTANCE;
+		instances[indexOf(DeviceType.TABLET, DevicePlatform.UNKNOWN)] = TABLET_INSTANCE;
+		return instances;
+	}
+
+	private static int indexOf(DeviceType deviceType, DevicePlatform devicePlatform) {
+		return deviceType.ordinal() * PLATFORM_COUNT + devicePlatform.ordinal();
+	}
+
 }
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * {@link DeviceDetailsParser} that recognizes the browsers and operating systems of
+ * the vast majority of the traffic with a short list of regular expressions. The first
+ * browser and the first operating system that match are reported, so browsers which
+ * include the tokens of the browser they are based on, such as Edge and Opera, are
+ * listed before Chrome and Chrome before Safari.
+ *
+ * @since 2.0
+ */
+public class LiteDeviceDetailsParser implements DeviceDetailsParser {
+
+	private static final String VERSION = "(\\d+(?:[._]\\d+)*)";
+
+	private static final List<Rule> BROWSERS;
+
+	private static final List<Rule> OPERATING_SYSTEMS;
+
+	private static final Map<String, String> WINDOWS_VERSIONS;
+
+	static {
+		List<Rule> browsers = new ArrayList<Rule>();
+		browsers.add(new Rule("Edge", "\\b(?:Edge|Edg|EdgA|EdgiOS)/" + VERSION));
+		browsers.add(new Rule("Opera Mini", "\\bOpera Mini/" + VERSION));
+		browsers.add(new Rule("Opera", "\\b(?:OPR|OPiOS)/" + VERSION));
+		browsers.add(new Rule("Samsung Internet", "\\bSamsungBrowser/" + VERSION));
+		browsers.add(new Rule("UC Browser", "\\bUCBrowser/" + VERSION));
+		browsers.add(new Rule("Firefox", "\\b(?:Firefox|FxiOS)/" + VERSION));
+		browsers.add(new Rule("Chrome", "\\b(?:Chrome|CriOS)/" + VERSION));
+		browsers.add(new Rule("Android Browser", "\\bAndroid\\b.*?\\bVersion/" + VERSION + "\\b.*?\\bSafari/"));
+		browsers.add(new Rule("Safari", "\\bVersion/" + VERSION + " (?:Mobile/\\S+ |Mobile )?Safari/"));
+		browsers.add(new Rule("Internet Explorer", "\\bMSIE " + VERSION));
+		browsers.add(new Rule("Internet Explorer", "\\bTrident/[^)]*\\brv:" + VERSION));
+		BROWSERS = Collections.unmodifiableList(browsers);
+		List<Rule> operatingSystems = new ArrayList<Rule>();
+		operatingSystems.add(new Rule("Windows Phone", "\\bWindows Phone(?: OS)? " + VERSION));
+		operatingSystems.add(new Rule("Windows", "\\bWindows NT " + VERSION));
+		operatingSystems.add(new Rule("iOS", "\\b(?:iPhone|CPU) OS " + VERSION));
+		operatingSystems.add(new Rule("Android", "\\bAndroid " + VERSION));
+		operatingSystems.add(new Rule("KaiOS", "\\bKAIOS/" + VERSION));
+		operatingSystems.add(new Rule("Chrome OS", "\\bCrOS \\S+ " + VERSION));
+		operatingSystems.add(new Rule("macOS", "\\bMac OS X " + VERSION));
+		operatingSystems.add(new Rule("Linux", "\\bLinux\\b"));
+		OPERATING_SYSTEMS = Collections.unmodifiableList(operatingSystems);
+		Map<String, String> windowsVersions = new HashMap<String, String>();
+		windowsVersions.put("5.1", "XP");
+		windowsVersions.put("6.0", "Vista");
+		windowsVersions.put("6.1", "7");
+		windowsVersions.put("6.2", "8");
+		windowsVersions.put("6.3", "8.1");
+		windowsVersions.put("10.0", "10");
+		WINDOWS_VERSIONS = Collections.unmodifiableMap(windowsVersions);
+	}
+
+	public DeviceDetails parse(String userAgent) {
+		Match browser = match(BROWSERS, userAgent);
+		Match os = match(OPERATING_SYSTEMS, userAgent);
+		if (browser == null && os == null) {
+			return DeviceDetails.UNKNOWN;
+		}
+		String osVersion = (os != null ? os.version : null);
+		if (os != null && os.family.equals("Windows") && WINDOWS_VERSIONS.containsKey(osVersion)) {
+			osVersion = WINDOWS_VERSIONS.get(osVersion);
+		}
+		return new DeviceDetails(browser != null ? browser.family : null, browser != null ? browser.version : null,
+				os != null ? os.family : null, osVersion);
+	}
+
+	private static Match match(List<Rule> rules, String userAgent) {
+		for (Rule rule : rules) {
+			Matcher matcher = rule.pattern.matcher(userAgent);
+			if (matcher.find()) {
+				String version = (matcher.groupCount() > 0 ? matcher.group(1).replace('_', '.') : null);
+				return new Match(rule.family, version);
+			}
+		}
+		return null;
+	}
+
+
+	private static final class Rule {
+
+		private final String family;
+
+		private final Pattern pattern;
+
+		Rule(String family, String regex) {
+			this.family = family;
+			this.pattern = Pattern.compile(regex);
+		}
+
+	}
+
+
+	private static final class Match {
+
+		private final String family;
+
+		private final String version;
+
+		Match(String family, String version) {
+			this.family = family;
+			this.version = version;
+		}
+
+	}
+
+}
@@ -16,13 +16,38 @@
 
 package org.springframework.mobile.device;
 
+import java.util.AbstractList;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Enumeration;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
 
 import javax.servlet.http.HttpServletRequest;
 
+import org.springframework.http.HttpHeaders;
+import org.springframework.mobile.device.matcher.AhoCorasickUserAgentMatcher;
+import org.springframework.mobile.device.matcher.UserAgentMatcher;
+import org.springframework.mobile.device.matcher.UserAgentPrefixSet;
+import org.springframework.util.Assert;
+import org.springframework.util.ReflectionUtils;
+
+import static org.springframework.mobile.device.matcher.UserAgentMatcher.ANDROID;
+import static org.springframework.mobile.device.matcher.UserAgentMatcher.IPAD;
+import static org.springframework.mobile.device.matcher.UserAgentMatcher.IPHONE;
+import static org.springframework.mobile.device.matcher.UserAgentMatcher.IPOD;
+import static org.springframework.mobile.device.matcher.UserAgentMatcher.MOBILE;
+import static org.springframework.mobile.device.matcher.UserAgentMatcher.MOBILE_KEYWORD;
+import static org.springframework.mobile.device.matcher.UserAgentMatcher.NORMAL_KEYWORD;
+import static org.springframework.mobile.device.matcher.UserAgentMatcher.SILK;
+import static org.springframework.mobile.device.matcher.UserAgentMatcher.TABLET_KEYWORD;
+import static org.springframework.mobile.device.matcher.UserAgentMatcher.isSet;
+
 /**
  * A "lightweight" device resolver algorithm based on Wordpress's Mobile pack. Detects the
  * presence of a mobile device and works for a large percentage of mobile browsers. Does
@@ -38,21 +63,95 @@ import javax.servlet.http.HttpServletRequest;
  * "https://googlewebmastercentral.blogspot.com/2011/03/mo-better-to-also-detect-mobile-user.html"
  * >Google's recommendations</a>.
  * 
+ * The keyword lists are compiled into an {@link AhoCorasickUserAgentMatcher} on first
+ * use, so the User-Agent is scanned for all keywords and special cases in a single pass,
+ * and the prefixes into a {@link UserAgentPrefixSet}. Both are compiled again whenever
+ * one of the lists is modified. Modifying the lists while requests are being resolved
+ * is not thread-safe; to change the rules at runtime, register immutable
+ * {@link UserAgentRules} with {@link #setRules(UserAgentRules)} instead. The User-Agent
+ * is matched case-insensitively in place and resolved devices are the shared
+ * {@link LiteDevice} instances, so resolution does not allocate.
+ * 
+ * Resolution takes time linear in the length of the User-Agent and the number of
+ * request headers, independent of the number of keywords. To put a hard ceiling on
+ * that time for oversized or crafted requests, the number of User-Agent characters
+ * and header names examined can be limited, see {@link #setMaxUserAgentLength(int)}
+ * and {@link #setMaxHeaderCount(int)}.
+ * 
+ * If enabled with {@link #setRecordRuleHits(boolean)}, every resolution is counted
+ * against the rule that decided it in a {@link LongAdder}, so the counts can be
+ * monitored without contending with request threads, see {@link #getRuleHits()}.
+ * 
+ * Devices can also be resolved outside of a web request, from {@link HttpHeaders} or a
+ * User-Agent alone, see {@link HttpHeadersDeviceResolver} and {@link DeviceClassifier}.
+ * 
  * @author Keith Donald
  * @author Roy Clarkson
  * @author Scott Rossillo
  * @author Yuri Mednikov
  * @author Onur Kagan Ozcan
  */
-public class LiteDeviceResolver implements DeviceResolver {
+public class LiteDeviceResolver implements DeviceResolver, HttpHeadersDeviceResolver {
 
-	private final List<String> mobileUserAgentPrefixes = new ArrayList<String>();
+	private static final HeaderAccessor<HttpServletRequest> SERVLET_REQUEST_HEADERS =
+			new HeaderAccessor<HttpServletRequest>() {
 
-	private final List<String> mobileUserAgentKeywords = new ArrayList<String>();
+		public String getHeader(HttpServletRequest request, String name) {
+			return request.getHeader(name);
+		}
 
-	private final List<String> tabletUserAgentKeywords = new ArrayList<String>();
+		public boolean containsHeaderName(HttpServletRequest request, String fragment, int maxHeaderCount) {
+			Enumeration<String> headers = request.getHeaderNames();
+			for (int i = 0; i < maxHeaderCount && headers.hasMoreElements(); i++) {
+				if (headers.nextElement().contains(fragment)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+	};
 
-	private final List<String> normalUserAgentKeywords = new ArrayList<String>();
+	private static final HeaderAccessor<HttpHeaders> HTTP_HEADERS = new HeaderAccessor<HttpHeaders>() {
+
+		public String getHeader(HttpHeaders headers, String name) {
+			return headers.getFirst(name);
+		}
+
+		public boolean containsHeaderName(HttpHeaders headers, String fragment, int maxHeaderCount) {
+			int count = 0;
+			for (String header : headers.keySet()) {
+				if (count++ == maxHeaderCount) {
+					break;
+				}
+				if (header.contains(fragment)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+	};
+
+	private final RuleList mobileUserAgentPrefixes = new RuleList();
+
+	private final RuleList mobileUserAgentKeywords = new RuleList();
+
+	private final RuleList tabletUserAgentKeywords = new RuleList();
+
+	private final RuleList normalUserAgentKeywords = new RuleList();
+
+	private final AtomicReference<CompiledRules> compiledRules = new AtomicReference<CompiledRules>();
+
+	private final boolean normalizable = !overridesResolution(getClass());
+
+	private final LongAdder[] ruleHits = newRuleHits();
+
+	private int maxUserAgentLength = Integer.MAX_VALUE;
+
+	private int maxHeaderCount = Integer.MAX_VALUE;
+
+	private boolean recordRuleHits;
 
 	public LiteDeviceResolver() {
 		init();
@@ -63,91 +162,182 @@ public class LiteDeviceResolver implements DeviceResolver {
 		this.normalUserAgentKeywords.addAll(normalUserAgentKeywords);
 	}
 
+	/**
+	 * Create a device resolver using the given rules instead of the rule lists.
+	 * @param rules the rules
+	 * @see #setRules(UserAgentRules)
+	 */
+	public LiteDeviceResolver(UserAgentRules rules) {
+		init();
+		setRules(rules);
+	}
+
+	/**
+	 * Replace the rules of this resolver. The rules are compiled first, then swapped in
+	 * atomically, so this method may be called while requests are being resolved, for
+	 * instance by a {@link UserAgentRulesWatcher}. From then on, the rule lists returned
+	 * by the protected getters are no longer used.
+	 * @param rules the new rules
+	 */
+	public void setRules(UserAgentRules rules) {
+		Assert.notNull(rules, "UserAgentRules must not be null");
+		this.compiledRules.set(new CompiledRules(rules));
+	}
+
+	/**
+	 * Set the maximum number of User-Agent characters examined. Longer User-Agents are
+	 * resolved as if they ended after that many characters, which bounds the cost of
+	 * resolving oversized User-Agent headers. Unlimited by default.
+	 * @param maxUserAgentLength the maximum User-Agent length
+	 * @since 2.0
+	 */
+	public void setMaxUserAgentLength(int maxUserAgentLength) {
+		Assert.isTrue(maxUserAgentLength > 0, "Maximum User-Agent length must be greater than zero");
+		this.maxUserAgentLength = maxUserAgentLength;
+	}
+
+	/**
+	 * Return the maximum number of User-Agent characters examined.
+	 * @since 2.0
+	 */
+	public int getMaxUserAgentLength() {
+		return this.maxUserAgentLength;
+	}
+
+	/**
+	 * Set the maximum number of header names inspected for an Opera Mini header. Headers
+	 * beyond that count are ignored, which bounds the cost of resolving requests with
+	 * an excessive number of headers. Unlimited by default.
+	 * @param maxHeaderCount the maximum number of header names
+	 * @since 2.0
+	 */
+	public void setMaxHeaderCount(int maxHeaderCount) {
+		Assert.isTrue(maxHeaderCount > 0, "Maximum header count must be greater than zero");
+		this.maxHeaderCount = maxHeaderCount;
+	}
+
+	/**
+	 * Return the maximum number of header names inspected for an Opera Mini header.
+	 * @since 2.0
+	 */
+	public int getMaxHeaderCount() {
+		return this.maxHeaderCount;
+	}
+
+	/**
+	 * Set whether to count how often each rule decides a resolution, see
+	 * {@link #getRuleHits()}. Counting costs every resolution, so it is disabled by
+	 * default.
+	 * @param recordRuleHits whether to record rule hits
+	 * @since 2.0
+	 */
+	public void setRecordRuleHits(boolean recordRuleHits) {
+		this.recordRuleHits = recordRuleHits;
+	}
+
+	/**
+	 * Return whether rule hits are recorded.
+	 * @since 2.0
+	 */
+	public boolean isRecordRuleHits() {
+		return this.recordRuleHits;
+	}
+
+	/**
+	 * Return the rules currently in use, either the last ones passed to
+	 * {@link #setRules(UserAgentRules)} or a snapshot of the rule lists.
+	 */
+	public UserAgentRules getRules() {
+		return getCompiledRules().getRules();
+	}
+
+	/**
+	 * Return how often each rule decided a resolution, in the order the rules are
+	 * applied. The {@code normal-keyword} rule resolves devices through the fallback,
+	 * while {@code fallback} counts resolutions no rule decided. The counts are read
+	 * while requests are being resolved, so they are not a consistent snapshot. Only
+	 * resolutions made while {@linkplain #setRecordRuleHits(boolean) recording} are
+	 * counted.
+	 * @return the number of resolutions by rule name
+	 * @since 2.0
+	 */
+	public Map<String, Long> getRuleHits() {
+		Map<String, Long> hits = new LinkedHashMap<String, Long>();
+		for (Rule rule : Rule.values()) {
+			hits.put(rule.label, this.ruleHits[rule.ordinal()].sum());
+		}
+		return hits;
+	}
+
 	public Device resolveDevice(HttpServletRequest request) {
-		String userAgent = request.getHeader("User-Agent");
-		// UserAgent keyword detection of Normal devices
-		if (userAgent != null) {
-			userAgent = userAgent.toLowerCase();
-			for (String keyword : normalUserAgentKeywords) {
-				if (userAgent.contains(keyword)) {
-					return resolveFallback(request);
-				}
-			}
+		Device device = resolve(request.getHeader("User-Agent"), request, SERVLET_REQUEST_HEADERS);
+		return (device != null ? device : resolveFallback(request));
+	}
+
+	/**
+	 * Resolve the device that sent the given request headers, applying the same rules
+	 * as {@link #resolveDevice(HttpServletRequest)}.
+	 * @since 2.0
+	 */
+	public Device resolveDevice(HttpHeaders headers) {
+		Device device = resolve(headers.getFirst(HttpHeaders.USER_AGENT), headers, HTTP_HEADERS);
+		return (device != null ? device : resolveFallback(headers));
+	}
+
+	/**
+	 * Resolve the device that sent the given User-Agent, without any other request
+	 * headers. Unlike the default implementation, the User-Agent is matched without
+	 * creating {@link HttpHeaders}, unless the resolution falls back.
+	 * @since 2.0
+	 */
+	public Device resolveDevice(String userAgent) {
+		Device device = resolve(userAgent, HttpHeaders.EMPTY, HTTP_HEADERS);
+		if (device != null) {
+			return device;
 		}
-		// UserAgent keyword detection of Tablet devices
+		HttpHeaders headers = new HttpHeaders();
 		if (userAgent != null) {
-			userAgent = userAgent.toLowerCase();
-			// Android special case
-			if (userAgent.contains("android") && !userAgent.contains("mobile")) {
-				return resolveWithPlatform(DeviceType.TABLET, DevicePlatform.ANDROID);
-			}
-			// Apple special case
-			if (userAgent.contains("ipad")) {
-				return resolveWithPlatform(DeviceType.TABLET, DevicePlatform.IOS);
-			}
-			// Kindle Fire special case
-			if (userAgent.contains("silk") && !userAgent.contains("mobile")) {
-				return resolveWithPlatform(DeviceType.TABLET, DevicePlatform.UNKNOWN);
-			}
-			for (String keyword : tabletUserAgentKeywords) {
-				if (userAgent.contains(keyword)) {
-					return resolveWithPlatform(DeviceType.TABLET, DevicePlatform.UNKNOWN);
-				}
-			}
+			headers.set(HttpHeaders.USER_AGENT, userAgent);
 		}
-		// UAProf detection
-		if (request.getHeader("x-wap-profile") != null || request.getHeader("Profile") != null) {
-			if (userAgent != null) {
-				// Android special case
-				if (userAgent.contains("android")) {
-					return resolveWithPlatform(DeviceType.MOBILE, DevicePlatform.ANDROID);
-				}
-				// Apple special case
-				if (userAgent.contains("iphone") || userAgent.contains("ipod") || userAgent.contains("ipad")) {
-					return resolveWithPlatform(DeviceType.MOBILE, DevicePlatform.IOS);
-				}
-			}
-			return resolveWithPlatform(DeviceType.MOBILE, DevicePlatform.UNKNOWN);
-		}
-		// User-Agent prefix detection
-		if (userAgent != null && userAgent.length() >= 4) {
-			String prefix = userAgent.substring(0, 4).toLowerCase();
-			if (mobileUserAgentPrefixes.contains(prefix)) {
-				return resolveWithPlatform(DeviceType.MOBILE, DevicePlatform.UNKNOWN);
-			}
-		}
-		// Accept-header based detection
-		String accept = request.getHeader("Accept");
-		if (accept != null && accept.contains("wap")) {
-			return resolveWithPlatform(DeviceType.MOBILE, DevicePlatform.UNKNOWN);
-		}
-		// UserAgent keyword detection for Mobile devices
-		if (userAgent != null) {
-			// Android special case
-			if (userAgent.contains("android")) {
-				return resolveWithPlatform(DeviceType.MOBILE, DevicePlatform.ANDROID);
-			}
-			// Apple special case
-			if (userAgent.contains("iphone") || userAgent.contains("ipod") || userAgent.contains("ipad")) {
-				return resolveWithPlatform(DeviceType.MOBILE, DevicePlatform.IOS);
-			}
-			for (String keyword : mobileUserAgentKeywords) {
-				if (userAgent.contains(keyword)) {
-					return resolveWithPlatform(DeviceType.MOBILE, DevicePlatform.UNKNOWN);
-				}
-			}
+		return resolveFallback(headers);
+	}
+
+	/**
+	 * Return a canonical form of the given User-Agent such that any two User-Agents
+	 * with equal canonical forms resolve to the same device given the same other
+	 * request headers and the same rules; canonical forms computed under different
+	 * rules are not comparable. The canonical form records whether the User-Agent starts with
+	 * one of the mobile prefixes, followed by the User-Agent as normalized by the
+	 * {@link UserAgentMatcher} of the current rules, so version numbers and build
+	 * identifiers that cannot match a keyword are collapsed. Only the
+	 * {@linkplain #setMaxUserAgentLength(int) examined characters} are taken into
+	 * account. Used by
+	 * {@link CachingDeviceResolver} to share cached devices between such User-Agents.
+	 * <p>If a subclass overrides {@link #resolveDevice(HttpServletRequest)} or
+	 * {@link #resolveFallback(HttpServletRequest)}, the User-Agent is returned as is,
+	 * since the overriding method may consult any part of it.
+	 * @param userAgent the User-Agent
+	 * @return the canonical form of the User-Agent
+	 * @since 2.0
+	 */
+	public String normalizeUserAgent(String userAgent) {
+		Assert.notNull(userAgent, "User-Agent must not be null");
+		return normalizeUserAgent(userAgent, getCompiledRules());
+	}
+
+	/**
+	 * Return the canonical form of the given User-Agent under the given compiled rules,
+	 * see {@link #normalizeUserAgent(String)}.
+	 */
+	String normalizeUserAgent(String userAgent, CompiledRules rules) {
+		if (!this.normalizable) {
+			return userAgent;
 		}
-		// OperaMini special case
-		@SuppressWarnings("rawtypes")
-		Enumeration headers = request.getHeaderNames();
-		while (headers.hasMoreElements()) {
-			String header = (String) headers.nextElement();
-			if (header.contains("OperaMini")) {
-				/*return LiteDevice.MOBILE_INSTANCE;*/
-				return resolveWithPlatform(DeviceType.MOBILE, DevicePlatform.UNKNOWN);
-			}
+		if (userAgent.length() > this.maxUserAgentLength) {
+			userAgent = userAgent.substring(0, this.maxUserAgentLength);
 		}
-		return resolveFallback(request);
+		// a single copy, where string concatenation would go through a growing StringBuilder
+		return (rules.prefixes.matches(userAgent) ? "+" : "-").concat(rules.matcher.normalize(userAgent));
 	}
 
 	// subclassing hooks
@@ -215,9 +405,325 @@ public class LiteDeviceResolver implements DeviceResolver {
 		return LiteDevice.NORMAL_INSTANCE;
 	}
 
+	/**
+	 * Fallback called if no mobile device is matched by {@link #resolveDevice(HttpHeaders)}
+	 * or {@link #resolveDevice(String)}. The default implementation returns a "normal"
+	 * {@link Device}. Subclasses overriding {@link #resolveFallback(HttpServletRequest)}
+	 * should override this method accordingly.
+	 * @since 2.0
+	 */
+	protected Device resolveFallback(HttpHeaders headers) {
+		return LiteDevice.NORMAL_INSTANCE;
+	}
+
 	// internal helpers
 
-	private static final String[] KNOWN_MOBILE_USER_AGENT_PREFIXES = new String[] {
+	/**
+	 * Run the resolution rules against the given headers.
+	 * @return the resolved device, or {@code null} to fall back
+	 */
+	private <T> Device resolve(String userAgent, T source, HeaderAccessor<T> accessor) {
+		CompiledRules rules = getCompiledRules();
+		int matches = 0;
+		if (userAgent != null && userAgent.length() > this.maxUserAgentLength) {
+			userAgent = userAgent.substring(0, this.maxUserAgentLength);
+		}
+		if (userAgent != null) {
+			matches = rules.matcher.match(userAgent);
+		}
+		// UserAgent keyword detection of Normal devices
+		if (isSet(matches, NORMAL_KEYWORD)) {
+			recordRuleHit(Rule.NORMAL_KEYWORD);
+			return null;
+		}
+		// UserAgent keyword detection of Tablet devices
+		if (userAgent != null) {
+			// Android special case
+			if (isSet(matches, ANDROID) && !isSet(matches, MOBILE)) {
+				return resolveWithPlatform(Rule.ANDROID_TABLET, DeviceType.TABLET, DevicePlatform.ANDROID);
+			}
+			// Apple special case
+			if (isSet(matches, IPAD)) {
+				return resolveWithPlatform(Rule.IPAD, DeviceType.TABLET, DevicePlatform.IOS);
+			}
+			// Kindle Fire special case
+			if (isSet(matches, SILK) && !isSet(matches, MOBILE)) {
+				return resolveWithPlatform(Rule.KINDLE_FIRE, DeviceType.TABLET, DevicePlatform.UNKNOWN);
+			}
+			if (isSet(matches, TABLET_KEYWORD)) {
+				return resolveWithPlatform(Rule.TABLET_KEYWORD, DeviceType.TABLET, DevicePlatform.UNKNOWN);
+			}
+		}
+		// UAProf detection
+		if (accessor.getHeader(source, "x-wap-profile") != null || accessor.getHeader(source, "Profile") != null) {
+			if (userAgent != null) {
+				// Android special case
+				if (isSet(matches, ANDROID)) {
+					return resolveWithPlatform(Rule.UAPROF_ANDROID, DeviceType.MOBILE, DevicePlatform.ANDROID);
+				}
+				// Apple special case
+				if (isSet(matches, IPHONE | IPOD | IPAD)) {
+					return resolveWithPlatform(Rule.UAPROF_IOS, DeviceType.MOBILE, DevicePlatform.IOS);
+				}
+			}
+			return resolveWithPlatform(Rule.UAPROF, DeviceType.MOBILE, DevicePlatform.UNKNOWN);
+		}
+		// User-Agent prefix detection
+		if (userAgent != null && rules.prefixes.matches(userAgent)) {
+			return resolveWithPlatform(Rule.PREFIX, DeviceType.MOBILE, DevicePlatform.UNKNOWN);
+		}
+		// Accept-header based detection
+		String accept = accessor.getHeader(source, "Accept");
+		if (accept != null && accept.contains("wap")) {
+			return resolveWithPlatform(Rule.ACCEPT_WAP, DeviceType.MOBILE, DevicePlatform.UNKNOWN);
+		}
+		// UserAgent keyword detection for Mobile devices
+		if (userAgent != null) {
+			// Android special case
+			if (isSet(matches, ANDROID)) {
+				return resolveWithPlatform(Rule.ANDROID, DeviceType.MOBILE, DevicePlatform.ANDROID);
+			}
+			// Apple special case
+			if (isSet(matches, IPHONE | IPOD | IPAD)) {
+				return resolveWithPlatform(Rule.IOS, DeviceType.MOBILE, DevicePlatform.IOS);
+			}
+			if (isSet(matches, MOBILE_KEYWORD)) {
+				return resolveWithPlatform(Rule.MOBILE_KEYWORD, DeviceType.MOBILE, DevicePlatform.UNKNOWN);
+			}
+		}
+		// OperaMini special case
+		if (accessor.containsHeaderName(source, "OperaMini", this.maxHeaderCount)) {
+			/*return LiteDevice.MOBILE_INSTANCE;*/
+			return resolveWithPlatform(Rule.OPERA_MINI, DeviceType.MOBILE, DevicePlatform.UNKNOWN);
+		}
+		recordRuleHit(Rule.FALLBACK);
+		return null;
+	}
+
+	private Device resolveWithPlatform(Rule rule, DeviceType deviceType, DevicePlatform devicePlatform) {
+		recordRuleHit(rule);
+		return resolveWithPlatform(deviceType, devicePlatform);
+	}
+
+	private void recordRuleHit(Rule rule) {
+		if (this.recordRuleHits) {
+			this.ruleHits[rule.ordinal()].increment();
+		}
+	}
+
+	private static LongAdder[] newRuleHits() {
+		LongAdder[] ruleHits = new LongAdder[Rule.values().length];
+		for (int i = 0; i < ruleHits.length; i++) {
+			ruleHits[i] = new LongAdder();
+		}
+		return ruleHits;
+	}
+
+	private static boolean overridesResolution(Class<?> type) {
+		return ReflectionUtils.findMethod(type, "resolveDevice", HttpServletRequest.class)
+				.getDeclaringClass() != LiteDeviceResolver.class
+				|| ReflectionUtils.findMethod(type, "resolveFallback", HttpServletRequest.class)
+				.getDeclaringClass() != LiteDeviceResolver.class;
+	}
+
+	/**
+	 * Return the rules currently in use, compiling the rule lists if they changed. A
+	 * new instance is returned whenever the rules change, so callers such as
+	 * {@link CachingDeviceResolver} can tell by identity whether a result was resolved
+	 * with the current rules.
+	 */
+	CompiledRules getCompiledRules() {
+		CompiledRules compiled = this.compiledRules.get();
+		if (compiled == null || !compiled.isCurrent()) {
+			// do not overwrite rules set concurrently through setRules
+			CompiledRules recompiled = new CompiledRules();
+			if (this.compiledRules.compareAndSet(compiled, recompiled)) {
+				return recompiled;
+			}
+			return this.compiledRules.get();
+		}
+		return compiled;
+	}
+
+	/**
+	 * Matcher and prefix set compiled either from the rule lists, along with the list
+	 * versions they were compiled from, or from {@link UserAgentRules}.
+	 */
+	final class CompiledRules {
+
+		private final UserAgentRules rules;
+
+		private final boolean fromLists;
+
+		private final int prefixVersion;
+
+		private final int normalVersion;
+
+		private final int tabletVersion;
+
+		private final int mobileVersion;
+
+		private final UserAgentMatcher matcher;
+
+		private final UserAgentPrefixSet prefixes;
+
+		CompiledRules() {
+			this.rules = new UserAgentRules(mobileUserAgentPrefixes, mobileUserAgentKeywords,
+					tabletUserAgentKeywords, normalUserAgentKeywords);
+			this.fromLists = true;
+			this.prefixVersion = mobileUserAgentPrefixes.version;
+			this.normalVersion = normalUserAgentKeywords.version;
+			this.tabletVersion = tabletUserAgentKeywords.version;
+			this.mobileVersion = mobileUserAgentKeywords.version;
+			this.matcher = new AhoCorasickUserAgentMatcher(normalUserAgentKeywords, tabletUserAgentKeywords,
+					mobileUserAgentKeywords);
+			this.prefixes = new UserAgentPrefixSet(mobileUserAgentPrefixes);
+		}
+
+		CompiledRules(UserAgentRules rules) {
+			this.rules = rules;
+			this.fromLists = false;
+			this.prefixVersion = -1;
+			this.normalVersion = -1;
+			this.tabletVersion = -1;
+			this.mobileVersion = -1;
+			this.matcher = new AhoCorasickUserAgentMatcher(rules.getNormalUserAgentKeywords(),
+					rules.getTabletUserAgentKeywords(), rules.getMobileUserAgentKeywords());
+			this.prefixes = new UserAgentPrefixSet(rules.getMobileUserAgentPrefixes());
+		}
+
+		/**
+		 * Return the rules this instance was compiled from.
+		 */
+		UserAgentRules getRules() {
+			return this.rules;
+		}
+
+		boolean isCurrent() {
+			return !this.fromLists || (this.prefixVersion == mobileUserAgentPrefixes.version
+					&& this.normalVersion == normalUserAgentKeywords.version
+					&& this.tabletVersion == tabletUserAgentKeywords.version
+					&& this.mobileVersion == mobileUserAgentKeywords.version);
+		}
+
+	}
+
+	/**
+	 * Resolution rules, in the order they are applied.
+	 */
+	private enum Rule {
+
+		NORMAL_KEYWORD("normal-keyword"),
+
+		ANDROID_TABLET("android-tablet"),
+
+		IPAD("ipad"),
+
+		KINDLE_FIRE("kindle-fire"),
+
+		TABLET_KEYWORD("tablet-keyword"),
+
+		UAPROF_ANDROID("uaprof-android"),
+
+		UAPROF_IOS("uaprof-ios"),
+
+		UAPROF("uaprof"),
+
+		PREFIX("prefix"),
+
+		ACCEPT_WAP("accept-wap"),
+
+		ANDROID("android"),
+
+		IOS("ios"),
+
+		MOBILE_KEYWORD("mobile-keyword"),
+
+		OPERA_MINI("opera-mini"),
+
+		FALLBACK("fallback");
+
+		private final String label;
+
+		Rule(String label) {
+			this.label = label;
+		}
+
+	}
+
+	/**
+	 * Strategy to read the headers the resolution rules consult from a header source,
+	 * so that the rules run on servlet requests and {@link HttpHeaders} alike without
+	 * adapting the source.
+	 */
+	private interface HeaderAccessor<T> {
+
+		String getHeader(T source, String name);
+
+		boolean containsHeaderName(T source, String fragment, int maxHeaderCount);
+
+	}
+
+	/**
+	 * Rule list that counts every modification, including replaced elements, so that
+	 * stale {@link CompiledRules} can be detected.
+	 */
+	private static class RuleList extends AbstractList<String> implements RandomAccess {
+
+		private final List<String> elements = new ArrayList<String>();
+
+		private int version;
+
+		@Override
+		public String get(int index) {
+			return this.elements.get(index);
+		}
+
+		@Override
+		public int size() {
+			return this.elements.size();
+		}
+
+		@Override
+		public String set(int index, String element) {
+			String previous = this.elements.set(index, element);
+			this.version++;
+			return previous;
+		}
+
+		@Override
+		public void add(int index, String element) {
+			this.elements.add(index, element);
+			this.version++;
+			this.modCount++;
+		}
+
+		@Override
+		public boolean addAll(Collection<? extends String> c) {
+			boolean modified = this.elements.addAll(c);
+			this.version++;
+			this.modCount++;
+			return modified;
+		}
+
+		@Override
+		public String remove(int index) {
+			String previous = this.elements.remove(index);
+			this.version++;
+			this.modCount++;
+			return previous;
+		}
+
+		@Override
+		public void clear() {
+			this.elements.clear();
+			this.version++;
+			this.modCount++;
+		}
+
+	}
+
+	static final String[] KNOWN_MOBILE_USER_AGENT_PREFIXES = new String[] {
 			"w3c ", "w3c-", "acs-", "alav", "alca", "amoi", "avan", "benq", "bird",
 			"blac", "blaz", "brew", "cell", "cldc", "cmd-", "dang", "doco", "eric",
 			"hipt", "htc_", "inno", "ipaq", "ipod", "jigs", "kddi", "keji", "leno",
@@ -229,13 +735,13 @@ public class LiteDeviceResolver implements DeviceResolver {
 			"tsm-", "upg1", "upsi", "vk-v", "voda", "wap-", "wapa", "wapi", "wapp",
 			"wapr", "webc", "winw", "winw", "xda ", "xda-" };
 
-	private static final String[] KNOWN_MOBILE_USER_AGENT_KEYWORDS = new String[] {
+	static final String[] KNOWN_MOBILE_USER_AGENT_KEYWORDS = new String[] {
 			"blackberry", "webos", "ipod", "lge vx", "midp", "maemo", "mmp", "mobile",
 			"netfront", "hiptop", "nintendo DS", "novarra", "openweb", "opera mobi",
 			"opera mini", "palm", "psp", "phone", "smartphone", "symbian", "up.browser",
 			"up.link", "wap", "windows ce" };
 
-	private static final String[] KNOWN_TABLET_USER_AGENT_KEYWORDS = new String[] {
+	static final String[] KNOWN_TABLET_USER_AGENT_KEYWORDS = new String[] {
 			"ipad", "playbook", "hp-tablet", "kindle" };
 
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.util.Arrays;
+import java.util.Collection;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.mobile.device.matcher.UserAgentPrefixSet;
+
+/**
+ * {@link DeviceResolver} that resolves a mobile device if the User-Agent starts with one
+ * of the mobile operator or handset manufacturer prefixes also used by the
+ * {@link LiteDeviceResolver}. Other requests resolve to {@code null}, so this resolver
+ * is meant to be a tier of a {@link TieredDeviceResolver}.
+ *
+ * <p>Unlike the {@link LiteDeviceResolver}, which only considers the prefixes after
+ * the tablet keywords and UAProf headers, this resolver only looks at the first four
+ * characters of the User-Agent. Placed before a {@link LiteDeviceResolver} it trades
+ * the detection of the few tablets using such a prefix for a cheaper lookup.
+ *
+ * @since 2.0
+ */
+public class PrefixDeviceResolver implements DeviceResolver {
+
+	private final UserAgentPrefixSet prefixes;
+
+	/**
+	 * Create a prefix {@link DeviceResolver} using the prefixes of the
+	 * {@link LiteDeviceResolver}.
+	 */
+	public PrefixDeviceResolver() {
+		this(Arrays.asList(LiteDeviceResolver.KNOWN_MOBILE_USER_AGENT_PREFIXES));
+	}
+
+	/**
+	 * Create a prefix {@link DeviceResolver}.
+	 * @param prefixes the four character, lower case, mobile User-Agent prefixes
+	 */
+	public PrefixDeviceResolver(Collection<String> prefixes) {
+		this.prefixes = new UserAgentPrefixSet(prefixes);
+	}
+
+	public Device resolveDevice(HttpServletRequest request) {
+		String userAgent = request.getHeader("User-Agent");
+		if (userAgent != null && this.prefixes.matches(userAgent)) {
+			return LiteDevice.MOBILE_INSTANCE;
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,233 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import org.springframework.http.server.PathContainer;
+import org.springframework.util.Assert;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+/**
+ * Matches request paths against a set of {@link PathPattern} patterns, such as
+ * {@code /static/**}, {@code /**}{@code /*.css} or {@code /api/{version}/**}, in order to
+ * restrict device resolution to certain requests.
+ * 
+ * <p>The patterns are compiled once. Literal paths are kept in a hash set, prefix
+ * patterns ending in {@code /**} in a prefix trie, and extension patterns such as
+ * {@code /**}{@code /*.css} as a list of suffixes, so the patterns typically used for
+ * static resources and management endpoints are matched in a single pass over the path
+ * without allocating. Only the remaining patterns are matched as {@link PathPattern},
+ * which requires parsing the path.
+ * 
+ * @since 2.0
+ */
+public final class RequestPathMatcher {
+
+	private static final String PREFIX_SUFFIX = "/**";
+
+	private static final String EXTENSION_PREFIX = "/**/*.";
+
+	private final List<String> patterns;
+
+	private final Set<String> paths = new HashSet<String>();
+
+	private final PrefixNode prefixes;
+
+	private final String[] extensions;
+
+	private final PathPattern[] pathPatterns;
+
+	/**
+	 * Create a matcher for the given patterns.
+	 * @param patterns the path patterns
+	 */
+	public RequestPathMatcher(String... patterns) {
+		this(Arrays.asList(patterns));
+	}
+
+	/**
+	 * Create a matcher for the given patterns.
+	 * @param patterns the path patterns
+	 */
+	public RequestPathMatcher(Collection<String> patterns) {
+		Assert.notNull(patterns, "Patterns must not be null");
+		this.patterns = Collections.unmodifiableList(new ArrayList<String>(patterns));
+		Map<String, Boolean> prefixes = new TreeMap<String, Boolean>();
+		List<String> extensions = new ArrayList<String>();
+		List<PathPattern> pathPatterns = new ArrayList<PathPattern>();
+		PathPatternParser parser = new PathPatternParser();
+		for (String pattern : this.patterns) {
+			Assert.hasText(pattern, "Patterns must not be empty");
+			if (!pattern.startsWith("/")) {
+				pattern = "/" + pattern;
+			}
+			if (pattern.endsWith(PREFIX_SUFFIX) && isLiteral(pattern, 0, pattern.length() - PREFIX_SUFFIX.length())) {
+				prefixes.put(pattern.substring(0, pattern.length() - PREFIX_SUFFIX.length()), Boolean.TRUE);
+			}
+			else if (pattern.startsWith(EXTENSION_PREFIX)
+					&& isLiteral(pattern, EXTENSION_PREFIX.length(), pattern.length())
+					&& pattern.indexOf('/', EXTENSION_PREFIX.length()) < 0) {
+				extensions.add(pattern.substring(EXTENSION_PREFIX.length() - 1));
+			}
+			else if (isLiteral(pattern, 0, pattern.length())) {
+				this.paths.add(stripTrailingSlash(pattern));
+			}
+			else {
+				pathPatterns.add(parser.parse(pattern));
+			}
+		}
+		this.prefixes = (prefixes.isEmpty() ? null : new PrefixNode(new ArrayList<String>(prefixes.keySet()), 0));
+		this.extensions = extensions.toArray(new String[extensions.size()]);
+		this.pathPatterns = pathPatterns.toArray(new PathPattern[pathPatterns.size()]);
+	}
+
+	/**
+	 * Return whether the given path matches one of the patterns.
+	 * @param path the path, without the context path
+	 */
+	public boolean matches(String path) {
+		if (this.prefixes != null && this.prefixes.matches(path)) {
+			return true;
+		}
+		for (String extension : this.extensions) {
+			if (path.endsWith(extension) && path.length() > extension.length()) {
+				return true;
+			}
+		}
+		if (!this.paths.isEmpty() && this.paths.contains(stripTrailingSlash(path))) {
+			return true;
+		}
+		if (this.pathPatterns.length > 0) {
+			PathContainer pathContainer = PathContainer.parsePath(path);
+			for (PathPattern pathPattern : this.pathPatterns) {
+				if (pathPattern.matches(pathContainer)) {
+					return true;
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Return whether this matcher has no patterns, and therefore matches no path.
+	 */
+	public boolean isEmpty() {
+		return this.patterns.isEmpty();
+	}
+
+	/**
+	 * Return the patterns of this matcher.
+	 */
+	public List<String> getPatterns() {
+		return this.patterns;
+	}
+
+	@Override
+	public String toString() {
+		return this.patterns.toString();
+	}
+
+	private static boolean isLiteral(String pattern, int start, int end) {
+		for (int i = start; i < end; i++) {
+			char c = pattern.charAt(i);
+			if (c == '*' || c == '?' || c == '{' || c == '}') {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static String stripTrailingSlash(String path) {
+		return (path.length() > 1 && path.endsWith("/") ? path.substring(0, path.length() - 1) : path);
+	}
+
+
+	/**
+	 * Node of the prefix trie. A node is terminal if a prefix ends at it; a path matches
+	 * a terminal node if it ends there or continues with a path separator.
+	 */
+	private static final class PrefixNode {
+
+		private final boolean terminal;
+
+		private final char[] labels;
+
+		private final PrefixNode[] children;
+
+		/**
+		 * Create the node for the given sorted prefixes, all of which share their first
+		 * {@code depth} characters.
+		 */
+		PrefixNode(List<String> prefixes, int depth) {
+			boolean terminal = false;
+			List<Character> labels = new ArrayList<Character>();
+			List<PrefixNode> children = new ArrayList<PrefixNode>();
+			int i = 0;
+			while (i < prefixes.size()) {
+				String prefix = prefixes.get(i);
+				if (prefix.length() == depth) {
+					terminal = true;
+					i++;
+					continue;
+				}
+				char label = prefix.charAt(depth);
+				int end = i + 1;
+				while (end < prefixes.size() && prefixes.get(end).charAt(depth) == label) {
+					end++;
+				}
+				labels.add(label);
+				children.add(new PrefixNode(prefixes.subList(i, end), depth + 1));
+				i = end;
+			}
+			this.terminal = terminal;
+			this.labels = new char[labels.size()];
+			for (int j = 0; j < this.labels.length; j++) {
+				this.labels[j] = labels.get(j);
+			}
+			this.children = children.toArray(new PrefixNode[children.size()]);
+		}
+
+		boolean matches(String path) {
+			PrefixNode node = this;
+			for (int i = 0; ; i++) {
+				if (node.terminal && (i == path.length() || path.charAt(i) == '/' || i == 0)) {
+					return true;
+				}
+				if (i == path.length()) {
+					return false;
+				}
+				int index = Arrays.binarySearch(node.labels, path.charAt(i));
+				if (index < 0) {
+					return false;
+				}
+				node = node.children[index];
+			}
+		}
+
+	}
+
+}
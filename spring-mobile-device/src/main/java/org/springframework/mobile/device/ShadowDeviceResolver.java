@@ -0,0 +1,456 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.http.HttpHeaders;
+import org.springframework.util.Assert;
+
+/**
+ * {@link DeviceResolver} that resolves devices with a primary resolver and evaluates a
+ * candidate resolver against it on a sample of the requests, to gain confidence in a
+ * new resolution engine or new rules before switching to them. Requests always get the
+ * device of the primary resolver. For a sampled request, the request headers are
+ * copied and the candidate resolver runs on a background executor, against a detached
+ * request that only provides the copied headers, so the candidate adds no latency and
+ * its failures never reach the request.
+ *
+ * <p>Devices agree if they have the same type and platform. The number of comparisons
+ * and agreements and the time taken by both resolvers for the compared requests are
+ * recorded in {@link LongAdder}s, and the last mismatches are kept in a bounded buffer,
+ * see {@link #getMismatches()}. The primary resolver is timed on the request thread and
+ * the candidate on the background thread, so the times are comparable in aggregate
+ * only.
+ *
+ * <p>By default, the candidate runs on a single daemon thread with a bounded queue, and
+ * requests sampled while the queue is full are dropped rather than delaying requests,
+ * see {@link #getDroppedCount()}. The default executor is shut down by
+ * {@link #destroy()}. Since the primary device is inspected on sampled requests, a
+ * {@link LazyDeviceResolver} should decorate this resolver rather than the other way
+ * around.
+ *
+ * @since 2.0
+ */
+public class ShadowDeviceResolver implements DeviceResolver, DisposableBean {
+
+	/**
+	 * The default sample rate: one in 100 requests is evaluated.
+	 */
+	public static final int DEFAULT_SAMPLE_RATE = 100;
+
+	/**
+	 * The default number of sampled requests waiting for the candidate resolver.
+	 */
+	public static final int DEFAULT_QUEUE_CAPACITY = 1000;
+
+	/**
+	 * The default number of mismatches kept.
+	 */
+	public static final int DEFAULT_MAX_MISMATCHES = 100;
+
+	private static final Log logger = LogFactory.getLog(ShadowDeviceResolver.class);
+
+	private final DeviceResolver primary;
+
+	private final DeviceResolver candidate;
+
+	private final Executor executor;
+
+	private final ExecutorService ownExecutor;
+
+	private volatile int sampleRate = DEFAULT_SAMPLE_RATE;
+
+	private volatile int maxMismatches = DEFAULT_MAX_MISMATCHES;
+
+	private final LongAdder comparisonCount = new LongAdder();
+
+	private final LongAdder agreementCount = new LongAdder();
+
+	private final LongAdder droppedCount = new LongAdder();
+
+	private final LongAdder failureCount = new LongAdder();
+
+	private final LongAdder primaryNanos = new LongAdder();
+
+	private final LongAdder candidateNanos = new LongAdder();
+
+	private final Deque<Mismatch> mismatches = new ArrayDeque<Mismatch>();
+
+	/**
+	 * Create a shadow {@link DeviceResolver} running the candidate on its own
+	 * background thread.
+	 * @param primary the device resolver whose devices are returned
+	 * @param candidate the device resolver to evaluate
+	 */
+	public ShadowDeviceResolver(DeviceResolver primary, DeviceResolver candidate) {
+		Assert.notNull(primary, "Primary DeviceResolver must not be null");
+		Assert.notNull(candidate, "Candidate DeviceResolver must not be null");
+		this.primary = primary;
+		this.candidate = candidate;
+		this.ownExecutor = new ThreadPoolExecutor(1, 1, 0, TimeUnit.MILLISECONDS,
+				new ArrayBlockingQueue<Runnable>(DEFAULT_QUEUE_CAPACITY), new ThreadFactory() {
+					public Thread newThread(Runnable runnable) {
+						Thread thread = new Thread(runnable, "shadow-device-resolver");
+						thread.setDaemon(true);
+						return thread;
+					}
+				});
+		this.executor = this.ownExecutor;
+	}
+
+	/**
+	 * Create a shadow {@link DeviceResolver} running the candidate on the given
+	 * executor, which should be bounded and reject tasks rather than run them on the
+	 * calling thread.
+	 * @param primary the device resolver whose devices are returned
+	 * @param candidate the device resolver to evaluate
+	 * @param executor the executor to run the candidate on
+	 */
+	public ShadowDeviceResolver(DeviceResolver primary, DeviceResolver candidate, Executor executor) {
+		Assert.notNull(primary, "Primary DeviceResolver must not be null");
+		Assert.notNull(candidate, "Candidate DeviceResolver must not be null");
+		Assert.notNull(executor, "Executor must not be null");
+		this.primary = primary;
+		this.candidate = candidate;
+		this.ownExecutor = null;
+		this.executor = executor;
+	}
+
+	/**
+	 * Set how many requests there are for each request evaluated by the candidate
+	 * resolver. A rate of 1 evaluates every request. Defaults to
+	 * {@link #DEFAULT_SAMPLE_RATE}.
+	 * @param sampleRate evaluate one in this many requests
+	 */
+	public void setSampleRate(int sampleRate) {
+		Assert.isTrue(sampleRate > 0, "Sample rate must be greater than zero");
+		this.sampleRate = sampleRate;
+	}
+
+	/**
+	 * Set the maximum number of mismatches kept. Defaults to
+	 * {@link #DEFAULT_MAX_MISMATCHES}.
+	 * @param maxMismatches the maximum number of mismatches
+	 */
+	public void setMaxMismatches(int maxMismatches) {
+		Assert.isTrue(maxMismatches >= 0, "Maximum mismatches must not be negative");
+		this.maxMismatches = maxMismatches;
+		synchronized (this.mismatches) {
+			while (this.mismatches.size() > maxMismatches) {
+				this.mismatches.removeFirst();
+			}
+		}
+	}
+
+	public Device resolveDevice(HttpServletRequest request) {
+		int sampleRate = this.sampleRate;
+		if (sampleRate > 1 && ThreadLocalRandom.current().nextInt(sampleRate) != 0) {
+			return this.primary.resolveDevice(request);
+		}
+		long start = System.nanoTime();
+		Device device = this.primary.resolveDevice(request);
+		long nanos = System.nanoTime() - start;
+		Evaluation evaluation = new Evaluation(copyHeaders(request), canonical(device), nanos);
+		try {
+			this.executor.execute(evaluation);
+		}
+		catch (RejectedExecutionException ex) {
+			this.droppedCount.increment();
+		}
+		return device;
+	}
+
+	/**
+	 * Return the device resolver whose devices are returned.
+	 */
+	public DeviceResolver getPrimary() {
+		return this.primary;
+	}
+
+	/**
+	 * Return the device resolver being evaluated.
+	 */
+	public DeviceResolver getCandidate() {
+		return this.candidate;
+	}
+
+	/**
+	 * Return the number of sampled requests both resolvers resolved.
+	 */
+	public long getComparisonCount() {
+		return this.comparisonCount.sum();
+	}
+
+	/**
+	 * Return the number of sampled requests both resolvers resolved alike.
+	 */
+	public long getAgreementCount() {
+		return this.agreementCount.sum();
+	}
+
+	/**
+	 * Return the ratio of compared requests both resolvers resolved alike, or
+	 * {@code 1} if there were none.
+	 */
+	public double getAgreementRatio() {
+		long comparisons = this.comparisonCount.sum();
+		return (comparisons > 0 ? (double) this.agreementCount.sum() / comparisons : 1);
+	}
+
+	/**
+	 * Return the number of sampled requests dropped because the executor rejected them.
+	 */
+	public long getDroppedCount() {
+		return this.droppedCount.sum();
+	}
+
+	/**
+	 * Return the number of sampled requests the candidate resolver failed on.
+	 */
+	public long getFailureCount() {
+		return this.failureCount.sum();
+	}
+
+	/**
+	 * Return the total time the primary resolver took for the compared requests.
+	 */
+	public Duration getPrimaryTime() {
+		return Duration.ofNanos(this.primaryNanos.sum());
+	}
+
+	/**
+	 * Return the total time the candidate resolver took for the compared requests.
+	 */
+	public Duration getCandidateTime() {
+		return Duration.ofNanos(this.candidateNanos.sum());
+	}
+
+	/**
+	 * Return the last mismatches, oldest first.
+	 */
+	public List<Mismatch> getMismatches() {
+		synchronized (this.mismatches) {
+			return new ArrayList<Mismatch>(this.mismatches);
+		}
+	}
+
+	/**
+	 * Shut down the default executor, discarding sampled requests that have not been
+	 * evaluated yet. An executor passed to the constructor is left alone.
+	 */
+	public void destroy() {
+		if (this.ownExecutor != null) {
+			this.ownExecutor.shutdownNow();
+		}
+	}
+
+	// internal helpers
+
+	private void evaluate(HttpHeaders headers, Device primaryDevice, long primaryNanos) {
+		Device candidateDevice;
+		long start = System.nanoTime();
+		try {
+			candidateDevice = canonical(this.candidate.resolveDevice(detachedRequest(headers)));
+		}
+		catch (RuntimeException ex) {
+			this.failureCount.increment();
+			if (logger.isDebugEnabled()) {
+				logger.debug("Candidate device resolver failed for User-Agent '"
+						+ headers.getFirst(HttpHeaders.USER_AGENT) + "'", ex);
+			}
+			return;
+		}
+		this.candidateNanos.add(System.nanoTime() - start);
+		this.primaryNanos.add(primaryNanos);
+		this.comparisonCount.increment();
+		if (candidateDevice == primaryDevice) {
+			this.agreementCount.increment();
+			return;
+		}
+		Mismatch mismatch = new Mismatch(headers.getFirst(HttpHeaders.USER_AGENT), primaryDevice, candidateDevice);
+		synchronized (this.mismatches) {
+			if (this.maxMismatches > 0) {
+				if (this.mismatches.size() >= this.maxMismatches) {
+					this.mismatches.removeFirst();
+				}
+				this.mismatches.addLast(mismatch);
+			}
+		}
+	}
+
+	/**
+	 * Return the shared {@link LiteDevice} of the type and platform of the given
+	 * device, so that devices can be compared by identity.
+	 */
+	private static Device canonical(Device device) {
+		if (device == null) {
+			return null;
+		}
+		DeviceType type = (device.isMobile() ? DeviceType.MOBILE
+				: device.isTablet() ? DeviceType.TABLET : DeviceType.NORMAL);
+		DevicePlatform platform = device.getDevicePlatform();
+		return LiteDevice.from(type, platform != null ? platform : DevicePlatform.UNKNOWN);
+	}
+
+	private static HttpHeaders copyHeaders(HttpServletRequest request) {
+		HttpHeaders headers = new HttpHeaders();
+		Enumeration<String> names = request.getHeaderNames();
+		while (names != null && names.hasMoreElements()) {
+			String name = names.nextElement();
+			headers.put(name, Collections.list(request.getHeaders(name)));
+		}
+		return headers;
+	}
+
+	/**
+	 * Create a request that only provides the given headers. Resolvers only read the
+	 * request headers, and the actual request may be recycled by the time the candidate
+	 * runs, so every other method throws {@link UnsupportedOperationException}.
+	 */
+	private static HttpServletRequest detachedRequest(final HttpHeaders headers) {
+		return (HttpServletRequest) Proxy.newProxyInstance(ShadowDeviceResolver.class.getClassLoader(),
+				new Class<?>[] { HttpServletRequest.class }, new InvocationHandler() {
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						String name = method.getName();
+						if (name.equals("getHeader")) {
+							return headers.getFirst((String) args[0]);
+						}
+						if (name.equals("getHeaders")) {
+							List<String> values = headers.get(args[0]);
+							return Collections.enumeration(values != null ? values : Collections.<String>emptyList());
+						}
+						if (name.equals("getHeaderNames")) {
+							return Collections.enumeration(headers.keySet());
+						}
+						if (name.equals("equals")) {
+							return proxy == args[0];
+						}
+						if (name.equals("hashCode")) {
+							return System.identityHashCode(proxy);
+						}
+						if (name.equals("toString")) {
+							return "Detached request " + headers;
+						}
+						throw new UnsupportedOperationException(
+								"Only headers are available to shadow device resolution, not " + name);
+					}
+				});
+	}
+
+
+	/**
+	 * Sampled request waiting for the candidate resolver.
+	 */
+	private final class Evaluation implements Runnable {
+
+		private final HttpHeaders headers;
+
+		private final Device primaryDevice;
+
+		private final long primaryNanos;
+
+		Evaluation(HttpHeaders headers, Device primaryDevice, long primaryNanos) {
+			this.headers = headers;
+			this.primaryDevice = primaryDevice;
+			this.primaryNanos = primaryNanos;
+		}
+
+		public void run() {
+			evaluate(this.headers, this.primaryDevice, this.primaryNanos);
+		}
+
+	}
+
+
+	/**
+	 * Request the primary and candidate resolvers disagreed on.
+	 */
+	public static final class Mismatch {
+
+		private final String userAgent;
+
+		private final Device primaryDevice;
+
+		private final Device candidateDevice;
+
+		private Mismatch(String userAgent, Device primaryDevice, Device candidateDevice) {
+			this.userAgent = userAgent;
+			this.primaryDevice = primaryDevice;
+			this.candidateDevice = candidateDevice;
+		}
+
+		/**
+		 * Return the User-Agent of the request, if any.
+		 */
+		public String getUserAgent() {
+			return this.userAgent;
+		}
+
+		/**
+		 * Return the type and platform of the primary device as a {@link LiteDevice},
+		 * or {@code null} if the primary resolver returned none.
+		 */
+		public Device getPrimaryDevice() {
+			return this.primaryDevice;
+		}
+
+		/**
+		 * Return the type and platform of the candidate device as a {@link LiteDevice},
+		 * or {@code null} if the candidate resolver returned none.
+		 */
+		public Device getCandidateDevice() {
+			return this.candidateDevice;
+		}
+
+		@Override
+		public String toString() {
+			return "primary " + describe(this.primaryDevice) + ", candidate " + describe(this.candidateDevice)
+					+ ": " + this.userAgent;
+		}
+
+		private static String describe(Device device) {
+			return (device != null ? ((LiteDevice) device).getDeviceType() + "/" + device.getDevicePlatform()
+					: "none");
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+/**
+ * Minimal parser for the RFC 8941 structured field items used by the User-Agent Client
+ * Hints headers. Items are parsed in place, without creating any string; parameters
+ * following the item are validated loosely and ignored.
+ */
+class StructuredFields {
+
+	/**
+	 * Parse a header holding an sf-boolean item, such as {@code ?1}.
+	 * @param value the header value, may be {@code null}
+	 * @return the boolean value, or {@code null} if the header is missing or not a
+	 * boolean item
+	 */
+	static Boolean parseBoolean(String value) {
+		if (value == null) {
+			return null;
+		}
+		int start = skipSpaces(value, 0);
+		if (start + 1 >= value.length() || value.charAt(start) != '?') {
+			return null;
+		}
+		char c = value.charAt(start + 1);
+		if ((c != '0' && c != '1') || !isItemEnd(value, start + 2)) {
+			return null;
+		}
+		return (c == '1' ? Boolean.TRUE : Boolean.FALSE);
+	}
+
+	/**
+	 * Test whether a header holds an sf-string item equal to the given string, such as
+	 * {@code "Android"}.
+	 * @param value the header value, may be {@code null}
+	 * @param expected the expected unescaped string
+	 * @return true if the header is a string item equal to {@code expected}
+	 */
+	static boolean isString(String value, String expected) {
+		if (value == null) {
+			return false;
+		}
+		int index = skipSpaces(value, 0);
+		if (index >= value.length() || value.charAt(index) != '"') {
+			return false;
+		}
+		index++;
+		int matched = 0;
+		while (index < value.length()) {
+			char c = value.charAt(index++);
+			if (c == '"') {
+				return matched == expected.length() && isItemEnd(value, index);
+			}
+			if (c == '\\') {
+				if (index == value.length()) {
+					return false;
+				}
+				c = value.charAt(index++);
+				if (c != '"' && c != '\\') {
+					return false;
+				}
+			}
+			else if (c < 0x20 || c > 0x7e) {
+				return false;
+			}
+			if (matched == expected.length() || expected.charAt(matched) != c) {
+				return false;
+			}
+			matched++;
+		}
+		return false;
+	}
+
+	private static boolean isItemEnd(String value, int index) {
+		if (index < value.length() && value.charAt(index) == ';') {
+			return true;
+		}
+		return skipSpaces(value, index) == value.length();
+	}
+
+	private static int skipSpaces(String value, int index) {
+		while (index < value.length() && value.charAt(index) == ' ') {
+			index++;
+		}
+		return index;
+	}
+
+	private StructuredFields() {
+
+	}
+
+}
@@ -0,0 +1,164 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link DeviceResolver} that runs a sequence of resolvers, or tiers, and stops at the
+ * first one that returns a {@link Device}. A tier returns {@code null} when it cannot
+ * resolve the device with confidence, leaving the decision to the next tier. If no
+ * tier decides, {@link #resolveFallback(HttpServletRequest)} is called.
+ *
+ * <p>Cheap tiers should come first, for instance a {@link TrustedHeaderDeviceResolver}
+ * for a header set by a CDN, a {@link ClientHintsDeviceResolver} without fallback, a
+ * {@link CachingDeviceResolver} wrapping the remaining tiers, a
+ * {@link PrefixDeviceResolver}, and finally a {@link LiteDeviceResolver}:
+ *
+ * <pre class="code">
+ * new TieredDeviceResolver(
+ *         new TrustedHeaderDeviceResolver("X-Device-Type"),
+ *         new ClientHintsDeviceResolver(null),
+ *         new CachingDeviceResolver(new TieredDeviceResolver(
+ *                 new PrefixDeviceResolver(), new LiteDeviceResolver())));
+ * </pre>
+ *
+ * Each tier counts how often it is invoked and how often it decides, so that tiers can
+ * be ordered to suit the actual traffic.
+ *
+ * @since 2.0
+ */
+public class TieredDeviceResolver implements DeviceResolver {
+
+	private final List<Tier> tiers;
+
+	private final LongAdder fallbackCount = new LongAdder();
+
+	/**
+	 * Create a tiered {@link DeviceResolver}.
+	 * @param resolvers the tiers, in the order they are tried
+	 */
+	public TieredDeviceResolver(DeviceResolver... resolvers) {
+		this(Arrays.asList(resolvers));
+	}
+
+	/**
+	 * Create a tiered {@link DeviceResolver}.
+	 * @param resolvers the tiers, in the order they are tried
+	 */
+	public TieredDeviceResolver(List<? extends DeviceResolver> resolvers) {
+		Assert.notEmpty(resolvers, "At least one tier is required");
+		List<Tier> tiers = new ArrayList<Tier>(resolvers.size());
+		for (DeviceResolver resolver : resolvers) {
+			Assert.notNull(resolver, "Tiers must not be null");
+			tiers.add(new Tier(resolver));
+		}
+		this.tiers = Collections.unmodifiableList(tiers);
+	}
+
+	public Device resolveDevice(HttpServletRequest request) {
+		for (int i = 0; i < this.tiers.size(); i++) {
+			Tier tier = this.tiers.get(i);
+			tier.invocationCount.increment();
+			Device device = tier.resolver.resolveDevice(request);
+			if (device != null) {
+				tier.decisionCount.increment();
+				return device;
+			}
+		}
+		this.fallbackCount.increment();
+		return resolveFallback(request);
+	}
+
+	/**
+	 * Return the tiers, in the order they are tried.
+	 */
+	public List<Tier> getTiers() {
+		return this.tiers;
+	}
+
+	/**
+	 * Return the number of resolutions no tier decided.
+	 */
+	public long getFallbackCount() {
+		return this.fallbackCount.sum();
+	}
+
+	// subclassing hooks
+
+	/**
+	 * Fallback called if no tier resolves the device. The default implementation
+	 * returns a "normal" {@link Device}.
+	 */
+	protected Device resolveFallback(HttpServletRequest request) {
+		return LiteDevice.NORMAL_INSTANCE;
+	}
+
+
+	/**
+	 * A single tier, along with its statistics.
+	 */
+	public static final class Tier {
+
+		private final DeviceResolver resolver;
+
+		private final LongAdder invocationCount = new LongAdder();
+
+		private final LongAdder decisionCount = new LongAdder();
+
+		Tier(DeviceResolver resolver) {
+			this.resolver = resolver;
+		}
+
+		/**
+		 * Return the resolver of this tier.
+		 */
+		public DeviceResolver getResolver() {
+			return this.resolver;
+		}
+
+		/**
+		 * Return the number of resolutions that reached this tier.
+		 */
+		public long getInvocationCount() {
+			return this.invocationCount.sum();
+		}
+
+		/**
+		 * Return the number of resolutions this tier decided.
+		 */
+		public long getDecisionCount() {
+			return this.decisionCount.sum();
+		}
+
+		@Override
+		public String toString() {
+			return "[Tier " + this.resolver.getClass().getSimpleName() + " decided " + getDecisionCount()
+					+ " of " + getInvocationCount() + "]";
+		}
+
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link DeviceResolver} that reads the device type from a request header set by a
+ * trusted upstream component, such as a CDN or a reverse proxy that has already
+ * classified the device. The header value is the name of a {@link DeviceType}, in any
+ * case. Requests without a recognized value resolve to {@code null}, so this resolver
+ * is meant to be the first tier of a {@link TieredDeviceResolver}.
+ *
+ * <p>Only use this resolver if the upstream component removes the header from client
+ * requests, otherwise clients can choose the device they are resolved as.
+ *
+ * @since 2.0
+ */
+public class TrustedHeaderDeviceResolver implements DeviceResolver {
+
+	private static final DeviceType[] DEVICE_TYPES = DeviceType.values();
+
+	private final String headerName;
+
+	/**
+	 * Create a trusted header {@link DeviceResolver}.
+	 * @param headerName the name of the header holding the device type
+	 */
+	public TrustedHeaderDeviceResolver(String headerName) {
+		Assert.hasText(headerName, "Header name must not be empty");
+		this.headerName = headerName;
+	}
+
+	public Device resolveDevice(HttpServletRequest request) {
+		String value = request.getHeader(this.headerName);
+		if (value == null) {
+			return null;
+		}
+		for (DeviceType deviceType : DEVICE_TYPES) {
+			if (deviceType.name().equalsIgnoreCase(value)) {
+				return LiteDevice.from(deviceType, DevicePlatform.UNKNOWN);
+			}
+		}
+		return null;
+	}
+
+}
@@ -0,0 +1,247 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+import org.springframework.core.io.Resource;
+import org.springframework.util.Assert;
+import org.springframework.util.DigestUtils;
+
+/**
+ * Immutable set of the User-Agent rules used by the {@link LiteDeviceResolver}: the
+ * mobile prefixes and the mobile, tablet and normal keywords. A rule set can be
+ * registered with {@link LiteDeviceResolver#setRules(UserAgentRules)} at any time;
+ * the resolver compiles it before swapping it in, so concurrent requests never see a
+ * partially updated rule set.
+ *
+ * <p>Rules can be loaded from a UTF-8 text source listing one prefix or keyword per
+ * line, grouped in {@code [prefixes]}, {@code [mobile]}, {@code [tablet]} and
+ * {@code [normal]} sections. Blank lines and lines starting with {@code #} are ignored,
+ * other lines are used as is, including leading or trailing spaces:
+ * <pre class="code">
+ * [tablet]
+ * playbook
+ * kindle
+ * [normal]
+ * smart-tv
+ * </pre>
+ *
+ * @since 2.0
+ * @see UserAgentRulesWatcher
+ */
+public final class UserAgentRules {
+
+	private static final String PREFIXES_SECTION = "[prefixes]";
+
+	private static final String MOBILE_SECTION = "[mobile]";
+
+	private static final String TABLET_SECTION = "[tablet]";
+
+	private static final String NORMAL_SECTION = "[normal]";
+
+	private final List<String> mobileUserAgentPrefixes;
+
+	private final List<String> mobileUserAgentKeywords;
+
+	private final List<String> tabletUserAgentKeywords;
+
+	private final List<String> normalUserAgentKeywords;
+
+	/**
+	 * Create a new rule set.
+	 * @param mobileUserAgentPrefixes the four character User-Agent prefixes that identify
+	 * mobile devices
+	 * @param mobileUserAgentKeywords the User-Agent keywords that identify mobile devices
+	 * @param tabletUserAgentKeywords the User-Agent keywords that identify tablet devices
+	 * @param normalUserAgentKeywords the User-Agent keywords that identify normal devices,
+	 * taking precedence over all other rules
+	 */
+	public UserAgentRules(Collection<String> mobileUserAgentPrefixes, Collection<String> mobileUserAgentKeywords,
+			Collection<String> tabletUserAgentKeywords, Collection<String> normalUserAgentKeywords) {
+		this.mobileUserAgentPrefixes = copyOf(mobileUserAgentPrefixes);
+		this.mobileUserAgentKeywords = copyOf(mobileUserAgentKeywords);
+		this.tabletUserAgentKeywords = copyOf(tabletUserAgentKeywords);
+		this.normalUserAgentKeywords = copyOf(normalUserAgentKeywords);
+	}
+
+	/**
+	 * Return the rules a {@link LiteDeviceResolver} is initialized with.
+	 */
+	public static UserAgentRules defaults() {
+		return new UserAgentRules(Arrays.asList(LiteDeviceResolver.KNOWN_MOBILE_USER_AGENT_PREFIXES),
+				Arrays.asList(LiteDeviceResolver.KNOWN_MOBILE_USER_AGENT_KEYWORDS),
+				Arrays.asList(LiteDeviceResolver.KNOWN_TABLET_USER_AGENT_KEYWORDS),
+				Collections.<String>emptyList());
+	}
+
+	/**
+	 * Load rules from a text resource.
+	 * @param resource the UTF-8 rule source
+	 * @return the rules
+	 * @throws IOException if the resource cannot be read
+	 * @throws IllegalArgumentException if a rule precedes the first section
+	 */
+	public static UserAgentRules load(Resource resource) throws IOException {
+		try (Reader reader = new InputStreamReader(resource.getInputStream(), StandardCharsets.UTF_8)) {
+			return parse(reader);
+		}
+	}
+
+	/**
+	 * Parse rules from a text source.
+	 * @param source the rule source
+	 * @return the rules
+	 * @throws IOException if the source cannot be read
+	 * @throws IllegalArgumentException if a rule precedes the first section
+	 */
+	public static UserAgentRules parse(Reader source) throws IOException {
+		List<String> prefixes = new ArrayList<String>();
+		List<String> mobile = new ArrayList<String>();
+		List<String> tablet = new ArrayList<String>();
+		List<String> normal = new ArrayList<String>();
+		List<String> section = null;
+		BufferedReader reader = new BufferedReader(source);
+		String line;
+		int lineNumber = 0;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			if (line.trim().isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String trimmed = line.trim();
+			if (PREFIXES_SECTION.equals(trimmed)) {
+				section = prefixes;
+			}
+			else if (MOBILE_SECTION.equals(trimmed)) {
+				section = mobile;
+			}
+			else if (TABLET_SECTION.equals(trimmed)) {
+				section = tablet;
+			}
+			else if (NORMAL_SECTION.equals(trimmed)) {
+				section = normal;
+			}
+			else if (section == null) {
+				throw new IllegalArgumentException("Line " + lineNumber + ": rule '" + line
+						+ "' precedes the first section");
+			}
+			else {
+				section.add(line);
+			}
+		}
+		return new UserAgentRules(prefixes, mobile, tablet, normal);
+	}
+
+	/**
+	 * Return the four character User-Agent prefixes that identify mobile devices.
+	 */
+	public List<String> getMobileUserAgentPrefixes() {
+		return this.mobileUserAgentPrefixes;
+	}
+
+	/**
+	 * Return the User-Agent keywords that identify mobile devices.
+	 */
+	public List<String> getMobileUserAgentKeywords() {
+		return this.mobileUserAgentKeywords;
+	}
+
+	/**
+	 * Return the User-Agent keywords that identify tablet devices.
+	 */
+	public List<String> getTabletUserAgentKeywords() {
+		return this.tabletUserAgentKeywords;
+	}
+
+	/**
+	 * Return the User-Agent keywords that identify normal devices.
+	 */
+	public List<String> getNormalUserAgentKeywords() {
+		return this.normalUserAgentKeywords;
+	}
+
+	/**
+	 * Return a version identifying the content of this rule set: a digest of its rules
+	 * that is equal for equal rule sets, in any JVM. Useful to tell whether devices
+	 * resolved with other rules, for instance in a cache snapshot, are still valid.
+	 */
+	public String getVersion() {
+		StringBuilder content = new StringBuilder();
+		appendSection(content, PREFIXES_SECTION, this.mobileUserAgentPrefixes);
+		appendSection(content, MOBILE_SECTION, this.mobileUserAgentKeywords);
+		appendSection(content, TABLET_SECTION, this.tabletUserAgentKeywords);
+		appendSection(content, NORMAL_SECTION, this.normalUserAgentKeywords);
+		return DigestUtils.md5DigestAsHex(content.toString().getBytes(StandardCharsets.UTF_8));
+	}
+
+	@Override
+	public boolean equals(Object other) {
+		if (this == other) {
+			return true;
+		}
+		if (!(other instanceof UserAgentRules)) {
+			return false;
+		}
+		UserAgentRules that = (UserAgentRules) other;
+		return this.mobileUserAgentPrefixes.equals(that.mobileUserAgentPrefixes)
+				&& this.mobileUserAgentKeywords.equals(that.mobileUserAgentKeywords)
+				&& this.tabletUserAgentKeywords.equals(that.tabletUserAgentKeywords)
+				&& this.normalUserAgentKeywords.equals(that.normalUserAgentKeywords);
+	}
+
+	@Override
+	public int hashCode() {
+		int result = this.mobileUserAgentPrefixes.hashCode();
+		result = 31 * result + this.mobileUserAgentKeywords.hashCode();
+		result = 31 * result + this.tabletUserAgentKeywords.hashCode();
+		result = 31 * result + this.normalUserAgentKeywords.hashCode();
+		return result;
+	}
+
+	@Override
+	public String toString() {
+		return "[UserAgentRules prefixes=" + this.mobileUserAgentPrefixes.size() + ", mobile="
+				+ this.mobileUserAgentKeywords.size() + ", tablet=" + this.tabletUserAgentKeywords.size()
+				+ ", normal=" + this.normalUserAgentKeywords.size() + "]";
+	}
+
+	private static void appendSection(StringBuilder content, String section, List<String> rules) {
+		content.append(section).append('\n');
+		for (String rule : rules) {
+			content.append(rule).append('\n');
+		}
+	}
+
+	private static List<String> copyOf(Collection<String> rules) {
+		Assert.notNull(rules, "Rules must not be null");
+		for (String rule : rules) {
+			Assert.notNull(rule, "Rules must not contain null elements");
+		}
+		return Collections.unmodifiableList(new ArrayList<String>(rules));
+	}
+
+}
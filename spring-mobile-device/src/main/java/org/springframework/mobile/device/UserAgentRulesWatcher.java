@@ -0,0 +1,188 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.core.io.PathResource;
+import org.springframework.util.Assert;
+
+/**
+ * Loads {@link UserAgentRules} from a local file into a {@link LiteDeviceResolver}, and
+ * reloads them whenever the file changes. The new rules are compiled before they are
+ * swapped in, so requests resolved meanwhile keep using the previous rules. If the
+ * file cannot be loaded, the previous rules are kept and the failure is logged.
+ *
+ * <p>To avoid loading a partially written file, replace the file atomically, for
+ * instance by writing a temporary file in the same directory and moving it.
+ *
+ * <p>Declared as a bean, the watcher starts when the application context is refreshed
+ * and stops when it is closed.
+ *
+ * @since 2.0
+ */
+public class UserAgentRulesWatcher implements SmartLifecycle {
+
+	private static final Log logger = LogFactory.getLog(UserAgentRulesWatcher.class);
+
+	private final Path file;
+
+	private final LiteDeviceResolver deviceResolver;
+
+	private final Object monitor = new Object();
+
+	private WatchService watchService;
+
+	/**
+	 * Create a watcher of the given rules file.
+	 * @param file the UTF-8 rules file, in the format read by
+	 * {@link UserAgentRules#parse(java.io.Reader)}
+	 * @param deviceResolver the resolver to update
+	 */
+	public UserAgentRulesWatcher(Path file, LiteDeviceResolver deviceResolver) {
+		Assert.notNull(file, "File must not be null");
+		Assert.notNull(deviceResolver, "LiteDeviceResolver must not be null");
+		this.file = file.toAbsolutePath();
+		this.deviceResolver = deviceResolver;
+	}
+
+	/**
+	 * Load the rules file into the resolver now.
+	 * @throws IOException if the file cannot be read
+	 */
+	public void reload() throws IOException {
+		this.deviceResolver.setRules(UserAgentRules.load(new PathResource(this.file)));
+	}
+
+	/**
+	 * Load the rules file and start watching it for changes.
+	 * @throws IllegalStateException if the file cannot be loaded or watched
+	 */
+	public void start() {
+		synchronized (this.monitor) {
+			if (this.watchService != null) {
+				return;
+			}
+			try {
+				reload();
+				this.watchService = this.file.getFileSystem().newWatchService();
+				this.file.getParent().register(this.watchService, StandardWatchEventKinds.ENTRY_CREATE,
+						StandardWatchEventKinds.ENTRY_MODIFY);
+			}
+			catch (IOException ex) {
+				stop();
+				throw new IllegalStateException("Failed to watch User-Agent rules file " + this.file, ex);
+			}
+			final WatchService watchService = this.watchService;
+			Thread thread = new Thread(new Runnable() {
+				public void run() {
+					watch(watchService);
+				}
+			}, "user-agent-rules-watcher");
+			thread.setDaemon(true);
+			thread.start();
+		}
+	}
+
+	/**
+	 * Stop watching the rules file. The rules currently loaded remain in use.
+	 */
+	public void stop() {
+		synchronized (this.monitor) {
+			if (this.watchService != null) {
+				try {
+					this.watchService.close();
+				}
+				catch (IOException ex) {
+					logger.debug("Failed to close watch service", ex);
+				}
+				this.watchService = null;
+			}
+		}
+	}
+
+	public void stop(Runnable callback) {
+		stop();
+		callback.run();
+	}
+
+	public boolean isRunning() {
+		synchronized (this.monitor) {
+			return this.watchService != null;
+		}
+	}
+
+	public boolean isAutoStartup() {
+		return true;
+	}
+
+	public int getPhase() {
+		return 0;
+	}
+
+	// internal helpers
+
+	private void watch(WatchService watchService) {
+		while (true) {
+			WatchKey key;
+			try {
+				key = watchService.take();
+			}
+			catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			}
+			catch (ClosedWatchServiceException ex) {
+				return;
+			}
+			boolean changed = false;
+			for (WatchEvent<?> event : key.pollEvents()) {
+				if (this.file.getFileName().equals(event.context())) {
+					changed = true;
+				}
+			}
+			if (changed) {
+				reloadAfterChange();
+			}
+			if (!key.reset()) {
+				return;
+			}
+		}
+	}
+
+	private void reloadAfterChange() {
+		try {
+			reload();
+			if (logger.isInfoEnabled()) {
+				logger.info("Reloaded User-Agent rules from " + this.file);
+			}
+		}
+		catch (IOException | RuntimeException ex) {
+			logger.warn("Failed to reload User-Agent rules from " + this.file + ", keeping the current rules", ex);
+		}
+	}
+
+}
@@ -29,6 +29,7 @@ import org.springframework.core.annotation.Order;
 import org.springframework.mobile.device.DeviceHandlerMethodArgumentResolver;
 import org.springframework.mobile.device.DeviceResolver;
 import org.springframework.mobile.device.DeviceResolverHandlerInterceptor;
+import org.springframework.mobile.device.LiteDeviceResolver;
 import org.springframework.web.method.support.HandlerMethodArgumentResolver;
 import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
 import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
@@ -45,6 +46,8 @@ public class DeviceResolverConfiguration {
 
 	private List<DeviceResolverConfigurer> deviceResolverConfigurers = new ArrayList<>();
 
+	private DeviceResolver deviceResolver;
+
 	@Autowired(required = false)
 	public void setDeviceResolverConfigurers(
 			List<DeviceResolverConfigurer> deviceResolverConfigurers) {
@@ -53,19 +56,31 @@ public class DeviceResolverConfiguration {
 
 	@Bean
 	public DeviceResolverHandlerInterceptor deviceResolverHandlerInterceptor() {
-		for (DeviceResolverConfigurer configurer : deviceResolverConfigurers) {
-			DeviceResolver deviceResolver = configurer.getDeviceResolver();
-			if (deviceResolver != null) {
-				logger.info("Using custom DeviceResolver");
-				return new DeviceResolverHandlerInterceptor(deviceResolver);
-			}
-		}
-		return new DeviceResolverHandlerInterceptor();
+		return new DeviceResolverHandlerInterceptor(getDeviceResolver());
 	}
 
 	@Bean
 	public DeviceHandlerMethodArgumentResolver deviceHandlerMethodArgumentResolver() {
-		return new DeviceHandlerMethodArgumentResolver();
+		return new DeviceHandlerMethodArgumentResolver(getDeviceResolver());
+	}
+
+	/**
+	 * Return the device resolver shared by the interceptor and the argument resolver,
+	 * so that both use the same rules and cache.
+	 */
+	private DeviceResolver getDeviceResolver() {
+		if (this.deviceResolver == null) {
+			for (DeviceResolverConfigurer configurer : deviceResolverConfigurers) {
+				DeviceResolver deviceResolver = configurer.getDeviceResolver();
+				if (deviceResolver != null) {
+					logger.info("Using custom DeviceResolver");
+					this.deviceResolver = deviceResolver;
+					return deviceResolver;
+				}
+			}
+			this.deviceResolver = new LiteDeviceResolver();
+		}
+		return this.deviceResolver;
 	}
 
 	@Configuration
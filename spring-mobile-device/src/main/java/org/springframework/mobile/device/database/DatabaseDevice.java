@@ -0,0 +1,61 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.database;
+
+import org.springframework.mobile.device.DevicePlatform;
+import org.springframework.mobile.device.DeviceType;
+import org.springframework.mobile.device.LiteDevice;
+
+/**
+ * A {@link LiteDevice} resolved from a {@link DeviceDatabase}, which also knows the
+ * device family, such as a specific tablet or TV family.
+ *
+ * @since 2.0
+ */
+public class DatabaseDevice extends LiteDevice {
+
+	private final String family;
+
+	/**
+	 * Creates a DatabaseDevice
+	 * @param family the name of the device family
+	 * @param deviceType the type of device i.e. NORMAL, MOBILE, TABLET
+	 * @param devicePlatform the platform of device, i.e. IOS or ANDROID
+	 */
+	public DatabaseDevice(String family, DeviceType deviceType, DevicePlatform devicePlatform) {
+		super(deviceType, devicePlatform);
+		this.family = family;
+	}
+
+	/**
+	 * Return the name of the device family.
+	 */
+	public String getFamily() {
+		return this.family;
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("[DatabaseDevice ");
+		builder.append("family").append("=").append(this.family).append(", ");
+		builder.append("type").append("=").append(getDeviceType());
+		builder.append("]");
+		return builder.toString();
+	}
+
+}
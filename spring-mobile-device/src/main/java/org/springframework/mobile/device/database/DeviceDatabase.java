@@ -0,0 +1,210 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.database;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import org.springframework.mobile.device.DevicePlatform;
+import org.springframework.mobile.device.DeviceType;
+
+/**
+ * Read-only device database memory-mapped from a binary file created by the
+ * {@link DeviceDatabaseBuilder}. The database maps User-Agent patterns to device
+ * families, and stores the patterns as an Aho-Corasick automaton whose states are
+ * looked up in the mapped file, so the patterns never need to be loaded onto the heap.
+ * Only the small family table is read when the database is opened. Since the file is
+ * mapped read-only, JVMs on the same host that open the same file share its pages
+ * through the operating system page cache.
+ *
+ * <p>A lookup scans the User-Agent once, lower casing each character, and returns the
+ * family of the first rule in the rule source whose pattern occurs in the User-Agent.
+ * Lookups do not allocate and instances are thread-safe.
+ *
+ * <p>The file format is big-endian and consists of a header, the family table, the
+ * family index of each rule, and the automaton states:
+ * <pre class="code">
+ * header:   int magic ("SMDB"), int version, int familyCount, int ruleCount,
+ *           int stateCount, int familiesOffset, int rulesOffset, int rootOffset
+ * family:   string name, string deviceType, string devicePlatform
+ *           (a string is an unsigned short length followed by UTF-16 chars)
+ * rule:     int familyIndex
+ * state:    int failureOffset, int rule, unsigned short childCount,
+ *           childCount * (char label, int childOffset), sorted by label
+ * </pre>
+ * The rule of a state is the lowest index of the rules whose pattern ends in that
+ * state or in one of the states of its failure chain, or -1.
+ *
+ * @since 2.0
+ */
+public class DeviceDatabase {
+
+	static final int MAGIC = 0x534d4442;
+
+	static final int VERSION = 1;
+
+	static final int HEADER_SIZE = 32;
+
+	static final int STATE_HEADER_SIZE = 10;
+
+	static final int CHILD_SIZE = 6;
+
+	private final ByteBuffer buffer;
+
+	private final DatabaseDevice[] families;
+
+	private final int ruleCount;
+
+	private final int stateCount;
+
+	private final int rulesOffset;
+
+	private final int rootOffset;
+
+	private DeviceDatabase(ByteBuffer buffer) throws IOException {
+		if (buffer.capacity() < HEADER_SIZE || buffer.getInt(0) != MAGIC) {
+			throw new IOException("Not a device database");
+		}
+		if (buffer.getInt(4) != VERSION) {
+			throw new IOException("Unsupported device database version " + buffer.getInt(4));
+		}
+		this.buffer = buffer;
+		this.families = new DatabaseDevice[buffer.getInt(8)];
+		this.ruleCount = buffer.getInt(12);
+		this.stateCount = buffer.getInt(16);
+		this.rulesOffset = buffer.getInt(24);
+		this.rootOffset = buffer.getInt(28);
+		int offset = buffer.getInt(20);
+		for (int i = 0; i < this.families.length; i++) {
+			String name = readString(buffer, offset);
+			offset += 2 + 2 * name.length();
+			String deviceType = readString(buffer, offset);
+			offset += 2 + 2 * deviceType.length();
+			String devicePlatform = readString(buffer, offset);
+			offset += 2 + 2 * devicePlatform.length();
+			this.families[i] = new DatabaseDevice(name, DeviceType.valueOf(deviceType),
+					DevicePlatform.valueOf(devicePlatform));
+		}
+	}
+
+	/**
+	 * Open the device database stored in the given file.
+	 * @param path the database file, as written by the {@link DeviceDatabaseBuilder}
+	 * @return the database
+	 * @throws IOException if the file cannot be read or is not a device database
+	 */
+	public static DeviceDatabase open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+			return new DeviceDatabase(buffer);
+		}
+	}
+
+	/**
+	 * Create a device database from the given buffer, for instance a database held in
+	 * memory.
+	 * @param buffer the buffer holding the database, which must not be modified
+	 * @return the database
+	 * @throws IOException if the buffer does not hold a device database
+	 */
+	public static DeviceDatabase of(ByteBuffer buffer) throws IOException {
+		return new DeviceDatabase(buffer);
+	}
+
+	/**
+	 * Look up the device family of the given User-Agent.
+	 * @param userAgent the User-Agent
+	 * @return the device of the first matching rule, or {@code null} if no rule matches
+	 */
+	public DatabaseDevice lookup(CharSequence userAgent) {
+		ByteBuffer buffer = this.buffer;
+		int root = this.rootOffset;
+		int state = root;
+		int best = -1;
+		for (int i = 0, length = userAgent.length(); i < length && best != 0; i++) {
+			char c = Character.toLowerCase(userAgent.charAt(i));
+			int child = findChild(buffer, state, c);
+			while (child < 0 && state != root) {
+				state = buffer.getInt(state);
+				child = findChild(buffer, state, c);
+			}
+			if (child >= 0) {
+				state = child;
+				int rule = buffer.getInt(state + 4);
+				if (rule >= 0 && (best < 0 || rule < best)) {
+					best = rule;
+				}
+			}
+		}
+		return (best >= 0 ? this.families[buffer.getInt(this.rulesOffset + 4 * best)] : null);
+	}
+
+	/**
+	 * Return the number of device families.
+	 */
+	public int getFamilyCount() {
+		return this.families.length;
+	}
+
+	/**
+	 * Return the number of rules.
+	 */
+	public int getRuleCount() {
+		return this.ruleCount;
+	}
+
+	/**
+	 * Return the number of states of the pattern automaton.
+	 */
+	public int getStateCount() {
+		return this.stateCount;
+	}
+
+	private static int findChild(ByteBuffer buffer, int state, char c) {
+		int low = 0;
+		int high = (buffer.getShort(state + 8) & 0xffff) - 1;
+		int children = state + STATE_HEADER_SIZE;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			char label = buffer.getChar(children + mid * CHILD_SIZE);
+			if (label < c) {
+				low = mid + 1;
+			}
+			else if (label > c) {
+				high = mid - 1;
+			}
+			else {
+				return buffer.getInt(children + mid * CHILD_SIZE + 2);
+			}
+		}
+		return -1;
+	}
+
+	private static String readString(ByteBuffer buffer, int offset) {
+		int length = buffer.getShort(offset) & 0xffff;
+		char[] chars = new char[length];
+		for (int i = 0; i < length; i++) {
+			chars[i] = buffer.getChar(offset + 2 + 2 * i);
+		}
+		return new String(chars);
+	}
+
+}
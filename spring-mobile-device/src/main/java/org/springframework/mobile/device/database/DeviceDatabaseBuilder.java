@@ -0,0 +1,314 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.database;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.springframework.mobile.device.DevicePlatform;
+import org.springframework.mobile.device.DeviceType;
+import org.springframework.util.Assert;
+
+/**
+ * Builds the binary file of a {@link DeviceDatabase} from device rules. Each rule maps
+ * a User-Agent pattern to a device family; a User-Agent matches a rule if it contains
+ * the pattern, ignoring case. When several rules match, the rule added first wins.
+ *
+ * <p>Rules are usually read from a UTF-8 text source with one rule per line, made of
+ * four tab separated fields: the pattern, the family name, the {@link DeviceType} and
+ * the {@link DevicePlatform}. Blank lines and lines starting with {@code #} are
+ * ignored:
+ * <pre class="code">
+ * # pattern	family	type	platform
+ * kindle fire	kindle-fire	TABLET	ANDROID
+ * aftb	fire-tv	NORMAL	ANDROID
+ * </pre>
+ *
+ * <p>The builder can be run as a command line tool that converts a text source into a
+ * database file:
+ * <pre class="code">
+ * java -cp spring-mobile-device.jar org.springframework.mobile.device.database.DeviceDatabaseBuilder rules.txt devices.db
+ * </pre>
+ *
+ * @since 2.0
+ */
+public class DeviceDatabaseBuilder {
+
+	private final List<Family> families = new ArrayList<Family>();
+
+	private final Map<String, Integer> familyIndexes = new HashMap<String, Integer>();
+
+	private final List<Integer> ruleFamilies = new ArrayList<Integer>();
+
+	private final List<TreeMap<Character, Integer>> children = new ArrayList<TreeMap<Character, Integer>>();
+
+	private final List<Integer> rules = new ArrayList<Integer>();
+
+	public DeviceDatabaseBuilder() {
+		newState();
+	}
+
+	/**
+	 * Add a rule.
+	 * @param pattern the pattern the User-Agent must contain, ignoring case
+	 * @param family the name of the device family
+	 * @param deviceType the type of the devices of the family
+	 * @param devicePlatform the platform of the devices of the family
+	 * @return this builder
+	 */
+	public DeviceDatabaseBuilder addRule(String pattern, String family, DeviceType deviceType,
+			DevicePlatform devicePlatform) {
+		Assert.hasLength(pattern, "Pattern must not be empty");
+		Assert.hasLength(family, "Family must not be empty");
+		Assert.notNull(deviceType, "DeviceType must not be null");
+		Assert.notNull(devicePlatform, "DevicePlatform must not be null");
+		int rule = this.ruleFamilies.size();
+		this.ruleFamilies.add(getFamilyIndex(new Family(family, deviceType, devicePlatform)));
+		int state = 0;
+		for (int i = 0; i < pattern.length(); i++) {
+			char c = Character.toLowerCase(pattern.charAt(i));
+			Integer next = this.children.get(state).get(c);
+			if (next == null) {
+				next = newState();
+				this.children.get(state).put(c, next);
+			}
+			state = next;
+		}
+		if (this.rules.get(state) < 0) {
+			this.rules.set(state, rule);
+		}
+		return this;
+	}
+
+	/**
+	 * Add the rules of a text source.
+	 * @param source the rule source
+	 * @return this builder
+	 * @throws IOException if the source cannot be read
+	 * @throws IllegalArgumentException if a line is not a valid rule
+	 */
+	public DeviceDatabaseBuilder read(Reader source) throws IOException {
+		BufferedReader reader = new BufferedReader(source);
+		String line;
+		int lineNumber = 0;
+		while ((line = reader.readLine()) != null) {
+			lineNumber++;
+			if (line.trim().isEmpty() || line.startsWith("#")) {
+				continue;
+			}
+			String[] fields = line.split("\t");
+			if (fields.length != 4) {
+				throw new IllegalArgumentException("Line " + lineNumber + ": expected 4 tab separated fields but found "
+						+ fields.length);
+			}
+			try {
+				addRule(fields[0], fields[1].trim(), DeviceType.valueOf(fields[2].trim().toUpperCase()),
+						DevicePlatform.valueOf(fields[3].trim().toUpperCase()));
+			}
+			catch (IllegalArgumentException ex) {
+				throw new IllegalArgumentException("Line " + lineNumber + ": " + ex.getMessage(), ex);
+			}
+		}
+		return this;
+	}
+
+	/**
+	 * Write the database.
+	 * @param out the stream to write to
+	 * @throws IOException if the database cannot be written
+	 */
+	public void write(OutputStream out) throws IOException {
+		int stateCount = this.children.size();
+		int[] failure = new int[stateCount];
+		int[] stateRules = new int[stateCount];
+		computeFailures(failure, stateRules);
+		int familiesOffset = DeviceDatabase.HEADER_SIZE;
+		int familiesSize = 0;
+		for (Family family : this.families) {
+			familiesSize += family.size();
+		}
+		int rulesOffset = familiesOffset + familiesSize;
+		long offset = rulesOffset + 4L * this.ruleFamilies.size();
+		int[] stateOffsets = new int[stateCount];
+		for (int state = 0; state < stateCount; state++) {
+			stateOffsets[state] = (int) offset;
+			offset += DeviceDatabase.STATE_HEADER_SIZE + DeviceDatabase.CHILD_SIZE * this.children.get(state).size();
+			if (offset > Integer.MAX_VALUE) {
+				throw new IllegalStateException("Device database exceeds 2GB");
+			}
+		}
+		DataOutputStream data = new DataOutputStream(new BufferedOutputStream(out));
+		data.writeInt(DeviceDatabase.MAGIC);
+		data.writeInt(DeviceDatabase.VERSION);
+		data.writeInt(this.families.size());
+		data.writeInt(this.ruleFamilies.size());
+		data.writeInt(stateCount);
+		data.writeInt(familiesOffset);
+		data.writeInt(rulesOffset);
+		data.writeInt(stateOffsets[0]);
+		for (Family family : this.families) {
+			writeString(data, family.name);
+			writeString(data, family.deviceType.name());
+			writeString(data, family.devicePlatform.name());
+		}
+		for (Integer family : this.ruleFamilies) {
+			data.writeInt(family);
+		}
+		for (int state = 0; state < stateCount; state++) {
+			TreeMap<Character, Integer> children = this.children.get(state);
+			Assert.state(children.size() <= 0xffff, "Too many distinct characters following a pattern prefix");
+			data.writeInt(stateOffsets[failure[state]]);
+			data.writeInt(stateRules[state]);
+			data.writeShort(children.size());
+			for (Map.Entry<Character, Integer> child : children.entrySet()) {
+				data.writeChar(child.getKey());
+				data.writeInt(stateOffsets[child.getValue()]);
+			}
+		}
+		data.flush();
+	}
+
+	/**
+	 * Write the database to a file.
+	 * @param path the file to write
+	 * @throws IOException if the database cannot be written
+	 */
+	public void write(Path path) throws IOException {
+		try (OutputStream out = Files.newOutputStream(path)) {
+			write(out);
+		}
+	}
+
+	/**
+	 * Convert a text rule source into a database file.
+	 * @param args the UTF-8 rule source and the database file to write
+	 * @throws IOException if a file cannot be read or written
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 2) {
+			System.err.println("Usage: DeviceDatabaseBuilder <rules.txt> <devices.db>");
+			System.exit(1);
+		}
+		DeviceDatabaseBuilder builder = new DeviceDatabaseBuilder();
+		try (Reader reader = Files.newBufferedReader(Paths.get(args[0]), StandardCharsets.UTF_8)) {
+			builder.read(reader);
+		}
+		builder.write(Paths.get(args[1]));
+		System.out.println("Wrote " + builder.ruleFamilies.size() + " rules, " + builder.families.size()
+				+ " families and " + builder.children.size() + " states to " + args[1]);
+	}
+
+	// internal helpers
+
+	private int getFamilyIndex(Family family) {
+		Integer index = this.familyIndexes.get(family.name);
+		if (index == null) {
+			index = this.families.size();
+			this.families.add(family);
+			this.familyIndexes.put(family.name, index);
+		}
+		else {
+			Family existing = this.families.get(index);
+			Assert.isTrue(existing.deviceType == family.deviceType && existing.devicePlatform == family.devicePlatform,
+					"Family '" + family.name + "' was already added with a different type or platform");
+		}
+		return index;
+	}
+
+	/**
+	 * Compute the failure links breadth first, merging the rule of each state with
+	 * the rules of its failure chain.
+	 */
+	private void computeFailures(int[] failure, int[] stateRules) {
+		Deque<Integer> queue = new ArrayDeque<Integer>();
+		stateRules[0] = this.rules.get(0);
+		for (Integer child : this.children.get(0).values()) {
+			failure[child] = 0;
+			queue.add(child);
+		}
+		while (!queue.isEmpty()) {
+			int state = queue.remove();
+			stateRules[state] = minRule(this.rules.get(state), stateRules[failure[state]]);
+			for (Map.Entry<Character, Integer> child : this.children.get(state).entrySet()) {
+				int fallback = failure[state];
+				Integer next = this.children.get(fallback).get(child.getKey());
+				while (next == null && fallback != 0) {
+					fallback = failure[fallback];
+					next = this.children.get(fallback).get(child.getKey());
+				}
+				failure[child.getValue()] = (next != null ? next : 0);
+				queue.add(child.getValue());
+			}
+		}
+	}
+
+	private int newState() {
+		this.children.add(new TreeMap<Character, Integer>());
+		this.rules.add(-1);
+		return this.children.size() - 1;
+	}
+
+	private static int minRule(int rule, int other) {
+		if (rule < 0) {
+			return other;
+		}
+		return (other < 0 ? rule : Math.min(rule, other));
+	}
+
+	private static void writeString(DataOutputStream data, String value) throws IOException {
+		Assert.isTrue(value.length() <= 0xffff, "Family names must be shorter than 65536 characters");
+		data.writeShort(value.length());
+		data.writeChars(value);
+	}
+
+
+	private static class Family {
+
+		private final String name;
+
+		private final DeviceType deviceType;
+
+		private final DevicePlatform devicePlatform;
+
+		Family(String name, DeviceType deviceType, DevicePlatform devicePlatform) {
+			this.name = name;
+			this.deviceType = deviceType;
+			this.devicePlatform = devicePlatform;
+		}
+
+		int size() {
+			return 6 + 2 * (this.name.length() + this.deviceType.name().length() + this.devicePlatform.name().length());
+		}
+
+	}
+
+}
@@ -0,0 +1,59 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.database;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.mobile.device.Device;
+import org.springframework.mobile.device.DeviceResolver;
+import org.springframework.mobile.device.TieredDeviceResolver;
+import org.springframework.util.Assert;
+
+/**
+ * {@link DeviceResolver} that looks up the User-Agent in a {@link DeviceDatabase} and
+ * resolves a {@link DatabaseDevice} describing the device family. Requests that do
+ * not match any rule of the database resolve to {@code null}, so this resolver is
+ * meant to be a tier of a {@link TieredDeviceResolver}.
+ *
+ * @since 2.0
+ */
+public class DeviceDatabaseResolver implements DeviceResolver {
+
+	private final DeviceDatabase database;
+
+	/**
+	 * Create a device database backed {@link DeviceResolver}.
+	 * @param database the device database
+	 */
+	public DeviceDatabaseResolver(DeviceDatabase database) {
+		Assert.notNull(database, "DeviceDatabase must not be null");
+		this.database = database;
+	}
+
+	public Device resolveDevice(HttpServletRequest request) {
+		String userAgent = request.getHeader("User-Agent");
+		return (userAgent != null ? this.database.lookup(userAgent) : null);
+	}
+
+	/**
+	 * Return the device database.
+	 */
+	public DeviceDatabase getDatabase() {
+		return this.database;
+	}
+
+}
@@ -0,0 +1,392 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.log;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+import org.springframework.mobile.device.Device;
+import org.springframework.mobile.device.DevicePlatform;
+import org.springframework.mobile.device.DeviceType;
+import org.springframework.mobile.device.HttpHeadersDeviceResolver;
+import org.springframework.mobile.device.LiteDeviceResolver;
+import org.springframework.util.Assert;
+
+/**
+ * Counts the devices that appear in a web server access log, such as a log in the
+ * Apache or nginx "combined" format. The User-Agent of each line is the last field
+ * enclosed in double quotes.
+ *
+ * <p>The log file is memory-mapped rather than read onto the heap, in chunks that end
+ * on line boundaries, and the chunks are classified in parallel by fork-join tasks.
+ * Each task remembers the devices of the User-Agents it has seen recently, keyed by
+ * their raw bytes, so a User-Agent is only decoded and resolved when it is first
+ * encountered in a chunk.
+ *
+ * <p>The classifier can be run from the command line, for instance:
+ * <pre class="code">
+ * java -cp spring-mobile-device.jar:... org.springframework.mobile.device.log.AccessLogClassifier access.log
+ * </pre>
+ *
+ * @since 2.0
+ */
+public class AccessLogClassifier {
+
+	/**
+	 * The default size of the chunks the log file is split into.
+	 */
+	public static final int DEFAULT_CHUNK_SIZE = 64 * 1024 * 1024;
+
+	private static final int CACHE_CAPACITY = 65536;
+
+	private static final long LINE_FEEDS = 0x0a0a0a0a0a0a0a0aL;
+
+	private static final long QUOTES = 0x2222222222222222L;
+
+	private static final long HASH_MULTIPLIER = 0x9e3779b97f4a7c15L;
+
+	private final HttpHeadersDeviceResolver resolver;
+
+	private final ForkJoinPool pool;
+
+	private int chunkSize = DEFAULT_CHUNK_SIZE;
+
+	/**
+	 * Create a classifier using a {@link LiteDeviceResolver}.
+	 */
+	public AccessLogClassifier() {
+		this(new LiteDeviceResolver());
+	}
+
+	/**
+	 * Create a classifier processing chunks in the common fork-join pool.
+	 * @param resolver the thread-safe resolver to classify User-Agents with
+	 */
+	public AccessLogClassifier(HttpHeadersDeviceResolver resolver) {
+		this(resolver, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * Create a classifier processing chunks in the given fork-join pool.
+	 * @param resolver the thread-safe resolver to classify User-Agents with
+	 * @param pool the pool to process chunks in
+	 */
+	public AccessLogClassifier(HttpHeadersDeviceResolver resolver, ForkJoinPool pool) {
+		Assert.notNull(resolver, "HttpHeadersDeviceResolver must not be null");
+		Assert.notNull(pool, "ForkJoinPool must not be null");
+		this.resolver = resolver;
+		this.pool = pool;
+	}
+
+	/**
+	 * Set the approximate size of the chunks the log file is split into. A chunk is
+	 * extended to the end of the line it would otherwise end in. Defaults to
+	 * {@link #DEFAULT_CHUNK_SIZE}.
+	 * @param chunkSize the chunk size in bytes
+	 */
+	public void setChunkSize(int chunkSize) {
+		Assert.isTrue(chunkSize > 0, "Chunk size must be greater than zero");
+		this.chunkSize = chunkSize;
+	}
+
+	/**
+	 * Count the devices of the given access log.
+	 * @param log the access log file
+	 * @return the device counts
+	 * @throws IOException if the file cannot be read
+	 */
+	public DeviceCounts classify(Path log) throws IOException {
+		try (FileChannel channel = FileChannel.open(log, StandardOpenOption.READ)) {
+			long[] boundaries = split(channel);
+			if (boundaries.length == 1) {
+				return new DeviceCounts();
+			}
+			try {
+				return this.pool.invoke(new ChunkTask(channel, boundaries, 0, boundaries.length - 1));
+			}
+			catch (UncheckedIOException ex) {
+				throw ex.getCause();
+			}
+		}
+	}
+
+	/**
+	 * Classify an access log and print the device counts.
+	 * @param args the access log file
+	 * @throws IOException if the file cannot be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length != 1) {
+			System.err.println("Usage: AccessLogClassifier <access.log>");
+			System.exit(1);
+		}
+		Path log = Paths.get(args[0]);
+		long start = System.nanoTime();
+		DeviceCounts counts = new AccessLogClassifier().classify(log);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long lines = counts.getLineCount();
+		for (DeviceType deviceType : DeviceType.values()) {
+			printCount(deviceType.name(), counts.getCount(deviceType), lines);
+		}
+		for (DevicePlatform devicePlatform : DevicePlatform.values()) {
+			printCount(devicePlatform.name(), counts.getCount(devicePlatform), lines);
+		}
+		double megabytes = log.toFile().length() / (1024.0 * 1024.0);
+		System.out.println(String.format("Classified %d lines, %d unclassified, %.0f MB in %.2f s (%.0f MB/s)",
+				lines, counts.getUnclassifiedLineCount(), megabytes, seconds, megabytes / seconds));
+	}
+
+	// internal helpers
+
+	private static void printCount(String name, long count, long lines) {
+		double percentage = (lines > 0 ? 100.0 * count / lines : 0);
+		System.out.println(String.format("%-10s %14d %7.2f%%", name, count, percentage));
+	}
+
+	/**
+	 * Return a word with the high bit set in each byte that is zero in the given word,
+	 * or in any byte following such a byte, or zero if no byte is zero.
+	 */
+	private static long zeroBytes(long word) {
+		return (word - 0x0101010101010101L) & ~word & 0x8080808080808080L;
+	}
+
+	/**
+	 * Return the chunk boundaries, starting with 0 and ending with the file size.
+	 */
+	private long[] split(FileChannel channel) throws IOException {
+		long size = channel.size();
+		List<Long> boundaries = new ArrayList<Long>();
+		boundaries.add(0L);
+		ByteBuffer buffer = ByteBuffer.allocate(8192);
+		long position = 0;
+		while (position < size) {
+			long end = (size - position > this.chunkSize ? nextLine(channel, position + this.chunkSize - 1, buffer)
+					: size);
+			if (end - position > Integer.MAX_VALUE) {
+				throw new IOException("Line at offset " + position + " is too long");
+			}
+			boundaries.add(end);
+			position = end;
+		}
+		long[] result = new long[boundaries.size()];
+		for (int i = 0; i < result.length; i++) {
+			result[i] = boundaries.get(i);
+		}
+		return result;
+	}
+
+	/**
+	 * Return the position following the first line feed at or after the given position,
+	 * or the end of the file.
+	 */
+	private static long nextLine(FileChannel channel, long position, ByteBuffer buffer) throws IOException {
+		while (true) {
+			buffer.clear();
+			int read = channel.read(buffer, position);
+			if (read < 0) {
+				return channel.size();
+			}
+			for (int i = 0; i < read; i++) {
+				if (buffer.get(i) == '\n') {
+					return position + i + 1;
+				}
+			}
+			position += read;
+		}
+	}
+
+
+	/**
+	 * Classifies a range of chunks, splitting it until a single chunk remains.
+	 */
+	private class ChunkTask extends RecursiveTask<DeviceCounts> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final FileChannel channel;
+
+		private final long[] boundaries;
+
+		private final int from;
+
+		private final int to;
+
+		ChunkTask(FileChannel channel, long[] boundaries, int from, int to) {
+			this.channel = channel;
+			this.boundaries = boundaries;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected DeviceCounts compute() {
+			if (this.to - this.from == 1) {
+				long start = this.boundaries[this.from];
+				long size = this.boundaries[this.to] - start;
+				try {
+					return new ChunkClassifier().classify(this.channel.map(FileChannel.MapMode.READ_ONLY, start, size));
+				}
+				catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+			}
+			int middle = (this.from + this.to) >>> 1;
+			ChunkTask right = new ChunkTask(this.channel, this.boundaries, middle, this.to);
+			right.fork();
+			DeviceCounts counts = new ChunkTask(this.channel, this.boundaries, this.from, middle).compute();
+			counts.addAll(right.join());
+			return counts;
+		}
+
+	}
+
+
+	/**
+	 * Classifies the lines of a single chunk, caching the devices of the User-Agents in
+	 * an open addressing table keyed by their bytes. The table is cleared when half
+	 * full. The chunk is scanned for line feeds and double quotes eight bytes at a time,
+	 * and the keys are hashed and compared as longs.
+	 */
+	private class ChunkClassifier {
+
+		private final long[][] keys = new long[CACHE_CAPACITY][];
+
+		private final int[] lengths = new int[CACHE_CAPACITY];
+
+		private final int[] hashes = new int[CACHE_CAPACITY];
+
+		private final Device[] devices = new Device[CACHE_CAPACITY];
+
+		private int size;
+
+		DeviceCounts classify(ByteBuffer buffer) {
+			DeviceCounts counts = new DeviceCounts();
+			int limit = buffer.limit();
+			int lineStart = 0;
+			int quote = -1;
+			int previousQuote = -1;
+			byte previous = 0;
+			int i = 0;
+			while (i <= limit) {
+				if (i + 8 <= limit) {
+					long word = buffer.getLong(i);
+					if ((zeroBytes(word ^ LINE_FEEDS) | zeroBytes(word ^ QUOTES)) == 0) {
+						previous = (byte) word;
+						i += 8;
+						continue;
+					}
+				}
+				byte b = (i < limit ? buffer.get(i) : (byte) '\n');
+				if (b == '\n') {
+					if (previousQuote >= 0) {
+						counts.add(lookup(buffer, previousQuote + 1, quote));
+					}
+					else if (i > lineStart && !(i == lineStart + 1 && previous == '\r')) {
+						counts.addUnclassified();
+					}
+					lineStart = i + 1;
+					quote = -1;
+					previousQuote = -1;
+				}
+				else if (b == '"' && previous != '\\') {
+					previousQuote = quote;
+					quote = i;
+				}
+				previous = b;
+				i++;
+			}
+			return counts;
+		}
+
+		private Device lookup(ByteBuffer buffer, int from, int to) {
+			int length = to - from;
+			int words = length >>> 3;
+			long tail = 0;
+			for (int i = from + (words << 3); i < to; i++) {
+				tail = (tail << 8) | (buffer.get(i) & 0xff);
+			}
+			long h = length;
+			for (int w = 0; w < words; w++) {
+				h = (h ^ buffer.getLong(from + (w << 3))) * HASH_MULTIPLIER;
+			}
+			h = (h ^ tail) * HASH_MULTIPLIER;
+			int hash = (int) (h ^ (h >>> 32));
+			int mask = CACHE_CAPACITY - 1;
+			int index = hash & mask;
+			while (this.keys[index] != null) {
+				if (this.hashes[index] == hash && this.lengths[index] == length
+						&& matches(this.keys[index], buffer, from, words, tail)) {
+					return this.devices[index];
+				}
+				index = (index + 1) & mask;
+			}
+			Device device = resolver.resolveDevice(decode(buffer, from, to));
+			if (this.size >= CACHE_CAPACITY / 2) {
+				Arrays.fill(this.keys, null);
+				Arrays.fill(this.devices, null);
+				this.size = 0;
+				index = hash & mask;
+			}
+			long[] key = new long[words + 1];
+			for (int w = 0; w < words; w++) {
+				key[w] = buffer.getLong(from + (w << 3));
+			}
+			key[words] = tail;
+			this.keys[index] = key;
+			this.lengths[index] = length;
+			this.hashes[index] = hash;
+			this.devices[index] = device;
+			this.size++;
+			return device;
+		}
+
+		private boolean matches(long[] key, ByteBuffer buffer, int from, int words, long tail) {
+			for (int w = 0; w < words; w++) {
+				if (key[w] != buffer.getLong(from + (w << 3))) {
+					return false;
+				}
+			}
+			return key[words] == tail;
+		}
+
+		private String decode(ByteBuffer buffer, int from, int to) {
+			byte[] bytes = new byte[to - from];
+			for (int i = 0; i < bytes.length; i++) {
+				bytes[i] = buffer.get(from + i);
+			}
+			String userAgent = new String(bytes, StandardCharsets.UTF_8);
+			if (userAgent.indexOf('\\') >= 0) {
+				userAgent = userAgent.replace("\\\"", "\"");
+			}
+			return userAgent;
+		}
+
+	}
+
+}
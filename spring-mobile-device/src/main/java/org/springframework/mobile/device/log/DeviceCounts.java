@@ -0,0 +1,129 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.log;
+
+import org.springframework.mobile.device.Device;
+import org.springframework.mobile.device.DevicePlatform;
+import org.springframework.mobile.device.DeviceType;
+
+/**
+ * Number of access log lines per device type and platform, as counted by the
+ * {@link AccessLogClassifier}.
+ *
+ * @since 2.0
+ */
+public final class DeviceCounts {
+
+	private static final DeviceType[] TYPES = DeviceType.values();
+
+	private static final DevicePlatform[] PLATFORMS = DevicePlatform.values();
+
+	private final long[] counts = new long[TYPES.length * PLATFORMS.length];
+
+	private long unclassifiedLineCount;
+
+	DeviceCounts() {
+	}
+
+	/**
+	 * Return the number of lines that were classified.
+	 */
+	public long getLineCount() {
+		long count = 0;
+		for (long typeCount : this.counts) {
+			count += typeCount;
+		}
+		return count;
+	}
+
+	/**
+	 * Return the number of lines without a User-Agent field, or whose device could not
+	 * be resolved.
+	 */
+	public long getUnclassifiedLineCount() {
+		return this.unclassifiedLineCount;
+	}
+
+	/**
+	 * Return the number of lines classified as the given device type.
+	 */
+	public long getCount(DeviceType deviceType) {
+		long count = 0;
+		for (DevicePlatform devicePlatform : PLATFORMS) {
+			count += getCount(deviceType, devicePlatform);
+		}
+		return count;
+	}
+
+	/**
+	 * Return the number of lines classified as the given device platform.
+	 */
+	public long getCount(DevicePlatform devicePlatform) {
+		long count = 0;
+		for (DeviceType deviceType : TYPES) {
+			count += getCount(deviceType, devicePlatform);
+		}
+		return count;
+	}
+
+	/**
+	 * Return the number of lines classified as the given device type and platform.
+	 */
+	public long getCount(DeviceType deviceType, DevicePlatform devicePlatform) {
+		return this.counts[indexOf(deviceType, devicePlatform)];
+	}
+
+	@Override
+	public String toString() {
+		StringBuilder builder = new StringBuilder();
+		builder.append("[DeviceCounts ");
+		for (DeviceType deviceType : TYPES) {
+			builder.append(deviceType).append('=').append(getCount(deviceType)).append(", ");
+		}
+		for (DevicePlatform devicePlatform : PLATFORMS) {
+			builder.append(devicePlatform).append('=').append(getCount(devicePlatform)).append(", ");
+		}
+		builder.append("unclassified=").append(this.unclassifiedLineCount).append("]");
+		return builder.toString();
+	}
+
+	void add(Device device) {
+		if (device == null) {
+			this.unclassifiedLineCount++;
+			return;
+		}
+		DeviceType deviceType = (device.isMobile() ? DeviceType.MOBILE
+				: device.isTablet() ? DeviceType.TABLET : DeviceType.NORMAL);
+		this.counts[indexOf(deviceType, device.getDevicePlatform())]++;
+	}
+
+	void addUnclassified() {
+		this.unclassifiedLineCount++;
+	}
+
+	void addAll(DeviceCounts other) {
+		for (int i = 0; i < this.counts.length; i++) {
+			this.counts[i] += other.counts[i];
+		}
+		this.unclassifiedLineCount += other.unclassifiedLineCount;
+	}
+
+	private static int indexOf(DeviceType deviceType, DevicePlatform devicePlatform) {
+		return deviceType.ordinal() * PLATFORMS.length + devicePlatform.ordinal();
+	}
+
+}
@@ -0,0 +1,258 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.matcher;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+import org.springframework.util.Assert;
+
+/**
+ * {@link UserAgentMatcher} that compiles the normal, tablet and mobile keywords, along
+ * with the special case tokens, into a single Aho-Corasick automaton. The automaton is
+ * flattened into a deterministic transition table, so the User-Agent is scanned once,
+ * left to right, with a single table lookup per character regardless of the number of
+ * keywords.
+ *
+ * <p>Keywords are matched as {@link String#contains(CharSequence)} would match them
+ * against the lower cased User-Agent; in particular a keyword containing upper case
+ * characters never matches, and an empty keyword always matches. Each character is
+ * lower cased as it is scanned, so the User-Agent is never copied and matching does not
+ * allocate.
+ *
+ * <p>The table is walked for every character, even in the initial state, rather than
+ * skipping ahead over characters or character pairs that cannot start a keyword. The
+ * walk does not branch on the input, whereas in real User-Agents such characters come
+ * in short runs, so skip filters mispredict more branches than they save lookups.
+ *
+ * <p>Since every character that does not occur in a keyword returns the automaton to
+ * its initial state, the match result only depends on the lower cased keyword
+ * characters of the User-Agent and on where runs of other characters interrupt them.
+ * {@link #normalize(CharSequence)} keeps exactly that information: version numbers,
+ * build identifiers and other tokens made of such characters collapse to a single
+ * placeholder.
+ *
+ * <p>Instances are immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+public class AhoCorasickUserAgentMatcher implements UserAgentMatcher {
+
+	private static final String[] SPECIAL_CASE_TOKENS = new String[] {
+			"android", "mobile", "iphone", "ipod", "ipad", "silk" };
+
+	private static final int[] SPECIAL_CASE_FLAGS = new int[] {
+			ANDROID, MOBILE, IPHONE, IPOD, IPAD, SILK };
+
+	/**
+	 * Sorted characters occurring in any keyword. The character at index {@code i}
+	 * belongs to input class {@code i + 1}; class 0 is every other character. Input
+	 * characters are lower cased before their class is looked up.
+	 */
+	private final char[] alphabet;
+
+	private final int[] asciiClasses = new int[128];
+
+	/**
+	 * Character standing in for a run of characters outside the alphabet in a
+	 * normalized User-Agent.
+	 */
+	private final char placeholder;
+
+	/**
+	 * Flattened automaton. Each state occupies a row of {@code alphabet.length + 2}
+	 * slots: the first holds the flags of every keyword ending in that state, the
+	 * remaining ones the row offset of the next state for each input class.
+	 */
+	private final int[] table;
+
+	/**
+	 * Create a new matcher for the given keywords.
+	 * @param normalKeywords keywords reported as {@link #NORMAL_KEYWORD}
+	 * @param tabletKeywords keywords reported as {@link #TABLET_KEYWORD}
+	 * @param mobileKeywords keywords reported as {@link #MOBILE_KEYWORD}
+	 */
+	public AhoCorasickUserAgentMatcher(Collection<String> normalKeywords,
+			Collection<String> tabletKeywords, Collection<String> mobileKeywords) {
+		Trie trie = new Trie();
+		trie.addAll(normalKeywords, NORMAL_KEYWORD);
+		trie.addAll(tabletKeywords, TABLET_KEYWORD);
+		trie.addAll(mobileKeywords, MOBILE_KEYWORD);
+		for (int i = 0; i < SPECIAL_CASE_TOKENS.length; i++) {
+			trie.add(SPECIAL_CASE_TOKENS[i], SPECIAL_CASE_FLAGS[i]);
+		}
+		this.alphabet = trie.alphabet();
+		for (char c = 0; c < this.asciiClasses.length; c++) {
+			this.asciiClasses[c] = classOf(this.alphabet, Character.toLowerCase(c));
+		}
+		char placeholder = ' ';
+		while (classOf(this.alphabet, placeholder) != 0) {
+			placeholder++;
+		}
+		this.placeholder = placeholder;
+		this.table = trie.compile(this.alphabet);
+	}
+
+	@Override
+	public int match(CharSequence userAgent) {
+		int[] table = this.table;
+		int row = 0;
+		int matches = table[0];
+		for (int i = 0, length = userAgent.length(); i < length; i++) {
+			char c = userAgent.charAt(i);
+			int cls = (c < 128 ? this.asciiClasses[c] : classOf(this.alphabet, Character.toLowerCase(c)));
+			row = table[row + 1 + cls];
+			matches |= table[row];
+		}
+		return matches;
+	}
+
+	/**
+	 * Map each character of the User-Agent to the lower cased alphabet character of
+	 * its input class, and each run of characters outside the alphabet to a single
+	 * placeholder. The automaton moves to its initial state on every character outside
+	 * the alphabet, whether it reads one or many, and is otherwise driven only by the
+	 * input classes, so User-Agents with equal normalized forms go through the same
+	 * states and have equal match results.
+	 */
+	@Override
+	public String normalize(CharSequence userAgent) {
+		int length = userAgent.length();
+		char[] normalized = new char[length];
+		int count = 0;
+		boolean other = false;
+		for (int i = 0; i < length; i++) {
+			char c = userAgent.charAt(i);
+			int cls = (c < 128 ? this.asciiClasses[c] : classOf(this.alphabet, Character.toLowerCase(c)));
+			if (cls != 0) {
+				normalized[count++] = this.alphabet[cls - 1];
+				other = false;
+			}
+			else if (!other) {
+				normalized[count++] = this.placeholder;
+				other = true;
+			}
+		}
+		return new String(normalized, 0, count);
+	}
+
+	private static int classOf(char[] alphabet, char c) {
+		int index = Arrays.binarySearch(alphabet, c);
+		return (index >= 0 ? index + 1 : 0);
+	}
+
+	/**
+	 * Mutable keyword trie used while building the automaton.
+	 */
+	private static class Trie {
+
+		private final List<Map<Character, Integer>> children = new ArrayList<Map<Character, Integer>>();
+
+		private final List<Integer> flags = new ArrayList<Integer>();
+
+		private final TreeSet<Character> alphabet = new TreeSet<Character>();
+
+		Trie() {
+			newState();
+		}
+
+		void addAll(Collection<String> keywords, int flag) {
+			for (String keyword : keywords) {
+				add(keyword, flag);
+			}
+		}
+
+		void add(String keyword, int flag) {
+			Assert.notNull(keyword, "Keywords must not be null");
+			int state = 0;
+			for (int i = 0; i < keyword.length(); i++) {
+				char c = keyword.charAt(i);
+				this.alphabet.add(c);
+				Integer next = this.children.get(state).get(c);
+				if (next == null) {
+					next = newState();
+					this.children.get(state).put(c, next);
+				}
+				state = next;
+			}
+			this.flags.set(state, this.flags.get(state) | flag);
+		}
+
+		char[] alphabet() {
+			char[] result = new char[this.alphabet.size()];
+			int i = 0;
+			for (Character c : this.alphabet) {
+				result[i++] = c;
+			}
+			return result;
+		}
+
+		/**
+		 * Compute the failure links breadth first and fold them into a complete
+		 * transition table, merging the flags of each state's failure chain.
+		 */
+		int[] compile(char[] alphabet) {
+			int states = this.children.size();
+			int stride = alphabet.length + 2;
+			int[] table = new int[states * stride];
+			int[] failure = new int[states];
+			Deque<Integer> queue = new ArrayDeque<Integer>();
+			table[0] = this.flags.get(0);
+			for (int cls = 0; cls <= alphabet.length; cls++) {
+				Integer child = (cls > 0 ? this.children.get(0).get(alphabet[cls - 1]) : null);
+				if (child != null) {
+					failure[child] = 0;
+					queue.add(child);
+				}
+				table[1 + cls] = (child != null ? child * stride : 0);
+			}
+			while (!queue.isEmpty()) {
+				int state = queue.remove();
+				int row = state * stride;
+				int failureRow = failure[state] * stride;
+				table[row] = this.flags.get(state) | table[failureRow];
+				for (int cls = 0; cls <= alphabet.length; cls++) {
+					Integer child = (cls > 0 ? this.children.get(state).get(alphabet[cls - 1]) : null);
+					if (child != null) {
+						failure[child] = table[failureRow + 1 + cls] / stride;
+						queue.add(child);
+						table[row + 1 + cls] = child * stride;
+					}
+					else {
+						table[row + 1 + cls] = table[failureRow + 1 + cls];
+					}
+				}
+			}
+			return table;
+		}
+
+		private int newState() {
+			this.children.add(new HashMap<Character, Integer>());
+			this.flags.add(0);
+			return this.children.size() - 1;
+		}
+
+	}
+
+}
@@ -0,0 +1,107 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.matcher;
+
+/**
+ * Strategy for scanning a User-Agent for all of the keywords used during device
+ * resolution. Implementations report every keyword category and special case token
+ * found in the User-Agent as a bit set, leaving the precedence of the rules to the
+ * caller.
+ *
+ * @since 2.0
+ * @see AhoCorasickUserAgentMatcher
+ */
+public interface UserAgentMatcher {
+
+	/**
+	 * Set if the User-Agent contains one of the "normal" device keywords.
+	 */
+	int NORMAL_KEYWORD = 1;
+
+	/**
+	 * Set if the User-Agent contains one of the tablet device keywords.
+	 */
+	int TABLET_KEYWORD = 1 << 1;
+
+	/**
+	 * Set if the User-Agent contains one of the mobile device keywords.
+	 */
+	int MOBILE_KEYWORD = 1 << 2;
+
+	/**
+	 * Set if the User-Agent contains "android".
+	 */
+	int ANDROID = 1 << 3;
+
+	/**
+	 * Set if the User-Agent contains "mobile".
+	 */
+	int MOBILE = 1 << 4;
+
+	/**
+	 * Set if the User-Agent contains "iphone".
+	 */
+	int IPHONE = 1 << 5;
+
+	/**
+	 * Set if the User-Agent contains "ipod".
+	 */
+	int IPOD = 1 << 6;
+
+	/**
+	 * Set if the User-Agent contains "ipad".
+	 */
+	int IPAD = 1 << 7;
+
+	/**
+	 * Set if the User-Agent contains "silk".
+	 */
+	int SILK = 1 << 8;
+
+	/**
+	 * Scan the given User-Agent in a single pass.
+	 * @param userAgent the User-Agent to scan; each character is lower cased with
+	 * {@link Character#toLowerCase(char)} before it is compared
+	 * @return the bitwise OR of the flags of every keyword found in the User-Agent
+	 */
+	int match(CharSequence userAgent);
+
+	/**
+	 * Return a canonical form of the given User-Agent such that any two User-Agents
+	 * with equal canonical forms have equal {@link #match(CharSequence) match} results.
+	 * The default implementation returns the User-Agent itself; implementations may
+	 * drop or merge characters that cannot affect the result, so that callers caching
+	 * results by User-Agent share them between User-Agents that only differ in such
+	 * characters.
+	 * @param userAgent the User-Agent to normalize
+	 * @return the canonical form of the User-Agent
+	 */
+	default String normalize(CharSequence userAgent) {
+		return userAgent.toString();
+	}
+
+	/**
+	 * Test whether the given flag is set in the result of {@link #match(CharSequence)}.
+	 * @param matches the match result
+	 * @param flag the flag to test
+	 * @return true if the flag is set
+	 */
+	static boolean isSet(int matches, int flag) {
+		return (matches & flag) != 0;
+	}
+
+}
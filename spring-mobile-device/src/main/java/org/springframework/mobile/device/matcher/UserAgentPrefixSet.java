@@ -0,0 +1,154 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.matcher;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Set of four character User-Agent prefixes. Each prefix is packed into an {@code int},
+ * one byte per character, and stored in an open addressing hash table, so a lookup
+ * reads the first four characters of the User-Agent and probes the table without
+ * creating any string.
+ *
+ * <p>The leading characters of the User-Agent are lower cased before they are compared,
+ * so a prefix containing upper case characters never matches. Prefixes that are not
+ * four characters long never match either; the rare prefixes with characters that do
+ * not fit in a byte are compared one by one.
+ *
+ * <p>Instances are immutable and thread-safe.
+ *
+ * @since 2.0
+ */
+public class UserAgentPrefixSet {
+
+	private static final int PREFIX_LENGTH = 4;
+
+	private final int[] table;
+
+	private final int mask;
+
+	private final boolean containsZero;
+
+	private final String[] widePrefixes;
+
+	/**
+	 * Create a new set of the given prefixes.
+	 * @param prefixes the prefixes, expected to be four lower case characters long
+	 */
+	public UserAgentPrefixSet(Collection<String> prefixes) {
+		List<String> widePrefixes = new ArrayList<String>();
+		int capacity = Integer.highestOneBit(Math.max(prefixes.size(), 1) * 2) << 1;
+		int[] table = new int[capacity];
+		boolean containsZero = false;
+		for (String prefix : prefixes) {
+			if (prefix == null || prefix.length() != PREFIX_LENGTH) {
+				continue;
+			}
+			if (!isPackable(prefix)) {
+				widePrefixes.add(prefix);
+			}
+			else {
+				int key = pack(prefix.charAt(0), prefix.charAt(1), prefix.charAt(2), prefix.charAt(3));
+				if (key == 0) {
+					containsZero = true;
+				}
+				else {
+					insert(table, key);
+				}
+			}
+		}
+		this.table = table;
+		this.mask = capacity - 1;
+		this.containsZero = containsZero;
+		this.widePrefixes = widePrefixes.toArray(new String[widePrefixes.size()]);
+	}
+
+	/**
+	 * Test whether the User-Agent starts with one of the prefixes, ignoring the case of
+	 * the User-Agent.
+	 * @param userAgent the User-Agent
+	 * @return true if the lower cased first four characters are one of the prefixes
+	 */
+	public boolean matches(CharSequence userAgent) {
+		if (userAgent.length() < PREFIX_LENGTH) {
+			return false;
+		}
+		char c0 = Character.toLowerCase(userAgent.charAt(0));
+		char c1 = Character.toLowerCase(userAgent.charAt(1));
+		char c2 = Character.toLowerCase(userAgent.charAt(2));
+		char c3 = Character.toLowerCase(userAgent.charAt(3));
+		if ((c0 | c1 | c2 | c3) > 0xff) {
+			return matchesWide(c0, c1, c2, c3);
+		}
+		int key = pack(c0, c1, c2, c3);
+		if (key == 0) {
+			return this.containsZero;
+		}
+		int[] table = this.table;
+		int index = hash(key) & this.mask;
+		while (table[index] != 0) {
+			if (table[index] == key) {
+				return true;
+			}
+			index = (index + 1) & this.mask;
+		}
+		return false;
+	}
+
+	private boolean matchesWide(char c0, char c1, char c2, char c3) {
+		for (String prefix : this.widePrefixes) {
+			if (prefix.charAt(0) == c0 && prefix.charAt(1) == c1 && prefix.charAt(2) == c2
+					&& prefix.charAt(3) == c3) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static boolean isPackable(String prefix) {
+		for (int i = 0; i < PREFIX_LENGTH; i++) {
+			if (prefix.charAt(i) > 0xff) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	private static int pack(char c0, char c1, char c2, char c3) {
+		return (c0 << 24) | (c1 << 16) | (c2 << 8) | c3;
+	}
+
+	private static int hash(int key) {
+		int h = key * 0x9e3779b9;
+		return h ^ (h >>> 16);
+	}
+
+	private static void insert(int[] table, int key) {
+		int mask = table.length - 1;
+		int index = hash(key) & mask;
+		while (table[index] != 0) {
+			if (table[index] == key) {
+				return;
+			}
+			index = (index + 1) & mask;
+		}
+		table[index] = key;
+	}
+
+}
@@ -0,0 +1,150 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.metrics;
+
+import java.util.concurrent.TimeUnit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tag;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+
+import org.springframework.lang.Nullable;
+import org.springframework.mobile.device.Device;
+import org.springframework.mobile.device.DevicePlatform;
+import org.springframework.mobile.device.DeviceType;
+import org.springframework.mobile.device.site.SitePreference;
+import org.springframework.util.Assert;
+
+/**
+ * Micrometer meters for device resolution, site preference and site switching. Every
+ * meter is registered when the instance is created, once for each combination of tag
+ * values, so recording a measurement is an array lookup and never allocates tags or
+ * looks up the meter registry.
+ *
+ * <p>The following meters are registered:
+ * <ul>
+ * <li>{@value #RESOLUTION_METRIC}: a timer of device resolutions</li>
+ * <li>{@value #DEVICES_METRIC}: a counter of resolved devices, tagged by {@code type}
+ * and {@code platform}</li>
+ * <li>{@value #SITE_PREFERENCES_METRIC}: a counter of requests with a site preference,
+ * tagged by {@code preference}</li>
+ * <li>{@value #SITE_SWITCHES_METRIC}: a counter of site switcher redirects, tagged by
+ * the target {@code site}</li>
+ * </ul>
+ *
+ * @since 2.0
+ * @see MeteredDeviceResolver
+ * @see SiteMetricsFilter
+ */
+public class DeviceMetrics implements DeviceMetricsRecorder {
+
+	/**
+	 * Name of the device resolution timer.
+	 */
+	public static final String RESOLUTION_METRIC = "spring.mobile.device.resolution";
+
+	/**
+	 * Name of the resolved device counters.
+	 */
+	public static final String DEVICES_METRIC = "spring.mobile.devices";
+
+	/**
+	 * Name of the site preference counters.
+	 */
+	public static final String SITE_PREFERENCES_METRIC = "spring.mobile.site.preferences";
+
+	/**
+	 * Name of the site switcher redirect counters.
+	 */
+	public static final String SITE_SWITCHES_METRIC = "spring.mobile.site.switches";
+
+	private static final DeviceType[] DEVICE_TYPES = DeviceType.values();
+
+	private static final DevicePlatform[] DEVICE_PLATFORMS = DevicePlatform.values();
+
+	private static final SitePreference[] SITE_PREFERENCES = SitePreference.values();
+
+	private final Timer resolutionTimer;
+
+	private final Counter[][] deviceCounters = new Counter[DEVICE_TYPES.length][DEVICE_PLATFORMS.length];
+
+	private final Counter[] sitePreferenceCounters = new Counter[SITE_PREFERENCES.length];
+
+	private final Counter[] siteSwitchCounters = new Counter[SITE_PREFERENCES.length];
+
+	/**
+	 * Register the meters with the given registry.
+	 * @param registry the meter registry
+	 */
+	public DeviceMetrics(MeterRegistry registry) {
+		this(registry, Tags.empty());
+	}
+
+	/**
+	 * Register the meters with the given registry, adding the given tags to every meter.
+	 * @param registry the meter registry
+	 * @param tags the common tags
+	 */
+	public DeviceMetrics(MeterRegistry registry, Iterable<Tag> tags) {
+		Assert.notNull(registry, "MeterRegistry must not be null");
+		Assert.notNull(tags, "Tags must not be null");
+		this.resolutionTimer = Timer.builder(RESOLUTION_METRIC).description("Time taken to resolve devices")
+				.tags(tags).register(registry);
+		for (DeviceType type : DEVICE_TYPES) {
+			for (DevicePlatform platform : DEVICE_PLATFORMS) {
+				this.deviceCounters[type.ordinal()][platform.ordinal()] = Counter.builder(DEVICES_METRIC)
+						.description("Number of resolved devices").tags(tags).tag("type", type.name())
+						.tag("platform", platform.name()).register(registry);
+			}
+		}
+		for (SitePreference sitePreference : SITE_PREFERENCES) {
+			this.sitePreferenceCounters[sitePreference.ordinal()] = Counter.builder(SITE_PREFERENCES_METRIC)
+					.description("Number of requests with a site preference").tags(tags)
+					.tag("preference", sitePreference.name()).register(registry);
+			this.siteSwitchCounters[sitePreference.ordinal()] = Counter.builder(SITE_SWITCHES_METRIC)
+					.description("Number of redirects by the site switcher").tags(tags)
+					.tag("site", sitePreference.name()).register(registry);
+		}
+	}
+
+	@Override
+	public void recordResolution(long nanos, @Nullable Device device) {
+		this.resolutionTimer.record(nanos, TimeUnit.NANOSECONDS);
+		if (device != null) {
+			DeviceType type = (device.isMobile() ? DeviceType.MOBILE
+					: device.isTablet() ? DeviceType.TABLET : DeviceType.NORMAL);
+			DevicePlatform platform = device.getDevicePlatform();
+			if (platform == null) {
+				platform = DevicePlatform.UNKNOWN;
+			}
+			this.deviceCounters[type.ordinal()][platform.ordinal()].increment();
+		}
+	}
+
+	@Override
+	public void recordSitePreference(SitePreference sitePreference) {
+		this.sitePreferenceCounters[sitePreference.ordinal()].increment();
+	}
+
+	@Override
+	public void recordSiteSwitch(SitePreference site) {
+		this.siteSwitchCounters[site.ordinal()].increment();
+	}
+
+}
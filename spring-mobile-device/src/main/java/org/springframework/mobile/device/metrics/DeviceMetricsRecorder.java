@@ -0,0 +1,53 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.metrics;
+
+import org.springframework.lang.Nullable;
+import org.springframework.mobile.device.Device;
+import org.springframework.mobile.device.site.SitePreference;
+
+/**
+ * Recorder of device resolutions, site preferences and site switches, as reported by
+ * {@link MeteredDeviceResolver} and {@link SiteMetricsFilter}. Implementations are
+ * invoked on request threads and must be thread-safe and cheap.
+ *
+ * @since 2.0
+ * @see DeviceMetrics
+ * @see DeviceStatistics
+ */
+public interface DeviceMetricsRecorder {
+
+	/**
+	 * Record a device resolution.
+	 * @param nanos the time taken to resolve the device, in nanoseconds
+	 * @param device the resolved device, if any
+	 */
+	void recordResolution(long nanos, @Nullable Device device);
+
+	/**
+	 * Record the site preference of a request.
+	 * @param sitePreference the site preference
+	 */
+	void recordSitePreference(SitePreference sitePreference);
+
+	/**
+	 * Record a redirect by the site switcher.
+	 * @param site the site the request was redirected to
+	 */
+	void recordSiteSwitch(SitePreference site);
+
+}
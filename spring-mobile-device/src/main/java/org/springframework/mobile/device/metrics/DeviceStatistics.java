@@ -0,0 +1,245 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.metrics;
+
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import org.springframework.lang.Nullable;
+import org.springframework.mobile.device.Device;
+import org.springframework.mobile.device.DeviceType;
+import org.springframework.mobile.device.site.SitePreference;
+import org.springframework.util.Assert;
+
+/**
+ * In-memory statistics of device resolution, site preference and site switching, for
+ * monitoring without a metrics system. Every count is held in a {@link LongAdder},
+ * which spreads concurrent updates over striped cells, so recording never blocks or
+ * contends with other request threads and reading the statistics never blocks
+ * recording. Statistics read while requests are recorded are therefore approximate.
+ *
+ * <p>Besides the totals since creation, the distribution of device types is kept for
+ * a recent sliding window, split into ten slices. The slice of the current time
+ * replaces the outdated slice in its place on the first recording after the previous
+ * slice has ended, so the recent distribution covers between nine tenths of the window
+ * and the whole window.
+ *
+ * @since 2.0
+ * @see MeteredDeviceResolver
+ * @see SiteMetricsFilter
+ */
+public class DeviceStatistics implements DeviceMetricsRecorder {
+
+	/**
+	 * The default length of the recent window.
+	 */
+	public static final Duration DEFAULT_WINDOW = Duration.ofMinutes(5);
+
+	private static final int SLICES = 10;
+
+	private static final DeviceType[] DEVICE_TYPES = DeviceType.values();
+
+	private static final SitePreference[] SITE_PREFERENCES = SitePreference.values();
+
+	private static final LongSupplier SYSTEM_TICKER = new LongSupplier() {
+
+		@Override
+		public long getAsLong() {
+			return System.nanoTime();
+		}
+
+	};
+
+	private final LongSupplier ticker;
+
+	private final long sliceNanos;
+
+	private final LongAdder resolutionCount = new LongAdder();
+
+	private final LongAdder resolutionNanos = new LongAdder();
+
+	private final LongAdder[] deviceTypeCounts = newCounters(DEVICE_TYPES.length);
+
+	private final LongAdder[] sitePreferenceCounts = newCounters(SITE_PREFERENCES.length);
+
+	private final LongAdder[] siteSwitchCounts = newCounters(SITE_PREFERENCES.length);
+
+	private final AtomicReferenceArray<Slice> slices = new AtomicReferenceArray<Slice>(SLICES);
+
+	/**
+	 * Create statistics with a recent window of {@link #DEFAULT_WINDOW}.
+	 */
+	public DeviceStatistics() {
+		this(DEFAULT_WINDOW);
+	}
+
+	/**
+	 * Create statistics with the given recent window.
+	 * @param window the length of the recent window
+	 */
+	public DeviceStatistics(Duration window) {
+		this(window, SYSTEM_TICKER);
+	}
+
+	DeviceStatistics(Duration window, LongSupplier ticker) {
+		Assert.notNull(window, "Window must not be null");
+		Assert.isTrue(window.toNanos() >= SLICES, "Window must not be shorter than " + SLICES + " nanoseconds");
+		this.sliceNanos = window.toNanos() / SLICES;
+		this.ticker = ticker;
+	}
+
+	@Override
+	public void recordResolution(long nanos, @Nullable Device device) {
+		this.resolutionCount.increment();
+		this.resolutionNanos.add(nanos);
+		if (device != null) {
+			int type = (device.isMobile() ? DeviceType.MOBILE
+					: device.isTablet() ? DeviceType.TABLET : DeviceType.NORMAL).ordinal();
+			this.deviceTypeCounts[type].increment();
+			currentSlice().deviceTypeCounts[type].increment();
+		}
+	}
+
+	@Override
+	public void recordSitePreference(SitePreference sitePreference) {
+		this.sitePreferenceCounts[sitePreference.ordinal()].increment();
+	}
+
+	@Override
+	public void recordSiteSwitch(SitePreference site) {
+		this.siteSwitchCounts[site.ordinal()].increment();
+	}
+
+	/**
+	 * Return the length of the recent window.
+	 */
+	public Duration getWindow() {
+		return Duration.ofNanos(this.sliceNanos * SLICES);
+	}
+
+	/**
+	 * Return the number of recorded resolutions.
+	 */
+	public long getResolutionCount() {
+		return this.resolutionCount.sum();
+	}
+
+	/**
+	 * Return the total time taken by the recorded resolutions.
+	 */
+	public Duration getResolutionTime() {
+		return Duration.ofNanos(this.resolutionNanos.sum());
+	}
+
+	/**
+	 * Return the number of resolved devices by type.
+	 */
+	public Map<DeviceType, Long> getDeviceTypes() {
+		return toMap(DEVICE_TYPES, this.deviceTypeCounts);
+	}
+
+	/**
+	 * Return the number of devices resolved within the recent window by type.
+	 */
+	public Map<DeviceType, Long> getRecentDeviceTypes() {
+		long epoch = Math.floorDiv(this.ticker.getAsLong(), this.sliceNanos);
+		long[] counts = new long[DEVICE_TYPES.length];
+		for (int i = 0; i < SLICES; i++) {
+			Slice slice = this.slices.get(i);
+			if (slice != null && slice.epoch > epoch - SLICES && slice.epoch <= epoch) {
+				for (int type = 0; type < counts.length; type++) {
+					counts[type] += slice.deviceTypeCounts[type].sum();
+				}
+			}
+		}
+		Map<DeviceType, Long> map = new EnumMap<DeviceType, Long>(DeviceType.class);
+		for (DeviceType type : DEVICE_TYPES) {
+			map.put(type, counts[type.ordinal()]);
+		}
+		return map;
+	}
+
+	/**
+	 * Return the number of requests by site preference.
+	 */
+	public Map<SitePreference, Long> getSitePreferences() {
+		return toMap(SITE_PREFERENCES, this.sitePreferenceCounts);
+	}
+
+	/**
+	 * Return the number of site switcher redirects by target site.
+	 */
+	public Map<SitePreference, Long> getSiteSwitches() {
+		return toMap(SITE_PREFERENCES, this.siteSwitchCounts);
+	}
+
+	/**
+	 * Return the slice of the current time, replacing an outdated one. Increments that
+	 * race with the replacement may be lost, which is acceptable for approximate
+	 * recent statistics and keeps recording free of locks.
+	 */
+	private Slice currentSlice() {
+		long epoch = Math.floorDiv(this.ticker.getAsLong(), this.sliceNanos);
+		int index = (int) Math.floorMod(epoch, (long) SLICES);
+		Slice slice = this.slices.get(index);
+		while (slice == null || slice.epoch < epoch) {
+			Slice fresh = new Slice(epoch);
+			if (this.slices.compareAndSet(index, slice, fresh)) {
+				return fresh;
+			}
+			slice = this.slices.get(index);
+		}
+		return slice;
+	}
+
+	private static LongAdder[] newCounters(int count) {
+		LongAdder[] counters = new LongAdder[count];
+		for (int i = 0; i < count; i++) {
+			counters[i] = new LongAdder();
+		}
+		return counters;
+	}
+
+	private static <E extends Enum<E>> Map<E, Long> toMap(E[] keys, LongAdder[] counters) {
+		Map<E, Long> map = new EnumMap<E, Long>(keys[0].getDeclaringClass());
+		for (E key : keys) {
+			map.put(key, counters[key.ordinal()].sum());
+		}
+		return map;
+	}
+
+
+	/**
+	 * Counts of one slice of the recent window.
+	 */
+	private static final class Slice {
+
+		private final long epoch;
+
+		private final LongAdder[] deviceTypeCounts = newCounters(DEVICE_TYPES.length);
+
+		Slice(long epoch) {
+			this.epoch = epoch;
+		}
+
+	}
+
+}
@@ -0,0 +1,70 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.metrics;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.springframework.mobile.device.Device;
+import org.springframework.mobile.device.DeviceResolver;
+import org.springframework.mobile.device.LazyDeviceResolver;
+import org.springframework.util.Assert;
+
+/**
+ * {@link DeviceResolver} decorator that records the time taken by a delegate resolver
+ * and the type and platform of the devices it resolves in a
+ * {@link DeviceMetricsRecorder}, such as {@link DeviceMetrics} or {@link DeviceStatistics}.
+ *
+ * <p>Since recording the type of a device requires the device to be resolved, a
+ * {@link LazyDeviceResolver} should decorate this resolver rather than the other way
+ * around. Likewise, to measure the resolutions as experienced by requests, this
+ * resolver should decorate a caching resolver.
+ *
+ * @since 2.0
+ */
+public class MeteredDeviceResolver implements DeviceResolver {
+
+	private final DeviceResolver delegate;
+
+	private final DeviceMetricsRecorder metrics;
+
+	/**
+	 * Create a metered {@link DeviceResolver}.
+	 * @param delegate the device resolver to delegate to
+	 * @param metrics the metrics to record resolutions in
+	 */
+	public MeteredDeviceResolver(DeviceResolver delegate, DeviceMetricsRecorder metrics) {
+		Assert.notNull(delegate, "DeviceResolver must not be null");
+		Assert.notNull(metrics, "DeviceMetricsRecorder must not be null");
+		this.delegate = delegate;
+		this.metrics = metrics;
+	}
+
+	public Device resolveDevice(HttpServletRequest request) {
+		long start = System.nanoTime();
+		Device device = this.delegate.resolveDevice(request);
+		this.metrics.recordResolution(System.nanoTime() - start, device);
+		return device;
+	}
+
+	/**
+	 * Return the device resolver this resolver delegates to.
+	 */
+	public DeviceResolver getDelegate() {
+		return this.delegate;
+	}
+
+}
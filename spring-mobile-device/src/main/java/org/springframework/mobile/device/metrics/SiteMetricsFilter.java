@@ -0,0 +1,75 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.metrics;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import org.springframework.mobile.device.site.SitePreference;
+import org.springframework.mobile.device.site.SitePreferenceHandler;
+import org.springframework.mobile.device.switcher.StandardSiteSwitcherHandler;
+import org.springframework.util.Assert;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+/**
+ * Servlet filter that records the site preference of each request, and the site the
+ * request was redirected to by a {@link StandardSiteSwitcherHandler}, in a
+ * {@link DeviceMetricsRecorder}. Both are read from request attributes once the rest of the
+ * chain has completed, so each request is counted once however often its site
+ * preference was handled, and the filter may be registered in any order relative to the
+ * site preference and site switcher interceptors or filters.
+ *
+ * @since 2.0
+ * @see SitePreferenceHandler#CURRENT_SITE_PREFERENCE_ATTRIBUTE
+ * @see StandardSiteSwitcherHandler#REDIRECT_SITE_ATTRIBUTE
+ */
+public class SiteMetricsFilter extends OncePerRequestFilter {
+
+	private final DeviceMetricsRecorder metrics;
+
+	/**
+	 * Create a new site metrics filter.
+	 * @param metrics the metrics to record site preferences and redirects in
+	 */
+	public SiteMetricsFilter(DeviceMetricsRecorder metrics) {
+		Assert.notNull(metrics, "DeviceMetricsRecorder must not be null");
+		this.metrics = metrics;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+			FilterChain filterChain) throws ServletException, IOException {
+		try {
+			filterChain.doFilter(request, response);
+		}
+		finally {
+			Object sitePreference = request.getAttribute(SitePreferenceHandler.CURRENT_SITE_PREFERENCE_ATTRIBUTE);
+			if (sitePreference instanceof SitePreference) {
+				this.metrics.recordSitePreference((SitePreference) sitePreference);
+			}
+			Object site = request.getAttribute(StandardSiteSwitcherHandler.REDIRECT_SITE_ATTRIBUTE);
+			if (site instanceof SitePreference) {
+				this.metrics.recordSiteSwitch((SitePreference) site);
+			}
+		}
+	}
+
+}
@@ -0,0 +1,140 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.reactive;
+
+import reactor.core.publisher.Mono;
+
+import org.springframework.core.Ordered;
+import org.springframework.http.server.PathContainer;
+import org.springframework.mobile.device.Device;
+import org.springframework.mobile.device.DeviceUtils;
+import org.springframework.mobile.device.HttpHeadersDeviceResolver;
+import org.springframework.mobile.device.LiteDeviceResolver;
+import org.springframework.mobile.device.RequestPathMatcher;
+import org.springframework.util.Assert;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+
+/**
+ * A {@link WebFilter} that resolves the device that originated a reactive web request
+ * from its headers. The resolved device is exported as an exchange attribute under the
+ * well-known name of {@link DeviceUtils#CURRENT_DEVICE_ATTRIBUTE}, where handlers can
+ * access it through {@link ReactiveDeviceUtils} or a {@link Device} method argument
+ * resolved by the {@link DeviceMethodArgumentResolver}.
+ *
+ * <p>Devices are resolved on the calling thread from the request headers alone, so the
+ * filter never blocks and is safe to run on an event loop. As with the servlet
+ * {@code DeviceResolverRequestFilter}, the filter can be restricted to requests whose
+ * path matches include patterns and does not match exclude patterns. A device already
+ * present in the exchange attributes is kept.
+ *
+ * @since 2.0
+ */
+public class DeviceResolverWebFilter implements WebFilter, Ordered {
+
+	private final HttpHeadersDeviceResolver deviceResolver;
+
+	private RequestPathMatcher includePathPatterns;
+
+	private RequestPathMatcher excludePathPatterns;
+
+	private int order = Ordered.HIGHEST_PRECEDENCE + 10;
+
+	/**
+	 * Create a device resolving {@link WebFilter} that defaults to a
+	 * {@link LiteDeviceResolver} implementation.
+	 */
+	public DeviceResolverWebFilter() {
+		this(new LiteDeviceResolver());
+	}
+
+	/**
+	 * Create a device resolving {@link WebFilter}.
+	 * @param deviceResolver the device resolver to delegate to
+	 */
+	public DeviceResolverWebFilter(HttpHeadersDeviceResolver deviceResolver) {
+		Assert.notNull(deviceResolver, "DeviceResolver must not be null");
+		this.deviceResolver = deviceResolver;
+	}
+
+	/**
+	 * Set the path patterns of the requests to resolve the device for. By default, the
+	 * device is resolved for all requests. Patterns are matched against the request path
+	 * within the application, without path parameters, see {@link RequestPathMatcher}.
+	 * @param patterns the path patterns
+	 */
+	public void setIncludePathPatterns(String... patterns) {
+		this.includePathPatterns = (patterns.length > 0 ? new RequestPathMatcher(patterns) : null);
+	}
+
+	/**
+	 * Set the path patterns of the requests not to resolve the device for, such as
+	 * {@code /static/**} or {@code /actuator/**}.
+	 * @param patterns the path patterns
+	 * @see #setIncludePathPatterns(String...)
+	 */
+	public void setExcludePathPatterns(String... patterns) {
+		this.excludePathPatterns = (patterns.length > 0 ? new RequestPathMatcher(patterns) : null);
+	}
+
+	/**
+	 * Set the order of the filter. Defaults to just after
+	 * {@link Ordered#HIGHEST_PRECEDENCE}, so that the device is resolved before other
+	 * filters may need it.
+	 * @param order the order
+	 */
+	public void setOrder(int order) {
+		this.order = order;
+	}
+
+	@Override
+	public int getOrder() {
+		return this.order;
+	}
+
+	@Override
+	public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+		if (ReactiveDeviceUtils.getCurrentDevice(exchange) == null && !shouldNotFilter(exchange)) {
+			Device device = this.deviceResolver.resolveDevice(exchange.getRequest().getHeaders());
+			if (device != null) {
+				exchange.getAttributes().put(DeviceUtils.CURRENT_DEVICE_ATTRIBUTE, device);
+			}
+		}
+		return chain.filter(exchange);
+	}
+
+	private boolean shouldNotFilter(ServerWebExchange exchange) {
+		if (this.includePathPatterns == null && this.excludePathPatterns == null) {
+			return false;
+		}
+		String path = getPathToMatch(exchange.getRequest().getPath().pathWithinApplication());
+		return ((this.includePathPatterns != null && !this.includePathPatterns.matches(path))
+				|| (this.excludePathPatterns != null && this.excludePathPatterns.matches(path)));
+	}
+
+	private static String getPathToMatch(PathContainer path) {
+		// path parameters may follow any segment, not just the last one
+		StringBuilder pathToMatch = new StringBuilder(path.value().length());
+		for (PathContainer.Element element : path.elements()) {
+			pathToMatch.append(element instanceof PathContainer.PathSegment
+					? ((PathContainer.PathSegment) element).valueToMatch() : element.value());
+		}
+		return pathToMatch.toString();
+	}
+
+}
@@ -0,0 +1,57 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.reactive;
+
+import org.springframework.mobile.device.Device;
+import org.springframework.mobile.device.DeviceUtils;
+import org.springframework.web.server.ServerWebExchange;
+
+/**
+ * Static helper for accessing the device resolved for a {@link ServerWebExchange}.
+ * The device is held in the exchange attributes under the same
+ * {@link DeviceUtils#CURRENT_DEVICE_ATTRIBUTE 'currentDevice'} name used for servlet
+ * requests.
+ *
+ * @since 2.0
+ * @see DeviceResolverWebFilter
+ */
+public abstract class ReactiveDeviceUtils {
+
+	/**
+	 * Return the device resolved for the given exchange.
+	 * @param exchange the server exchange
+	 * @return the current device, or null if no device has been resolved for the exchange
+	 */
+	public static Device getCurrentDevice(ServerWebExchange exchange) {
+		return exchange.getAttribute(DeviceUtils.CURRENT_DEVICE_ATTRIBUTE);
+	}
+
+	/**
+	 * Return the device resolved for the given exchange. Throws a runtime exception if
+	 * the current device has not been resolved.
+	 * @param exchange the server exchange
+	 * @return the current device
+	 */
+	public static Device getRequiredCurrentDevice(ServerWebExchange exchange) {
+		Device device = getCurrentDevice(exchange);
+		if (device == null) {
+			throw new IllegalStateException("No current device is set in this exchange and one is required - have you configured a DeviceResolverWebFilter?");
+		}
+		return device;
+	}
+
+}
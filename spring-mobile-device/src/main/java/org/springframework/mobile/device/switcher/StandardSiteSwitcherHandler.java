@@ -32,6 +32,13 @@ import org.springframework.mobile.device.util.ResolverUtils;
  */
 public class StandardSiteSwitcherHandler implements SiteSwitcherHandler {
 
+	/**
+	 * The name of the request attribute that holds the site a request was redirected to,
+	 * as a {@link SitePreference}.
+	 * @since 2.0
+	 */
+	public static final String REDIRECT_SITE_ATTRIBUTE = "siteSwitcherRedirectSite";
+
 	private final SiteUrlFactory normalSiteUrlFactory;
 
 	private final SiteUrlFactory mobileSiteUrlFactory;
@@ -65,38 +72,38 @@ public class StandardSiteSwitcherHandler implements SiteSwitcherHandler {
 		if (mobileSiteUrlFactory != null && mobileSiteUrlFactory.isRequestForSite(request)) {
 			if (ResolverUtils.isTablet(device, sitePreference)) {
 				if (tabletSiteUrlFactory != null) {
-					response.sendRedirect(response.encodeRedirectURL(tabletSiteUrlFactory.createSiteUrl(request)));
+					redirect(tabletSiteUrlFactory, SitePreference.TABLET, request, response);
 					return false;
 				}
 			}
 			if (ResolverUtils.isNormal(device, sitePreference) || handleTabletIsNormal(device, sitePreference)) {
 				if (normalSiteUrlFactory != null) {
-					response.sendRedirect(response.encodeRedirectURL(normalSiteUrlFactory.createSiteUrl(request)));
+					redirect(normalSiteUrlFactory, SitePreference.NORMAL, request, response);
 					return false;
 				}
 			}
 		} else if (tabletSiteUrlFactory != null && tabletSiteUrlFactory.isRequestForSite(request)) {
 			if (ResolverUtils.isNormal(device, sitePreference)) {
 				if (normalSiteUrlFactory != null) {
-					response.sendRedirect(response.encodeRedirectURL(normalSiteUrlFactory.createSiteUrl(request)));
+					redirect(normalSiteUrlFactory, SitePreference.NORMAL, request, response);
 					return false;
 				}
 			}
 			if (ResolverUtils.isMobile(device, sitePreference)) {
 				if (mobileSiteUrlFactory != null) {
-					response.sendRedirect(response.encodeRedirectURL(mobileSiteUrlFactory.createSiteUrl(request)));
+					redirect(mobileSiteUrlFactory, SitePreference.MOBILE, request, response);
 					return false;
 				}
 			}
 		} else {
 			if (ResolverUtils.isMobile(device, sitePreference) || handleTabletIsMobile(device, sitePreference)) {
 				if (mobileSiteUrlFactory != null) {
-					response.sendRedirect(response.encodeRedirectURL(mobileSiteUrlFactory.createSiteUrl(request)));
+					redirect(mobileSiteUrlFactory, SitePreference.MOBILE, request, response);
 					return false;
 				}
 			} else if (ResolverUtils.isTablet(device, sitePreference)) {
 				if (tabletSiteUrlFactory != null) {
-					response.sendRedirect(response.encodeRedirectURL(tabletSiteUrlFactory.createSiteUrl(request)));
+					redirect(tabletSiteUrlFactory, SitePreference.TABLET, request, response);
 					return false;
 				}
 			}
@@ -107,6 +114,12 @@ public class StandardSiteSwitcherHandler implements SiteSwitcherHandler {
 
 	// Helpers
 
+	private void redirect(SiteUrlFactory siteUrlFactory, SitePreference site, HttpServletRequest request,
+			HttpServletResponse response) throws IOException {
+		request.setAttribute(REDIRECT_SITE_ATTRIBUTE, site);
+		response.sendRedirect(response.encodeRedirectURL(siteUrlFactory.createSiteUrl(request)));
+	}
+
 	private boolean handleTabletIsNormal(Device device, SitePreference sitePreference) {
 		return sitePreference == SitePreference.TABLET && tabletIsMobile == false
 				&& (device.isTablet() || device.isMobile());
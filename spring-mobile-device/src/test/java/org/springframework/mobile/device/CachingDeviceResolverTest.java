@@ -0,0 +1,328 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.List;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+public class CachingDeviceResolverTest {
+
+	private final CountingDeviceResolver delegate = new CountingDeviceResolver();
+
+	private CachingDeviceResolver resolver = new CachingDeviceResolver(delegate);
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void cachesByUserAgent() {
+		Device device = resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		assertTrue(device.isMobile());
+		assertSame(device, resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING)));
+		assertTrue(resolver.resolveDevice(request(UserAgent.IPAD_IOS5_STRING)).isTablet());
+		assertEquals(2, delegate.count);
+		assertEquals(1, resolver.getHitCount());
+		assertEquals(2, resolver.getMissCount());
+		assertEquals(2, resolver.getSize());
+	}
+
+	@Test
+	public void cachesByExactUserAgentByDefault() {
+		resolver = new CachingDeviceResolver(new LiteDeviceResolver());
+		assertFalse(resolver.isNormalizeUserAgents());
+		resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING.replace("5_0", "5_1")));
+		assertEquals(0, resolver.getHitCount());
+		assertEquals(2, resolver.getSize());
+	}
+
+	@Test
+	public void cachesByNormalizedUserAgent() {
+		resolver = new CachingDeviceResolver(new LiteDeviceResolver());
+		resolver.setNormalizeUserAgents(true);
+		Device device = resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		assertSame(device, resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING.replace("5_0", "5_1"))));
+		assertTrue(resolver.resolveDevice(request(UserAgent.IPAD_IOS5_STRING)).isTablet());
+		assertEquals(1, resolver.getHitCount());
+		assertEquals(2, resolver.getMissCount());
+		assertEquals(2, resolver.getSize());
+	}
+
+	@Test
+	public void rulesReloadedBehindCache() {
+		LiteDeviceResolver lite = new LiteDeviceResolver();
+		resolver = new CachingDeviceResolver(lite);
+		for (int i = 0; i < 10; i++) {
+			assertTrue(resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING)).isMobile());
+		}
+		UserAgentRules rules = lite.getRules();
+		lite.setRules(new UserAgentRules(rules.getMobileUserAgentPrefixes(), rules.getMobileUserAgentKeywords(),
+				rules.getTabletUserAgentKeywords(), Collections.singletonList("iphone")));
+		assertTrue(resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING)).isNormal());
+		assertTrue(resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING)).isNormal());
+		assertEquals(10, resolver.getHitCount());
+		assertEquals(2, resolver.getMissCount());
+		assertEquals(1, resolver.getSize());
+	}
+
+	@Test
+	public void normalizedUserAgentsOfReplacedRules() {
+		List<String> none = Collections.<String>emptyList();
+		List<String> keywords = Collections.singletonList("xy");
+		LiteDeviceResolver lite = new LiteDeviceResolver(new UserAgentRules(none, none, keywords, none));
+		resolver = new CachingDeviceResolver(lite);
+		resolver.setNormalizeUserAgents(true);
+		assertTrue(resolver.resolveDevice(request("xy 1")).isTablet());
+		// same alphabet, so both User-Agents have the same normalized form under either rules
+		lite.setRules(new UserAgentRules(none, keywords, none, none));
+		assertEquals(lite.normalizeUserAgent("xy 1"), lite.normalizeUserAgent("xy 2"));
+		assertTrue(resolver.resolveDevice(request("xy 2")).isMobile());
+		assertTrue(resolver.resolveDevice(request("xy 1")).isMobile());
+		assertEquals(1, resolver.getSize());
+	}
+
+	@Test
+	public void cachesMissingUserAgent() {
+		assertTrue(resolver.resolveDevice(new MockHttpServletRequest()).isNormal());
+		assertTrue(resolver.resolveDevice(new MockHttpServletRequest()).isNormal());
+		assertEquals(1, delegate.count);
+		assertEquals(1, resolver.getHitCount());
+	}
+
+	@Test
+	public void cachesByHeaderVariant() {
+		String userAgent = "Mozilla/5.0 (compatible; Unknown)";
+		assertTrue(resolver.resolveDevice(request(userAgent)).isNormal());
+		MockHttpServletRequest wapProfile = request(userAgent);
+		wapProfile.addHeader("x-wap-profile", WapProfile.NOKIA3650_STRING);
+		assertTrue(resolver.resolveDevice(wapProfile).isMobile());
+		MockHttpServletRequest accept = request(userAgent);
+		accept.addHeader("Accept", "text/vnd.wap.wml");
+		assertTrue(resolver.resolveDevice(accept).isMobile());
+		MockHttpServletRequest operaMini = request(userAgent);
+		operaMini.addHeader("X-OperaMini-Phone-UA", "SonyEricssonK750i");
+		assertTrue(resolver.resolveDevice(operaMini).isMobile());
+		assertTrue(resolver.resolveDevice(request(userAgent)).isNormal());
+		assertEquals(4, delegate.count);
+		assertEquals(1, resolver.getSize());
+	}
+
+	@Test
+	public void bounded() {
+		resolver = new CachingDeviceResolver(delegate, 100);
+		for (int i = 0; i < 1000; i++) {
+			resolver.resolveDevice(request("Mozilla/5.0 (Unique " + i + ")"));
+		}
+		assertEquals(100, resolver.getSize());
+		assertEquals(900, resolver.getEvictionCount());
+	}
+
+	@Test
+	public void frequentUserAgentsSurviveScan() {
+		resolver = new CachingDeviceResolver(delegate, 100);
+		for (int i = 0; i < 20; i++) {
+			for (int j = 0; j < 50; j++) {
+				resolver.resolveDevice(request("Mozilla/5.0 (Popular " + j + ")"));
+			}
+		}
+		for (int i = 0; i < 500; i++) {
+			resolver.resolveDevice(request("Mozilla/5.0 (Scan " + i + ")"));
+		}
+		int before = delegate.count;
+		for (int j = 0; j < 50; j++) {
+			resolver.resolveDevice(request("Mozilla/5.0 (Popular " + j + ")"));
+		}
+		assertEquals(before, delegate.count);
+	}
+
+	@Test
+	public void nullDevicesAreNotCached() {
+		resolver = new CachingDeviceResolver(new DeviceResolver() {
+		});
+		assertEquals(null, resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING)));
+		assertEquals(0, resolver.getSize());
+		assertNotNull(resolver.getDelegate());
+	}
+
+	@Test
+	public void snapshot() throws Exception {
+		resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		resolver.resolveDevice(request(UserAgent.IPAD_IOS5_STRING));
+		MockHttpServletRequest wapProfile = request("Mozilla/5.0 (compatible; Unknown)");
+		wapProfile.addHeader("x-wap-profile", WapProfile.NOKIA3650_STRING);
+		resolver.resolveDevice(wapProfile);
+		Path file = folder.getRoot().toPath().resolve("device-cache.snapshot");
+		assertEquals(3, resolver.writeSnapshot(file, "1"));
+		CountingDeviceResolver delegate = new CountingDeviceResolver();
+		CachingDeviceResolver warm = new CachingDeviceResolver(delegate);
+		assertEquals(3, warm.loadSnapshot(file, "1"));
+		assertEquals(3, warm.getSize());
+		Device iphone = warm.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		assertTrue(iphone.isMobile());
+		assertEquals(DevicePlatform.IOS, iphone.getDevicePlatform());
+		assertTrue(warm.resolveDevice(request(UserAgent.IPAD_IOS5_STRING)).isTablet());
+		assertTrue(warm.resolveDevice(wapProfile).isMobile());
+		assertEquals(0, delegate.count);
+		assertTrue(warm.resolveDevice(request("Mozilla/5.0 (compatible; Unknown)")).isNormal());
+		assertEquals(1, delegate.count);
+	}
+
+	@Test
+	public void snapshotOfOtherRules() throws Exception {
+		resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		Path file = folder.getRoot().toPath().resolve("device-cache.snapshot");
+		resolver.writeSnapshot(file, "1");
+		CachingDeviceResolver warm = new CachingDeviceResolver(delegate);
+		assertEquals(0, warm.loadSnapshot(file, "2"));
+		assertEquals(0, warm.getSize());
+		assertEquals(0, warm.loadSnapshot(folder.getRoot().toPath().resolve("missing.snapshot"), "1"));
+	}
+
+	@Test
+	public void snapshotAfterRulesReload() throws Exception {
+		LiteDeviceResolver lite = new LiteDeviceResolver();
+		resolver = new CachingDeviceResolver(lite);
+		resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		resolver.resolveDevice(request(UserAgent.IPAD_IOS5_STRING));
+		UserAgentRules rules = lite.getRules();
+		UserAgentRules reloaded = new UserAgentRules(rules.getMobileUserAgentPrefixes(),
+				rules.getMobileUserAgentKeywords(), rules.getTabletUserAgentKeywords(), Collections.singletonList("iphone"));
+		lite.setRules(reloaded);
+		Path file = folder.getRoot().toPath().resolve("device-cache.snapshot");
+		assertEquals(0, resolver.writeSnapshot(file));
+		assertTrue(resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING)).isNormal());
+		assertEquals(1, resolver.writeSnapshot(file));
+		CachingDeviceResolver warm = new CachingDeviceResolver(new LiteDeviceResolver(reloaded));
+		assertEquals(1, warm.loadSnapshot(file));
+		assertTrue(warm.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING)).isNormal());
+		assertEquals(0, warm.getMissCount());
+		assertEquals(0, new CachingDeviceResolver(new LiteDeviceResolver()).loadSnapshot(file));
+	}
+
+	@Test
+	public void snapshotOfNormalizedUserAgents() throws Exception {
+		resolver = new CachingDeviceResolver(new LiteDeviceResolver());
+		resolver.setNormalizeUserAgents(true);
+		resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		Path file = folder.getRoot().toPath().resolve("device-cache.snapshot");
+		assertEquals(1, resolver.writeSnapshot(file));
+		assertEquals(0, new CachingDeviceResolver(new LiteDeviceResolver()).loadSnapshot(file));
+		CachingDeviceResolver warm = new CachingDeviceResolver(new LiteDeviceResolver());
+		warm.setNormalizeUserAgents(true);
+		assertEquals(1, warm.loadSnapshot(file));
+		assertTrue(warm.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING.replace("5_0", "5_1"))).isMobile());
+		assertEquals(0, warm.getMissCount());
+	}
+
+	@Test
+	public void snapshotLoadsHottestUserAgents() throws Exception {
+		for (int i = 0; i < 5; i++) {
+			for (int j = 0; j < 10; j++) {
+				resolver.resolveDevice(request("Mozilla/5.0 (Popular " + j + ")"));
+			}
+		}
+		for (int i = 0; i < 100; i++) {
+			resolver.resolveDevice(request("Mozilla/5.0 (Rare " + i + ")"));
+		}
+		Path file = folder.getRoot().toPath().resolve("device-cache.snapshot");
+		assertEquals(110, resolver.writeSnapshot(file, "1"));
+		CountingDeviceResolver delegate = new CountingDeviceResolver();
+		CachingDeviceResolver warm = new CachingDeviceResolver(delegate, 20);
+		assertEquals(19, warm.loadSnapshot(file, "1"));
+		for (int j = 0; j < 10; j++) {
+			warm.resolveDevice(request("Mozilla/5.0 (Popular " + j + ")"));
+		}
+		assertEquals(0, delegate.count);
+	}
+
+	@Test
+	public void snapshotSkipsOtherDevices() throws Exception {
+		resolver = new CachingDeviceResolver(new DeviceResolver() {
+			public Device resolveDevice(HttpServletRequest request) {
+				return new StubDevice();
+			}
+		});
+		resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		assertEquals(0, resolver.writeSnapshot(folder.getRoot().toPath().resolve("device-cache.snapshot"), "1"));
+	}
+
+	@Test
+	public void snapshotNotLoadedInFrontOfEnrichingResolver() throws Exception {
+		resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		Path file = folder.getRoot().toPath().resolve("device-cache.snapshot");
+		assertEquals(1, resolver.writeSnapshot(file, "1"));
+		CachingDeviceResolver enriching = new CachingDeviceResolver(new EnrichingDeviceResolver(
+				new LiteDeviceResolver(), new LiteDeviceDetailsParser(), new SyncTaskExecutor()));
+		assertEquals(0, enriching.loadSnapshot(file, "1"));
+		assertEquals(0, new DeviceCacheSnapshotter(enriching, file, "1").load());
+		assertTrue(enriching.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING)) instanceof EnrichedDevice);
+	}
+
+	@Test
+	public void snapshotter() throws Exception {
+		Path file = folder.getRoot().toPath().resolve("device-cache.snapshot");
+		DeviceCacheSnapshotter snapshotter = new DeviceCacheSnapshotter(resolver, file);
+		snapshotter.start();
+		assertTrue(snapshotter.isRunning());
+		resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		snapshotter.stop();
+		assertFalse(snapshotter.isRunning());
+		CountingDeviceResolver delegate = new CountingDeviceResolver();
+		CachingDeviceResolver warm = new CachingDeviceResolver(delegate);
+		new DeviceCacheSnapshotter(warm, file).start();
+		assertTrue(warm.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING)).isMobile());
+		assertEquals(0, delegate.count);
+		LiteDeviceResolver reloaded = new LiteDeviceResolver(new UserAgentRules(Collections.<String>emptyList(),
+				Collections.<String>emptyList(), Collections.<String>emptyList(), Collections.<String>emptyList()));
+		CachingDeviceResolver otherRules = new CachingDeviceResolver(reloaded);
+		assertEquals(0, new DeviceCacheSnapshotter(otherRules, file).load());
+	}
+
+	private static MockHttpServletRequest request(String userAgent) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", userAgent);
+		return request;
+	}
+
+	private static class CountingDeviceResolver extends LiteDeviceResolver {
+
+		private int count;
+
+		@Override
+		public Device resolveDevice(HttpServletRequest request) {
+			count++;
+			return super.resolveDevice(request);
+		}
+
+	}
+
+}
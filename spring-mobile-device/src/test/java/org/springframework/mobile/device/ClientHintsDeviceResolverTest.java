@@ -0,0 +1,134 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class ClientHintsDeviceResolverTest {
+
+	private final ClientHintsDeviceResolver resolver = new ClientHintsDeviceResolver();
+
+	private final MockHttpServletRequest request = new MockHttpServletRequest();
+
+	@Test
+	public void mobileAndroid() {
+		request.addHeader("Sec-CH-UA-Mobile", "?1");
+		request.addHeader("Sec-CH-UA-Platform", "\"Android\"");
+		assertSame(LiteDevice.from(DeviceType.MOBILE, DevicePlatform.ANDROID), resolver.resolveDevice(request));
+	}
+
+	@Test
+	public void mobileWithoutPlatform() {
+		request.addHeader("Sec-CH-UA-Mobile", "?1");
+		assertSame(LiteDevice.MOBILE_INSTANCE, resolver.resolveDevice(request));
+	}
+
+	@Test
+	public void androidTablet() {
+		request.addHeader("Sec-CH-UA-Mobile", "?0");
+		request.addHeader("Sec-CH-UA-Platform", "\"Android\"");
+		assertSame(LiteDevice.from(DeviceType.TABLET, DevicePlatform.ANDROID), resolver.resolveDevice(request));
+	}
+
+	@Test
+	public void desktop() {
+		request.addHeader("Sec-CH-UA-Mobile", "?0");
+		request.addHeader("Sec-CH-UA-Platform", "\"Windows\"");
+		request.addHeader("User-Agent", UserAgent.IPHONE_IOS5_STRING);
+		assertSame(LiteDevice.NORMAL_INSTANCE, resolver.resolveDevice(request));
+	}
+
+	@Test
+	public void hintsTakePrecedenceOverUserAgent() {
+		request.addHeader("Sec-CH-UA-Mobile", "?1");
+		request.addHeader("Sec-CH-UA-Platform", "\"iOS\"");
+		request.addHeader("User-Agent", UserAgent.OSX_10_7_3_SAFARI5_1_5_STRING);
+		Device device = resolver.resolveDevice(request);
+		assertTrue(device.isMobile());
+		assertEquals(DevicePlatform.IOS, device.getDevicePlatform());
+	}
+
+	@Test
+	public void fallbackWithoutHints() {
+		request.addHeader("User-Agent", UserAgent.IPAD_IOS5_STRING);
+		assertTrue(resolver.resolveDevice(request).isTablet());
+	}
+
+	@Test
+	public void fallbackWithInvalidHint() {
+		request.addHeader("Sec-CH-UA-Mobile", "true");
+		request.addHeader("User-Agent", UserAgent.IPHONE_IOS5_STRING);
+		assertTrue(resolver.resolveDevice(request).isMobile());
+	}
+
+	@Test
+	public void noFallback() {
+		request.addHeader("User-Agent", UserAgent.IPAD_IOS5_STRING);
+		assertNull(new ClientHintsDeviceResolver(null).resolveDevice(request));
+	}
+
+	@Test
+	public void acceptClientHints() {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		resolver.addAcceptClientHints(response);
+		assertEquals("Sec-CH-UA-Mobile, Sec-CH-UA-Platform", response.getHeader("Accept-CH"));
+	}
+
+	@Test
+	public void acceptClientHintsDisabled() {
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		resolver.setAcceptClientHints(false);
+		resolver.addAcceptClientHints(response);
+		assertNull(response.getHeader("Accept-CH"));
+	}
+
+	@Test
+	public void structuredBoolean() {
+		assertEquals(Boolean.TRUE, StructuredFields.parseBoolean("?1"));
+		assertEquals(Boolean.FALSE, StructuredFields.parseBoolean(" ?0 "));
+		assertEquals(Boolean.TRUE, StructuredFields.parseBoolean("?1;a=b"));
+		assertNull(StructuredFields.parseBoolean(null));
+		assertNull(StructuredFields.parseBoolean(""));
+		assertNull(StructuredFields.parseBoolean("?"));
+		assertNull(StructuredFields.parseBoolean("?2"));
+		assertNull(StructuredFields.parseBoolean("?10"));
+		assertNull(StructuredFields.parseBoolean("1"));
+	}
+
+	@Test
+	public void structuredString() {
+		assertTrue(StructuredFields.isString("\"Android\"", "Android"));
+		assertTrue(StructuredFields.isString(" \"Android\" ", "Android"));
+		assertTrue(StructuredFields.isString("\"a\\\"b\\\\c\"", "a\"b\\c"));
+		assertFalse(StructuredFields.isString("\"Androi\"", "Android"));
+		assertFalse(StructuredFields.isString("\"Android OS\"", "Android"));
+		assertFalse(StructuredFields.isString("Android", "Android"));
+		assertFalse(StructuredFields.isString("\"Android", "Android"));
+		assertFalse(StructuredFields.isString("\"Android\"x", "Android"));
+		assertFalse(StructuredFields.isString("\"\\a\"", "a"));
+		assertFalse(StructuredFields.isString(null, "Android"));
+	}
+
+}
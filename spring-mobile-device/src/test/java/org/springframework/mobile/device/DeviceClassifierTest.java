@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+
+public class DeviceClassifierTest {
+
+	private final CountingResolver resolver = new CountingResolver();
+
+	@Test
+	public void classify() {
+		DeviceClassifier classifier = new DeviceClassifier(new LiteDeviceResolver());
+		assertTrue(classifier.classify(UserAgent.IPHONE_IOS5_STRING).isMobile());
+		assertTrue(classifier.classify(UserAgent.IPAD_IOS5_STRING).isTablet());
+		assertTrue(classifier.classify("Mozilla/5.0 (Windows NT 6.1)").isNormal());
+		assertTrue(classifier.classify(null).isNormal());
+	}
+
+	@Test
+	public void classifyAllInOrder() {
+		DeviceClassifier classifier = new DeviceClassifier(new LiteDeviceResolver());
+		Device[] devices = classifier.classifyAll(UserAgent.IPHONE_IOS5_STRING, null, UserAgent.IPAD_IOS5_STRING,
+				UserAgent.IPHONE_IOS5_STRING);
+		assertEquals(4, devices.length);
+		assertTrue(devices[0].isMobile());
+		assertTrue(devices[1].isNormal());
+		assertTrue(devices[2].isTablet());
+		assertSame(devices[0], devices[3]);
+	}
+
+	@Test
+	public void classifyAllResolvesDistinctUserAgentsOnce() {
+		DeviceClassifier classifier = new DeviceClassifier(resolver);
+		List<Device> devices = classifier.classifyAll(Arrays.asList("a", "b", "a", null, "b", null));
+		assertEquals(6, devices.size());
+		assertSame(devices.get(0), devices.get(2));
+		assertSame(devices.get(1), devices.get(4));
+		assertSame(devices.get(3), devices.get(5));
+		assertEquals(3, resolver.invocations.get());
+		assertEquals(Collections.singleton(Thread.currentThread()), resolver.threads.keySet());
+	}
+
+	@Test
+	public void classifyAllInParallel() {
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			DeviceClassifier classifier = new DeviceClassifier(resolver, pool);
+			classifier.setThreshold(10);
+			List<String> userAgents = new ArrayList<String>();
+			for (int i = 0; i < 10000; i++) {
+				userAgents.add("Mozilla/5.0 (Agent " + (i % 1000) + ")");
+			}
+			List<Device> devices = classifier.classifyAll(userAgents);
+			assertEquals(10000, devices.size());
+			assertEquals(1000, resolver.invocations.get());
+			for (int i = 0; i < 10000; i++) {
+				assertSame(devices.get(i % 1000), devices.get(i));
+			}
+			for (Thread thread : resolver.threads.keySet()) {
+				assertSame(pool, ((ForkJoinWorkerThread) thread).getPool());
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void classifyAllEmpty() {
+		assertEquals(0, new DeviceClassifier(resolver).classifyAll().length);
+	}
+
+	@Test(expected = IllegalArgumentException.class)
+	public void invalidThreshold() {
+		new DeviceClassifier(resolver).setThreshold(0);
+	}
+
+	private static class CountingResolver implements HttpHeadersDeviceResolver {
+
+		private final AtomicInteger invocations = new AtomicInteger();
+
+		private final Map<Thread, Boolean> threads = new ConcurrentHashMap<Thread, Boolean>();
+
+		public Device resolveDevice(HttpHeaders headers) {
+			this.invocations.incrementAndGet();
+			this.threads.put(Thread.currentThread(), Boolean.TRUE);
+			return new LiteDevice(DeviceType.NORMAL);
+		}
+
+	}
+
+}
@@ -17,9 +17,12 @@
 package org.springframework.mobile.device;
 
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import javax.servlet.http.HttpServletRequest;
+
 import org.junit.Test;
 import org.springframework.core.MethodParameter;
 import org.springframework.mock.web.MockHttpServletRequest;
@@ -44,6 +47,24 @@ public class DeviceHandlerMethodArgumentResolverTest {
 		assertSame(device, resolved);
 	}
 
+	@Test
+	public void resolveOnDemand() throws Exception {
+		resolver = new DeviceHandlerMethodArgumentResolver(new DeviceResolver() {
+			public Device resolveDevice(HttpServletRequest request) {
+				return device;
+			}
+		});
+		MethodParameter parameter = new MethodParameter(getClass().getMethod("handlerMethod", Device.class), 0);
+		assertSame(device, resolver.resolveArgument(parameter, null, request, null));
+		assertSame(device, DeviceUtils.getCurrentDevice(request.getRequest()));
+	}
+
+	@Test
+	public void unresolvedWithoutDevice() throws Exception {
+		MethodParameter parameter = new MethodParameter(getClass().getMethod("handlerMethod", Device.class), 0);
+		assertNull(resolver.resolveArgument(parameter, null, request, null));
+	}
+
 	@Test
 	public void unresolved() throws Exception {
 		request.setAttribute(DeviceUtils.CURRENT_DEVICE_ATTRIBUTE, device, WebRequest.SCOPE_REQUEST);
@@ -16,9 +16,14 @@
 
 package org.springframework.mobile.device;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.DispatcherType;
 import javax.servlet.http.HttpServletRequest;
 
 import org.junit.Test;
@@ -54,4 +59,36 @@ public class DeviceResolverHandlerInterceptorTest {
 		assertTrue(device.isMobile());
 	}
 
+	@Test
+	public void resolveClientHints() throws Exception {
+		interceptor = new DeviceResolverHandlerInterceptor(new ClientHintsDeviceResolver());
+		assertNull(response.getHeader("Accept-CH"));
+		assertTrue(interceptor.preHandle(request, response, null));
+		assertEquals("Sec-CH-UA-Mobile, Sec-CH-UA-Platform", response.getHeader("Accept-CH"));
+	}
+
+	@Test
+	public void resolveOnce() throws Exception {
+		final AtomicInteger resolutions = new AtomicInteger();
+		interceptor = new DeviceResolverHandlerInterceptor(new DeviceResolver() {
+			public Device resolveDevice(HttpServletRequest request) {
+				resolutions.incrementAndGet();
+				return device;
+			}
+		});
+		assertTrue(interceptor.preHandle(request, response, null));
+		request.setDispatcherType(DispatcherType.ASYNC);
+		assertTrue(interceptor.preHandle(request, response, null));
+		assertSame(device, DeviceUtils.getCurrentDevice(request));
+		assertEquals(1, resolutions.get());
+	}
+
+	@Test
+	public void existingDevice() throws Exception {
+		Device existing = new StubDevice();
+		request.setAttribute(DeviceUtils.CURRENT_DEVICE_ATTRIBUTE, existing);
+		assertTrue(interceptor.preHandle(request, response, null));
+		assertSame(existing, DeviceUtils.getCurrentDevice(request));
+	}
+
 }
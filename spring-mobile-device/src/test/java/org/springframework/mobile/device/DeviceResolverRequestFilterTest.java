@@ -16,9 +16,14 @@
 
 package org.springframework.mobile.device;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.servlet.DispatcherType;
 import javax.servlet.http.HttpServletRequest;
 
 import org.junit.Test;
@@ -57,4 +62,85 @@ public class DeviceResolverRequestFilterTest {
 		assertTrue(device.isMobile());
 	}
 
+	@Test
+	public void resolveClientHints() throws Exception {
+		filter = new DeviceResolverRequestFilter(new ClientHintsDeviceResolver());
+		request.addHeader("Sec-CH-UA-Mobile", "?1");
+		filter.doFilterInternal(request, response, filterChain);
+		assertTrue(DeviceUtils.getCurrentDevice(request).isMobile());
+		assertEquals("Sec-CH-UA-Mobile, Sec-CH-UA-Platform", response.getHeader("Accept-CH"));
+	}
+
+	@Test
+	public void excludePathPatterns() throws Exception {
+		filter.setExcludePathPatterns("/static/**", "/**/*.css", "/favicon.ico");
+		assertSame(device, filter(request("/app", "/app/index.html")));
+		assertNull(filter(request("/app", "/app/static/js/app.js")));
+		assertNull(filter(request("/app", "/app/css/site.css")));
+		assertNull(filter(request("", "/favicon.ico;jsessionid=1234")));
+		assertSame(device, filter(request("", "/statics")));
+	}
+
+	@Test
+	public void pathPatternsIgnorePathParameters() throws Exception {
+		filter.setExcludePathPatterns("/app/x/**");
+		assertNull(filter(request("", "/app;v=1/x/view")));
+		assertNull(filter(request("/shop", "/shop;jsessionid=1234/app/x;v=2/view")));
+		assertSame(device, filter(request("", "/app;v=1/y/view")));
+	}
+
+	@Test
+	public void includePathPatterns() throws Exception {
+		filter.setIncludePathPatterns("/shop/**", "/{page}.html");
+		filter.setExcludePathPatterns("/shop/api/**");
+		assertSame(device, filter(request("", "/shop/cart")));
+		assertSame(device, filter(request("", "/index.html")));
+		assertNull(filter(request("", "/shop/api/cart")));
+		assertNull(filter(request("", "/other")));
+	}
+
+	@Test
+	public void dispatcherTypes() throws Exception {
+		MockHttpServletRequest error = request("", "/error");
+		error.setDispatcherType(DispatcherType.ERROR);
+		assertNull(filter(error));
+		filter.setDispatcherTypes(DispatcherType.ERROR);
+		error = request("", "/error");
+		error.setDispatcherType(DispatcherType.ERROR);
+		assertSame(device, filter(error));
+		assertNull(filter(request("", "/")));
+	}
+
+	@Test
+	public void resolveOnceWithInterceptor() throws Exception {
+		final AtomicInteger resolutions = new AtomicInteger();
+		DeviceResolver deviceResolver = new DeviceResolver() {
+			public Device resolveDevice(HttpServletRequest request) {
+				resolutions.incrementAndGet();
+				return device;
+			}
+		};
+		filter = new DeviceResolverRequestFilter(deviceResolver);
+		filter.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ERROR);
+		DeviceResolverHandlerInterceptor interceptor = new DeviceResolverHandlerInterceptor(deviceResolver);
+		filter.doFilter(request, response, filterChain);
+		interceptor.preHandle(request, response, null);
+		request.setDispatcherType(DispatcherType.ERROR);
+		filter.doFilter(request, response, new MockFilterChain());
+		interceptor.preHandle(request, response, null);
+		assertSame(device, DeviceUtils.getCurrentDevice(request));
+		assertEquals(1, resolutions.get());
+	}
+
+	private Device filter(MockHttpServletRequest request) throws Exception {
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		return DeviceUtils.getCurrentDevice(request);
+	}
+
+	private static MockHttpServletRequest request(String contextPath, String requestUri) {
+		MockHttpServletRequest request = new MockHttpServletRequest("GET", requestUri);
+		request.setContextPath(contextPath);
+		return request;
+	}
+
 }
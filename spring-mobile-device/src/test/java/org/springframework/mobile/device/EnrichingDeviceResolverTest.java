@@ -0,0 +1,164 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+public class EnrichingDeviceResolverTest {
+
+	private static final DeviceDetails IOS_DETAILS = new DeviceDetails("Safari", "5.1", "iOS", "5.0");
+
+	private final List<Runnable> pending = new ArrayList<Runnable>();
+
+	private final Executor queueingExecutor = new Executor() {
+
+		public void execute(Runnable command) {
+			pending.add(command);
+		}
+
+	};
+
+	@Test
+	public void deviceAvailableBeforeDetails() {
+		EnrichingDeviceResolver resolver = new EnrichingDeviceResolver(new LiteDeviceResolver(),
+				new LiteDeviceDetailsParser(), this.queueingExecutor);
+		EnrichedDevice device = (EnrichedDevice) resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		assertTrue(device.isMobile());
+		assertSame(DevicePlatform.IOS, device.getDevicePlatform());
+		CompletableFuture<DeviceDetails> details = device.getDetails();
+		assertFalse(details.isDone());
+		assertNull(device.getDetailsIfAvailable());
+		assertEquals(1, this.pending.size());
+		this.pending.get(0).run();
+		assertEquals(IOS_DETAILS, details.join());
+		assertEquals(IOS_DETAILS, device.getDetailsIfAvailable());
+		assertEquals(1, resolver.getEnrichmentCount());
+	}
+
+	@Test
+	public void detailsMemoizedByCache() {
+		EnrichingDeviceResolver enricher = new EnrichingDeviceResolver(new LiteDeviceResolver(),
+				new LiteDeviceDetailsParser(), this.queueingExecutor);
+		CachingDeviceResolver resolver = new CachingDeviceResolver(enricher);
+		resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		this.pending.get(0).run();
+		EnrichedDevice device = (EnrichedDevice) resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		assertEquals(IOS_DETAILS, device.getDetails().getNow(null));
+		// versions are significant to the details, so User-Agents are not normalized
+		EnrichedDevice other = (EnrichedDevice) resolver.resolveDevice(request(UserAgent.IPHONE_IOS6_STRING));
+		assertNull(other.getDetailsIfAvailable());
+		assertEquals(2, this.pending.size());
+		assertEquals(1, enricher.getEnrichmentCount());
+	}
+
+	@Test
+	public void callersCannotCompleteDetails() {
+		EnrichingDeviceResolver resolver = new EnrichingDeviceResolver(new LiteDeviceResolver(),
+				new LiteDeviceDetailsParser(), this.queueingExecutor);
+		EnrichedDevice device = (EnrichedDevice) resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		device.getDetails().complete(DeviceDetails.UNKNOWN);
+		this.pending.get(0).run();
+		assertEquals(IOS_DETAILS, device.getDetails().join());
+	}
+
+	@Test
+	public void rejectedDetailsParsedOnDemand() {
+		EnrichingDeviceResolver resolver = new EnrichingDeviceResolver(new LiteDeviceResolver(),
+				new LiteDeviceDetailsParser(), new Executor() {
+					public void execute(Runnable command) {
+						throw new RejectedExecutionException();
+					}
+				});
+		EnrichedDevice device = (EnrichedDevice) resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		assertEquals(1, resolver.getDeferredCount());
+		assertNull(device.getDetailsIfAvailable());
+		assertEquals(IOS_DETAILS, device.getDetails().getNow(null));
+		assertEquals(1, resolver.getEnrichmentCount());
+	}
+
+	@Test
+	public void parserFailure() {
+		EnrichingDeviceResolver resolver = new EnrichingDeviceResolver(new LiteDeviceResolver(),
+				new DeviceDetailsParser() {
+					public DeviceDetails parse(String userAgent) {
+						throw new IllegalStateException("Unparseable");
+					}
+				}, this.queueingExecutor);
+		EnrichedDevice device = (EnrichedDevice) resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		this.pending.get(0).run();
+		assertTrue(device.getDetails().isCompletedExceptionally());
+		assertNull(device.getDetailsIfAvailable());
+		assertEquals(1, resolver.getFailureCount());
+		assertTrue(device.isMobile());
+	}
+
+	@Test
+	public void noUserAgent() {
+		EnrichingDeviceResolver resolver = new EnrichingDeviceResolver(new LiteDeviceResolver(),
+				new LiteDeviceDetailsParser(), this.queueingExecutor);
+		EnrichedDevice device = (EnrichedDevice) resolver.resolveDevice(new MockHttpServletRequest());
+		assertTrue(device.isNormal());
+		assertSame(DeviceDetails.UNKNOWN, device.getDetailsIfAvailable());
+		assertTrue(this.pending.isEmpty());
+	}
+
+	@Test
+	public void noDevice() {
+		EnrichingDeviceResolver resolver = new EnrichingDeviceResolver(new DeviceResolver() {
+			public Device resolveDevice(HttpServletRequest request) {
+				return null;
+			}
+		});
+		assertNull(resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING)));
+		resolver.destroy();
+	}
+
+	@Test
+	public void defaultExecutor() throws Exception {
+		EnrichingDeviceResolver resolver = new EnrichingDeviceResolver(new LiteDeviceResolver());
+		try {
+			EnrichedDevice device = (EnrichedDevice) resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+			assertEquals(IOS_DETAILS, device.getDetails().get(10, TimeUnit.SECONDS));
+		}
+		finally {
+			resolver.destroy();
+		}
+	}
+
+	private static HttpServletRequest request(String userAgent) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", userAgent);
+		return request;
+	}
+
+}
@@ -0,0 +1,104 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class LazyDeviceResolverTest {
+
+	private final CountingDeviceResolver delegate = new CountingDeviceResolver();
+
+	private final LazyDeviceResolver resolver = new LazyDeviceResolver(delegate);
+
+	@Test
+	public void resolvesOnFirstUse() {
+		Device device = resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		assertEquals(0, delegate.count);
+		assertTrue(device.isMobile());
+		assertFalse(device.isNormal());
+		assertFalse(device.isTablet());
+		assertEquals(DevicePlatform.IOS, device.getDevicePlatform());
+		assertEquals(LiteDevice.from(DeviceType.MOBILE, DevicePlatform.IOS).toString(), device.toString());
+		assertEquals(1, delegate.count);
+	}
+
+	@Test
+	public void unresolvedDeviceIsNormal() {
+		Device device = new LazyDeviceResolver(new DeviceResolver() {
+		}).resolveDevice(request(UserAgent.IPHONE_IOS5_STRING));
+		assertTrue(device.isNormal());
+		assertEquals(DevicePlatform.UNKNOWN, device.getDevicePlatform());
+	}
+
+	@Test
+	public void interceptorDoesNotResolveUnusedDevice() throws Exception {
+		DeviceResolverHandlerInterceptor interceptor = new DeviceResolverHandlerInterceptor(resolver);
+		MockHttpServletRequest request = request(UserAgent.IPAD_IOS5_STRING);
+		interceptor.preHandle(request, new MockHttpServletResponse(), null);
+		assertEquals(0, delegate.count);
+		assertTrue(DeviceUtils.getCurrentDevice(request).isTablet());
+		assertEquals(1, delegate.count);
+	}
+
+	@Test
+	public void filterDoesNotResolveUnusedDevice() throws Exception {
+		DeviceResolverRequestFilter filter = new DeviceResolverRequestFilter(resolver);
+		MockHttpServletRequest request = request(UserAgent.IPAD_IOS5_STRING);
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		assertEquals(0, delegate.count);
+		assertTrue(DeviceUtils.getCurrentDevice(request).isTablet());
+		assertEquals(1, delegate.count);
+	}
+
+	@Test
+	public void acceptClientHintsOfDelegate() throws Exception {
+		DeviceResolverHandlerInterceptor interceptor = new DeviceResolverHandlerInterceptor(
+				new LazyDeviceResolver(new ClientHintsDeviceResolver()));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		interceptor.preHandle(new MockHttpServletRequest(), response, null);
+		assertEquals(ClientHintsDeviceResolver.MOBILE_HEADER + ", " + ClientHintsDeviceResolver.PLATFORM_HEADER,
+				response.getHeader("Accept-CH"));
+	}
+
+	private static MockHttpServletRequest request(String userAgent) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", userAgent);
+		return request;
+	}
+
+	private static class CountingDeviceResolver extends LiteDeviceResolver {
+
+		private int count;
+
+		@Override
+		public Device resolveDevice(HttpServletRequest request) {
+			count++;
+			return super.resolveDevice(request);
+		}
+
+	}
+
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+import org.junit.Test;
+
+public class LiteDeviceDetailsParserTest {
+
+	private final LiteDeviceDetailsParser parser = new LiteDeviceDetailsParser();
+
+	@Test
+	public void iPhone() {
+		assertEquals(new DeviceDetails("Safari", "5.1", "iOS", "5.0"), parser.parse(UserAgent.IPHONE_IOS5_STRING));
+		assertEquals(new DeviceDetails("Safari", "5.1", "iOS", "5.0"), parser.parse(UserAgent.IPAD_IOS5_STRING));
+	}
+
+	@Test
+	public void android() {
+		assertEquals(new DeviceDetails("Android Browser", "4.0", "Android", "4.0.4"),
+				parser.parse(UserAgent.SAMSUNG_GALAXYS3_GT_I9300_ANDROID4_0_4_STRING));
+		assertEquals(new DeviceDetails("Chrome", "64.0.3282.137", "Android", "8.0.0"),
+				parser.parse("Mozilla/5.0 (Linux; Android 8.0.0; Pixel 2 Build/OPD1.170816.004) AppleWebKit/537.36 "
+						+ "(KHTML, like Gecko) Chrome/64.0.3282.137 Mobile Safari/537.36"));
+	}
+
+	@Test
+	public void desktop() {
+		assertEquals(new DeviceDetails("Safari", "5.1.5", "macOS", "10.7.3"),
+				parser.parse(UserAgent.OSX_10_7_3_SAFARI5_1_5_STRING));
+		assertEquals(new DeviceDetails("Firefox", "3.6.12", "macOS", "10.6"),
+				parser.parse(UserAgent.OSX_10_6_FIREFOX3_6_STRING));
+		assertEquals(new DeviceDetails("Edge", "16.16299", "Windows", "10"),
+				parser.parse("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) "
+						+ "Chrome/58.0.3029.110 Safari/537.36 Edge/16.16299"));
+		assertEquals(new DeviceDetails("Internet Explorer", "11.0", "Windows", "7"),
+				parser.parse("Mozilla/5.0 (Windows NT 6.1; Trident/7.0; rv:11.0) like Gecko"));
+	}
+
+	@Test
+	public void unknown() {
+		assertSame(DeviceDetails.UNKNOWN, parser.parse("curl/7.58.0"));
+		assertEquals(new DeviceDetails(null, null, "Linux", null),
+				parser.parse("Mozilla/5.0 (X11; Linux x86_64; rv:58.0) Gecko/20100101"));
+	}
+
+}
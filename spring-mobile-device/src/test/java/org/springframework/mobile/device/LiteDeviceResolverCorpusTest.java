@@ -0,0 +1,291 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+/**
+ * Differential test of the compiled {@link LiteDeviceResolver} rules against the
+ * original interpreted rule cascade, over every User-Agent in {@link UserAgent}. The
+ * {@link HttpHeaders} and User-Agent based resolution is checked against the servlet
+ * request based resolution along the way, and User-Agents with equal
+ * {@linkplain LiteDeviceResolver#normalizeUserAgent(String) normalized forms} are
+ * checked to resolve alike.
+ */
+public class LiteDeviceResolverCorpusTest {
+
+	@Test
+	public void defaultRules() throws Exception {
+		assertSameResults(new LiteDeviceResolver());
+	}
+
+	@Test
+	public void customRules() throws Exception {
+		LiteDeviceResolver resolver = new LiteDeviceResolver();
+		resolver.getNormalUserAgentKeywords().add("windows nt");
+		resolver.getTabletUserAgentKeywords().add("nexus 7");
+		resolver.getMobileUserAgentKeywords().remove("mobile");
+		resolver.getMobileUserAgentPrefixes().add("mozi");
+		assertSameResults(resolver);
+	}
+
+	@Test
+	public void normalizedUserAgentsDefaultRules() throws Exception {
+		assertNormalizedUserAgentsResolveAlike(new LiteDeviceResolver());
+	}
+
+	@Test
+	public void normalizedUserAgentsCustomRules() throws Exception {
+		LiteDeviceResolver resolver = new LiteDeviceResolver();
+		resolver.getNormalUserAgentKeywords().add("windows nt 5");
+		resolver.getTabletUserAgentKeywords().add("nexus 7");
+		resolver.getMobileUserAgentKeywords().add("build/");
+		resolver.getMobileUserAgentPrefixes().add("mozi");
+		assertNormalizedUserAgentsResolveAlike(resolver);
+	}
+
+	@Test
+	public void cachingResolver() throws Exception {
+		LiteDeviceResolver resolver = new LiteDeviceResolver();
+		InterpretedRules expected = new InterpretedRules(resolver);
+		CachingDeviceResolver cache = new CachingDeviceResolver(resolver);
+		cache.setNormalizeUserAgents(true);
+		List<String> userAgents = new ArrayList<String>();
+		for (String userAgent : corpus()) {
+			userAgents.add(userAgent);
+			userAgents.add(otherVersion(userAgent));
+		}
+		for (int pass = 0; pass < 2; pass++) {
+			for (String userAgent : userAgents) {
+				for (MockHttpServletRequest request : variants(userAgent)) {
+					assertEquals(userAgent, expected.resolveDevice(request).toString(),
+							cache.resolveDevice(request).toString());
+				}
+			}
+		}
+		assertTrue(cache.getSize() < corpus().size());
+	}
+
+	/**
+	 * Check that User-Agents with equal normalized forms resolve alike according to the
+	 * interpreted rules, over the corpus and a copy of the corpus with other version
+	 * numbers, and that normalizing does merge User-Agents.
+	 */
+	private static void assertNormalizedUserAgentsResolveAlike(LiteDeviceResolver resolver) throws Exception {
+		InterpretedRules expected = new InterpretedRules(resolver);
+		Map<String, String> resolvedByKey = new HashMap<String, String>();
+		Map<String, String> userAgentsByKey = new HashMap<String, String>();
+		List<String> userAgents = corpus();
+		for (String userAgent : userAgents) {
+			for (String candidate : Arrays.asList(userAgent, otherVersion(userAgent))) {
+				StringBuilder resolved = new StringBuilder();
+				for (MockHttpServletRequest request : variants(candidate)) {
+					resolved.append(expected.resolveDevice(request)).append(';');
+				}
+				String key = resolver.normalizeUserAgent(candidate);
+				String previous = resolvedByKey.put(key, resolved.toString());
+				if (previous != null) {
+					assertEquals(candidate + " normalized like " + userAgentsByKey.get(key), previous,
+							resolved.toString());
+				}
+				userAgentsByKey.put(key, candidate);
+			}
+		}
+		assertTrue(resolvedByKey.size() < userAgents.size());
+	}
+
+	/**
+	 * Return the given User-Agent with every run of digits replaced by another number.
+	 */
+	private static String otherVersion(String userAgent) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < userAgent.length(); i++) {
+			char c = userAgent.charAt(i);
+			if (c >= '0' && c <= '9') {
+				if (i == 0 || !Character.isDigit(userAgent.charAt(i - 1))) {
+					builder.append(c == '9' ? "10" : String.valueOf((char) (c + 1)));
+				}
+			}
+			else {
+				builder.append(c);
+			}
+		}
+		return builder.toString();
+	}
+
+	private static void assertSameResults(LiteDeviceResolver resolver) throws Exception {
+		InterpretedRules expected = new InterpretedRules(resolver);
+		List<String> userAgents = corpus();
+		assertTrue(userAgents.size() > 100);
+		for (String userAgent : userAgents) {
+			List<MockHttpServletRequest> variants = variants(userAgent);
+			for (int i = 0; i < variants.size(); i++) {
+				Device device = resolver.resolveDevice(variants.get(i));
+				Device expectedDevice = expected.resolveDevice(variants.get(i));
+				String description = userAgent + " (variant " + i + ")";
+				assertEquals(description, expectedDevice.toString(), device.toString());
+				assertEquals(description, expectedDevice.getDevicePlatform(), device.getDevicePlatform());
+				assertSame(description, device, resolver.resolveDevice(headers(variants.get(i))));
+			}
+			assertSame(userAgent, resolver.resolveDevice(variants.get(1)), resolver.resolveDevice(userAgent));
+		}
+	}
+
+	private static HttpHeaders headers(MockHttpServletRequest request) {
+		HttpHeaders headers = new HttpHeaders();
+		for (String name : Collections.list(request.getHeaderNames())) {
+			headers.put(name, Collections.list(request.getHeaders(name)));
+		}
+		return headers;
+	}
+
+	private static List<String> corpus() throws IllegalAccessException {
+		List<String> userAgents = new ArrayList<String>();
+		for (Field field : UserAgent.class.getDeclaredFields()) {
+			if (Modifier.isStatic(field.getModifiers()) && field.getType() == String.class) {
+				String userAgent = (String) field.get(null);
+				userAgents.add(userAgent);
+				userAgents.add(userAgent.toUpperCase());
+			}
+		}
+		return userAgents;
+	}
+
+	private static List<MockHttpServletRequest> variants(String userAgent) {
+		List<MockHttpServletRequest> requests = new ArrayList<MockHttpServletRequest>();
+		requests.add(new MockHttpServletRequest());
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", userAgent);
+		requests.add(request);
+		request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", userAgent);
+		request.addHeader("x-wap-profile", WapProfile.NOKIA3650_STRING);
+		requests.add(request);
+		request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", userAgent);
+		request.addHeader("Accept", "text/vnd.wap.wml");
+		requests.add(request);
+		request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", userAgent);
+		request.addHeader("X-OperaMini-Phone-UA", "SonyEricssonK750i");
+		requests.add(request);
+		return requests;
+	}
+
+
+	/**
+	 * The rule cascade as originally written, evaluated against the rule lists of
+	 * the resolver under test.
+	 */
+	private static class InterpretedRules {
+
+		private final LiteDeviceResolver rules;
+
+		InterpretedRules(LiteDeviceResolver rules) {
+			this.rules = rules;
+		}
+
+		Device resolveDevice(HttpServletRequest request) {
+			String userAgent = request.getHeader("User-Agent");
+			if (userAgent != null) {
+				userAgent = userAgent.toLowerCase();
+				if (containsAny(userAgent, rules.getNormalUserAgentKeywords())) {
+					return LiteDevice.NORMAL_INSTANCE;
+				}
+				if (userAgent.contains("android") && !userAgent.contains("mobile")) {
+					return new LiteDevice(DeviceType.TABLET, DevicePlatform.ANDROID);
+				}
+				if (userAgent.contains("ipad")) {
+					return new LiteDevice(DeviceType.TABLET, DevicePlatform.IOS);
+				}
+				if (userAgent.contains("silk") && !userAgent.contains("mobile")) {
+					return new LiteDevice(DeviceType.TABLET);
+				}
+				if (containsAny(userAgent, rules.getTabletUserAgentKeywords())) {
+					return new LiteDevice(DeviceType.TABLET);
+				}
+			}
+			if (request.getHeader("x-wap-profile") != null || request.getHeader("Profile") != null) {
+				if (userAgent != null) {
+					if (userAgent.contains("android")) {
+						return new LiteDevice(DeviceType.MOBILE, DevicePlatform.ANDROID);
+					}
+					if (userAgent.contains("iphone") || userAgent.contains("ipod") || userAgent.contains("ipad")) {
+						return new LiteDevice(DeviceType.MOBILE, DevicePlatform.IOS);
+					}
+				}
+				return new LiteDevice(DeviceType.MOBILE);
+			}
+			if (userAgent != null && userAgent.length() >= 4) {
+				if (rules.getMobileUserAgentPrefixes().contains(userAgent.substring(0, 4).toLowerCase())) {
+					return new LiteDevice(DeviceType.MOBILE);
+				}
+			}
+			String accept = request.getHeader("Accept");
+			if (accept != null && accept.contains("wap")) {
+				return new LiteDevice(DeviceType.MOBILE);
+			}
+			if (userAgent != null) {
+				if (userAgent.contains("android")) {
+					return new LiteDevice(DeviceType.MOBILE, DevicePlatform.ANDROID);
+				}
+				if (userAgent.contains("iphone") || userAgent.contains("ipod") || userAgent.contains("ipad")) {
+					return new LiteDevice(DeviceType.MOBILE, DevicePlatform.IOS);
+				}
+				if (containsAny(userAgent, rules.getMobileUserAgentKeywords())) {
+					return new LiteDevice(DeviceType.MOBILE);
+				}
+			}
+			Enumeration<String> headers = request.getHeaderNames();
+			while (headers.hasMoreElements()) {
+				if (headers.nextElement().contains("OperaMini")) {
+					return new LiteDevice(DeviceType.MOBILE);
+				}
+			}
+			return LiteDevice.NORMAL_INSTANCE;
+		}
+
+		private static boolean containsAny(String userAgent, List<String> keywords) {
+			for (String keyword : keywords) {
+				if (userAgent.contains(keyword)) {
+					return true;
+				}
+			}
+			return false;
+		}
+
+	}
+
+}
@@ -18,12 +18,22 @@ package org.springframework.mobile.device;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
 
+import java.lang.management.ManagementFactory;
 import java.util.Arrays;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.servlet.http.HttpServletRequest;
 
 import org.junit.Before;
 import org.junit.Test;
+import org.springframework.http.HttpHeaders;
 import org.springframework.mock.web.MockHttpServletRequest;
 
 public class LiteDeviceResolverTest {
@@ -43,6 +53,31 @@ public class LiteDeviceResolverTest {
 		resolver.getNormalUserAgentKeywords().clear();
 	}
 
+	@Test
+	public void normalizeUserAgent() {
+		String android = "Mozilla/5.0 (Linux; Android 4.4.2; Nexus 5 Build/KOT49H) AppleWebKit/537.36 "
+				+ "(KHTML, like Gecko) Chrome/30.0.0.0 Mobile Safari/537.36";
+		String otherVersion = "Mozilla/5.0 (Linux; Android 5.1.1; Nexus 5 Build/KOT12H) AppleWebKit/601.1 "
+				+ "(KHTML, like Gecko) Chrome/45.0.2454.94 Mobile Safari/601.1";
+		assertEquals(resolver.normalizeUserAgent(android), resolver.normalizeUserAgent(otherVersion));
+		assertFalse(resolver.normalizeUserAgent(android).equals(
+				resolver.normalizeUserAgent(android.replace(" Mobile", ""))));
+		// only the first prefix is a mobile prefix
+		assertFalse(resolver.normalizeUserAgent("W3C-checklink").equals(resolver.normalizeUserAgent("W4C-checklink")));
+	}
+
+	@Test
+	public void normalizeUserAgentWithFallback() {
+		LiteDeviceResolver resolver = new LiteDeviceResolver() {
+			@Override
+			protected Device resolveFallback(HttpServletRequest request) {
+				return request.getHeader("User-Agent").contains("1") ? LiteDevice.MOBILE_INSTANCE
+						: LiteDevice.NORMAL_INSTANCE;
+			}
+		};
+		assertEquals("Unknown/1.0", resolver.normalizeUserAgent("Unknown/1.0"));
+	}
+
 	@Test
 	public void wapProfileHeader() {
 		request.setWapProfileHeader(WapProfile.NOKIA3650_STRING);
@@ -89,6 +124,66 @@ public class LiteDeviceResolverTest {
 		assertUnknownPlatform(request);
 	}
 
+	@Test
+	public void maxUserAgentLength() {
+		StringBuilder builder = new StringBuilder("Mozilla/5.0 (X11; Linux x86_64)");
+		for (int i = 0; i < 100; i++) {
+			builder.append(" Plugin/1.0");
+		}
+		String userAgent = builder.append(" iPhone").toString();
+		request.setUserAgentHeader(userAgent);
+		assertMobile(request);
+		resolver.setMaxUserAgentLength(1000);
+		assertNormal(request);
+		assertTrue(resolver.resolveDevice(userAgent).isNormal());
+		assertEquals(resolver.normalizeUserAgent(userAgent),
+				resolver.normalizeUserAgent(userAgent.replace("iPhone", "iPad")));
+	}
+
+	@Test
+	public void maxHeaderCount() {
+		request.addHeader("Accept-Language", "en");
+		request.addHeader("Cookie", "a=b");
+		request.addHeader("X-OperaMini-Phone-UA", "SonyEricssonK750i");
+		HttpHeaders headers = new HttpHeaders();
+		headers.add("Accept-Language", "en");
+		headers.add("Cookie", "a=b");
+		headers.add("X-OperaMini-Phone-UA", "SonyEricssonK750i");
+		assertMobile(request);
+		assertTrue(resolver.resolveDevice(headers).isMobile());
+		resolver.setMaxHeaderCount(2);
+		assertNormal(request);
+		assertTrue(resolver.resolveDevice(headers).isNormal());
+		resolver.setMaxHeaderCount(3);
+		assertMobile(request);
+	}
+
+	@Test
+	public void ruleHits() {
+		resolver.setRecordRuleHits(true);
+		assertEquals(15, resolver.getRuleHits().size());
+		assertEquals("normal-keyword", resolver.getRuleHits().keySet().iterator().next());
+		assertTrue(resolver.resolveDevice(UserAgent.IPHONE_IOS5_STRING).isMobile());
+		assertTrue(resolver.resolveDevice(UserAgent.IPAD_IOS5_STRING).isTablet());
+		assertTrue(resolver.resolveDevice(UserAgent.IPAD_IOS5_STRING).isTablet());
+		assertNormal(request);
+		resolver.getNormalUserAgentKeywords().add("iphone");
+		assertTrue(resolver.resolveDevice(UserAgent.IPHONE_IOS5_STRING).isNormal());
+		Map<String, Long> hits = resolver.getRuleHits();
+		assertEquals(Long.valueOf(1), hits.get("ios"));
+		assertEquals(Long.valueOf(2), hits.get("ipad"));
+		assertEquals(Long.valueOf(1), hits.get("fallback"));
+		assertEquals(Long.valueOf(1), hits.get("normal-keyword"));
+		assertEquals(Long.valueOf(0), hits.get("android"));
+	}
+
+	@Test
+	public void ruleHitsNotRecordedByDefault() {
+		assertFalse(resolver.isRecordRuleHits());
+		assertTrue(resolver.resolveDevice(UserAgent.IPHONE_IOS5_STRING).isMobile());
+		assertEquals(Long.valueOf(0), resolver.getRuleHits().get("ios"));
+	}
+
 	@Test
 	public void notMobileNoHeaders() {
 		assertNormal(request);
@@ -127,6 +222,71 @@ public class LiteDeviceResolverTest {
 		assertIOSPlatform(request);
 	}
 
+	@Test
+	public void keywordsModifiedAfterResolution() {
+		request.setUserAgentHeader(UserAgent.IPHONE_IOS5_STRING);
+		assertMobile(request);
+		resolver.getNormalUserAgentKeywords().add("iphone");
+		assertNormal(request);
+		resolver.getNormalUserAgentKeywords().set(0, "blackberry");
+		assertMobile(request);
+		resolver.getNormalUserAgentKeywords().clear();
+		resolver.getMobileUserAgentKeywords().clear();
+		request = new MockMobileRequest();
+		request.setUserAgentHeader(UserAgent.FIREFOXOS_MOBILE_STRING);
+		assertNormal(request);
+	}
+
+	@Test
+	public void prefixesModifiedAfterResolution() {
+		request.setUserAgentHeader("Abcd/1.0");
+		assertNormal(request);
+		resolver.getMobileUserAgentPrefixes().add("abcd");
+		assertMobile(request);
+		resolver.getMobileUserAgentPrefixes().remove("abcd");
+		assertNormal(request);
+	}
+
+	@Test
+	public void mixedCaseUserAgentPrefix() {
+		request.setUserAgentHeader("NOKIA6600/1.0 (4.03.24) SymbianOS/6.1 Series60/2.0");
+		assertMobile(request);
+		resolver.getMobileUserAgentKeywords().clear();
+		assertMobile(request);
+	}
+
+	@Test
+	public void sharedDeviceInstances() {
+		request.setUserAgentHeader(UserAgent.IPHONE_IOS5_STRING);
+		assertSame(resolver.resolveDevice(request), resolver.resolveDevice(request));
+		assertSame(LiteDevice.from(DeviceType.MOBILE, DevicePlatform.IOS), resolver.resolveDevice(request));
+	}
+
+	@Test
+	public void resolutionDoesNotAllocate() {
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+		FixedHeadersRequest[] requests = new FixedHeadersRequest[] {
+				new FixedHeadersRequest(UserAgent.IPHONE_IOS5_STRING),
+				new FixedHeadersRequest(UserAgent.IPAD_IOS5_STRING),
+				new FixedHeadersRequest(UserAgent.GOOGLE_NEXUSONE_ANDROID2_2_STRING),
+				new FixedHeadersRequest(UserAgent.OSX_10_7_3_SAFARI5_1_5_STRING),
+				new FixedHeadersRequest("Nokia6600/1.0 (4.03.24) SymbianOS/6.1 Series60/2.0") };
+		int iterations = 10000;
+		for (int i = 0; i < 5 * iterations; i++) {
+			resolver.resolveDevice(requests[i % requests.length]);
+		}
+		long threadId = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < iterations; i++) {
+			resolver.resolveDevice(requests[i % requests.length]);
+		}
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+		// allow for the measurement itself, but not for a single object per resolution
+		assertTrue("Allocated " + allocated + " bytes", allocated < iterations);
+	}
+
 	// Normal device User-Agent tests
 
 	@Test
@@ -543,4 +703,28 @@ public class LiteDeviceResolverTest {
 
 	}
 
+	/**
+	 * Request whose header lookups do not allocate, unlike the case-insensitive
+	 * lookups of {@link MockHttpServletRequest}.
+	 */
+	private static class FixedHeadersRequest extends MockHttpServletRequest {
+
+		private final Map<String, String> headers = new HashMap<String, String>();
+
+		FixedHeadersRequest(String userAgent) {
+			this.headers.put("User-Agent", userAgent);
+		}
+
+		@Override
+		public String getHeader(String name) {
+			return this.headers.get(name);
+		}
+
+		@Override
+		public Enumeration<String> getHeaderNames() {
+			return Collections.emptyEnumeration();
+		}
+
+	}
+
 }
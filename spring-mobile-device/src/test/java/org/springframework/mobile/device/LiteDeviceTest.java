@@ -92,4 +92,19 @@ public class LiteDeviceTest {
 		assertThat(liteDevice.isTablet()).isTrue();
 	}
 
+	@Test
+	public void sharedInstances() {
+		for (DeviceType deviceType : DeviceType.values()) {
+			for (DevicePlatform devicePlatform : DevicePlatform.values()) {
+				LiteDevice device = (LiteDevice) LiteDevice.from(deviceType, devicePlatform);
+				assertThat(device.getDeviceType()).isEqualTo(deviceType);
+				assertThat(device.getDevicePlatform()).isEqualTo(devicePlatform);
+				assertThat(LiteDevice.from(deviceType, devicePlatform)).isSameAs(device);
+			}
+		}
+		assertThat(LiteDevice.from(DeviceType.NORMAL, DevicePlatform.UNKNOWN)).isSameAs(LiteDevice.NORMAL_INSTANCE);
+		assertThat(LiteDevice.from(DeviceType.MOBILE, DevicePlatform.UNKNOWN)).isSameAs(LiteDevice.MOBILE_INSTANCE);
+		assertThat(LiteDevice.from(DeviceType.TABLET, DevicePlatform.UNKNOWN)).isSameAs(LiteDevice.TABLET_INSTANCE);
+	}
+
 }
@@ -0,0 +1,108 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.List;
+
+import org.junit.Test;
+import org.springframework.http.server.PathContainer;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+public class RequestPathMatcherTest {
+
+	@Test
+	public void prefixPatterns() {
+		RequestPathMatcher matcher = new RequestPathMatcher("/static/**", "/actuator/**", "/a/**", "/ab/c/**");
+		assertTrue(matcher.matches("/static"));
+		assertTrue(matcher.matches("/static/"));
+		assertTrue(matcher.matches("/static/js/app.js"));
+		assertTrue(matcher.matches("/actuator/health"));
+		assertTrue(matcher.matches("/a/b"));
+		assertTrue(matcher.matches("/ab/c/d"));
+		assertFalse(matcher.matches("/statics"));
+		assertFalse(matcher.matches("/ab"));
+		assertFalse(matcher.matches("/ab/cd"));
+		assertFalse(matcher.matches("/"));
+	}
+
+	@Test
+	public void allPaths() {
+		RequestPathMatcher matcher = new RequestPathMatcher("/**");
+		assertTrue(matcher.matches("/"));
+		assertTrue(matcher.matches(""));
+		assertTrue(matcher.matches("/any/path"));
+	}
+
+	@Test
+	public void extensionPatterns() {
+		RequestPathMatcher matcher = new RequestPathMatcher("/**/*.css", "/**/*.js");
+		assertTrue(matcher.matches("/site.css"));
+		assertTrue(matcher.matches("/static/js/app.js"));
+		assertFalse(matcher.matches("/site.cssx"));
+		assertFalse(matcher.matches("/index.html"));
+	}
+
+	@Test
+	public void literalAndPathPatterns() {
+		RequestPathMatcher matcher = new RequestPathMatcher("favicon.ico", "/api/{version}/users", "/img/*.png");
+		assertTrue(matcher.matches("/favicon.ico"));
+		assertTrue(matcher.matches("/api/v1/users"));
+		assertTrue(matcher.matches("/api/v1/users/"));
+		assertTrue(matcher.matches("/img/logo.png"));
+		assertFalse(matcher.matches("/img/a/logo.png"));
+		assertFalse(matcher.matches("/api/v1/orders"));
+		assertEquals(Arrays.asList("favicon.ico", "/api/{version}/users", "/img/*.png"), matcher.getPatterns());
+	}
+
+	@Test
+	public void empty() {
+		RequestPathMatcher matcher = new RequestPathMatcher();
+		assertTrue(matcher.isEmpty());
+		assertFalse(matcher.matches("/"));
+	}
+
+	@Test
+	public void sameResultsAsPathPatterns() {
+		List<String> patterns = Arrays.asList("/static/**", "/**/*.css", "/favicon.ico", "/api/{version}/**",
+				"/docs/*.html", "/a/**");
+		List<String> paths = Arrays.asList("/", "/static", "/static/x", "/staticx", "/x.css", "/a/b/c.css",
+				"/favicon.ico", "/favicon.ico/", "/api/v2/x", "/api", "/docs/index.html", "/docs/a/index.html", "/a",
+				"/ab", "/a/");
+		RequestPathMatcher matcher = new RequestPathMatcher(patterns);
+		PathPatternParser parser = new PathPatternParser();
+		for (String path : paths) {
+			boolean expected = false;
+			for (String pattern : patterns) {
+				if (!pattern.startsWith("/**/")) {
+					PathPattern pathPattern = parser.parse(pattern);
+					expected |= pathPattern.matches(PathContainer.parsePath(path));
+				}
+				else {
+					expected |= path.endsWith(pattern.substring(4).replace("*", ""));
+				}
+			}
+			assertEquals(path, expected, matcher.matches(path));
+		}
+	}
+
+}
@@ -0,0 +1,146 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+import org.springframework.mobile.device.ShadowDeviceResolver.Mismatch;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+public class ShadowDeviceResolverTest {
+
+	private static final Executor DIRECT_EXECUTOR = new Executor() {
+
+		public void execute(Runnable command) {
+			command.run();
+		}
+
+	};
+
+	private static final DeviceResolver TABLET_RESOLVER = new DeviceResolver() {
+
+		public Device resolveDevice(HttpServletRequest request) {
+			return LiteDevice.from(DeviceType.TABLET, DevicePlatform.IOS);
+		}
+
+	};
+
+	private final LiteDeviceResolver primary = new LiteDeviceResolver();
+
+	@Test
+	public void candidateAgrees() {
+		ShadowDeviceResolver resolver = new ShadowDeviceResolver(primary, new LiteDeviceResolver(),
+				DIRECT_EXECUTOR);
+		resolver.setSampleRate(1);
+		assertTrue(resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING)).isMobile());
+		assertTrue(resolver.resolveDevice(request(UserAgent.IPAD_IOS5_STRING)).isTablet());
+		assertEquals(2, resolver.getComparisonCount());
+		assertEquals(2, resolver.getAgreementCount());
+		assertEquals(1, resolver.getAgreementRatio(), 0);
+		assertTrue(resolver.getMismatches().isEmpty());
+	}
+
+	@Test
+	public void mismatchesBounded() {
+		ShadowDeviceResolver resolver = new ShadowDeviceResolver(primary, TABLET_RESOLVER, DIRECT_EXECUTOR);
+		resolver.setSampleRate(1);
+		resolver.setMaxMismatches(2);
+		assertTrue(resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING)).isMobile());
+		assertTrue(resolver.resolveDevice(request(UserAgent.IPAD_IOS5_STRING)).isTablet());
+		assertTrue(resolver.resolveDevice(request(UserAgent.GOOGLE_NEXUSONE_ANDROID2_2_STRING)).isMobile());
+		assertTrue(resolver.resolveDevice(new MockHttpServletRequest()).isNormal());
+		assertEquals(4, resolver.getComparisonCount());
+		assertEquals(1, resolver.getAgreementCount());
+		assertEquals(0.25, resolver.getAgreementRatio(), 0);
+		List<Mismatch> mismatches = resolver.getMismatches();
+		assertEquals(2, mismatches.size());
+		assertEquals(UserAgent.GOOGLE_NEXUSONE_ANDROID2_2_STRING, mismatches.get(0).getUserAgent());
+		assertSame(LiteDevice.from(DeviceType.MOBILE, DevicePlatform.ANDROID), mismatches.get(0).getPrimaryDevice());
+		assertSame(LiteDevice.from(DeviceType.TABLET, DevicePlatform.IOS), mismatches.get(0).getCandidateDevice());
+		assertEquals("primary MOBILE/ANDROID, candidate TABLET/IOS: "
+				+ UserAgent.GOOGLE_NEXUSONE_ANDROID2_2_STRING, mismatches.get(0).toString());
+		assertNull(mismatches.get(1).getUserAgent());
+		resolver.setMaxMismatches(1);
+		assertEquals(1, resolver.getMismatches().size());
+	}
+
+	@Test
+	public void candidateSeesHeadersOnly() {
+		final StringBuilder seen = new StringBuilder();
+		DeviceResolver candidate = new DeviceResolver() {
+			public Device resolveDevice(HttpServletRequest request) {
+				seen.append(request.getHeader("user-agent")).append(request.getHeaders("Accept").nextElement());
+				request.getRequestURI();
+				return null;
+			}
+		};
+		ShadowDeviceResolver resolver = new ShadowDeviceResolver(primary, candidate, DIRECT_EXECUTOR);
+		resolver.setSampleRate(1);
+		MockHttpServletRequest request = request("Gizmo/1.0");
+		request.addHeader("Accept", "text/html");
+		assertTrue(resolver.resolveDevice(request).isNormal());
+		assertEquals("Gizmo/1.0text/html", seen.toString());
+		assertEquals(1, resolver.getFailureCount());
+		assertEquals(0, resolver.getComparisonCount());
+	}
+
+	@Test
+	public void rejectedEvaluationsDropped() {
+		ShadowDeviceResolver resolver = new ShadowDeviceResolver(primary, TABLET_RESOLVER, new Executor() {
+			public void execute(Runnable command) {
+				throw new RejectedExecutionException();
+			}
+		});
+		resolver.setSampleRate(1);
+		assertTrue(resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING)).isMobile());
+		assertEquals(1, resolver.getDroppedCount());
+		assertEquals(0, resolver.getComparisonCount());
+	}
+
+	@Test
+	public void defaultExecutor() throws Exception {
+		ShadowDeviceResolver resolver = new ShadowDeviceResolver(primary, new LiteDeviceResolver());
+		try {
+			resolver.setSampleRate(1);
+			assertTrue(resolver.resolveDevice(request(UserAgent.IPHONE_IOS5_STRING)).isMobile());
+			for (int i = 0; i < 500 && resolver.getComparisonCount() == 0; i++) {
+				Thread.sleep(10);
+			}
+			assertEquals(1, resolver.getAgreementCount());
+		}
+		finally {
+			resolver.destroy();
+		}
+	}
+
+	private static MockHttpServletRequest request(String userAgent) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", userAgent);
+		return request;
+	}
+
+}
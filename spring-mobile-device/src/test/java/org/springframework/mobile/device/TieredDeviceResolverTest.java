@@ -0,0 +1,112 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import javax.servlet.http.HttpServletRequest;
+
+import org.junit.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class TieredDeviceResolverTest {
+
+	private final TieredDeviceResolver resolver = new TieredDeviceResolver(
+			new TrustedHeaderDeviceResolver("X-Device-Type"),
+			new ClientHintsDeviceResolver(null),
+			new PrefixDeviceResolver(),
+			new LiteDeviceResolver());
+
+	@Test
+	public void firstConfidentTierDecides() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("X-Device-Type", "tablet");
+		request.addHeader("Sec-CH-UA-Mobile", "?1");
+		assertSame(LiteDevice.TABLET_INSTANCE, resolver.resolveDevice(request));
+		assertEquals(1, resolver.getTiers().get(0).getDecisionCount());
+		assertEquals(0, resolver.getTiers().get(1).getInvocationCount());
+	}
+
+	@Test
+	public void undecidedTiersAreSkipped() {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", UserAgent.IPHONE_IOS5_STRING);
+		assertTrue(resolver.resolveDevice(request).isMobile());
+		request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", "Nokia6600/1.0 (4.03.24) SymbianOS/6.1 Series60/2.0");
+		assertTrue(resolver.resolveDevice(request).isMobile());
+		request = new MockHttpServletRequest();
+		request.addHeader("Sec-CH-UA-Mobile", "?0");
+		assertTrue(resolver.resolveDevice(request).isNormal());
+		assertEquals(3, resolver.getTiers().get(0).getInvocationCount());
+		assertEquals(0, resolver.getTiers().get(0).getDecisionCount());
+		assertEquals(3, resolver.getTiers().get(1).getInvocationCount());
+		assertEquals(1, resolver.getTiers().get(1).getDecisionCount());
+		assertEquals(2, resolver.getTiers().get(2).getInvocationCount());
+		assertEquals(1, resolver.getTiers().get(2).getDecisionCount());
+		assertEquals(1, resolver.getTiers().get(3).getDecisionCount());
+		assertEquals(0, resolver.getFallbackCount());
+	}
+
+	@Test
+	public void fallback() {
+		TieredDeviceResolver resolver = new TieredDeviceResolver(new DeviceResolver() {
+			public Device resolveDevice(HttpServletRequest request) {
+				return null;
+			}
+		});
+		assertSame(LiteDevice.NORMAL_INSTANCE, resolver.resolveDevice(new MockHttpServletRequest()));
+		assertEquals(1, resolver.getFallbackCount());
+	}
+
+	@Test
+	public void trustedHeader() {
+		TrustedHeaderDeviceResolver resolver = new TrustedHeaderDeviceResolver("X-Device-Type");
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		assertEquals(null, resolver.resolveDevice(request));
+		request.addHeader("X-Device-Type", "phablet");
+		assertEquals(null, resolver.resolveDevice(request));
+		request = new MockHttpServletRequest();
+		request.addHeader("X-Device-Type", "MOBILE");
+		assertSame(LiteDevice.MOBILE_INSTANCE, resolver.resolveDevice(request));
+	}
+
+	@Test
+	public void prefix() {
+		PrefixDeviceResolver resolver = new PrefixDeviceResolver();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		assertEquals(null, resolver.resolveDevice(request));
+		request.addHeader("User-Agent", UserAgent.IPHONE_IOS5_STRING);
+		assertEquals(null, resolver.resolveDevice(request));
+		request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", "SAMSUNG-SGH-A867/A867UCHJ3 SHP/VPP/R5 NetFront/35");
+		assertSame(LiteDevice.MOBILE_INSTANCE, resolver.resolveDevice(request));
+	}
+
+	@Test
+	public void acceptClientHintsFromTier() throws Exception {
+		TieredDeviceResolver resolver = new TieredDeviceResolver(new ClientHintsDeviceResolver(null),
+				new CachingDeviceResolver(new LiteDeviceResolver()));
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		new DeviceResolverHandlerInterceptor(resolver).preHandle(new MockHttpServletRequest(), response, null);
+		assertEquals("Sec-CH-UA-Mobile, Sec-CH-UA-Platform", response.getHeader("Accept-CH"));
+	}
+
+}
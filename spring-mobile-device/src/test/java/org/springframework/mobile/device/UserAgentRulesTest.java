@@ -0,0 +1,154 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Collections;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.context.support.StaticApplicationContext;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+public class UserAgentRulesTest {
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void parse() throws IOException {
+		UserAgentRules rules = UserAgentRules.parse(new StringReader(
+				"# custom rules\n[prefixes]\nw3c \nnoki\n\n[mobile]\nmobile\n[tablet]\nkindle\n[normal]\nsmart-tv\n"));
+		assertEquals(Arrays.asList("w3c ", "noki"), rules.getMobileUserAgentPrefixes());
+		assertEquals(Collections.singletonList("mobile"), rules.getMobileUserAgentKeywords());
+		assertEquals(Collections.singletonList("kindle"), rules.getTabletUserAgentKeywords());
+		assertEquals(Collections.singletonList("smart-tv"), rules.getNormalUserAgentKeywords());
+	}
+
+	@Test
+	public void ruleBeforeSection() throws IOException {
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("Line 2");
+		UserAgentRules.parse(new StringReader("# custom rules\nmobile\n"));
+	}
+
+	@Test
+	public void defaults() {
+		assertEquals(new LiteDeviceResolver().getRules(), UserAgentRules.defaults());
+	}
+
+	@Test
+	public void version() throws Exception {
+		assertEquals(UserAgentRules.defaults().getVersion(), new LiteDeviceResolver().getRules().getVersion());
+		UserAgentRules rules = UserAgentRules.parse(new StringReader("[tablet]\nplaybook\n"));
+		UserAgentRules other = UserAgentRules.parse(new StringReader("[mobile]\nplaybook\n"));
+		assertEquals(rules.getVersion(), UserAgentRules.parse(new StringReader("[tablet]\nplaybook\n")).getVersion());
+		assertNotEquals(rules.getVersion(), other.getVersion());
+		assertNotEquals(rules.getVersion(), UserAgentRules.defaults().getVersion());
+	}
+
+	@Test
+	public void setRules() {
+		LiteDeviceResolver resolver = new LiteDeviceResolver();
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", UserAgent.IPHONE_IOS5_STRING);
+		assertTrue(resolver.resolveDevice(request).isMobile());
+		UserAgentRules rules = new UserAgentRules(Collections.<String>emptyList(), Collections.<String>emptyList(),
+				Collections.<String>emptyList(), Collections.singletonList("iphone"));
+		resolver.setRules(rules);
+		assertTrue(resolver.resolveDevice(request).isNormal());
+		assertEquals(rules, resolver.getRules());
+		resolver.getNormalUserAgentKeywords().clear();
+		assertTrue(resolver.resolveDevice(request).isNormal());
+	}
+
+	@Test
+	public void reload() throws IOException {
+		Path file = folder.newFile("rules.txt").toPath();
+		write(file, "[normal]\niphone\n");
+		LiteDeviceResolver resolver = new LiteDeviceResolver();
+		UserAgentRulesWatcher watcher = new UserAgentRulesWatcher(file, resolver);
+		watcher.reload();
+		assertEquals(Collections.singletonList("iphone"), resolver.getRules().getNormalUserAgentKeywords());
+	}
+
+	@Test
+	public void watch() throws Exception {
+		Path file = folder.newFile("rules.txt").toPath();
+		write(file, "[normal]\niphone\n");
+		LiteDeviceResolver resolver = new LiteDeviceResolver();
+		UserAgentRulesWatcher watcher = new UserAgentRulesWatcher(file, resolver);
+		watcher.start();
+		try {
+			assertTrue(watcher.isRunning());
+			assertEquals(Collections.singletonList("iphone"), resolver.getRules().getNormalUserAgentKeywords());
+			Path updated = folder.newFile("rules.tmp").toPath();
+			write(updated, "[normal]\nipad\n");
+			Files.move(updated, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+			long deadline = System.currentTimeMillis() + 30000;
+			while (!resolver.getRules().getNormalUserAgentKeywords().contains("ipad")
+					&& System.currentTimeMillis() < deadline) {
+				Thread.sleep(50);
+			}
+			assertEquals(Collections.singletonList("ipad"), resolver.getRules().getNormalUserAgentKeywords());
+		}
+		finally {
+			watcher.stop();
+		}
+		assertFalse(watcher.isRunning());
+	}
+
+	@Test
+	public void watchInApplicationContext() throws IOException {
+		Path file = folder.newFile("rules.txt").toPath();
+		write(file, "[normal]\niphone\n");
+		LiteDeviceResolver resolver = new LiteDeviceResolver();
+		UserAgentRulesWatcher watcher = new UserAgentRulesWatcher(file, resolver);
+		StaticApplicationContext context = new StaticApplicationContext();
+		context.getBeanFactory().registerSingleton("userAgentRulesWatcher", watcher);
+		context.refresh();
+		try {
+			assertTrue(watcher.isRunning());
+			assertEquals(Collections.singletonList("iphone"), resolver.getRules().getNormalUserAgentKeywords());
+		}
+		finally {
+			context.close();
+		}
+		assertFalse(watcher.isRunning());
+	}
+
+	private static void write(Path file, String content) throws IOException {
+		Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+	}
+
+}
@@ -29,6 +29,7 @@ import org.springframework.mock.web.MockHttpServletRequest;
 import org.springframework.mock.web.MockHttpServletResponse;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.util.ReflectionTestUtils;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -67,4 +68,14 @@ public class AlwaysIphoneDeviceResolverAnnotationTest {
 		assertThat(device.getDevicePlatform()).isEqualByComparingTo(DevicePlatform.IOS);
 	}
 
+	@Test
+	public void sharedDeviceResolver() {
+		Object interceptorResolver = ReflectionTestUtils.getField(
+				this.context.getBean("deviceResolverHandlerInterceptor"), "deviceResolver");
+		Object argumentResolverResolver = ReflectionTestUtils.getField(
+				this.context.getBean("deviceHandlerMethodArgumentResolver"), "deviceResolver");
+		assertThat(interceptorResolver).isNotNull();
+		assertThat(argumentResolverResolver).isSameAs(interceptorResolver);
+	}
+
 }
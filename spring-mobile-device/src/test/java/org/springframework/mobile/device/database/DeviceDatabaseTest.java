@@ -0,0 +1,193 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.database;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assume.assumeTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.StringReader;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.ExpectedException;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.mobile.device.DevicePlatform;
+import org.springframework.mobile.device.DeviceType;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+public class DeviceDatabaseTest {
+
+	private static final String RULES = "# pattern\tfamily\ttype\tplatform\n"
+			+ "kindle fire\tkindle-fire\tTABLET\tANDROID\n"
+			+ "\n"
+			+ "aftb\tfire-tv\tnormal\tandroid\n"
+			+ "Nexus 7\tnexus-7\tTABLET\tANDROID\n"
+			+ "android\tandroid-phone\tMOBILE\tANDROID\n"
+			+ "kindle\tkindle\tTABLET\tUNKNOWN\n";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Rule
+	public ExpectedException thrown = ExpectedException.none();
+
+	@Test
+	public void lookup() throws IOException {
+		DeviceDatabase database = open(new DeviceDatabaseBuilder().read(new StringReader(RULES)));
+		assertEquals(5, database.getRuleCount());
+		assertEquals(5, database.getFamilyCount());
+		DatabaseDevice device = database.lookup("Mozilla/5.0 (Linux; Android 4.1.2; Nexus 7 Build/JZ054K)");
+		assertEquals("nexus-7", device.getFamily());
+		assertTrue(device.isTablet());
+		assertEquals(DevicePlatform.ANDROID, device.getDevicePlatform());
+		assertEquals("android-phone", database.lookup("Mozilla/5.0 (Linux; Android 4.4; SM-G900)").getFamily());
+		assertEquals("fire-tv", database.lookup("Mozilla/5.0 (Linux; Android 5.1; AFTB Build)").getFamily());
+		assertTrue(database.lookup("AFTB").isNormal());
+		assertNull(database.lookup("Mozilla/5.0 (Windows NT 10.0; Win64; x64)"));
+		assertNull(database.lookup(""));
+	}
+
+	@Test
+	public void firstRuleWins() throws IOException {
+		DeviceDatabase database = open(new DeviceDatabaseBuilder().read(new StringReader(RULES)));
+		assertEquals("kindle-fire", database.lookup("Silk Kindle Fire Android").getFamily());
+		assertEquals("kindle", database.lookup("kindle fir").getFamily());
+		assertSame(database.lookup("kindle/3.0"), database.lookup("KINDLE/3.0"));
+	}
+
+	@Test
+	public void sameResultAsContains() throws IOException {
+		Random random = new Random(42);
+		String alphabet = "abcdef ";
+		List<String> patterns = new ArrayList<String>();
+		DeviceDatabaseBuilder builder = new DeviceDatabaseBuilder();
+		for (int i = 0; i < 300; i++) {
+			String pattern = randomString(random, alphabet, 1 + random.nextInt(6));
+			patterns.add(pattern);
+			builder.addRule(pattern, "family" + i, DeviceType.MOBILE, DevicePlatform.UNKNOWN);
+		}
+		DeviceDatabase database = open(builder);
+		for (int i = 0; i < 5000; i++) {
+			String userAgent = randomString(random, alphabet + "ABCDEF", random.nextInt(40));
+			String expected = null;
+			for (int rule = 0; rule < patterns.size(); rule++) {
+				if (userAgent.toLowerCase().contains(patterns.get(rule))) {
+					expected = "family" + rule;
+					break;
+				}
+			}
+			DatabaseDevice device = database.lookup(userAgent);
+			assertEquals(userAgent, expected, (device != null ? device.getFamily() : null));
+		}
+	}
+
+	@Test
+	public void inMemoryDatabase() throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		new DeviceDatabaseBuilder().read(new StringReader(RULES)).write(out);
+		DeviceDatabase database = DeviceDatabase.of(ByteBuffer.wrap(out.toByteArray()));
+		assertEquals("kindle", database.lookup("Kindle/3.0").getFamily());
+	}
+
+	@Test
+	public void resolver() throws IOException {
+		DeviceDatabaseResolver resolver = new DeviceDatabaseResolver(
+				open(new DeviceDatabaseBuilder().read(new StringReader(RULES))));
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		assertNull(resolver.resolveDevice(request));
+		request.addHeader("User-Agent", "Mozilla/5.0 (Linux; U; Android 4.0.3; en-us; KFTT Build/IML74K) Kindle Fire");
+		assertEquals("kindle-fire", ((DatabaseDevice) resolver.resolveDevice(request)).getFamily());
+	}
+
+	@Test
+	public void lookupDoesNotAllocate() throws IOException {
+		assumeTrue(ManagementFactory.getThreadMXBean() instanceof com.sun.management.ThreadMXBean);
+		com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+		assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+		DeviceDatabase database = open(new DeviceDatabaseBuilder().read(new StringReader(RULES)));
+		String[] userAgents = new String[] { "Mozilla/5.0 (Linux; Android 4.1.2; Nexus 7 Build/JZ054K)",
+				"Mozilla/5.0 (Windows NT 10.0; Win64; x64)", "Silk Kindle Fire Android" };
+		int iterations = 10000;
+		for (int i = 0; i < 5 * iterations; i++) {
+			database.lookup(userAgents[i % userAgents.length]);
+		}
+		long threadId = Thread.currentThread().getId();
+		long before = threads.getThreadAllocatedBytes(threadId);
+		for (int i = 0; i < iterations; i++) {
+			database.lookup(userAgents[i % userAgents.length]);
+		}
+		long allocated = threads.getThreadAllocatedBytes(threadId) - before;
+		assertTrue("Allocated " + allocated + " bytes", allocated < iterations);
+	}
+
+	@Test
+	public void invalidRule() throws IOException {
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("Line 2");
+		new DeviceDatabaseBuilder().read(new StringReader("# comment\nkindle\tkindle\tTABLET\n"));
+	}
+
+	@Test
+	public void invalidDeviceType() throws IOException {
+		thrown.expect(IllegalArgumentException.class);
+		thrown.expectMessage("Line 1");
+		new DeviceDatabaseBuilder().read(new StringReader("kindle\tkindle\tPHABLET\tANDROID\n"));
+	}
+
+	@Test
+	public void conflictingFamily() {
+		thrown.expect(IllegalArgumentException.class);
+		new DeviceDatabaseBuilder().addRule("kindle", "kindle", DeviceType.TABLET, DevicePlatform.UNKNOWN)
+				.addRule("silk", "kindle", DeviceType.MOBILE, DevicePlatform.UNKNOWN);
+	}
+
+	@Test
+	public void notADatabase() throws IOException {
+		File file = folder.newFile();
+		Files.write(file.toPath(), "kindle\tkindle\tTABLET\tANDROID\n".getBytes("UTF-8"));
+		thrown.expect(IOException.class);
+		thrown.expectMessage("Not a device database");
+		DeviceDatabase.open(file.toPath());
+	}
+
+	private DeviceDatabase open(DeviceDatabaseBuilder builder) throws IOException {
+		File file = folder.newFile();
+		builder.write(file.toPath());
+		return DeviceDatabase.open(file.toPath());
+	}
+
+	private static String randomString(Random random, String alphabet, int length) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return builder.toString();
+	}
+
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.log;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.springframework.mobile.device.DevicePlatform;
+import org.springframework.mobile.device.DeviceType;
+import org.springframework.mobile.device.LiteDeviceResolver;
+
+public class AccessLogClassifierTest {
+
+	private static final String IPHONE = "Mozilla/5.0 (iPhone; CPU iPhone OS 5_0 like Mac OS X) "
+			+ "AppleWebKit/534.46 (KHTML, like Gecko) Version/5.1 Mobile/9A334 Safari/7534.48.3";
+
+	private static final String IPAD = "Mozilla/5.0 (iPad; CPU OS 5_0 like Mac OS X) "
+			+ "AppleWebKit/534.46 (KHTML, like Gecko) Version/5.1 Mobile/9A334 Safari/7534.48.3";
+
+	private static final String ANDROID = "Mozilla/5.0 (Linux; U; Android 2.2; en-us; Nexus One Build/FRF91) "
+			+ "AppleWebKit/533.1 (KHTML, like Gecko) Version/4.0 Mobile Safari/533.1";
+
+	private static final String DESKTOP = "Mozilla/5.0 (Windows NT 6.1; WOW64) AppleWebKit/537.36 "
+			+ "(KHTML, like Gecko) Chrome/41.0.2228.0 Safari/537.36";
+
+	@Rule
+	public TemporaryFolder folder = new TemporaryFolder();
+
+	@Test
+	public void classify() throws IOException {
+		File log = write(line(IPHONE) + line(IPAD) + line(ANDROID) + line(DESKTOP) + line(IPHONE)
+				+ "\n127.0.0.1 - - malformed\n" + line("-") + line("Mozilla/5.0 (\\\"quoted\\\"; iPhone)")
+				+ line(DESKTOP).trim());
+		DeviceCounts counts = new AccessLogClassifier().classify(log.toPath());
+		assertCounts(counts);
+	}
+
+	@Test
+	public void classifyInChunks() throws IOException {
+		File log = write(line(IPHONE) + line(IPAD) + line(ANDROID) + line(DESKTOP) + line(IPHONE)
+				+ "\n127.0.0.1 - - malformed\r\n" + line("-") + line("Mozilla/5.0 (\\\"quoted\\\"; iPhone)")
+				+ line(DESKTOP).trim());
+		ForkJoinPool pool = new ForkJoinPool(4);
+		try {
+			AccessLogClassifier classifier = new AccessLogClassifier(new LiteDeviceResolver(), pool);
+			for (int chunkSize = 1; chunkSize < 600; chunkSize += 37) {
+				classifier.setChunkSize(chunkSize);
+				assertCounts(classifier.classify(log.toPath()));
+			}
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+
+	@Test
+	public void classifyManyUserAgents() throws IOException {
+		StringBuilder content = new StringBuilder();
+		for (int i = 0; i < 20000; i++) {
+			content.append(line((i % 2 == 0 ? IPHONE : DESKTOP) + " " + (i % 5000)));
+		}
+		AccessLogClassifier classifier = new AccessLogClassifier();
+		classifier.setChunkSize(64 * 1024);
+		DeviceCounts counts = classifier.classify(write(content.toString()).toPath());
+		assertEquals(20000, counts.getLineCount());
+		assertEquals(10000, counts.getCount(DeviceType.MOBILE, DevicePlatform.IOS));
+		assertEquals(10000, counts.getCount(DeviceType.NORMAL, DevicePlatform.UNKNOWN));
+	}
+
+	@Test
+	public void classifyEmpty() throws IOException {
+		DeviceCounts counts = new AccessLogClassifier().classify(write("").toPath());
+		assertEquals(0, counts.getLineCount());
+		assertEquals(0, counts.getUnclassifiedLineCount());
+	}
+
+	private static void assertCounts(DeviceCounts counts) {
+		assertEquals(8, counts.getLineCount());
+		assertEquals(1, counts.getUnclassifiedLineCount());
+		assertEquals(4, counts.getCount(DeviceType.MOBILE));
+		assertEquals(1, counts.getCount(DeviceType.TABLET));
+		assertEquals(3, counts.getCount(DeviceType.NORMAL));
+		assertEquals(4, counts.getCount(DevicePlatform.IOS));
+		assertEquals(1, counts.getCount(DevicePlatform.ANDROID));
+		assertEquals(3, counts.getCount(DeviceType.MOBILE, DevicePlatform.IOS));
+		assertEquals(1, counts.getCount(DeviceType.TABLET, DevicePlatform.IOS));
+	}
+
+	private File write(String content) throws IOException {
+		File log = this.folder.newFile();
+		Files.write(log.toPath(), content.getBytes(StandardCharsets.UTF_8));
+		return log;
+	}
+
+	private static String line(String userAgent) {
+		return "127.0.0.1 - - [10/Oct/2018:13:55:36 +0000] \"GET /index.html HTTP/1.1\" 200 2326 "
+				+ "\"https://example.com/\" \"" + userAgent + "\"\n";
+	}
+
+}
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.matcher;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class AhoCorasickUserAgentMatcherTest {
+
+	private static final List<String> NORMAL = Arrays.asList("mac os", "windows nt");
+
+	private static final List<String> TABLET = Arrays.asList("ipad", "playbook", "hp-tablet", "kindle");
+
+	private static final List<String> MOBILE = Arrays.asList("blackberry", "webos", "ipod", "lge vx",
+			"midp", "maemo", "mmp", "mobile", "netfront", "hiptop", "nintendo DS", "novarra", "openweb",
+			"opera mobi", "opera mini", "palm", "psp", "phone", "smartphone", "symbian", "up.browser",
+			"up.link", "wap", "windows ce");
+
+	private final UserAgentMatcher matcher = new AhoCorasickUserAgentMatcher(NORMAL, TABLET, MOBILE);
+
+	@Test
+	public void empty() {
+		assertEquals(0, matcher.match(""));
+	}
+
+	@Test
+	public void desktop() {
+		assertEquals(UserAgentMatcher.NORMAL_KEYWORD, matcher.match("mozilla/5.0 (windows nt 6.1; trident/7.0; rv:11.0) like gecko"));
+	}
+
+	@Test
+	public void iphone() {
+		int matches = matcher.match("mozilla/5.0 (iphone; cpu iphone os 5_0 like mac os x) mobile/9a334");
+		assertEquals(UserAgentMatcher.NORMAL_KEYWORD | UserAgentMatcher.MOBILE_KEYWORD | UserAgentMatcher.IPHONE
+				| UserAgentMatcher.MOBILE, matches);
+	}
+
+	@Test
+	public void overlappingKeywords() {
+		// "smartphone" contains "phone", "ipod" is both a keyword and a special case
+		assertEquals(UserAgentMatcher.MOBILE_KEYWORD, matcher.match("smartphone"));
+		assertEquals(UserAgentMatcher.MOBILE_KEYWORD | UserAgentMatcher.IPOD, matcher.match("xipodx"));
+		assertEquals(UserAgentMatcher.TABLET_KEYWORD | UserAgentMatcher.IPAD, matcher.match("ipad"));
+	}
+
+	@Test
+	public void failureTransitions() {
+		assertEquals(UserAgentMatcher.SILK, matcher.match("sisilk"));
+		assertEquals(UserAgentMatcher.ANDROID, matcher.match("andandroid"));
+		assertEquals(0, matcher.match("androi"));
+	}
+
+	@Test
+	public void upperCaseKeywordNeverMatchesLowerCaseInput() {
+		assertEquals(0, matcher.match("nintendo ds"));
+	}
+
+	@Test
+	public void upperCaseInputMatchesLowerCaseKeywords() {
+		assertEquals(matcher.match("mozilla/5.0 (iphone; cpu iphone os 5_0 like mac os x) mobile/9a334"),
+				matcher.match("Mozilla/5.0 (iPhone; CPU iPhone OS 5_0 like Mac OS X) Mobile/9A334"));
+		assertEquals(0, matcher.match("NINTENDO DS"));
+	}
+
+	@Test
+	public void emptyKeywordAlwaysMatches() {
+		UserAgentMatcher matcher = new AhoCorasickUserAgentMatcher(Collections.singletonList(""),
+				Collections.<String>emptyList(), Collections.<String>emptyList());
+		assertEquals(UserAgentMatcher.NORMAL_KEYWORD, matcher.match(""));
+		assertEquals(UserAgentMatcher.NORMAL_KEYWORD, matcher.match("anything"));
+	}
+
+	@Test
+	public void nonAsciiKeywords() {
+		UserAgentMatcher matcher = new AhoCorasickUserAgentMatcher(Collections.singletonList("été"),
+				Collections.<String>emptyList(), Collections.<String>emptyList());
+		assertEquals(UserAgentMatcher.NORMAL_KEYWORD, matcher.match("l'été"));
+		assertEquals(0, matcher.match("ete é"));
+	}
+
+	@Test
+	public void normalize() {
+		UserAgentMatcher matcher = new AhoCorasickUserAgentMatcher(Collections.singletonList("ab"),
+				Collections.<String>emptyList(), Collections.<String>emptyList());
+		assertEquals(" ab ab", matcher.normalize("xxAb12 ab"));
+		assertEquals("ab", matcher.normalize("AB"));
+		assertEquals("", matcher.normalize(""));
+	}
+
+	@Test
+	public void normalizePlaceholderOutsideKeywords() {
+		// the space occurs in a keyword, so other characters are replaced by "!"
+		assertEquals("mac os!x !", matcher.normalize("Mac OS/X 10"));
+		assertEquals("mac os!x !", matcher.normalize("Mac OS_X 10_9"));
+	}
+
+	@Test
+	public void normalizeNonAscii() {
+		UserAgentMatcher matcher = new AhoCorasickUserAgentMatcher(Collections.singletonList("été"),
+				Collections.<String>emptyList(), Collections.<String>emptyList());
+		assertEquals("l été ", matcher.normalize("l'ÉTÉ ü"));
+	}
+
+	@Test
+	public void normalizedUserAgentsMatchAlike() {
+		Random random = new Random(42);
+		String alphabet = "abcdefghijklmnopqrstuvwxyz .-/;()0123456789é";
+		String others = "/;()_0123456789ü";
+		for (int i = 0; i < 20000; i++) {
+			StringBuilder builder = new StringBuilder();
+			StringBuilder variant = new StringBuilder();
+			int length = random.nextInt(60);
+			for (int j = 0; j < length; j++) {
+				if (random.nextInt(8) == 0) {
+					List<String> source = random.nextBoolean() ? MOBILE : TABLET;
+					String keyword = source.get(random.nextInt(source.size()));
+					builder.append(keyword);
+					variant.append(random.nextBoolean() ? keyword.toUpperCase() : keyword);
+				}
+				else {
+					char c = alphabet.charAt(random.nextInt(alphabet.length()));
+					builder.append(c);
+					if (others.indexOf(c) >= 0) {
+						for (int k = random.nextInt(3); k >= 0; k--) {
+							variant.append(others.charAt(random.nextInt(others.length())));
+						}
+					}
+					else {
+						variant.append(c);
+					}
+				}
+			}
+			String userAgent = builder.toString();
+			assertEquals(userAgent, matcher.normalize(userAgent), matcher.normalize(variant));
+			assertEquals(userAgent, expected(userAgent.toLowerCase()), expected(variant.toString().toLowerCase()));
+		}
+	}
+
+	@Test
+	public void sameResultAsContains() {
+		Random random = new Random(42);
+		String alphabet = "abcdefghijklmnopqrstuvwxyz .-/;()0123456789é";
+		for (int i = 0; i < 20000; i++) {
+			StringBuilder builder = new StringBuilder();
+			int length = random.nextInt(60);
+			for (int j = 0; j < length; j++) {
+				if (random.nextInt(8) == 0) {
+					List<String> source = random.nextBoolean() ? MOBILE : TABLET;
+					builder.append(source.get(random.nextInt(source.size())));
+				}
+				else {
+					builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+				}
+			}
+			String userAgent = builder.toString();
+			int expected = expected(userAgent.toLowerCase());
+			assertEquals(userAgent, expected, matcher.match(userAgent));
+			assertEquals(userAgent, expected, matcher.match(userAgent.toUpperCase()));
+		}
+	}
+
+	private static int expected(String userAgent) {
+		int matches = 0;
+		matches |= containsAny(userAgent, NORMAL) ? UserAgentMatcher.NORMAL_KEYWORD : 0;
+		matches |= containsAny(userAgent, TABLET) ? UserAgentMatcher.TABLET_KEYWORD : 0;
+		matches |= containsAny(userAgent, MOBILE) ? UserAgentMatcher.MOBILE_KEYWORD : 0;
+		matches |= userAgent.contains("android") ? UserAgentMatcher.ANDROID : 0;
+		matches |= userAgent.contains("mobile") ? UserAgentMatcher.MOBILE : 0;
+		matches |= userAgent.contains("iphone") ? UserAgentMatcher.IPHONE : 0;
+		matches |= userAgent.contains("ipod") ? UserAgentMatcher.IPOD : 0;
+		matches |= userAgent.contains("ipad") ? UserAgentMatcher.IPAD : 0;
+		matches |= userAgent.contains("silk") ? UserAgentMatcher.SILK : 0;
+		return matches;
+	}
+
+	private static boolean containsAny(String userAgent, List<String> keywords) {
+		for (String keyword : keywords) {
+			if (userAgent.contains(keyword)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+}
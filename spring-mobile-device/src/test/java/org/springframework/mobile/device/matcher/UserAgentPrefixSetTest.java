@@ -0,0 +1,97 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.matcher;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import org.junit.Test;
+
+public class UserAgentPrefixSetTest {
+
+	private final UserAgentPrefixSet prefixes = new UserAgentPrefixSet(
+			Arrays.asList("noki", "sams", "mot-", "w3c ", "ipaq", "sie-"));
+
+	@Test
+	public void matchesLowerCasedPrefix() {
+		assertTrue(prefixes.matches("Nokia6600/1.0"));
+		assertTrue(prefixes.matches("SAMSUNG-SGH"));
+		assertTrue(prefixes.matches("w3c "));
+		assertFalse(prefixes.matches("Mozilla/5.0"));
+	}
+
+	@Test
+	public void shortUserAgent() {
+		assertFalse(prefixes.matches(""));
+		assertFalse(prefixes.matches("nok"));
+	}
+
+	@Test
+	public void invalidPrefixesNeverMatch() {
+		UserAgentPrefixSet prefixes = new UserAgentPrefixSet(Arrays.asList("nokia", "sam", null, "MOT-"));
+		assertFalse(prefixes.matches("nokia"));
+		assertFalse(prefixes.matches("samsung"));
+		assertFalse(prefixes.matches("mot-razr"));
+	}
+
+	@Test
+	public void widePrefixes() {
+		UserAgentPrefixSet prefixes = new UserAgentPrefixSet(Arrays.asList("жжab", "étés"));
+		assertTrue(prefixes.matches("Жжab"));
+		assertTrue(prefixes.matches("Étés"));
+		assertFalse(prefixes.matches("жжac"));
+	}
+
+	@Test
+	public void zeroPrefix() {
+		UserAgentPrefixSet prefixes = new UserAgentPrefixSet(Collections.singletonList("\0\0\0\0"));
+		assertTrue(prefixes.matches("\0\0\0\0x"));
+		assertFalse(new UserAgentPrefixSet(Collections.<String>emptyList()).matches("\0\0\0\0"));
+	}
+
+	@Test
+	public void sameResultAsContains() {
+		Random random = new Random(42);
+		String alphabet = "abcdefgh-";
+		List<String> source = new ArrayList<String>();
+		for (int i = 0; i < 200; i++) {
+			source.add(randomString(random, alphabet, 4));
+		}
+		UserAgentPrefixSet prefixes = new UserAgentPrefixSet(source);
+		for (int i = 0; i < 20000; i++) {
+			String userAgent = randomString(random, alphabet.toUpperCase() + alphabet, 6);
+			assertEquals(userAgent, source.contains(userAgent.substring(0, 4).toLowerCase()),
+					prefixes.matches(userAgent));
+		}
+	}
+
+	private static String randomString(Random random, String alphabet, int length) {
+		StringBuilder builder = new StringBuilder();
+		for (int i = 0; i < length; i++) {
+			builder.append(alphabet.charAt(random.nextInt(alphabet.length())));
+		}
+		return builder.toString();
+	}
+
+}
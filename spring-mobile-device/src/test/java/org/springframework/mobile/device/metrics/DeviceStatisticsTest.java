@@ -0,0 +1,90 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+
+import org.junit.Test;
+import org.springframework.mobile.device.DeviceType;
+import org.springframework.mobile.device.LiteDevice;
+import org.springframework.mobile.device.site.SitePreference;
+
+public class DeviceStatisticsTest {
+
+	private final AtomicLong time = new AtomicLong();
+
+	private final DeviceStatistics statistics = new DeviceStatistics(Duration.ofSeconds(10), new LongSupplier() {
+
+		@Override
+		public long getAsLong() {
+			return time.get();
+		}
+
+	});
+
+	@Test
+	public void recordsTotals() {
+		statistics.recordResolution(100, LiteDevice.MOBILE_INSTANCE);
+		statistics.recordResolution(300, LiteDevice.TABLET_INSTANCE);
+		statistics.recordResolution(200, null);
+		statistics.recordSitePreference(SitePreference.MOBILE);
+		statistics.recordSiteSwitch(SitePreference.NORMAL);
+		statistics.recordSiteSwitch(SitePreference.NORMAL);
+		assertEquals(3, statistics.getResolutionCount());
+		assertEquals(Duration.ofNanos(600), statistics.getResolutionTime());
+		assertEquals(Long.valueOf(1), statistics.getDeviceTypes().get(DeviceType.MOBILE));
+		assertEquals(Long.valueOf(1), statistics.getDeviceTypes().get(DeviceType.TABLET));
+		assertEquals(Long.valueOf(0), statistics.getDeviceTypes().get(DeviceType.NORMAL));
+		assertEquals(Long.valueOf(1), statistics.getSitePreferences().get(SitePreference.MOBILE));
+		assertEquals(Long.valueOf(2), statistics.getSiteSwitches().get(SitePreference.NORMAL));
+		assertEquals(Long.valueOf(0), statistics.getSiteSwitches().get(SitePreference.MOBILE));
+	}
+
+	@Test
+	public void recentDeviceTypesSlide() {
+		statistics.recordResolution(0, LiteDevice.MOBILE_INSTANCE);
+		time.set(Duration.ofSeconds(5).toNanos());
+		statistics.recordResolution(0, LiteDevice.TABLET_INSTANCE);
+		assertEquals(Long.valueOf(1), statistics.getRecentDeviceTypes().get(DeviceType.MOBILE));
+		assertEquals(Long.valueOf(1), statistics.getRecentDeviceTypes().get(DeviceType.TABLET));
+		time.set(Duration.ofSeconds(12).toNanos());
+		assertEquals(Long.valueOf(0), statistics.getRecentDeviceTypes().get(DeviceType.MOBILE));
+		assertEquals(Long.valueOf(1), statistics.getRecentDeviceTypes().get(DeviceType.TABLET));
+		statistics.recordResolution(0, LiteDevice.NORMAL_INSTANCE);
+		// replaces the slice of the mobile device
+		time.set(Duration.ofSeconds(20).toNanos());
+		statistics.recordResolution(0, LiteDevice.NORMAL_INSTANCE);
+		assertEquals(Long.valueOf(0), statistics.getRecentDeviceTypes().get(DeviceType.MOBILE));
+		assertEquals(Long.valueOf(0), statistics.getRecentDeviceTypes().get(DeviceType.TABLET));
+		assertEquals(Long.valueOf(2), statistics.getRecentDeviceTypes().get(DeviceType.NORMAL));
+		assertEquals(Long.valueOf(1), statistics.getDeviceTypes().get(DeviceType.MOBILE));
+		assertEquals(Duration.ofSeconds(10), statistics.getWindow());
+	}
+
+	@Test
+	public void negativeTicker() {
+		time.set(-Duration.ofSeconds(3).toNanos());
+		statistics.recordResolution(0, LiteDevice.MOBILE_INSTANCE);
+		time.set(Duration.ofSeconds(3).toNanos());
+		assertEquals(Long.valueOf(1), statistics.getRecentDeviceTypes().get(DeviceType.MOBILE));
+	}
+
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.mobile.device.Device;
+import org.springframework.mobile.device.DeviceResolver;
+import org.springframework.mobile.device.LazyDeviceResolver;
+import org.springframework.mobile.device.LiteDeviceResolver;
+import org.springframework.mock.web.MockHttpServletRequest;
+
+public class MeteredDeviceResolverTest {
+
+	private static final String IPHONE = "Mozilla/5.0 (iPhone; CPU iPhone OS 5_0 like Mac OS X) "
+			+ "AppleWebKit/534.46 (KHTML, like Gecko) Version/5.1 Mobile/9A334 Safari/7534.48.3";
+
+	private static final String IPAD = "Mozilla/5.0 (iPad; CPU OS 5_0 like Mac OS X) "
+			+ "AppleWebKit/534.46 (KHTML, like Gecko) Version/5.1 Mobile/9A334 Safari/7534.48.3";
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+
+	private final DeviceResolver resolver = new MeteredDeviceResolver(new LiteDeviceResolver(),
+			new DeviceMetrics(registry));
+
+	@Test
+	public void metersRegisteredUpFront() {
+		assertEquals(0, registry.get(DeviceMetrics.RESOLUTION_METRIC).timer().count());
+		assertEquals(9, registry.get(DeviceMetrics.DEVICES_METRIC).meters().size());
+		assertEquals(3, registry.get(DeviceMetrics.SITE_PREFERENCES_METRIC).meters().size());
+		assertEquals(3, registry.get(DeviceMetrics.SITE_SWITCHES_METRIC).meters().size());
+	}
+
+	@Test
+	public void recordsResolutions() {
+		assertTrue(resolver.resolveDevice(request(IPHONE)).isMobile());
+		assertTrue(resolver.resolveDevice(request(IPHONE)).isMobile());
+		assertTrue(resolver.resolveDevice(request(IPAD)).isTablet());
+		assertEquals(3, registry.get(DeviceMetrics.RESOLUTION_METRIC).timer().count());
+		assertEquals(2, count("MOBILE", "IOS"), 0);
+		assertEquals(1, count("TABLET", "IOS"), 0);
+		assertEquals(0, count("NORMAL", "UNKNOWN"), 0);
+	}
+
+	@Test
+	public void lazyDevicesRecordedOnFirstUse() {
+		DeviceResolver lazy = new LazyDeviceResolver(resolver);
+		Device device = lazy.resolveDevice(request(IPHONE));
+		assertEquals(0, registry.get(DeviceMetrics.RESOLUTION_METRIC).timer().count());
+		assertTrue(device.isMobile());
+		assertEquals(1, registry.get(DeviceMetrics.RESOLUTION_METRIC).timer().count());
+		assertEquals(1, count("MOBILE", "IOS"), 0);
+	}
+
+	private double count(String type, String platform) {
+		return registry.get(DeviceMetrics.DEVICES_METRIC).tag("type", type).tag("platform", platform).counter()
+				.count();
+	}
+
+	private static MockHttpServletRequest request(String userAgent) {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.addHeader("User-Agent", userAgent);
+		return request;
+	}
+
+}
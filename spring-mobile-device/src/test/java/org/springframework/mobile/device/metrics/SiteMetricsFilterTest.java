@@ -0,0 +1,90 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.metrics;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+
+import javax.servlet.FilterChain;
+import javax.servlet.ServletException;
+import javax.servlet.ServletRequest;
+import javax.servlet.ServletResponse;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.mobile.device.DeviceUtils;
+import org.springframework.mobile.device.LiteDevice;
+import org.springframework.mobile.device.site.SitePreference;
+import org.springframework.mobile.device.site.SitePreferenceHandler;
+import org.springframework.mobile.device.switcher.SiteSwitcherHandlerInterceptor;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+public class SiteMetricsFilterTest {
+
+	private final MeterRegistry registry = new SimpleMeterRegistry();
+
+	private final SiteMetricsFilter filter = new SiteMetricsFilter(new DeviceMetrics(registry));
+
+	@Test
+	public void recordsSitePreference() throws Exception {
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setAttribute(SitePreferenceHandler.CURRENT_SITE_PREFERENCE_ATTRIBUTE, SitePreference.TABLET);
+		filter.doFilter(request, new MockHttpServletResponse(), new MockFilterChain());
+		filter.doFilter(new MockHttpServletRequest(), new MockHttpServletResponse(), new MockFilterChain());
+		assertEquals(1, preferences("TABLET"), 0);
+		assertEquals(0, preferences("NORMAL"), 0);
+	}
+
+	@Test
+	public void recordsSiteSwitch() throws Exception {
+		final SiteSwitcherHandlerInterceptor interceptor = SiteSwitcherHandlerInterceptor.mDot("app.com");
+		MockHttpServletRequest request = new MockHttpServletRequest();
+		request.setServerName("app.com");
+		request.setAttribute(DeviceUtils.CURRENT_DEVICE_ATTRIBUTE, LiteDevice.MOBILE_INSTANCE);
+		MockHttpServletResponse response = new MockHttpServletResponse();
+		filter.doFilter(request, response, new FilterChain() {
+			public void doFilter(ServletRequest request, ServletResponse response)
+					throws IOException, ServletException {
+				try {
+					interceptor.preHandle((HttpServletRequest) request, (HttpServletResponse) response, null);
+				}
+				catch (Exception ex) {
+					throw new ServletException(ex);
+				}
+			}
+		});
+		assertEquals("http://m.app.com", response.getRedirectedUrl());
+		assertEquals(1, switches("MOBILE"), 0);
+		assertEquals(1, preferences("MOBILE"), 0);
+		assertEquals(0, switches("NORMAL"), 0);
+	}
+
+	private double preferences(String preference) {
+		return registry.get(DeviceMetrics.SITE_PREFERENCES_METRIC).tag("preference", preference).counter().count();
+	}
+
+	private double switches(String site) {
+		return registry.get(DeviceMetrics.SITE_SWITCHES_METRIC).tag("site", site).counter().count();
+	}
+
+}
@@ -0,0 +1,71 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.reactive;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+import org.springframework.core.MethodParameter;
+import org.springframework.mobile.device.Device;
+import org.springframework.mobile.device.DeviceUtils;
+import org.springframework.mobile.device.StubDevice;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.bind.annotation.RequestMapping;
+
+public class DeviceMethodArgumentResolverTest {
+
+	private DeviceMethodArgumentResolver resolver = new DeviceMethodArgumentResolver();
+
+	private MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+
+	private Device device = new StubDevice();
+
+	@Test
+	public void resolve() throws Exception {
+		exchange.getAttributes().put(DeviceUtils.CURRENT_DEVICE_ATTRIBUTE, device);
+		MethodParameter parameter = new MethodParameter(getClass().getMethod("handlerMethod", Device.class), 0);
+		assertTrue(resolver.supportsParameter(parameter));
+		assertSame(device, resolver.resolveArgument(parameter, null, exchange).block());
+	}
+
+	@Test
+	public void resolveNoDevice() throws Exception {
+		MethodParameter parameter = new MethodParameter(getClass().getMethod("handlerMethod", Device.class), 0);
+		assertNull(resolver.resolveArgument(parameter, null, exchange).block());
+	}
+
+	@Test
+	public void unresolved() throws Exception {
+		MethodParameter parameter = new MethodParameter(getClass().getMethod("handlerMethodUnresolved", String.class), 0);
+		assertFalse(resolver.supportsParameter(parameter));
+	}
+
+	@RequestMapping
+	public void handlerMethod(Device device) {
+
+	}
+
+	@RequestMapping
+	public void handlerMethodUnresolved(String foo) {
+
+	}
+
+}
@@ -0,0 +1,126 @@
+/*
+ * Copyright 2010-2018 the original author or authors.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *      https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package org.springframework.mobile.device.reactive;
+
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import reactor.core.publisher.Mono;
+
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mobile.device.Device;
+import org.springframework.mobile.device.DeviceUtils;
+import org.springframework.mobile.device.HttpHeadersDeviceResolver;
+import org.springframework.mobile.device.StubDevice;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+
+public class DeviceResolverWebFilterTest {
+
+	private Device device = new StubDevice();
+
+	private DeviceResolverWebFilter filter = new DeviceResolverWebFilter(new HttpHeadersDeviceResolver() {
+		public Device resolveDevice(HttpHeaders headers) {
+			return device;
+		}
+	});
+
+	private ServerWebExchange filteredExchange;
+
+	private WebFilterChain chain = new WebFilterChain() {
+		public Mono<Void> filter(ServerWebExchange exchange) {
+			filteredExchange = exchange;
+			return Mono.empty();
+		}
+	};
+
+	@Test
+	public void resolve() {
+		assertSame(device, filter(MockServerHttpRequest.get("/")));
+		assertSame(device, ReactiveDeviceUtils.getRequiredCurrentDevice(filteredExchange));
+	}
+
+	@Test
+	public void resolveDefaultResolver() {
+		filter = new DeviceResolverWebFilter();
+		Device device = filter(MockServerHttpRequest.get("/").header("User-Agent", "Mozilla/5.0 (iPhone; U; CPU iPhone OS 4_0 like Mac OS X; en-us) AppleWebKit/532.9 (KHTML, like Gecko) Version/4.0.5 Mobile/8A293 Safari/6531.22.7"));
+		assertTrue(device.isMobile());
+	}
+
+	@Test
+	public void resolveNull() {
+		filter = new DeviceResolverWebFilter(new HttpHeadersDeviceResolver() {
+			public Device resolveDevice(HttpHeaders headers) {
+				return null;
+			}
+		});
+		assertNull(filter(MockServerHttpRequest.get("/")));
+	}
+
+	@Test
+	public void excludePathPatterns() {
+		filter.setExcludePathPatterns("/static/**", "/**/*.css", "/favicon.ico");
+		assertSame(device, filter(MockServerHttpRequest.get("/app/index.html").contextPath("/app")));
+		assertNull(filter(MockServerHttpRequest.get("/app/static/js/app.js").contextPath("/app")));
+		assertNull(filter(MockServerHttpRequest.get("/app/css/site.css").contextPath("/app")));
+		assertNull(filter(MockServerHttpRequest.get("/favicon.ico;v=2")));
+		assertSame(device, filter(MockServerHttpRequest.get("/statics")));
+	}
+
+	@Test
+	public void pathPatternsIgnorePathParameters() throws Exception {
+		filter.setExcludePathPatterns("/app/x/**");
+		assertNull(filter(MockServerHttpRequest.get("/app;v=1/x/view")));
+		assertNull(filter(MockServerHttpRequest.get("/shop/app/x;v=2/view").contextPath("/shop")));
+		assertSame(device, filter(MockServerHttpRequest.get("/app;v=1/y/view")));
+	}
+
+	@Test
+	public void includePathPatterns() {
+		filter.setIncludePathPatterns("/", "/products/**");
+		filter.setExcludePathPatterns("/products/*/images/**");
+		assertSame(device, filter(MockServerHttpRequest.get("/")));
+		assertSame(device, filter(MockServerHttpRequest.get("/products/42")));
+		assertNull(filter(MockServerHttpRequest.get("/products/42/images/front.png")));
+		assertNull(filter(MockServerHttpRequest.get("/account")));
+	}
+
+	@Test
+	public void existingDevice() {
+		Device existing = new StubDevice();
+		MockServerWebExchange exchange = MockServerWebExchange.from(MockServerHttpRequest.get("/"));
+		exchange.getAttributes().put(DeviceUtils.CURRENT_DEVICE_ATTRIBUTE, existing);
+		filter.filter(exchange, chain).block();
+		assertSame(existing, ReactiveDeviceUtils.getCurrentDevice(filteredExchange));
+	}
+
+	@Test(expected = IllegalStateException.class)
+	public void requiredCurrentDeviceNotResolved() {
+		ReactiveDeviceUtils.getRequiredCurrentDevice(MockServerWebExchange.from(MockServerHttpRequest.get("/")));
+	}
+
+	private Device filter(MockServerHttpRequest.BaseBuilder<?> request) {
+		filteredExchange = null;
+		filter.filter(MockServerWebExchange.from(request), chain).block();
+		return ReactiveDeviceUtils.getCurrentDevice(filteredExchange);
+	}
+
+}